@@ -86,6 +86,94 @@ public abstract class BaseComparisonCommand extends BaseCommand {
         }
     }
 
+    /// Logs the outcome of a [CompareResult], and determines if the compatibility check passed:
+    /// it fails on incompatibilities and, in CI mode, on any table or schema change.
+    ///
+    /// @param res The [CompareResult] to check
+    /// @return `true` if the compatibility check passed
+    protected boolean checkPassed(final CompareResult res) {
+        boolean checkPassed = true;
+
+        if (res.truncated()) {
+            LOG.warn("Comparison stopped at the first failure (fail-fast): results are partial");
+        }
+
+        // Were there incompatibilities detected?
+        if (res.incompatibilitiesTotal() > 0) {
+            checkPassed = false;
+
+            LOG.error("Incompatibilities: {}", res.incompatibilitiesTotal());
+            LOG.error("  Key Incompatibilities: {}", res.keyIncompatibilitiesTotal());
+            LOG.error("  Value Incompatibilities: {}", res.valueIncompatibilitiesTotal());
+            LOG.error("  Envelope Incompatibilities: {}", res.envelopeIncompatibilitiesTotal());
+            if (res.baseSchemasDir() != null) {
+                LOG.error("  Incompatibilities with BASE: {}", res.baseIncompatibilitiesTotal());
+            }
+        }
+
+        // Were there table removals/additions detected?
+        if (!res.removedTables().isEmpty()) {
+            checkPassed = !ciMode && checkPassed;
+
+            if (ciMode) {
+                LOG.error("Tables removed between CURRENT and NEXT: {}", res.removedTables().size());
+            } else {
+                LOG.warn("Tables removed between CURRENT and NEXT: {}", res.removedTables().size());
+            }
+            res.removedTables().forEach(removedTableId -> LOG.error("  {}", removedTableId));
+        }
+        if (!res.addedTables().isEmpty()) {
+            checkPassed = !ciMode && checkPassed;
+
+            if (ciMode) {
+                LOG.error("Tables added between CURRENT and NEXT: {}", res.addedTables().size());
+            } else {
+                LOG.warn("Tables added between CURRENT and NEXT: {}", res.addedTables().size());
+            }
+            res.addedTables().forEach(addedTableId -> LOG.error("  {}", addedTableId));
+        }
+
+        // Check for schema changes without table changes in CI mode
+        if (ciMode && res.hasSchemaChangesWithoutTableChanges()) {
+            checkPassed = false;
+            LOG.error("Schema changes detected in CI mode: {} tables modified", res.totalTablesWithChanges());
+
+            // Log details of what changed
+            for (String tableId : res.tablesWithChanges()) {
+                if (res.keySchemaChanged().getOrDefault(tableId, false)) {
+                    LOG.error("  Table '{}': Key schema changed", tableId);
+                }
+                if (res.valueSchemaChanged().getOrDefault(tableId, false)) {
+                    LOG.error("  Table '{}': Value schema changed", tableId);
+                }
+                if (res.envelopeSchemaChanged().getOrDefault(tableId, false)) {
+                    LOG.error("  Table '{}': Envelope schema changed", tableId);
+                }
+            }
+        } else if (res.hasAnySchemaChanges() && !ciMode) {
+            // In non-CI mode, log schema changes as warnings for visibility
+            LOG.warn("Schema changes detected: {} tables modified", res.totalTablesWithChanges());
+            for (String tableId : res.tablesWithChanges()) {
+                if (res.keySchemaChanged().getOrDefault(tableId, false)) {
+                    LOG.warn("  Table '{}': Key schema changed", tableId);
+                }
+                if (res.valueSchemaChanged().getOrDefault(tableId, false)) {
+                    LOG.warn("  Table '{}': Value schema changed", tableId);
+                }
+                if (res.envelopeSchemaChanged().getOrDefault(tableId, false)) {
+                    LOG.warn("  Table '{}': Envelope schema changed", tableId);
+                }
+            }
+        }
+
+        if (checkPassed) {
+            LOG.info("Compatibility check succeeded");
+        } else {
+            LOG.error("Compatibility check failed");
+        }
+        return checkPassed;
+    }
+
     /**
      * Logs the common input parameters for debugging.
      */
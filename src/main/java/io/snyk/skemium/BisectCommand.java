@@ -0,0 +1,126 @@
+package io.snyk.skemium;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+@Command(
+        name = "bisect",
+        headerHeading = "%n",
+        header = "Finds the commit that made Avro Schemas of Tables in a Database incompatible",
+        synopsisHeading = "%n",
+        descriptionHeading = "%nDescription:%n%n",
+        description = """
+                Given a directory of Avro Schemas of Database Tables tracked in a Git repository,
+                binary-searches its history between a GOOD and a BAD revision, for the first commit
+                where tables are incompatible with their schemas at GOOD, according to Compatibility Level.""",
+        parameterListHeading = "%nParameters:%n",
+        optionListHeading = "%nOptions:%n"
+)
+public class BisectCommand extends BaseComparisonCommand {
+    private static final Logger LOG = LoggerFactory.getLogger(BisectCommand.class);
+
+    @Parameters(
+            arity = "1",
+            index = "0",
+            paramLabel = "GOOD_REVISION",
+            description = "Git revision known to be good (e.g. tag, branch, commit)"
+    )
+    String goodRevision;
+
+    @Parameters(
+            arity = "1",
+            index = "1",
+            paramLabel = "BAD_REVISION",
+            description = "Git revision known to be bad (e.g. HEAD)"
+    )
+    String badRevision;
+
+    @Parameters(
+            arity = "1",
+            index = "2",
+            paramLabel = "SCHEMAS_PATH",
+            description = "Path of the directory with the Database Table schemas, relative to the root of the Git repository"
+    )
+    String schemasPath;
+
+    @Option(names = {"-t", "--table"},
+            split = ",",
+            defaultValue = "${env:TABLES}",
+            paramLabel = "TABLE",
+            description = "Tables to bisect (default: all); repeatable or comma-separated (env: TABLES - optional)"
+    )
+    List<String> tables = new ArrayList<>();
+
+    @Option(names = {"--repository"},
+            defaultValue = "${env:GIT_REPOSITORY}",
+            description = "Path inside the Git repository (env: GIT_REPOSITORY - optional)"
+    )
+    Path gitRepository = Path.of("");
+
+    @Override
+    public Integer call() {
+        setLogLevelFromVerbosity();
+        validate();
+        logInput();
+
+        try {
+            final BisectResult res = BisectResult.build(gitRepository, schemasPath, goodRevision, badRevision, new TreeSet<>(tables), compatibilityLevel, ciMode);
+
+            // Write output to file if specified
+            writeOutput(res);
+
+            if (!res.found()) {
+                LOG.error("No table {} between '{}' and '{}'", ciMode ? "changed" : "became incompatible", goodRevision, badRevision);
+                return 1;
+            }
+
+            LOG.info("Checked {} of {} commits", res.checksTotal(), res.commitsTotal());
+            LOG.warn("First bad commit: {} ({}, by {})", res.firstBadCommit().id(), res.firstBadCommit().summary(), res.firstBadCommit().author());
+            res.tables().forEach(tableId -> LOG.warn("  {}", tableId));
+            return 0;
+        } catch (Exception e) {
+            LOG.error("Failed to bisect Database Tables Schemas", e);
+            return 1;
+        }
+    }
+
+    private void validate() throws CommandLine.ParameterException {
+        // Normalize to a path relative to the root of the repository, as Git expects it
+        schemasPath = schemasPath.replaceAll("^(\\./)+|/+$", "");
+        if (schemasPath.equals(".")) {
+            schemasPath = "";
+        }
+
+        if (goodRevision.equals(badRevision)) {
+            throw new CommandLine.ParameterException(
+                    spec.commandLine(),
+                    "GOOD and BAD revisions must differ: " + goodRevision
+            );
+        }
+
+        // Validate output file
+        validateOutput();
+
+        LOG.debug("Input validated");
+    }
+
+    private void logInput() {
+        LOG.debug("Input");
+        LOG.debug("  Git Repository: {}", gitRepository.toAbsolutePath().normalize());
+        LOG.debug("  Schemas Path: {}", schemasPath.isEmpty() ? "<root>" : schemasPath);
+        LOG.debug("  GOOD Revision: {}", goodRevision);
+        LOG.debug("  BAD  Revision: {}", badRevision);
+        LOG.debug("  Tables: {}", tables.isEmpty() ? "<all>" : tables);
+
+        logCommonInput();
+    }
+}
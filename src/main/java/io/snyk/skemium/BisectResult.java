@@ -0,0 +1,275 @@
+package io.snyk.skemium;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.confluent.kafka.schemaregistry.CompatibilityLevel;
+import io.snyk.skemium.avro.TableAvroSchemas;
+import io.snyk.skemium.helpers.Git;
+import io.snyk.skemium.helpers.GitSchemasSource;
+import io.snyk.skemium.helpers.SchemaRegistry;
+import io.snyk.skemium.meta.MetadataFile;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/// Describes the result of bisecting the Git history of a directory of Avro Schemas, looking for the first commit
+/// where one or more tables became incompatible (or, in CI mode, changed) compared to a GOOD revision.
+///
+/// @param schemasPath               Path of the directory of Avro Schemas, relative to the root of the Git repository
+/// @param goodRevision              Revision known to be good: the tables are checked against their schemas at this revision
+/// @param badRevision               Revision known to be bad
+/// @param compatibilityLevel        [CompatibilityLevel] used during the bisection
+/// @param ciMode                    `true` if looking for the first change, instead of the first incompatibility
+/// @param tables                    Tables bisected: the ones failing at BAD, among the requested ones
+/// @param commitsTotal              Commits between GOOD (excluded) and BAD (included) that modified the directory
+/// @param checksTotal               Commits checked: at most `ceil(log2(commitsTotal)) + 1`
+/// @param firstBadCommit            First commit where the tables failed; `null` if they don't fail at BAD
+/// @param keyIncompatibilities      Key Schemas incompatibilities at [#firstBadCommit], per table
+/// @param valueIncompatibilities    Value Schemas incompatibilities at [#firstBadCommit], per table
+/// @param envelopeIncompatibilities Envelope Schemas incompatibilities at [#firstBadCommit], per table
+/// @param tablesWithChanges         Tables changed (or removed) at [#firstBadCommit]; only in CI mode
+public record BisectResult(
+        @JsonProperty(required = true, index = 0) @Nonnull String schemasPath,
+        @JsonProperty(required = true, index = 1) @Nonnull String goodRevision,
+        @JsonProperty(required = true, index = 2) @Nonnull String badRevision,
+        @JsonProperty(required = true, index = 3) @Nonnull CompatibilityLevel compatibilityLevel,
+        @JsonProperty(required = true, index = 4) boolean ciMode,
+        @JsonProperty(required = true, index = 5) @Nonnull Set<String> tables,
+        @JsonProperty(required = true, index = 6) int commitsTotal,
+        @JsonProperty(required = true, index = 7) int checksTotal,
+        @JsonProperty(index = 8) @Nullable Git.Commit firstBadCommit,
+        @JsonProperty(required = true, index = 9) @Nonnull Map<String, List<String>> keyIncompatibilities,
+        @JsonProperty(required = true, index = 10) @Nonnull Map<String, List<String>> valueIncompatibilities,
+        @JsonProperty(required = true, index = 11) @Nonnull Map<String, List<String>> envelopeIncompatibilities,
+        @JsonProperty(required = true, index = 12) @Nonnull Set<String> tablesWithChanges) {
+    private static final Logger LOG = LoggerFactory.getLogger(BisectResult.class);
+
+    /// The filename for the Avro schema of this result record.
+    public static final Path AVRO_SCHEMA_FILENAME = Path.of("skemium.bisect.result.avsc");
+
+    /// @return `true` if the commit that made the tables fail was found
+    public boolean found() {
+        return firstBadCommit != null;
+    }
+
+    /// Bisects the Git history of a directory of Avro Schemas (i.e. the output of `generate`), between a GOOD and
+    /// a BAD revision, to find the first commit where the given tables are incompatible with their schemas at GOOD.
+    ///
+    /// BAD is checked first, to find which of the tables fail; then only those are checked at each step of a binary
+    /// search over the commits that modified the directory, following first parents only (like `git bisect --first-parent`).
+    /// Like `git bisect`, it assumes that once a table fails, it keeps failing up to BAD.
+    ///
+    /// Files are read straight from the Git object database (see [GitSchemasSource]), without checking out any commit,
+    /// and only the schemas of the bisected tables are loaded (and only if their checksum differs from GOOD).
+    ///
+    /// @param gitRepoPath        Local path inside the Git repository
+    /// @param schemasPath        Path of the directory of Avro Schemas, relative to the root of the Git repository
+    /// @param goodRevision       Revision known to be good (e.g. the one consumers are running against)
+    /// @param badRevision        Revision known to be bad (e.g. `HEAD`)
+    /// @param tables             Tables to bisect; empty for all the tables at GOOD
+    /// @param compatibilityLevel [CompatibilityLevel] to apply
+    /// @param ciMode             `true` to look for the first change (or removal), instead of the first incompatibility
+    /// @return The [BisectResult]
+    /// @throws IOException
+    public static BisectResult build(@Nonnull final Path gitRepoPath,
+                                     @Nonnull final String schemasPath,
+                                     @Nonnull final String goodRevision,
+                                     @Nonnull final String badRevision,
+                                     @Nonnull final Set<String> tables,
+                                     @Nonnull final CompatibilityLevel compatibilityLevel,
+                                     final boolean ciMode) throws IOException {
+        final List<Git.Commit> commits;
+        final ObjectId goodId;
+        try (final Repository repository = Git.openRepository(gitRepoPath)) {
+            goodId = Git.resolveCommit(repository, goodRevision);
+            commits = Git.listCommits(repository, goodId, Git.resolveCommit(repository, badRevision), schemasPath);
+        }
+        LOG.debug("Commits modifying '{}' between GOOD '{}' and BAD '{}': {}", schemasPath, goodRevision, badRevision, commits.size());
+
+        try (final GitSchemasSource goodSource = GitSchemasSource.open(gitRepoPath, location(goodId.getName(), schemasPath))) {
+            final MetadataFile goodMeta = MetadataFile.loadFrom(goodSource);
+            final Set<String> targets = new TreeSet<>(tables.isEmpty() ? goodMeta.getTableIdentifiers() : tables);
+            for (final String table : targets) {
+                if (!goodMeta.getTableIdentifiers().contains(table)) {
+                    throw new IllegalArgumentException("Table not found at GOOD revision '%s': %s".formatted(goodRevision, table));
+                }
+            }
+
+            final Checker checker = new Checker(gitRepoPath, schemasPath, goodSource, goodMeta, compatibilityLevel, ciMode);
+            if (commits.isEmpty()) {
+                LOG.info("No commits modified '{}' between GOOD and BAD", schemasPath);
+                return checker.result(goodRevision, badRevision, targets, 0, null, Probe.EMPTY);
+            }
+
+            // BAD first: only the tables failing there are bisected
+            final Probe badProbe = checker.check(commits.getLast(), targets);
+            if (!badProbe.failed()) {
+                LOG.warn("No table fails at BAD revision '{}'", badRevision);
+                return checker.result(goodRevision, badRevision, targets, commits.size(), null, Probe.EMPTY);
+            }
+            final Set<String> failing = badProbe.failingTables();
+            LOG.debug("Tables failing at BAD revision '{}': {}", badRevision, failing);
+
+            // Invariant: the commit at `hi` fails, and all commits before `lo` don't
+            int lo = 0;
+            int hi = commits.size() - 1;
+            Probe firstBadProbe = badProbe;
+            while (lo < hi) {
+                final int mid = (lo + hi) >>> 1;
+                final Probe probe = checker.check(commits.get(mid), failing);
+                if (probe.failed()) {
+                    hi = mid;
+                    firstBadProbe = probe;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+
+            final Git.Commit firstBadCommit = commits.get(hi);
+            LOG.info("First bad commit: {} ({})", firstBadCommit.id(), firstBadCommit.summary());
+            return checker.result(goodRevision, badRevision, failing, commits.size(), firstBadCommit, firstBadProbe);
+        }
+    }
+
+    private static String location(final String commitId, final String schemasPath) {
+        return commitId + GitSchemasSource.SEPARATOR + schemasPath;
+    }
+
+    /// Outcome of checking the tables at one commit.
+    private record Probe(Map<String, List<String>> keyIncompatibilities,
+                         Map<String, List<String>> valueIncompatibilities,
+                         Map<String, List<String>> envelopeIncompatibilities,
+                         Set<String> tablesWithChanges) {
+        private static final Probe EMPTY = new Probe(Map.of(), Map.of(), Map.of(), Set.of());
+
+        private Set<String> failingTables() {
+            final Set<String> failing = new TreeSet<>(keyIncompatibilities.keySet());
+            failing.addAll(valueIncompatibilities.keySet());
+            failing.addAll(envelopeIncompatibilities.keySet());
+            failing.addAll(tablesWithChanges);
+            return failing;
+        }
+
+        private boolean failed() {
+            return !failingTables().isEmpty();
+        }
+    }
+
+    /// Checks tables at a commit against their schemas at GOOD, loaded once.
+    private static final class Checker {
+        private final Path gitRepoPath;
+        private final String schemasPath;
+        private final GitSchemasSource goodSource;
+        private final MetadataFile goodMeta;
+        private final CompatibilityLevel compatibilityLevel;
+        private final boolean ciMode;
+        private final Map<String, TableAvroSchemas> goodSchemas = new HashMap<>();
+        private int checks = 0;
+
+        private Checker(final Path gitRepoPath,
+                        final String schemasPath,
+                        final GitSchemasSource goodSource,
+                        final MetadataFile goodMeta,
+                        final CompatibilityLevel compatibilityLevel,
+                        final boolean ciMode) {
+            this.gitRepoPath = gitRepoPath;
+            this.schemasPath = schemasPath;
+            this.goodSource = goodSource;
+            this.goodMeta = goodMeta;
+            this.compatibilityLevel = compatibilityLevel;
+            this.ciMode = ciMode;
+        }
+
+        private Probe check(final Git.Commit commit, final Set<String> tables) throws IOException {
+            ++checks;
+            LOG.debug("Checking {} tables at commit {} ({})", tables.size(), commit.id(), commit.summary());
+
+            final Map<String, List<String>> keyIncompatibilities = new TreeMap<>();
+            final Map<String, List<String>> valueIncompatibilities = new TreeMap<>();
+            final Map<String, List<String>> envelopeIncompatibilities = new TreeMap<>();
+            final Set<String> tablesWithChanges = new TreeSet<>();
+            try (final GitSchemasSource source = GitSchemasSource.open(gitRepoPath, location(commit.id(), schemasPath))) {
+                final MetadataFile meta = MetadataFile.loadFrom(source);
+                for (final String table : tables) {
+                    if (!meta.getTableIdentifiers().contains(table)) {
+                        LOG.trace("Table '{}' removed at commit {}", table, commit.id());
+                        if (ciMode) {
+                            tablesWithChanges.add(table);
+                        }
+                        continue;
+                    }
+                    if (Objects.equals(checksum(goodMeta, table), checksum(meta, table))) {
+                        LOG.trace("Table '{}' unchanged at commit {}", table, commit.id());
+                        continue;
+                    }
+
+                    final TableAvroSchemas good = goodTableAvroSchemas(table);
+                    final TableAvroSchemas next = meta.loadTableAvroSchemas(source, table);
+                    final SchemaRegistry.CompatibilityResult res = SchemaRegistry.checkCompatibility(good, next, compatibilityLevel);
+                    if (!res.isKeyCompatible()) {
+                        keyIncompatibilities.put(table, res.keyResults());
+                    }
+                    if (!res.isValueCompatible()) {
+                        valueIncompatibilities.put(table, res.valueResults());
+                    }
+                    if (!res.isEnvelopeCompatible()) {
+                        envelopeIncompatibilities.put(table, res.envelopeResults());
+                    }
+                    if (ciMode && SchemaRegistry.detectSchemaChanges(good, next).hasAnyChanges()) {
+                        tablesWithChanges.add(table);
+                    }
+                }
+            }
+            return new Probe(keyIncompatibilities, valueIncompatibilities, envelopeIncompatibilities, tablesWithChanges);
+        }
+
+        private TableAvroSchemas goodTableAvroSchemas(final String table) throws IOException {
+            TableAvroSchemas good = goodSchemas.get(table);
+            if (good == null) {
+                good = goodMeta.loadTableAvroSchemas(goodSource, table);
+                goodSchemas.put(table, good);
+            }
+            return good;
+        }
+
+        /// Checksum of the schemas standing in for a table (i.e. the referenced table's, for references).
+        private static @Nullable String checksum(final MetadataFile meta, final String table) {
+            final String reference = meta.getReference(table);
+            return meta.schemas().get(reference != null ? reference : table);
+        }
+
+        private BisectResult result(final String goodRevision,
+                                    final String badRevision,
+                                    final Set<String> tables,
+                                    final int commitsTotal,
+                                    @Nullable final Git.Commit firstBadCommit,
+                                    final Probe probe) {
+            return new BisectResult(
+                    schemasPath,
+                    goodRevision,
+                    badRevision,
+                    compatibilityLevel,
+                    ciMode,
+                    tables,
+                    commitsTotal,
+                    checks,
+                    firstBadCommit,
+                    probe.keyIncompatibilities(),
+                    probe.valueIncompatibilities(),
+                    probe.envelopeIncompatibilities(),
+                    probe.tablesWithChanges());
+        }
+    }
+}
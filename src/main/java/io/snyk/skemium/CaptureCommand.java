@@ -0,0 +1,78 @@
+package io.snyk.skemium;
+
+import io.snyk.skemium.db.CatalogCapture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine.*;
+import picocli.CommandLine.Model.CommandSpec;
+
+import java.io.File;
+import java.nio.file.Path;
+
+@Command(
+        name = "capture",
+        headerHeading = "%n",
+        header = "Captures the catalog of a Database, to generate Avro Schema from it later",
+        synopsisHeading = "%n",
+        descriptionHeading = "%nDescription:%n%n",
+        description = """
+                Connects to Database, finds schemas and tables,
+                stores what is needed to convert their schemas to Avro Schemas in a file,
+                for 'generate --from-capture' to use without connecting to the Database.
+                Columns are excluded, and partitions handled, by 'generate'.""",
+        parameterListHeading = "%nParameters:%n",
+        optionListHeading = "%nOptions:%n"
+)
+public class CaptureCommand extends BaseCommand {
+    private static final Logger LOG = LoggerFactory.getLogger(CaptureCommand.class);
+
+    @Spec
+    CommandSpec spec;
+
+    @Mixin
+    DatabaseOptions db;
+
+    @Parameters(
+            index = "0",
+            paramLabel = "CAPTURE_FILE",
+            description = "Output file (JSON); overridden if exists"
+    )
+    Path outputFile;
+
+    @Override
+    public Integer call() {
+        setLogLevelFromVerbosity();
+        validate();
+        logInput();
+
+        try {
+            final CatalogCapture capture = db.capture();
+            capture.saveTo(outputFile);
+            LOG.info("Captured catalog of {} Tables to: {}", capture.tables().size(), outputFile.toAbsolutePath().normalize());
+            return 0;
+        } catch (Exception e) {
+            LOG.error("Failed to capture Database catalog", e);
+            return 1;
+        }
+    }
+
+    private void validate() throws ParameterException {
+        db.validate(spec.commandLine());
+
+        final File outputFileFile = outputFile.toFile();
+        if (outputFileFile.isDirectory()) {
+            throw new ParameterException(
+                    spec.commandLine(),
+                    "Output file must not be a directory: " + outputFileFile.getAbsolutePath()
+            );
+        }
+
+        LOG.debug("Input validated");
+    }
+
+    private void logInput() {
+        db.logInput();
+        LOG.debug("Output");
+        LOG.debug("  File: {} (exists: {})", outputFile.toAbsolutePath().normalize(), outputFile.toFile().exists());
+    }
+}
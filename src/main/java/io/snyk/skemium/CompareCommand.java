@@ -1,13 +1,29 @@
 package io.snyk.skemium;
 
+import io.confluent.kafka.schemaregistry.CompatibilityLevel;
+import io.snyk.skemium.avro.SchemaInterner;
+import io.snyk.skemium.avro.SchemasSource;
+import io.snyk.skemium.avro.TableAvroSchemas;
+import io.snyk.skemium.helpers.CompatibilityCache;
+import io.snyk.skemium.helpers.Git;
+import io.snyk.skemium.helpers.GitSchemasSource;
+import io.snyk.skemium.helpers.HistoryStore;
+import io.snyk.skemium.meta.MetadataFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Command(
         name = "compare",
@@ -17,29 +33,92 @@ import java.nio.file.Path;
         descriptionHeading = "%nDescription:%n%n",
         description = """
                 Given 2 directories (CURRENT / NEXT) containing Avro Schemas of Database Tables,
-                compares them according to Compatibility Level.""",
+                compares them according to Compatibility Level.
+                With --next-db, NEXT is converted in memory from the Database instead.""",
         parameterListHeading = "%nParameters:%n",
         optionListHeading = "%nOptions:%n"
 )
 public class CompareCommand extends BaseComparisonCommand {
     private static final Logger LOG = LoggerFactory.getLogger(CompareCommand.class);
 
+    /// NEXT fetched from a Database has no VCS information.
+    private static final Git.GitInfo NO_GIT_INFO = new Git.GitInfo(null, null, null);
+
     @Parameters(
             arity = "1",
             index = "0",
             paramLabel = "CURR_SCHEMAS_DIR",
-            description = "Directory with the CURRENT Database Table schemas"
+            description = "Directory with the CURRENT Database Table schemas, or <git-ref>:<path> to read them from Git without a checkout, or history:<snapshot-id>"
     )
     Path currSchemasDir;
 
     @Parameters(
-            arity = "1",
+            arity = "0..1",
             index = "1",
             paramLabel = "NEXT_SCHEMAS_DIR",
-            description = "Directory with the NEXT Database Table schemas"
+            description = "Directory with the NEXT Database Table schemas, or <git-ref>:<path>, or history:<snapshot-id>; omitted with --next-db"
     )
     Path nextSchemasDir;
 
+    @Option(names = {"--next-db"},
+            defaultValue = "${env:NEXT_DB}",
+            showDefaultValue = CommandLine.Help.Visibility.ALWAYS,
+            description = "Fetch the NEXT Database Table schemas from the Database (same options as 'generate'), converting them in memory without writing files (env: NEXT_DB - optional)"
+    )
+    Boolean nextDb = false;
+
+    @Mixin
+    DatabaseOptions db;
+
+    @Option(names = {"--base"},
+            defaultValue = "${env:BASE_SCHEMAS_DIR}",
+            paramLabel = "BASE_SCHEMAS_DIR",
+            description = "Directory with the BASE (e.g. merge-base) Database Table schemas: NEXT is checked against both CURRENT and BASE (env: BASE_SCHEMAS_DIR - optional)"
+    )
+    Path baseSchemasDir = null;
+
+    @Option(names = {"--history"},
+            split = ",",
+            defaultValue = "${env:HISTORY_SCHEMAS_DIRS}",
+            paramLabel = "HISTORY_SCHEMAS_DIR",
+            description = "Directories with PREVIOUS Database Table schemas, also checked by transitive Compatibility Levels; repeatable or comma-separated (env: HISTORY_SCHEMAS_DIRS - optional)"
+    )
+    List<Path> historySchemasDirs = new ArrayList<>();
+
+    @Option(names = {"--skip-unchanged"},
+            defaultValue = "${env:SKIP_UNCHANGED}",
+            showDefaultValue = CommandLine.Help.Visibility.ALWAYS,
+            description = "Only load and check tables whose files changed between CURRENT and NEXT: via Git tree diff if both are <git-ref>:<path> of the same repository, via checksums otherwise (env: SKIP_UNCHANGED - optional)"
+    )
+    Boolean skipUnchanged = false;
+
+    @Option(names = {"--cache-dir"},
+            defaultValue = "${env:CACHE_DIR}",
+            description = "Directory to cache compatibility results in, across runs; can be shared by concurrent processes (env: CACHE_DIR - optional)"
+    )
+    Path cacheDir = null;
+
+    @Option(names = {"--cache-max-size"},
+            defaultValue = "${env:CACHE_MAX_SIZE}",
+            showDefaultValue = CommandLine.Help.Visibility.ALWAYS,
+            description = "Maximum size of the cache directory, in MiB: least recently used results are evicted (env: CACHE_MAX_SIZE - optional)"
+    )
+    long cacheMaxSizeMiB = 64;
+
+    @Option(names = {"--fail-fast"},
+            defaultValue = "${env:FAIL_FAST}",
+            showDefaultValue = CommandLine.Help.Visibility.ALWAYS,
+            description = "Check changed tables first, and stop at the first failure: the result is partial (env: FAIL_FAST - optional)"
+    )
+    Boolean failFast = false;
+
+    @Option(names = {"--compatibility-matrix"},
+            defaultValue = "${env:COMPATIBILITY_MATRIX}",
+            showDefaultValue = CommandLine.Help.Visibility.ALWAYS,
+            description = "Also report which Compatibility Levels each table satisfies (env: COMPATIBILITY_MATRIX - optional)"
+    )
+    Boolean compatibilityMatrix = false;
+
     @Override
     public Integer call() {
         setLogLevelFromVerbosity();
@@ -47,122 +126,159 @@ public class CompareCommand extends BaseComparisonCommand {
         logInput();
 
         try {
-            final CompareResult res = CompareResult.build(currSchemasDir, nextSchemasDir, compatibilityLevel);
+            final CompatibilityCache cache = cacheDir != null
+                    ? new CompatibilityCache(cacheDir, cacheMaxSizeMiB * 1024 * 1024)
+                    : null;
+            final CompareResult.FailFast failFastMode = !failFast
+                    ? CompareResult.FailFast.OFF
+                    : ciMode ? CompareResult.FailFast.ON_CHANGE : CompareResult.FailFast.ON_INCOMPATIBILITY;
+            final CompareResult.Options options = CompareResult.Options.DEFAULT
+                    .withBase(baseSchemasDir)
+                    .withHistory(historySchemasDirs)
+                    .withCache(cache)
+                    .withFailFast(failFastMode)
+                    .withMatrix(compatibilityMatrix)
+                    .withSkipUnchanged(skipUnchanged);
+            final CompareResult res = nextDb
+                    ? compareWithDatabase(options)
+                    : CompareResult.build(currSchemasDir, nextSchemasDir, compatibilityLevel, options);
 
             // Write output to file if specified
             writeOutput(res);
 
-            // Determine if the compatibility check was passed
-            boolean checkPassed = true;
-
-            // Were there incompatibilities detected?
-            if (res.incompatibilitiesTotal() > 0) {
-                checkPassed = false;
-
-                LOG.error("Incompatibilities: {}", res.incompatibilitiesTotal());
-                LOG.error("  Key Incompatibilities: {}", res.keyIncompatibilitiesTotal());
-                LOG.error("  Value Incompatibilities: {}", res.valueIncompatibilitiesTotal());
-                LOG.error("  Envelope Incompatibilities: {}", res.envelopeIncompatibilitiesTotal());
-            }
-
-            // Were there table removals/additions detected?
-            if (!res.removedTables().isEmpty()) {
-                checkPassed = !ciMode && checkPassed;
-
-                if (ciMode) {
-                    LOG.error("Tables removed between CURRENT and NEXT: {}", res.removedTables().size());
-                } else {
-                    LOG.warn("Tables removed between CURRENT and NEXT: {}", res.removedTables().size());
-                }
-                res.removedTables().forEach(removedTableId -> LOG.error("  {}", removedTableId));
-            }
-            if (!res.addedTables().isEmpty()) {
-                checkPassed = !ciMode && checkPassed;
-
-                if (ciMode) {
-                    LOG.error("Tables added between CURRENT and NEXT: {}", res.addedTables().size());
-                } else {
-                    LOG.warn("Tables added between CURRENT and NEXT: {}", res.addedTables().size());
-                }
-                res.addedTables().forEach(addedTableId -> LOG.error("  {}", addedTableId));
-            }
-
-            // Check for schema changes without table changes in CI mode
-            if (ciMode && res.hasSchemaChangesWithoutTableChanges()) {
-                checkPassed = false;
-                LOG.error("Schema changes detected in CI mode: {} tables modified", res.totalTablesWithChanges());
-
-                // Log details of what changed
-                for (String tableId : res.tablesWithChanges()) {
-                    if (res.keySchemaChanged().getOrDefault(tableId, false)) {
-                        LOG.error("  Table '{}': Key schema changed", tableId);
-                    }
-                    if (res.valueSchemaChanged().getOrDefault(tableId, false)) {
-                        LOG.error("  Table '{}': Value schema changed", tableId);
-                    }
-                    if (res.envelopeSchemaChanged().getOrDefault(tableId, false)) {
-                        LOG.error("  Table '{}': Envelope schema changed", tableId);
-                    }
-                }
-            } else if (res.hasAnySchemaChanges() && !ciMode) {
-                // In non-CI mode, log schema changes as warnings for visibility
-                LOG.warn("Schema changes detected: {} tables modified", res.totalTablesWithChanges());
-                for (String tableId : res.tablesWithChanges()) {
-                    if (res.keySchemaChanged().getOrDefault(tableId, false)) {
-                        LOG.warn("  Table '{}': Key schema changed", tableId);
-                    }
-                    if (res.valueSchemaChanged().getOrDefault(tableId, false)) {
-                        LOG.warn("  Table '{}': Value schema changed", tableId);
-                    }
-                    if (res.envelopeSchemaChanged().getOrDefault(tableId, false)) {
-                        LOG.warn("  Table '{}': Envelope schema changed", tableId);
-                    }
-                }
-            }
-
-            if (checkPassed) {
-                LOG.info("Compatibility check succeeded");
-                return 0;
-            }
-            LOG.error("Compatibility check failed");
-            return 1;
+            return checkPassed(res) ? 0 : 1;
         } catch (Exception e) {
             LOG.error("Failed to compare Database Tables Schemas", e);
             return 1;
         }
     }
 
+    /// Compares CURRENT with the NEXT Table Schemas fetched from the Database: [TableAvroSchemas] are converted in memory,
+    /// and served to [CompareResult] via [SchemasSource#memory], with no intermediate files.
+    ///
+    /// NOTE: All the tables are converted up-front, and held in memory for the whole comparison: the [MetadataFile] of
+    /// NEXT needs the checksum of each (e.g. for [CompareResult.Options#skipUnchanged()] and [CompareResult.FailFast]).
+    private CompareResult compareWithDatabase(final CompareResult.Options options) throws Exception {
+        final Map<String, String> references = new HashMap<>();
+        final SchemaInterner interner = new SchemaInterner();
+        final List<TableAvroSchemas> nextTables = db.fetch(references).stream().parallel()
+                .map(ts -> TableAvroSchemas.build(ts, db.dbName(), interner))
+                .toList();
+        LOG.info("Converted {} Table Schemas from Database: {}", nextTables.size(), db.location());
+
+        final MetadataFile nextMeta = MetadataFile.build(spec.commandLine().getParseResult().originalArgs(), nextTables, references, NO_GIT_INFO);
+        try (final SchemasSource nextSource = SchemasSource.memory(db.location(), nextMeta, nextTables)) {
+            return CompareResult.build(currSchemasDir, Path.of(db.location()), nextSource, compatibilityLevel, options);
+        }
+    }
+
     private void validate() throws CommandLine.ParameterException {
-        final File currSchemasDirFile = currSchemasDir.toFile();
-        if (!currSchemasDirFile.exists() || !currSchemasDirFile.isDirectory()) {
+        validateSchemasDir(currSchemasDir);
+        if (nextDb) {
+            if (nextSchemasDir != null) {
+                throw new CommandLine.ParameterException(
+                        spec.commandLine(),
+                        "NEXT_SCHEMAS_DIR and --next-db are mutually exclusive"
+                );
+            }
+            db.validate(spec.commandLine());
+        } else if (nextSchemasDir == null) {
             throw new CommandLine.ParameterException(
                     spec.commandLine(),
-                    "Directory must exist: " + currSchemasDirFile.getAbsolutePath()
+                    "Missing required parameter: 'NEXT_SCHEMAS_DIR' (or --next-db)"
             );
+        } else {
+            validateSchemasDir(nextSchemasDir);
+        }
+        if (baseSchemasDir != null) {
+            validateSchemasDir(baseSchemasDir);
+        }
+        for (final Path historySchemasDir : historySchemasDirs) {
+            validateSchemasDir(historySchemasDir);
+        }
+        if (!historySchemasDirs.isEmpty() && !compatibilityMatrix
+                && compatibilityLevel != CompatibilityLevel.BACKWARD_TRANSITIVE
+                && compatibilityLevel != CompatibilityLevel.FORWARD_TRANSITIVE
+                && compatibilityLevel != CompatibilityLevel.FULL_TRANSITIVE) {
+            LOG.warn("History Schema Directories are only checked by transitive Compatibility Levels: ignored for '{}'", compatibilityLevel);
         }
 
-        final File nextSchemasDirFile = nextSchemasDir.toFile();
-        if (!nextSchemasDirFile.exists() || !nextSchemasDirFile.isDirectory()) {
+        if (cacheMaxSizeMiB <= 0) {
             throw new CommandLine.ParameterException(
                     spec.commandLine(),
-                    "Directory must exist: " + nextSchemasDirFile.getAbsolutePath()
+                    "Cache maximum size must be positive: " + cacheMaxSizeMiB
             );
         }
 
         // Validate output file
         validateOutput();
 
-        if (currSchemasDirFile.getAbsolutePath().equals(nextSchemasDirFile.getAbsolutePath())) {
+        if (nextSchemasDir != null && currSchemasDir.toAbsolutePath().equals(nextSchemasDir.toAbsolutePath())) {
             LOG.warn("Comparing a Schema Directory with itself?");
         }
 
         LOG.debug("Input validated");
     }
 
+    /// Validates a directory of Table Schemas: either an existing directory, a `history:<snapshot-id>` of an existing
+    /// snapshot, or a `<git-ref>:<path>` resolving to a directory.
+    private void validateSchemasDir(final Path schemasDir) throws CommandLine.ParameterException {
+        final File schemasDirFile = schemasDir.toFile();
+        if (schemasDirFile.isDirectory()) {
+            return;
+        }
+
+        if (HistoryStore.isHistoryLocation(schemasDir.toString())) {
+            try {
+                SchemasSource.validate(schemasDir);
+                return;
+            } catch (final IOException | IllegalArgumentException e) {
+                throw new CommandLine.ParameterException(
+                        spec.commandLine(),
+                        "History snapshot must exist: " + schemasDir + " (" + e.getMessage() + ")"
+                );
+            }
+        }
+
+        if (GitSchemasSource.isGitLocation(schemasDir.toString())) {
+            try {
+                SchemasSource.validate(schemasDir);
+                return;
+            } catch (final IOException e) {
+                throw new CommandLine.ParameterException(
+                        spec.commandLine(),
+                        "Git location must exist: " + schemasDir + " (" + e.getMessage() + ")"
+                );
+            }
+        }
+
+        throw new CommandLine.ParameterException(
+                spec.commandLine(),
+                "Directory must exist: " + schemasDirFile.getAbsolutePath()
+        );
+    }
+
     private void logInput() {
         LOG.debug("Input");
         LOG.debug("  CURRENT Schema Directory: {} (exists: {})", currSchemasDir.toAbsolutePath().normalize(), currSchemasDir.toFile().exists());
-        LOG.debug("  NEXT    Schema Directory: {} (exists: {})", nextSchemasDir.toAbsolutePath().normalize(), nextSchemasDir.toFile().exists());
+        if (nextDb) {
+            LOG.debug("  NEXT    Database: {}", db.location());
+            db.logInput();
+        } else {
+            LOG.debug("  NEXT    Schema Directory: {} (exists: {})", nextSchemasDir.toAbsolutePath().normalize(), nextSchemasDir.toFile().exists());
+        }
+        if (baseSchemasDir != null) {
+            LOG.debug("  BASE    Schema Directory: {} (exists: {})", baseSchemasDir.toAbsolutePath().normalize(), baseSchemasDir.toFile().exists());
+        }
+        for (final Path historySchemasDir : historySchemasDirs) {
+            LOG.debug("  HISTORY Schema Directory: {} (exists: {})", historySchemasDir.toAbsolutePath().normalize(), historySchemasDir.toFile().exists());
+        }
+        LOG.debug("  Fail Fast: {}", failFast);
+        LOG.debug("  Compatibility Matrix: {}", compatibilityMatrix);
+        LOG.debug("  Skip Unchanged: {}", skipUnchanged);
+        if (cacheDir != null) {
+            LOG.debug("  Cache Directory: {} (max: {} MiB)", cacheDir.toAbsolutePath().normalize(), cacheMaxSizeMiB);
+        }
 
         logCommonInput();
     }
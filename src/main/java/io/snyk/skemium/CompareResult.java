@@ -3,16 +3,25 @@ package io.snyk.skemium;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.Sets;
 import io.confluent.kafka.schemaregistry.CompatibilityLevel;
+import io.snyk.skemium.avro.SchemaDiff;
+import io.snyk.skemium.avro.SchemaInterner;
+import io.snyk.skemium.avro.SchemasSource;
 import io.snyk.skemium.avro.TableAvroSchemas;
+import io.snyk.skemium.helpers.CompatibilityCache;
+import io.snyk.skemium.helpers.CompatibilityMemo;
+import io.snyk.skemium.helpers.GitSchemasSource;
 import io.snyk.skemium.helpers.SchemaRegistry;
 import io.snyk.skemium.meta.MetadataFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /// Describes the result of running the `compare` command.
 /// It's left to the calling logic to decide when to fail/succeed the actual CLI command.
@@ -28,6 +37,16 @@ import java.util.*;
 /// @param keySchemaChanged           [Map] of Table Avro Schemas identifiers, to [Boolean] indicating if there was a Key Schema change.
 /// @param valueSchemaChanged         [Map] of Table Avro Schemas identifiers, to [Boolean] indicating if there was a Value Schema change.
 /// @param envelopeSchemaChanged      [Map] of Table Avro Schemas identifiers, to [Boolean] indicating if there was an Envelope Schema change.
+/// @param truncated                  `true` if the comparison stopped early (see [FailFast]): some tables were not checked.
+/// @param compatibilityMatrix        [Map] of Table Avro Schemas identifiers, to the [CompatibilityLevel]s satisfied; `null` if not requested.
+/// @param keyFieldChanges            [Map] of Table Avro Schemas identifiers, to [List] of Key Schema field changes (only Tables with changes).
+/// @param valueFieldChanges          [Map] of Table Avro Schemas identifiers, to [List] of Value Schema field changes (only Tables with changes).
+/// @param envelopeFieldChanges       [Map] of Table Avro Schemas identifiers, to [List] of Envelope Schema field changes (only Tables with changes).
+/// @param historySchemasDirs         [List] of [Path]s to the directories containing PREVIOUS Table Schemas, checked for transitive [CompatibilityLevel]s.
+/// @param baseSchemasDir             [Path] to the directory containing the BASE Table Schemas (three-way comparison); `null` if not requested.
+/// @param baseKeyIncompatibilities      [Map] of Table Avro Schemas identifiers, to [List] of Key Schema incompatibilities with BASE; `null` if not requested.
+/// @param baseValueIncompatibilities    [Map] of Table Avro Schemas identifiers, to [List] of Value Schema incompatibilities with BASE; `null` if not requested.
+/// @param baseEnvelopeIncompatibilities [Map] of Table Avro Schemas identifiers, to [List] of Envelope Schema incompatibilities with BASE; `null` if not requested.
 ///
 public record CompareResult(
         @JsonProperty(required = true, index = 0)
@@ -51,10 +70,34 @@ public record CompareResult(
         @JsonProperty(required = true, index = 13)
         @Nonnull Map<String, Boolean> valueSchemaChanged,
         @JsonProperty(required = true, index = 14)
-        @Nonnull Map<String, Boolean> envelopeSchemaChanged) {
+        @Nonnull Map<String, Boolean> envelopeSchemaChanged,
+        @JsonProperty(required = true, index = 16)
+        boolean truncated,
+        @JsonProperty(index = 17)
+        @Nullable Map<String, Map<CompatibilityLevel, Boolean>> compatibilityMatrix,
+        @JsonProperty(required = true, index = 18)
+        @Nonnull Map<String, List<SchemaDiff.FieldChange>> keyFieldChanges,
+        @JsonProperty(required = true, index = 19)
+        @Nonnull Map<String, List<SchemaDiff.FieldChange>> valueFieldChanges,
+        @JsonProperty(required = true, index = 20)
+        @Nonnull Map<String, List<SchemaDiff.FieldChange>> envelopeFieldChanges,
+        @JsonProperty(required = true, index = 21)
+        @Nonnull List<Path> historySchemasDirs,
+        @JsonProperty(index = 22)
+        @Nullable Path baseSchemasDir,
+        @JsonProperty(index = 23)
+        @Nullable Map<String, List<String>> baseKeyIncompatibilities,
+        @JsonProperty(index = 24)
+        @Nullable Map<String, List<String>> baseValueIncompatibilities,
+        @JsonProperty(index = 25)
+        @Nullable Map<String, List<String>> baseEnvelopeIncompatibilities) {
     private static final Logger LOG = LoggerFactory.getLogger(CompareResult.class);
     public static final Path AVRO_SCHEMA_FILENAME = Path.of("skemium.compare.result.avsc");
 
+    /// Identical schemas satisfy every [CompatibilityLevel].
+    private static final Map<CompatibilityLevel, Boolean> UNCHANGED_COMPATIBILITY_MATRIX = Collections.unmodifiableMap(
+            Arrays.stream(CompatibilityLevel.values()).collect(Collectors.toMap(level -> level, level -> true, (a, b) -> a, () -> new EnumMap<>(CompatibilityLevel.class))));
+
 
     /// Sum of all Key Schema incompatibilities identified, across all Tables.
     @JsonProperty(access = JsonProperty.Access.READ_ONLY, index = 4)
@@ -74,9 +117,20 @@ public record CompareResult(
         return envelopeIncompatibilities.values().stream().mapToInt(List::size).sum();
     }
 
+    /// Sum of all incompatibilities identified, across all Tables and (in a three-way comparison) both CURRENT and BASE.
     @JsonProperty(access = JsonProperty.Access.READ_ONLY, index = 9)
     public int incompatibilitiesTotal() {
-        return keyIncompatibilitiesTotal() + valueIncompatibilitiesTotal() + envelopeIncompatibilitiesTotal();
+        return keyIncompatibilitiesTotal() + valueIncompatibilitiesTotal() + envelopeIncompatibilitiesTotal() + baseIncompatibilitiesTotal();
+    }
+
+    /// Sum of all incompatibilities with BASE identified, across all Tables (three-way comparison only).
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY, index = 26)
+    public int baseIncompatibilitiesTotal() {
+        return Stream.of(baseKeyIncompatibilities, baseValueIncompatibilities, baseEnvelopeIncompatibilities)
+                .filter(Objects::nonNull)
+                .flatMap(incompatibilities -> incompatibilities.values().stream())
+                .mapToInt(List::size)
+                .sum();
     }
 
     /// Returns a set of table identifiers that have any schema changes (key, value,
@@ -127,81 +181,535 @@ public record CompareResult(
         return tablesWithChanges().size();
     }
 
+    /// Replaces the results of the given tables with those of a comparison restricted to them
+    /// (see [Options#withTables(Set)]): e.g. to update a result after some tables changed, without comparing them all.
+    ///
+    /// @param partial [CompareResult] of the comparison restricted to the given tables, of the same directories
+    /// @param tables  Identifiers of the tables compared by `partial`
+    /// @return The merged [CompareResult]
+    public CompareResult merge(@Nonnull final CompareResult partial, @Nonnull final Set<String> tables) {
+        return new CompareResult(partial.currentSchemasDir, partial.nextSchemasDir, partial.compatibilityLevel,
+                merged(keyIncompatibilities, partial.keyIncompatibilities, tables),
+                merged(valueIncompatibilities, partial.valueIncompatibilities, tables),
+                merged(envelopeIncompatibilities, partial.envelopeIncompatibilities, tables),
+                merged(removedTables, partial.removedTables, tables),
+                merged(addedTables, partial.addedTables, tables),
+                merged(keySchemaChanged, partial.keySchemaChanged, tables),
+                merged(valueSchemaChanged, partial.valueSchemaChanged, tables),
+                merged(envelopeSchemaChanged, partial.envelopeSchemaChanged, tables),
+                truncated || partial.truncated,
+                compatibilityMatrix != null && partial.compatibilityMatrix != null ? merged(compatibilityMatrix, partial.compatibilityMatrix, tables) : null,
+                merged(keyFieldChanges, partial.keyFieldChanges, tables),
+                merged(valueFieldChanges, partial.valueFieldChanges, tables),
+                merged(envelopeFieldChanges, partial.envelopeFieldChanges, tables),
+                partial.historySchemasDirs,
+                partial.baseSchemasDir,
+                baseKeyIncompatibilities != null && partial.baseKeyIncompatibilities != null ? merged(baseKeyIncompatibilities, partial.baseKeyIncompatibilities, tables) : null,
+                baseValueIncompatibilities != null && partial.baseValueIncompatibilities != null ? merged(baseValueIncompatibilities, partial.baseValueIncompatibilities, tables) : null,
+                baseEnvelopeIncompatibilities != null && partial.baseEnvelopeIncompatibilities != null ? merged(baseEnvelopeIncompatibilities, partial.baseEnvelopeIncompatibilities, tables) : null);
+    }
+
+    private static <V> Map<String, V> merged(final Map<String, V> prev, final Map<String, V> partial, final Set<String> tables) {
+        final Map<String, V> result = new HashMap<>(prev);
+        result.keySet().removeAll(tables);
+        result.putAll(partial);
+        return result;
+    }
+
+    private static Set<String> merged(final Set<String> prev, final Set<String> partial, final Set<String> tables) {
+        final Set<String> result = new HashSet<>(Sets.difference(prev, tables));
+        result.addAll(partial);
+        return result;
+    }
+
     public static CompareResult build(
             @Nonnull Path currSchemasDir,
             @Nonnull Path nextSchemasDir,
             @Nonnull CompatibilityLevel compatibilityLevel) throws IOException {
-        final MetadataFile currMeta = MetadataFile.loadFrom(currSchemasDir);
-        final Set<String> currTableIds = currMeta.getTableSchemasIdentifiers();
+        return build(currSchemasDir, nextSchemasDir, compatibilityLevel, Options.DEFAULT);
+    }
 
-        final MetadataFile nextMeta = MetadataFile.loadFrom(nextSchemasDir);
-        final Set<String> nextTableIds = nextMeta.getTableSchemasIdentifiers();
+    /// Compares the Table Schemas in the given directories.
+    ///
+    /// Each directory can also be given as `<git-ref>:<path>`, to read the Table Schemas straight from the Git
+    /// repository of the working directory (see [SchemasSource#of(Path)]).
+    ///
+    /// With a BASE (e.g. the merge-base of a release branch), the comparison is three-way: NEXT is checked against both
+    /// CURRENT (e.g. the target branch) and BASE, loading and preparing NEXT once; incompatibilities with BASE are
+    /// reported separately. Tables added since CURRENT, but already in BASE, are checked against BASE.
+    ///
+    /// With a transitive [CompatibilityLevel], NEXT is checked against CURRENT and every distinct historical version
+    /// of each table: historical versions are deduplicated by checksum, so each is checked once.
+    ///
+    /// With [Options#skipUnchanged()], tables whose files are the same in CURRENT and NEXT are reported as unchanged
+    /// (and compatible), without loading them: if both are directories of the same Git repository, changed files are
+    /// found via a tree diff (see [GitSchemasSource#diff(GitSchemasSource)]), otherwise by comparing the checksums in the
+    /// metadata files. It has no effect with a BASE or historical versions to check against.
+    ///
+    /// With [FailFast] enabled, tables whose checksums differ between CURRENT and NEXT are checked first,
+    /// and the comparison stops as soon as the result is known to be a failure: the result is then [#truncated()].
+    ///
+    /// @param currSchemasDir     [Path] to the directory containing the CURRENT Table Schemas
+    /// @param nextSchemasDir     [Path] to the directory containing the NEXT Table Schemas
+    /// @param compatibilityLevel [CompatibilityLevel] to apply
+    /// @param options            [Options] of the comparison (e.g. BASE, historical versions, cache)
+    /// @return The [CompareResult]
+    /// @throws IOException
+    public static CompareResult build(
+            @Nonnull Path currSchemasDir,
+            @Nonnull Path nextSchemasDir,
+            @Nonnull CompatibilityLevel compatibilityLevel,
+            @Nonnull Options options) throws IOException {
+        try (final SchemasSource nextSource = SchemasSource.of(nextSchemasDir)) {
+            return build(currSchemasDir, nextSchemasDir, nextSource, compatibilityLevel, options);
+        }
+    }
 
-        final Sets.SetView<String> removedTables = Sets.difference(currTableIds, nextTableIds);
-        final Sets.SetView<String> addedTables = Sets.difference(nextTableIds, currTableIds);
+    /// Same as [#build(Path, Path, CompatibilityLevel, Options)], but reading the NEXT Table Schemas from an already
+    /// open [SchemasSource] (e.g. converted in memory from a Database, see [SchemasSource#memory]).
+    ///
+    /// @param currSchemasDir     [Path] to the directory containing the CURRENT Table Schemas
+    /// @param nextSchemasDir     Location of the NEXT Table Schemas, as reported in the result
+    /// @param nextSource         [SchemasSource] of the NEXT Table Schemas; left open
+    /// @param compatibilityLevel [CompatibilityLevel] to apply
+    /// @param options            [Options] of the comparison (e.g. BASE, historical versions, cache)
+    /// @return The [CompareResult]
+    /// @throws IOException
+    public static CompareResult build(
+            @Nonnull Path currSchemasDir,
+            @Nonnull Path nextSchemasDir,
+            @Nonnull SchemasSource nextSource,
+            @Nonnull CompatibilityLevel compatibilityLevel,
+            @Nonnull Options options) throws IOException {
+        // Schemas are read lazily from their sources (directories or Git revisions), closed once the comparison is done
+        final List<SchemasSource> historySources = new ArrayList<>(options.historySchemasDirs().size());
+        try (final SchemasSource currSource = SchemasSource.of(currSchemasDir);
+             final SchemasSource baseSource = options.baseSchemasDir() != null ? SchemasSource.of(options.baseSchemasDir()) : null) {
+            final MetadataFile currMeta = MetadataFile.loadFrom(currSource);
+            final Set<String> currTableIds = selected(currMeta.getTableIdentifiers(), options.tables());
 
-        final Map<String, List<String>> keyIncompatibilities = new HashMap<>(currTableIds.size());
-        final Map<String, List<String>> valueIncompatibilities = new HashMap<>(currTableIds.size());
-        final Map<String, List<String>> envelopeIncompatibilities = new HashMap<>(currTableIds.size());
+            final MetadataFile nextMeta = MetadataFile.loadFrom(nextSource);
+            final Set<String> nextTableIds = selected(nextMeta.getTableIdentifiers(), options.tables());
 
-        // Initialize change tracking maps
-        final Map<String, Boolean> keySchemaChanged = new HashMap<>(currTableIds.size());
-        final Map<String, Boolean> valueSchemaChanged = new HashMap<>(currTableIds.size());
-        final Map<String, Boolean> envelopeSchemaChanged = new HashMap<>(currTableIds.size());
+            final MetadataFile baseMeta = baseSource != null ? MetadataFile.loadFrom(baseSource) : null;
 
-        for (final String tableId : currTableIds) {
-            if (!nextTableIds.contains(tableId)) {
-                LOG.warn("Table '{}' not found in NEXT Database Schema: skipping compatibility check (table dropped?)", tableId);
-                continue;
+            final List<HistoricalSchemas> history = new ArrayList<>(options.historySchemasDirs().size());
+            for (final Path historySchemasDir : options.historySchemasDirs()) {
+                final SchemasSource historySource = SchemasSource.of(historySchemasDir);
+                historySources.add(historySource);
+                history.add(new HistoricalSchemas(historySchemasDir, historySource, MetadataFile.loadFrom(historySource)));
             }
+            // Historical versions are only needed by transitive levels (or to fill in the compatibility matrix)
+            final boolean checkHistory = !history.isEmpty() && (isTransitive(compatibilityLevel) || options.matrix());
+            int historicalChecks = 0;
+
+            // Tables unchanged between CURRENT and NEXT can be skipped, unless NEXT has to be checked against something else
+            final boolean preFilter = options.skipUnchanged() && baseMeta == null && !checkHistory;
+            final Set<String> changedFiles = preFilter
+                    && currSource instanceof GitSchemasSource currGit
+                    && nextSource instanceof GitSchemasSource nextGit
+                    && currGit.isSameRepository(nextGit)
+                    ? currGit.diff(nextGit)
+                    : null;
+            int skipped = 0;
+
+            final Sets.SetView<String> removedTables = Sets.difference(currTableIds, nextTableIds);
+            final Sets.SetView<String> addedTables = Sets.difference(nextTableIds, currTableIds);
+
+            final Map<String, List<String>> keyIncompatibilities = new HashMap<>(currTableIds.size());
+            final Map<String, List<String>> valueIncompatibilities = new HashMap<>(currTableIds.size());
+            final Map<String, List<String>> envelopeIncompatibilities = new HashMap<>(currTableIds.size());
 
-            LOG.debug("Checking compatibility '{}' for Table '{}'", compatibilityLevel, tableId);
-            final TableAvroSchemas currTableSchemas = TableAvroSchemas.loadFrom(currSchemasDir, tableId);
-            final TableAvroSchemas nextTableSchemas = TableAvroSchemas.loadFrom(nextSchemasDir, tableId);
-
-            // Check compatibility (existing logic)
-            final SchemaRegistry.CompatibilityResult compatResult = SchemaRegistry.checkCompatibility(currTableSchemas, nextTableSchemas, compatibilityLevel);
-
-            // Check for schema changes
-            final SchemaRegistry.ChangeResult changeResult = SchemaRegistry.detectSchemaChanges(currTableSchemas, nextTableSchemas);
-
-            // Track compatibility results (existing logic)
-            if (compatResult.isCompatible()) {
-                LOG.info("Compatibility for Table '{}' preserved", tableId);
-                keyIncompatibilities.put(tableId, List.of());
-                valueIncompatibilities.put(tableId, List.of());
-                envelopeIncompatibilities.put(tableId, List.of());
-            } else {
-                LOG.trace("Checking Table '{}' Key Incompatibilities", tableId);
-                keyIncompatibilities.put(tableId, compatResult.keyResults());
-                for (final String err : compatResult.keyResults()) {
-                    LOG.error("Table '{}' Key Incompatibility: {}", tableId, err);
+            // Initialize change tracking maps
+            final Map<String, Boolean> keySchemaChanged = new HashMap<>(currTableIds.size());
+            final Map<String, Boolean> valueSchemaChanged = new HashMap<>(currTableIds.size());
+            final Map<String, Boolean> envelopeSchemaChanged = new HashMap<>(currTableIds.size());
+            final Map<String, Map<CompatibilityLevel, Boolean>> compatibilityMatrix = options.matrix() ? new HashMap<>(currTableIds.size()) : null;
+            final Map<String, List<String>> baseKeyIncompatibilities = baseMeta != null ? new HashMap<>(currTableIds.size()) : null;
+            final Map<String, List<String>> baseValueIncompatibilities = baseMeta != null ? new HashMap<>(currTableIds.size()) : null;
+            final Map<String, List<String>> baseEnvelopeIncompatibilities = baseMeta != null ? new HashMap<>(currTableIds.size()) : null;
+            final Map<String, List<SchemaDiff.FieldChange>> keyFieldChanges = new HashMap<>();
+            final Map<String, List<SchemaDiff.FieldChange>> valueFieldChanges = new HashMap<>();
+            final Map<String, List<SchemaDiff.FieldChange>> envelopeFieldChanges = new HashMap<>();
+
+            // Tables whose schemas come from the same tables in both CURRENT and NEXT (e.g. partitions, or tables with the
+            // same structure, referencing the same table) get the same results: only the first one of each group is checked
+            final Map<List<String>, String> checkedSources = new HashMap<>();
+            final Map<String, String> sharedReferences = new HashMap<>();
+            final CompatibilityMemo memo = new CompatibilityMemo(options.cache());
+            final SchemaInterner interner = new SchemaInterner();
+
+            // In a three-way comparison, tables added since CURRENT but already in BASE are checked against BASE only
+            final Set<String> scheduledTableIds = baseMeta != null
+                    ? Sets.union(currTableIds, Sets.intersection(addedTables, baseMeta.getTableIdentifiers()))
+                    : currTableIds;
+            final List<String> schedule = options.failFast() == FailFast.OFF
+                    ? List.copyOf(scheduledTableIds)
+                    : scheduledTableIds.stream()
+                            .sorted(Comparator.comparing(tableId -> !hasChecksumChanged(currMeta, nextMeta, tableId)))
+                            .toList();
+            // In CI mode, added/removed tables are enough for a failure
+            boolean stop = options.failFast() == FailFast.ON_CHANGE && (!removedTables.isEmpty() || !addedTables.isEmpty());
+            int scheduled = 0;
+
+            for (; scheduled < schedule.size() && !stop; ++scheduled) {
+                final String tableId = schedule.get(scheduled);
+                if (!nextTableIds.contains(tableId)) {
+                    LOG.warn("Table '{}' not found in NEXT Database Schema: skipping compatibility check (table dropped?)", tableId);
+                    continue;
+                }
+                if (!currTableIds.contains(tableId)) {
+                    LOG.debug("Checking compatibility '{}' for Table '{}' with BASE only (not found in CURRENT)", compatibilityLevel, tableId);
+                    final TableAvroSchemas baseTableSchemas = baseMeta.loadTableAvroSchemas(baseSource, tableId, interner);
+                    final TableAvroSchemas nextTableSchemas = nextMeta.loadTableAvroSchemas(nextSource, tableId, interner);
+                    final SchemaRegistry.CompatibilityResult baseCompatResult = memo.check(memo.prepare(baseTableSchemas), memo.prepare(nextTableSchemas), compatibilityLevel, false).compatibilityResult();
+                    putBaseIncompatibilities(tableId, baseCompatResult, baseKeyIncompatibilities, baseValueIncompatibilities, baseEnvelopeIncompatibilities);
+                    stop = options.failFast() != FailFast.OFF && !baseCompatResult.isCompatible();
+                    continue;
                 }
 
-                LOG.trace("Checking Table '{}' Value Incompatibilities", tableId);
-                valueIncompatibilities.put(tableId, compatResult.valueResults());
-                for (final String err : compatResult.valueResults()) {
-                    LOG.error("Table '{}' Value Incompatibility: {}", tableId, err);
+                if (preFilter && isUnchanged(currMeta, nextMeta, changedFiles, tableId)) {
+                    LOG.trace("Table '{}' unchanged between CURRENT and NEXT: skipping compatibility check", tableId);
+                    keyIncompatibilities.put(tableId, List.of());
+                    valueIncompatibilities.put(tableId, List.of());
+                    envelopeIncompatibilities.put(tableId, List.of());
+                    keySchemaChanged.put(tableId, false);
+                    valueSchemaChanged.put(tableId, false);
+                    envelopeSchemaChanged.put(tableId, false);
+                    if (compatibilityMatrix != null) {
+                        compatibilityMatrix.put(tableId, UNCHANGED_COMPATIBILITY_MATRIX);
+                    }
+                    ++skipped;
+                    continue;
                 }
 
-                LOG.trace("Checking Table '{}' Envelope Incompatibilities", tableId);
-                envelopeIncompatibilities.put(tableId, compatResult.envelopeResults());
-                for (final String err : compatResult.envelopeResults()) {
-                    LOG.error("Table '{}' Envelope Incompatibility: {}", tableId, err);
+                final List<String> sources = new ArrayList<>(2 + history.size());
+                sources.add(source(currMeta, tableId));
+                sources.add(source(nextMeta, tableId));
+                if (baseMeta != null) {
+                    sources.add(baseMeta.getTableIdentifiers().contains(tableId) ? source(baseMeta, tableId) : "");
                 }
+                if (checkHistory) {
+                    history.forEach(h -> sources.add(h.meta().getTableIdentifiers().contains(tableId) ? source(h.meta(), tableId) : ""));
+                }
+                final String checkedTableId = checkedSources.putIfAbsent(sources, tableId);
+                if (checkedTableId != null) {
+                    LOG.debug("Table '{}' has the same schemas as '{}' in both CURRENT and NEXT: reusing its results", tableId, checkedTableId);
+                    sharedReferences.put(tableId, checkedTableId);
+                    continue;
+                }
+
+                LOG.debug("Checking compatibility '{}' for Table '{}'", compatibilityLevel, tableId);
+                final TableAvroSchemas currTableSchemas = currMeta.loadTableAvroSchemas(currSource, tableId, interner);
+                final TableAvroSchemas nextTableSchemas = nextMeta.loadTableAvroSchemas(nextSource, tableId, interner);
+
+                // Check compatibility and schema changes: tables with the same (current, next) schemas are checked once
+                final CompatibilityMemo.Prepared preparedNext = memo.prepare(nextTableSchemas);
+                final CompatibilityMemo.Result memoResult = memo.check(memo.prepare(currTableSchemas), preparedNext, compatibilityLevel, options.matrix());
+                SchemaRegistry.CompatibilityResult compatResult = memoResult.compatibilityResult();
+                Map<CompatibilityLevel, Boolean> tableCompatibilityMatrix = memoResult.compatibilityMatrix();
+                final SchemaRegistry.ChangeResult changeResult = memoResult.changeResult();
+
+                // Check NEXT against each distinct historical version as well
+                if (checkHistory) {
+                    for (final HistoricalSchemas h : distinctHistoricalVersions(history, currMeta, tableId)) {
+                        LOG.trace("Checking Table '{}' against historical version in '{}'", tableId, h.dir());
+                        final TableAvroSchemas histTableSchemas = h.meta().loadTableAvroSchemas(h.source(), tableId, interner);
+                        final CompatibilityMemo.Result histResult = memo.check(memo.prepare(histTableSchemas), preparedNext, compatibilityLevel, options.matrix());
+                        ++historicalChecks;
+
+                        if (isTransitive(compatibilityLevel)) {
+                            compatResult = withHistory(compatResult, histResult.compatibilityResult());
+                        }
+                        if (tableCompatibilityMatrix != null) {
+                            tableCompatibilityMatrix = withHistory(tableCompatibilityMatrix, histResult.compatibilityMatrix());
+                        }
+                    }
+                }
+
+                // Track compatibility results (existing logic)
+                if (compatResult.isCompatible()) {
+                    LOG.info("Compatibility for Table '{}' preserved", tableId);
+                    keyIncompatibilities.put(tableId, List.of());
+                    valueIncompatibilities.put(tableId, List.of());
+                    envelopeIncompatibilities.put(tableId, List.of());
+                } else {
+                    LOG.trace("Checking Table '{}' Key Incompatibilities", tableId);
+                    keyIncompatibilities.put(tableId, compatResult.keyResults());
+                    for (final String err : compatResult.keyResults()) {
+                        LOG.error("Table '{}' Key Incompatibility: {}", tableId, err);
+                    }
+
+                    LOG.trace("Checking Table '{}' Value Incompatibilities", tableId);
+                    valueIncompatibilities.put(tableId, compatResult.valueResults());
+                    for (final String err : compatResult.valueResults()) {
+                        LOG.error("Table '{}' Value Incompatibility: {}", tableId, err);
+                    }
+
+                    LOG.trace("Checking Table '{}' Envelope Incompatibilities", tableId);
+                    envelopeIncompatibilities.put(tableId, compatResult.envelopeResults());
+                    for (final String err : compatResult.envelopeResults()) {
+                        LOG.error("Table '{}' Envelope Incompatibility: {}", tableId, err);
+                    }
+                }
+
+                // Three-way comparison: check NEXT against BASE as well, reusing the prepared NEXT
+                boolean baseCompatible = true;
+                if (baseMeta != null && baseMeta.getTableIdentifiers().contains(tableId)) {
+                    LOG.debug("Checking compatibility '{}' for Table '{}' with BASE", compatibilityLevel, tableId);
+                    final TableAvroSchemas baseTableSchemas = baseMeta.loadTableAvroSchemas(baseSource, tableId, interner);
+                    final SchemaRegistry.CompatibilityResult baseCompatResult = memo.check(memo.prepare(baseTableSchemas), preparedNext, compatibilityLevel, false).compatibilityResult();
+                    baseCompatible = baseCompatResult.isCompatible();
+                    putBaseIncompatibilities(tableId, baseCompatResult, baseKeyIncompatibilities, baseValueIncompatibilities, baseEnvelopeIncompatibilities);
+                }
+
+                // Track schema changes
+                keySchemaChanged.put(tableId, changeResult.keyChanged());
+                valueSchemaChanged.put(tableId, changeResult.valueChanged());
+                envelopeSchemaChanged.put(tableId, changeResult.envelopeChanged());
+                if (compatibilityMatrix != null) {
+                    compatibilityMatrix.put(tableId, tableCompatibilityMatrix);
+                }
+                putFieldChanges(keyFieldChanges, tableId, memoResult.diff().key());
+                putFieldChanges(valueFieldChanges, tableId, memoResult.diff().value());
+                putFieldChanges(envelopeFieldChanges, tableId, memoResult.diff().envelope());
+
+                // Log schema changes for debugging
+                if (changeResult.hasAnyChanges()) {
+                    LOG.debug("Schema changes detected for Table '{}': key={}, value={}, envelope={}", tableId, changeResult.keyChanged(), changeResult.valueChanged(), changeResult.envelopeChanged());
+                }
+
+                stop = (options.failFast() != FailFast.OFF && (!compatResult.isCompatible() || !baseCompatible))
+                        || (options.failFast() == FailFast.ON_CHANGE && changeResult.hasAnyChanges());
             }
 
-            // Track schema changes
-            keySchemaChanged.put(tableId, changeResult.keyChanged());
-            valueSchemaChanged.put(tableId, changeResult.valueChanged());
-            envelopeSchemaChanged.put(tableId, changeResult.envelopeChanged());
+            final boolean truncated = scheduled < schedule.size();
+            if (truncated) {
+                LOG.warn("Comparison stopped early (fail-fast): {} of {} tables not checked", schedule.size() - scheduled, schedule.size());
+            }
 
-            // Log schema changes for debugging
-            if (changeResult.hasAnyChanges()) {
-                LOG.debug("Schema changes detected for Table '{}': key={}, value={}, envelope={}", tableId, changeResult.keyChanged(), changeResult.valueChanged(), changeResult.envelopeChanged());
+            if (preFilter) {
+                LOG.debug("Skipped {} Tables unchanged between CURRENT and NEXT (via {})", skipped, changedFiles != null ? "Git tree diff" : "checksums");
+            }
+            if (checkHistory) {
+                LOG.debug("Checked {} distinct historical versions, across {} history directories", historicalChecks, history.size());
+            }
+            LOG.debug("Compatibility memo: {} hits ({} from cache), {} misses ({} decided by field-level diff)", memo.hits(), memo.cacheHits(), memo.misses(), memo.nativeVerdicts());
+            if (options.cache() != null) {
+                options.cache().evict();
+            }
+
+            for (final Map.Entry<String, String> sharedReference : sharedReferences.entrySet()) {
+                final String tableId = sharedReference.getKey();
+                final String referencedTableId = sharedReference.getValue();
+
+                keyIncompatibilities.put(tableId, withIdentifier(keyIncompatibilities.get(referencedTableId), referencedTableId, tableId));
+                valueIncompatibilities.put(tableId, withIdentifier(valueIncompatibilities.get(referencedTableId), referencedTableId, tableId));
+                envelopeIncompatibilities.put(tableId, withIdentifier(envelopeIncompatibilities.get(referencedTableId), referencedTableId, tableId));
+                keySchemaChanged.put(tableId, keySchemaChanged.get(referencedTableId));
+                valueSchemaChanged.put(tableId, valueSchemaChanged.get(referencedTableId));
+                envelopeSchemaChanged.put(tableId, envelopeSchemaChanged.get(referencedTableId));
+                if (compatibilityMatrix != null) {
+                    compatibilityMatrix.put(tableId, compatibilityMatrix.get(referencedTableId));
+                }
+                if (baseMeta != null && baseKeyIncompatibilities.containsKey(referencedTableId)) {
+                    baseKeyIncompatibilities.put(tableId, withIdentifier(baseKeyIncompatibilities.get(referencedTableId), referencedTableId, tableId));
+                    baseValueIncompatibilities.put(tableId, withIdentifier(baseValueIncompatibilities.get(referencedTableId), referencedTableId, tableId));
+                    baseEnvelopeIncompatibilities.put(tableId, withIdentifier(baseEnvelopeIncompatibilities.get(referencedTableId), referencedTableId, tableId));
+                }
+                copyFieldChanges(keyFieldChanges, referencedTableId, tableId);
+                copyFieldChanges(valueFieldChanges, referencedTableId, tableId);
+                copyFieldChanges(envelopeFieldChanges, referencedTableId, tableId);
+            }
+
+            return new CompareResult(currSchemasDir, nextSchemasDir, compatibilityLevel, keyIncompatibilities, valueIncompatibilities, envelopeIncompatibilities, removedTables, addedTables, keySchemaChanged, valueSchemaChanged, envelopeSchemaChanged, truncated, compatibilityMatrix, keyFieldChanges, valueFieldChanges, envelopeFieldChanges, List.copyOf(options.historySchemasDirs()), options.baseSchemasDir(), baseKeyIncompatibilities, baseValueIncompatibilities, baseEnvelopeIncompatibilities);
+        } finally {
+            for (final SchemasSource historySource : historySources) {
+                historySource.close();
             }
         }
+    }
+
+    /// Table identifiers restricted to the given ones, if any.
+    private static Set<String> selected(final Set<String> tableIds, @Nullable final Set<String> tables) {
+        return tables != null ? Sets.intersection(tableIds, tables) : tableIds;
+    }
+
+    /// `true` if the schemas of a table have different checksums in CURRENT and NEXT (i.e. the table might have changed).
+    private static boolean hasChecksumChanged(final MetadataFile currMeta, final MetadataFile nextMeta, final String tableId) {
+        final String currSource = source(currMeta, tableId);
+        final String nextSource = source(nextMeta, tableId);
+
+        return !currSource.equals(nextSource)
+                || !Objects.equals(currMeta.schemas().get(currSource), nextMeta.schemas().get(nextSource));
+    }
+
+    /// `true` if the files of a table are the same in CURRENT and NEXT.
+    ///
+    /// @param changedFiles Files changed between CURRENT and NEXT, if known (e.g. via a Git tree diff);
+    ///                     otherwise, the checksums in the metadata files are compared
+    private static boolean isUnchanged(final MetadataFile currMeta,
+                                       final MetadataFile nextMeta,
+                                       @Nullable final Set<String> changedFiles,
+                                       final String tableId) {
+        if (changedFiles == null) {
+            return !hasChecksumChanged(currMeta, nextMeta, tableId);
+        }
+
+        final String currSource = source(currMeta, tableId);
+        return currSource.equals(source(nextMeta, tableId))
+                && TableAvroSchemas.filenames(currSource).stream().noneMatch(changedFiles::contains);
+    }
+
+    /// Identifier of the table whose schemas stand in for the given table (i.e. itself, unless it's a reference).
+    private static String source(final MetadataFile meta, final String tableId) {
+        return Objects.requireNonNullElse(meta.getReference(tableId), tableId);
+    }
+
+    /// A directory containing PREVIOUS Table Schemas, with its [SchemasSource] and [MetadataFile].
+    private record HistoricalSchemas(Path dir, SchemasSource source, MetadataFile meta) {
+    }
+
+    /// Historical versions of a table, one per distinct checksum, excluding the one in CURRENT.
+    private static List<HistoricalSchemas> distinctHistoricalVersions(final List<HistoricalSchemas> history,
+                                                                           final MetadataFile currMeta,
+                                                                           final String tableId) {
+        final Set<String> checksums = new HashSet<>();
+        checksums.add(currMeta.schemas().get(source(currMeta, tableId)));
+
+        final List<HistoricalSchemas> versions = new ArrayList<>();
+        for (final HistoricalSchemas h : history) {
+            if (h.meta().getTableIdentifiers().contains(tableId) && checksums.add(h.meta().schemas().get(source(h.meta(), tableId)))) {
+                versions.add(h);
+            }
+        }
+        return versions;
+    }
+
+    private static boolean isTransitive(final CompatibilityLevel compatibilityLevel) {
+        return compatibilityLevel == CompatibilityLevel.BACKWARD_TRANSITIVE
+                || compatibilityLevel == CompatibilityLevel.FORWARD_TRANSITIVE
+                || compatibilityLevel == CompatibilityLevel.FULL_TRANSITIVE;
+    }
+
+    /// Adds the incompatibilities found against a historical version, to the ones found against CURRENT.
+    private static SchemaRegistry.CompatibilityResult withHistory(final SchemaRegistry.CompatibilityResult result,
+                                                                  final SchemaRegistry.CompatibilityResult histResult) {
+        return new SchemaRegistry.CompatibilityResult(
+                result.checkedLevel(),
+                Stream.concat(result.keyResults().stream(), histResult.keyResults().stream()).distinct().toList(),
+                Stream.concat(result.valueResults().stream(), histResult.valueResults().stream()).distinct().toList(),
+                Stream.concat(result.envelopeResults().stream(), histResult.envelopeResults().stream()).distinct().toList());
+    }
+
+    /// Transitive levels are satisfied only if their non-transitive counterparts are satisfied by a historical version too.
+    private static Map<CompatibilityLevel, Boolean> withHistory(final Map<CompatibilityLevel, Boolean> matrix,
+                                                                final Map<CompatibilityLevel, Boolean> histMatrix) {
+        final Map<CompatibilityLevel, Boolean> merged = new EnumMap<>(matrix);
+        merged.merge(CompatibilityLevel.BACKWARD_TRANSITIVE, histMatrix.get(CompatibilityLevel.BACKWARD), Boolean::logicalAnd);
+        merged.merge(CompatibilityLevel.FORWARD_TRANSITIVE, histMatrix.get(CompatibilityLevel.FORWARD), Boolean::logicalAnd);
+        merged.merge(CompatibilityLevel.FULL_TRANSITIVE, histMatrix.get(CompatibilityLevel.FULL), Boolean::logicalAnd);
+        return merged;
+    }
+
+    /// Options of a comparison, besides the Table Schemas to compare and the [CompatibilityLevel]
+    /// (see [#build(Path, Path, CompatibilityLevel, Options)]): start from [#DEFAULT], and change them via `with*`.
+    ///
+    /// @param baseSchemasDir     [Path] to the directory containing the BASE Table Schemas, or `null`
+    /// @param historySchemasDirs [Path]s to the directories containing PREVIOUS Table Schemas
+    /// @param cache              [CompatibilityCache] to reuse results of previous comparisons from, or `null`
+    /// @param failFast           When to stop the comparison early
+    /// @param matrix             `true` to also evaluate which [CompatibilityLevel]s each table satisfies
+    /// @param skipUnchanged      `true` to skip loading and checking tables unchanged between CURRENT and NEXT
+    /// @param tables             Identifiers of the only tables to compare (see [#merge(CompareResult, Set)]), or `null` for all
+    public record Options(@Nullable Path baseSchemasDir,
+                          @Nonnull List<Path> historySchemasDirs,
+                          @Nullable CompatibilityCache cache,
+                          @Nonnull FailFast failFast,
+                          boolean matrix,
+                          boolean skipUnchanged,
+                          @Nullable Set<String> tables) {
+        /// Two-way comparison of all tables, without cache.
+        public static final Options DEFAULT = new Options(null, List.of(), null, FailFast.OFF, false, false, null);
+
+        public Options withBase(@Nullable final Path baseSchemasDir) {
+            return new Options(baseSchemasDir, historySchemasDirs, cache, failFast, matrix, skipUnchanged, tables);
+        }
+
+        public Options withHistory(@Nonnull final List<Path> historySchemasDirs) {
+            return new Options(baseSchemasDir, List.copyOf(historySchemasDirs), cache, failFast, matrix, skipUnchanged, tables);
+        }
+
+        public Options withCache(@Nullable final CompatibilityCache cache) {
+            return new Options(baseSchemasDir, historySchemasDirs, cache, failFast, matrix, skipUnchanged, tables);
+        }
+
+        public Options withFailFast(@Nonnull final FailFast failFast) {
+            return new Options(baseSchemasDir, historySchemasDirs, cache, failFast, matrix, skipUnchanged, tables);
+        }
+
+        public Options withMatrix(final boolean matrix) {
+            return new Options(baseSchemasDir, historySchemasDirs, cache, failFast, matrix, skipUnchanged, tables);
+        }
+
+        public Options withSkipUnchanged(final boolean skipUnchanged) {
+            return new Options(baseSchemasDir, historySchemasDirs, cache, failFast, matrix, skipUnchanged, tables);
+        }
+
+        public Options withTables(@Nullable final Set<String> tables) {
+            return new Options(baseSchemasDir, historySchemasDirs, cache, failFast, matrix, skipUnchanged, tables != null ? Set.copyOf(tables) : null);
+        }
+    }
+
+    /// When to stop a comparison early, as soon as its outcome is known to be a failure.
+    public enum FailFast {
+        /// Check all tables.
+        OFF,
+
+        /// Stop at the first table with incompatibilities.
+        ON_INCOMPATIBILITY,
+
+        /// Stop at the first table with incompatibilities or schema changes, or if tables were added/removed (i.e. CI mode).
+        ON_CHANGE
+    }
+
+    /// Records (and logs) the incompatibilities of NEXT with BASE of a table.
+    private static void putBaseIncompatibilities(final String tableId,
+                                                 final SchemaRegistry.CompatibilityResult baseCompatResult,
+                                                 final Map<String, List<String>> baseKeyIncompatibilities,
+                                                 final Map<String, List<String>> baseValueIncompatibilities,
+                                                 final Map<String, List<String>> baseEnvelopeIncompatibilities) {
+        baseKeyIncompatibilities.put(tableId, baseCompatResult.keyResults());
+        baseValueIncompatibilities.put(tableId, baseCompatResult.valueResults());
+        baseEnvelopeIncompatibilities.put(tableId, baseCompatResult.envelopeResults());
+        for (final String err : baseCompatResult.keyResults()) {
+            LOG.error("Table '{}' Key Incompatibility with BASE: {}", tableId, err);
+        }
+        for (final String err : baseCompatResult.valueResults()) {
+            LOG.error("Table '{}' Value Incompatibility with BASE: {}", tableId, err);
+        }
+        for (final String err : baseCompatResult.envelopeResults()) {
+            LOG.error("Table '{}' Envelope Incompatibility with BASE: {}", tableId, err);
+        }
+    }
+
+    private static void putFieldChanges(final Map<String, List<SchemaDiff.FieldChange>> fieldChanges, final String tableId, final SchemaDiff diff) {
+        if (!diff.isEmpty()) {
+            fieldChanges.put(tableId, diff.changes());
+        }
+    }
+
+    private static void copyFieldChanges(final Map<String, List<SchemaDiff.FieldChange>> fieldChanges, final String fromTableId, final String toTableId) {
+        final List<SchemaDiff.FieldChange> changes = fieldChanges.get(fromTableId);
+        if (changes != null) {
+            fieldChanges.put(toTableId, changes);
+        }
+    }
 
-        return new CompareResult(currSchemasDir, nextSchemasDir, compatibilityLevel, keyIncompatibilities, valueIncompatibilities, envelopeIncompatibilities, removedTables, addedTables, keySchemaChanged, valueSchemaChanged, envelopeSchemaChanged);
+    /// Replaces the identifier of a table with the one of another, in the given incompatibilities.
+    private static List<String> withIdentifier(final List<String> incompatibilities, final String fromTableId, final String toTableId) {
+        return incompatibilities.stream()
+                .map(incompatibility -> incompatibility.replace(fromTableId, toTableId))
+                .toList();
     }
 }
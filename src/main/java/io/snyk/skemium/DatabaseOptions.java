@@ -0,0 +1,541 @@
+package io.snyk.skemium;
+
+import io.debezium.config.Configuration;
+import io.debezium.relational.RelationalDatabaseConnectorConfig;
+import io.debezium.relational.TableId;
+import io.debezium.relational.TableSchema;
+import io.snyk.skemium.avro.TableAvroSchemas;
+import io.snyk.skemium.cli.ManifestReader;
+import io.snyk.skemium.db.CatalogCapture;
+import io.snyk.skemium.db.CatalogFilter;
+import io.snyk.skemium.db.DatabaseKind;
+import io.snyk.skemium.db.PartitionMode;
+import io.snyk.skemium.db.TableSchemaFetcher;
+import io.snyk.skemium.db.postgres.PostgresTableSchemaFetcher;
+import io.snyk.skemium.db.schemahistory.SchemaHistoryTableSchemaFetcher;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/// Options to connect to a Database and select the tables to fetch, shared by the commands that read a Database
+/// (via picocli [CommandLine.Mixin]).
+///
+/// Connection options are mandatory for the commands that connect: [#validate(CommandLine)] checks them.
+/// With `--from-capture`, tables are read from a [CatalogCapture] instead, and no connection is needed;
+/// the same goes for `--kind=SCHEMA_HISTORY`, that reconstructs tables from a Debezium schema history file.
+public class DatabaseOptions {
+    private static final Logger LOG = LoggerFactory.getLogger(DatabaseOptions.class);
+
+    /// Default `--lock-timeout` with `--production-safe`, in milliseconds.
+    private static final int PRODUCTION_SAFE_LOCK_TIMEOUT_MS = 1_000;
+    /// Default `--statement-timeout` with `--production-safe`, in milliseconds.
+    private static final int PRODUCTION_SAFE_STATEMENT_TIMEOUT_MS = 30_000;
+
+    @Option(
+            names = {"-h", "--hostname"},
+            defaultValue = "${env:DB_HOSTNAME}",
+            description = "Database hostname (env: DB_HOSTNAME)"
+    )
+    String hostname;
+
+    @Option(
+            names = {"-p", "--port"},
+            defaultValue = "${env:DB_PORT}",
+            description = "Database port (env: DB_PORT)"
+    )
+    Integer port;
+
+    @Option(
+            names = {"-u", "--username"},
+            defaultValue = "${env:DB_USERNAME}",
+            description = "Database username (env: DB_USERNAME)"
+    )
+    String username;
+
+    @Option(
+            names = {"--password"},
+            defaultValue = "${env:DB_PASSWORD}",
+            description = "Database password (env: DB_PASSWORD)"
+    )
+    String password;
+
+    @Option(
+            names = {"-d", "--database"},
+            defaultValue = "${env:DB_NAME}",
+            description = "Database name (env: DB_NAME)"
+    )
+    String dbName;
+
+    @Option(
+            names = {"-s", "--schema"},
+            defaultValue = "${env:DB_SCHEMA}",
+            description = "Database schema(s); all if omitted (env: DB_SCHEMA - optional)",
+            split = ","
+    )
+    Set<String> dbSchemas;
+
+    @Option(
+            names = {"-t", "--table"},
+            defaultValue = "${env:DB_TABLE}",
+            description = "Database table(s); all if omitted (fmt: DB_SCHEMA.DB_TABLE|DB_TABLE - env: DB_TABLE - optional)",
+            split = ","
+    )
+    Set<String> dbTables;
+
+    @Option(
+            names = {"-x", "--exclude-column"},
+            defaultValue = "${env:DB_EXCLUDED_COLUMN}",
+            description = "Database table column(s) to exclude (fmt: DB_SCHEMA.DB_TABLE.DB_COLUMN - env: DB_EXCLUDED_COLUMN - optional)",
+            split = ","
+    )
+    Set<String> dbExcludedColumns;
+
+    @Option(
+            names = {"--kind"},
+            defaultValue = "${env:DB_KIND}",
+            showDefaultValue = CommandLine.Help.Visibility.ALWAYS,
+            description = """
+                Database kind (env: DB_KIND - optional)
+                  Values: ${COMPLETION-CANDIDATES}"""
+    )
+    DatabaseKind kind = DatabaseKind.POSTGRES;
+
+    @Option(
+            names = {"--partitions"},
+            defaultValue = "${env:DB_PARTITIONS}",
+            showDefaultValue = CommandLine.Help.Visibility.ALWAYS,
+            description = """
+                How to handle partitions of partitioned tables (env: DB_PARTITIONS - optional)
+                  ALL: one schema per partition; PARENT: only the partitioned table;
+                  REFERENCE: only the partitioned table, with partitions recorded as references to it
+                  Values: ${COMPLETION-CANDIDATES}"""
+    )
+    PartitionMode partitionMode = PartitionMode.ALL;
+
+    @Option(
+            names = {"--from-capture"},
+            defaultValue = "${env:DB_CAPTURE_FILE}",
+            paramLabel = "CAPTURE_FILE",
+            description = "Catalog capture (created via 'capture') to read tables from, instead of connecting to the Database (env: DB_CAPTURE_FILE - optional)"
+    )
+    Path captureFile;
+
+    @Option(
+            names = {"--schema-history-file"},
+            defaultValue = "${env:DB_SCHEMA_HISTORY_FILE}",
+            paramLabel = "HISTORY_FILE",
+            description = "Debezium schema history file to reconstruct tables from, with '--kind=SCHEMA_HISTORY' (env: DB_SCHEMA_HISTORY_FILE - optional)"
+    )
+    Path schemaHistoryFile;
+
+    @Option(
+            names = {"--schema-history-approximate"},
+            defaultValue = "${env:DB_SCHEMA_HISTORY_APPROXIMATE}",
+            showDefaultValue = CommandLine.Help.Visibility.ALWAYS,
+            description = "Accept schemas converted from the schema history with generic value converters, that can differ from the connector's; required with '--kind=SCHEMA_HISTORY' (env: DB_SCHEMA_HISTORY_APPROXIMATE - optional)"
+    )
+    Boolean schemaHistoryApproximate = false;
+
+    @Option(
+            names = {"--production-safe"},
+            defaultValue = "${env:DB_PRODUCTION_SAFE}",
+            showDefaultValue = CommandLine.Help.Visibility.ALWAYS,
+            description = """
+                Bound the impact on the Database (e.g. a busy primary): read tables in batches, pausing between them based on
+                their latency, and retry batches that time out; lock and statement timeouts default to 1s and 30s
+                (env: DB_PRODUCTION_SAFE - optional)"""
+    )
+    Boolean productionSafe = false;
+
+    @Option(
+            names = {"--lock-timeout"},
+            defaultValue = "${env:DB_LOCK_TIMEOUT}",
+            paramLabel = "MILLIS",
+            description = "Maximum time to wait for a lock (e.g. behind DDL), in milliseconds; 0 to wait indefinitely (env: DB_LOCK_TIMEOUT - optional)"
+    )
+    Integer lockTimeoutMs;
+
+    @Option(
+            names = {"--statement-timeout"},
+            defaultValue = "${env:DB_STATEMENT_TIMEOUT}",
+            paramLabel = "MILLIS",
+            description = "Maximum duration of any query, in milliseconds; 0 for no limit (env: DB_STATEMENT_TIMEOUT - optional)"
+    )
+    Integer statementTimeoutMs;
+
+    @Option(
+            names = {"--type-cache-dir"},
+            defaultValue = "${env:DB_TYPE_CACHE_DIR}",
+            description = "Directory to cache the types of the Database in: reused until they change (env: DB_TYPE_CACHE_DIR - optional)"
+    )
+    Path typeCacheDir;
+
+    /// [CatalogCapture] loaded from [#captureFile], if any.
+    private CatalogCapture capture;
+
+    /// Validates that all the options needed to connect to the Database were provided.
+    ///
+    /// With `--from-capture`, loads the [CatalogCapture] instead: Database kind and name are taken from it.
+    /// With [DatabaseKind#SCHEMA_HISTORY], only the schema history file and the Database name are needed, and approximate
+    /// schemas must be accepted explicitly (see [SchemaHistoryTableSchemaFetcher#APPROXIMATE]).
+    ///
+    /// @param commandLine [CommandLine] of the command using these options
+    /// @throws ParameterException If a connection option is missing, or the catalog capture can't be read
+    public void validate(final CommandLine commandLine) throws ParameterException {
+        if ((lockTimeoutMs != null && lockTimeoutMs < 0) || (statementTimeoutMs != null && statementTimeoutMs < 0)) {
+            throw new ParameterException(commandLine, "'--lock-timeout' and '--statement-timeout' must not be negative");
+        }
+        if ((captureFile != null || kind == DatabaseKind.SCHEMA_HISTORY)
+                && (productionSafe || lockTimeoutMs != null || statementTimeoutMs != null || typeCacheDir != null)) {
+            LOG.warn("'--production-safe', '--lock-timeout', '--statement-timeout' and '--type-cache-dir' are ignored without a live Database");
+        }
+        if (captureFile != null) {
+            try {
+                capture = CatalogCapture.loadFrom(captureFile);
+            } catch (final IOException e) {
+                throw new ParameterException(commandLine, "Failed to read catalog capture: " + captureFile.toAbsolutePath(), e);
+            }
+            if (dbName != null && !dbName.equals(capture.database())) {
+                throw new ParameterException(commandLine,
+                        "Catalog capture is of Database '%s', not '%s'".formatted(capture.database(), dbName));
+            }
+            dbName = capture.database();
+            kind = capture.kind();
+            return;
+        }
+
+        if (kind == DatabaseKind.SCHEMA_HISTORY) {
+            requireOption(commandLine, schemaHistoryFile, "'--schema-history-file=HISTORY_FILE'");
+            requireOption(commandLine, dbName, "'--database=<dbName>'");
+            if (!schemaHistoryFile.toFile().isFile()) {
+                throw new ParameterException(commandLine, "Schema history file not found: " + schemaHistoryFile.toAbsolutePath());
+            }
+            if (!schemaHistoryApproximate) {
+                throw new ParameterException(commandLine, """
+                        The connector that wrote the schema history is not available: its column types and `source` block \
+                        can only be approximated. Pass '--schema-history-approximate' to accept that""");
+            }
+            return;
+        }
+        if (schemaHistoryFile != null || schemaHistoryApproximate) {
+            throw new ParameterException(commandLine, "'--schema-history-file' and '--schema-history-approximate' require '--kind=SCHEMA_HISTORY'");
+        }
+
+        requireOption(commandLine, hostname, "'--hostname=<hostname>'");
+        requireOption(commandLine, port, "'--port=<port>'");
+        requireOption(commandLine, username, "'--username=<username>'");
+        requireOption(commandLine, password, "'--password=<password>'");
+        requireOption(commandLine, dbName, "'--database=<dbName>'");
+    }
+
+    private static void requireOption(final CommandLine commandLine, final Object value, final String option) throws ParameterException {
+        if (value == null || (value instanceof String str && str.isEmpty())) {
+            throw new ParameterException(commandLine, "Missing required option: " + option);
+        }
+    }
+
+    /// @return Database (Catalog) name
+    public String dbName() {
+        return dbName;
+    }
+
+    /// Fetches the [TableSchema]s of the selected tables from the Database.
+    ///
+    /// Unless [#partitionMode] is [PartitionMode#ALL], partitions are collapsed onto their partitioned table:
+    /// they are found first, and never read. With [PartitionMode#REFERENCE], partitions removed are recorded in `references`.
+    ///
+    /// @param references [Map] of table identifiers to the identifier of the table they reference, to add to
+    /// @return [List] of [TableSchema]
+    /// @throws Exception If the Database can't be read, or schemas/tables selected were not found
+    public List<TableSchema> fetch(final Map<String, String> references) throws Exception {
+        try (final TableSchemaFetcher schemaFetcher = createFetcher()) {
+            return fetch(schemaFetcher, references);
+        }
+    }
+
+    /// Same as [#fetch(Map)], via the given [TableSchemaFetcher].
+    List<TableSchema> fetch(final TableSchemaFetcher schemaFetcher, final Map<String, String> references) throws Exception {
+        final CatalogFilter filter = CatalogFilter.compile(dbSchemas, dbTables, dbExcludedColumns);
+        if (partitionMode == PartitionMode.ALL) {
+            return schemaFetcher.fetch(dbName, filter);
+        }
+
+        final Set<TableId> partitions = collapsePartitions(filter::includes, schemaFetcher.fetchPartitions(dbName), references);
+        return schemaFetcher.fetch(dbName, filter.excluding(partitions));
+    }
+
+    /// Same as [#fetch(Map)], but also fetches the catalog fingerprint of each table
+    /// (see [TableSchemaFetcher#fetchFingerprints]): given the fingerprints of a previous run,
+    /// only the tables whose fingerprint changed are fetched, and the others are recorded in `unchanged`.
+    ///
+    /// Fingerprints also cover the Skemium version, the columns excluded and the [PartitionMode]: if any changes, all
+    /// tables are fetched. Partitions collapsed onto their partitioned table are not fingerprinted.
+    /// If the Database doesn't support fingerprinting, all tables are fetched and `fingerprints` is left empty.
+    ///
+    /// @param references           [Map] of table identifiers to the identifier of the table they reference, to add to
+    /// @param fingerprints         [Map] of table identifiers to their fingerprint, to add to
+    /// @param previousFingerprints [Map] of table identifiers to their fingerprint in a previous run;
+    ///                             `null` to fetch all tables
+    /// @param unchanged            [Set] of identifiers of the tables not fetched, as their fingerprint didn't change, to add to
+    /// @return [List] of [TableSchema] of the tables fetched
+    /// @throws Exception If the Database can't be read, or schemas/tables selected were not found
+    public List<TableSchema> fetch(final Map<String, String> references,
+                                   final Map<String, String> fingerprints,
+                                   @Nullable final Map<String, String> previousFingerprints,
+                                   final Set<String> unchanged) throws Exception {
+        try (final TableSchemaFetcher schemaFetcher = createFetcher()) {
+            return fetch(schemaFetcher, references, fingerprints, previousFingerprints, unchanged);
+        }
+    }
+
+    /// Same as [#fetch(Map, Map, Map, Set)], via the given [TableSchemaFetcher].
+    List<TableSchema> fetch(final TableSchemaFetcher schemaFetcher,
+                            final Map<String, String> references,
+                            final Map<String, String> fingerprints,
+                            @Nullable final Map<String, String> previousFingerprints,
+                            final Set<String> unchanged) throws Exception {
+        final Map<TableId, String> catalogFingerprints = schemaFetcher.fetchFingerprints(dbName, dbSchemas, dbTables);
+        if (catalogFingerprints == null) {
+            if (previousFingerprints != null) {
+                LOG.warn("Database kind {} doesn't support fingerprints: fetching all Tables", kind);
+            }
+            return fetch(schemaFetcher, references);
+        }
+
+        // Partitions are collapsed considering all tables, changed or not, and are neither fetched nor unchanged
+        final Set<TableId> partitions = partitionMode == PartitionMode.ALL
+                ? Set.of()
+                : collapsePartitions(catalogFingerprints::containsKey, schemaFetcher.fetchPartitions(dbName), references);
+
+        final Set<TableId> unchangedTables = new HashSet<>();
+        final Set<TableId> changedTables = new HashSet<>();
+        catalogFingerprints.forEach((tId, catalogFingerprint) -> {
+            if (partitions.contains(tId)) {
+                return;
+            }
+            final String identifier = TableAvroSchemas.identifier(tId, dbName);
+            final String fingerprint = fingerprint(catalogFingerprint);
+            fingerprints.put(identifier, fingerprint);
+            if (previousFingerprints != null && fingerprint.equals(previousFingerprints.get(identifier))) {
+                unchangedTables.add(tId);
+            } else {
+                changedTables.add(tId);
+            }
+        });
+        LOG.info("Found {} Tables unchanged since previous run (out of {})", unchangedTables.size(), unchangedTables.size() + changedTables.size());
+
+        unchangedTables.forEach(tId -> unchanged.add(TableAvroSchemas.identifier(tId, dbName)));
+
+        // Only fetch the tables that changed
+        if (changedTables.isEmpty()) {
+            return List.of();
+        }
+        return unchangedTables.isEmpty()
+                ? schemaFetcher.fetch(dbName, CatalogFilter.compile(dbSchemas, dbTables, dbExcludedColumns).excluding(partitions))
+                : schemaFetcher.fetch(dbName, changedTables, dbExcludedColumns);
+    }
+
+    /// Opens a [TableSchemaFetcher] for the Database, for the caller to keep open across fetches (e.g. `watch`):
+    /// see [#fetchFingerprints(TableSchemaFetcher)] and [#fetch(TableSchemaFetcher, Set)].
+    ///
+    /// @return A [TableSchemaFetcher]; MUST be closed after use
+    public TableSchemaFetcher openFetcher() {
+        return createFetcher();
+    }
+
+    /// Fetches the fingerprint of each selected table, as recorded by [#fetch(Map, Map, Map, Set)].
+    ///
+    /// @param schemaFetcher [TableSchemaFetcher] opened via [#openFetcher()]
+    /// @return A [Map] of [TableId] to fingerprint; [TableId]s don't carry the catalog.
+    ///         `null` if the Database doesn't support fingerprinting
+    /// @throws Exception If the Database can't be read
+    public @Nullable Map<TableId, String> fetchFingerprints(final TableSchemaFetcher schemaFetcher) throws Exception {
+        final Map<TableId, String> catalogFingerprints = schemaFetcher.fetchFingerprints(dbName, dbSchemas, dbTables);
+        if (catalogFingerprints == null) {
+            return null;
+        }
+
+        final Map<TableId, String> result = new HashMap<>(catalogFingerprints.size());
+        catalogFingerprints.forEach((tId, catalogFingerprint) -> result.put(tId, fingerprint(catalogFingerprint)));
+        return result;
+    }
+
+    /// Fetches the [TableSchema]s of the given tables, among the selected ones.
+    ///
+    /// Partitions are not collapsed: the caller is expected to only use [PartitionMode#ALL].
+    ///
+    /// @param schemaFetcher [TableSchemaFetcher] opened via [#openFetcher()]
+    /// @param tables        [Set] of [TableId]s of the tables to fetch; [TableId]s don't need to carry the catalog
+    /// @return [List] of [TableSchema] of the tables found
+    /// @throws Exception If the Database can't be read
+    public List<TableSchema> fetch(final TableSchemaFetcher schemaFetcher, final Set<TableId> tables) throws Exception {
+        final CatalogFilter selection = CatalogFilter.compile(dbSchemas, dbTables, null);
+        final Set<TableId> selectedTables = tables.stream().filter(selection::includes).collect(Collectors.toSet());
+        if (selectedTables.isEmpty()) {
+            return List.of();
+        }
+        return schemaFetcher.fetch(dbName, selectedTables, dbExcludedColumns);
+    }
+
+    /// @return Fingerprint of a table, combining its catalog fingerprint with the options affecting its [TableSchema]
+    private String fingerprint(final String catalogFingerprint) {
+        return DigestUtils.sha256Hex(String.join("|",
+                String.valueOf(ManifestReader.SINGLETON.getAttribute(ManifestReader.MANIFEST_KEY_PRJ_VER)),
+                kind.name(),
+                partitionMode.name(),
+                dbExcludedColumns == null ? "" : String.join(",", new TreeSet<>(dbExcludedColumns)),
+                catalogFingerprint));
+    }
+
+    /// Captures the catalog of the selected schemas and tables of the Database (see [TableSchemaFetcher#capture]).
+    ///
+    /// @return A [CatalogCapture]
+    /// @throws Exception If the Database can't be read
+    public CatalogCapture capture() throws Exception {
+        try (final TableSchemaFetcher schemaFetcher = createFetcher()) {
+            return schemaFetcher.capture(dbName, dbSchemas, dbTables);
+        }
+    }
+
+    private TableSchemaFetcher createFetcher() {
+        return capture != null
+                ? kind.fetcher(capture)
+                : kind.fetcher(createConfiguration());
+    }
+
+    /// Finds the partitions to remove among the selected tables: those whose partitioned table is also selected.
+    /// If [#partitionMode] is [PartitionMode#REFERENCE], partitions removed are recorded in `references`.
+    ///
+    /// @param selected   Whether a table is selected; [TableId]s don't carry the catalog
+    /// @param partitions [Map] of partitions to their partitioned table (see [TableSchemaFetcher#fetchPartitions])
+    /// @param references [Map] of table identifiers to the identifier of the table they reference, to add to
+    /// @return [Set] of [TableId]s of the partitions to remove; [TableId]s don't carry the catalog
+    private Set<TableId> collapsePartitions(final Predicate<TableId> selected,
+                                            final Map<TableId, TableId> partitions,
+                                            final Map<String, String> references) {
+        final Set<TableId> result = new HashSet<>();
+        for (final Map.Entry<TableId, TableId> partition : partitions.entrySet()) {
+            final TableId tId = partition.getKey();
+            final TableId parent = partition.getValue();
+            if (!selected.test(tId)) {
+                continue;
+            }
+            if (!selected.test(parent)) {
+                LOG.warn("Partition '{}' kept as a table: its partitioned table '{}' was not selected", tId, parent);
+                continue;
+            }
+
+            result.add(tId);
+            if (partitionMode == PartitionMode.REFERENCE) {
+                LOG.debug("Partition '{}' recorded as reference to '{}'", tId, parent);
+                references.put(TableAvroSchemas.identifier(tId, dbName), TableAvroSchemas.identifier(parent, dbName));
+            } else {
+                LOG.debug("Partition '{}' omitted in favour of '{}'", tId, parent);
+            }
+        }
+        LOG.info("Collapsed {} Partitions onto their partitioned tables", result.size());
+
+        return result;
+    }
+
+    /// @return Human-readable location of the Database, for logging and reporting
+    ///         (e.g. `postgres:localhost:5432/chinook`, `postgres:capture:chinook.json/chinook`,
+    ///         or `schema_history:history.dat/inventory`)
+    public String location() {
+        if (captureFile != null) {
+            return "%s:capture:%s/%s".formatted(kind.name().toLowerCase(), captureFile, dbName);
+        }
+        if (kind == DatabaseKind.SCHEMA_HISTORY) {
+            return "%s:%s/%s".formatted(kind.name().toLowerCase(), schemaHistoryFile, dbName);
+        }
+        return "%s:%s:%d/%s".formatted(kind.name().toLowerCase(), hostname, port, dbName);
+    }
+
+    void logInput() {
+        LOG.debug("Database");
+        if (captureFile != null) {
+            LOG.debug("  Catalog capture: {}", captureFile.toAbsolutePath().normalize());
+        }
+        if (schemaHistoryFile != null) {
+            LOG.debug("  Schema history: {}", schemaHistoryFile.toAbsolutePath().normalize());
+        }
+        LOG.debug("  Kind: {}", kind);
+        LOG.debug("  Host: {}:{}", hostname, port);
+        LOG.debug("  User: {}:{}", username, password != null ? password.replaceAll(".", "*") : null);
+        LOG.debug("  Database (i.e. catalog): {}", dbName);
+        LOG.debug("  Type cache directory: {}", typeCacheDir != null ? typeCacheDir.toAbsolutePath().normalize() : null);
+        LOG.debug("  Production safe: {} (lock timeout: {}ms, statement timeout: {}ms)", productionSafe, lockTimeout(), statementTimeout());
+        LOG.debug("Input");
+        if (dbSchemas == null || dbSchemas.isEmpty()) {
+            LOG.debug("  Schema(s): ALL");
+        } else {
+            LOG.debug("  Schema(s): {}", String.join(", ", dbSchemas));
+        }
+        if (dbTables == null || dbTables.isEmpty()) {
+            LOG.debug("  Table(s): ALL");
+        } else {
+            LOG.debug("  Table(s): {}", String.join(", ", dbTables));
+        }
+        if (dbExcludedColumns == null || dbExcludedColumns.isEmpty()) {
+            LOG.debug("  Excluded Column(s): NONE");
+        } else {
+            LOG.debug("  Excluded Column(s): {}", String.join(", ", dbExcludedColumns));
+        }
+        LOG.debug("  Partitions: {}", partitionMode);
+    }
+
+    private Configuration createConfiguration() {
+        if (kind == DatabaseKind.SCHEMA_HISTORY) {
+            return Configuration.create()
+                    .with(SchemaHistoryTableSchemaFetcher.FILE_PATH, schemaHistoryFile.toString())
+                    .with(SchemaHistoryTableSchemaFetcher.APPROXIMATE, schemaHistoryApproximate)
+                    .with(RelationalDatabaseConnectorConfig.DATABASE_NAME, dbName)
+                    .build();
+        }
+        final Configuration.Builder config = Configuration.create()
+                .with(RelationalDatabaseConnectorConfig.HOSTNAME, hostname)
+                .with(RelationalDatabaseConnectorConfig.PORT, (int) port)
+                .with(RelationalDatabaseConnectorConfig.USER, username)
+                .with(RelationalDatabaseConnectorConfig.PASSWORD, password)
+                .with(RelationalDatabaseConnectorConfig.DATABASE_NAME, dbName)
+                .with(RelationalDatabaseConnectorConfig.TOPIC_PREFIX, "unused.topic.prefix") //< NOTE: Required but unused field
+                .with(PostgresTableSchemaFetcher.LOCK_TIMEOUT_MS, lockTimeout())
+                .with(PostgresTableSchemaFetcher.STATEMENT_TIMEOUT_MS, statementTimeout())
+                .with(PostgresTableSchemaFetcher.THROTTLE, productionSafe);
+        if (typeCacheDir != null) {
+            config.with(PostgresTableSchemaFetcher.TYPE_CACHE_DIR, typeCacheDir.toAbsolutePath().toString());
+        }
+        return config.build();
+    }
+
+    /// @return `--lock-timeout`, defaulting to [#PRODUCTION_SAFE_LOCK_TIMEOUT_MS] with `--production-safe`
+    private int lockTimeout() {
+        if (lockTimeoutMs != null) {
+            return lockTimeoutMs;
+        }
+        return productionSafe ? PRODUCTION_SAFE_LOCK_TIMEOUT_MS : 0;
+    }
+
+    /// @return `--statement-timeout`, defaulting to [#PRODUCTION_SAFE_STATEMENT_TIMEOUT_MS] with `--production-safe`
+    private int statementTimeout() {
+        if (statementTimeoutMs != null) {
+            return statementTimeoutMs;
+        }
+        return productionSafe ? PRODUCTION_SAFE_STATEMENT_TIMEOUT_MS : 0;
+    }
+}
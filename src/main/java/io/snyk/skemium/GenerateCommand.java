@@ -1,12 +1,12 @@
 package io.snyk.skemium;
 
-import io.debezium.config.Configuration;
-import io.debezium.relational.RelationalDatabaseConnectorConfig;
 import io.debezium.relational.TableSchema;
+import io.snyk.skemium.avro.SchemaInterner;
+import io.snyk.skemium.avro.SchemasSource;
+import io.snyk.skemium.avro.StorageLayout;
 import io.snyk.skemium.avro.TableAvroSchemas;
 import io.snyk.skemium.cli.ManifestReader;
-import io.snyk.skemium.db.DatabaseKind;
-import io.snyk.skemium.db.TableSchemaFetcher;
+import io.snyk.skemium.helpers.Git;
 import io.snyk.skemium.meta.MetadataFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,15 +14,26 @@ import picocli.CommandLine;
 import picocli.CommandLine.*;
 import picocli.CommandLine.Model.CommandSpec;
 
+import javax.annotation.Nullable;
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.time.format.SignStyle;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static java.time.temporal.ChronoField.*;
 
@@ -44,79 +55,40 @@ public class GenerateCommand extends BaseCommand {
     @Spec
     CommandSpec spec;
 
-    @Option(
-            names = {"-h", "--hostname"},
-            defaultValue = "${env:DB_HOSTNAME}",
-            description = "Database hostname (env: DB_HOSTNAME)",
-            required = true
-    )
-    String hostname;
-
-    @Option(
-            names = {"-p", "--port"},
-            defaultValue = "${env:DB_PORT}",
-            description = "Database port (env: DB_PORT)",
-            required = true
-    )
-    int port;
-
-    @Option(
-            names = {"-u", "--username"},
-            defaultValue = "${env:DB_USERNAME}",
-            description = "Database username (env: DB_USERNAME)",
-            required = true
-    )
-    String username;
-
-    @Option(
-            names = {"--password"},
-            defaultValue = "${env:DB_PASSWORD}",
-            description = "Database password (env: DB_PASSWORD)",
-            required = true
-    )
-    String password;
-
-    @Option(
-            names = {"-d", "--database"},
-            defaultValue = "${env:DB_NAME}",
-            description = "Database name (env: DB_NAME)",
-            required = true
-    )
-    String dbName;
-
-    @Option(
-            names = {"-s", "--schema"},
-            defaultValue = "${env:DB_SCHEMA}",
-            description = "Database schema(s); all if omitted (env: DB_SCHEMA - optional)",
-            split = ","
-    )
-    Set<String> dbSchemas;
+    @Mixin
+    DatabaseOptions db;
 
     @Option(
-            names = {"-t", "--table"},
-            defaultValue = "${env:DB_TABLE}",
-            description = "Database table(s); all if omitted (fmt: DB_SCHEMA.DB_TABLE|DB_TABLE - env: DB_TABLE - optional)",
-            split = ","
+            names = {"--storage-layout"},
+            defaultValue = "${env:STORAGE_LAYOUT}",
+            showDefaultValue = CommandLine.Help.Visibility.ALWAYS,
+            description = """
+                Layout of the generated schema files (env: STORAGE_LAYOUT - optional)
+                  Values: ${COMPLETION-CANDIDATES}"""
     )
-    Set<String> dbTables;
+    StorageLayout storageLayout = StorageLayout.FULL;
 
     @Option(
-            names = {"-x", "--exclude-column"},
-            defaultValue = "${env:DB_EXCLUDED_COLUMN}",
-            description = "Database table column(s) to exclude (fmt: DB_SCHEMA.DB_TABLE.DB_COLUMN - env: DB_EXCLUDED_COLUMN - optional)",
-            split = ","
+            names = {"--dedupe"},
+            defaultValue = "${env:DB_DEDUPE}",
+            showDefaultValue = CommandLine.Help.Visibility.ALWAYS,
+            description = """
+                Save only one table per distinct structure, recording the others as references to it (env: DB_DEDUPE - optional)"""
     )
-    Set<String> dbExcludedColumns;
+    Boolean dedupe = false;
 
     @Option(
-            names = {"--kind"},
-            defaultValue = "${env:DB_KIND}",
-            showDefaultValue = CommandLine.Help.Visibility.ALWAYS,
+            names = {"--incremental-from"},
+            defaultValue = "${env:INCREMENTAL_FROM}",
+            paramLabel = "PREVIOUS_SCHEMAS_DIR",
             description = """
-                Database kind (env: DB_KIND - optional)
-                  Values: ${COMPLETION-CANDIDATES}"""
+                Directory generated by a previous run: tables whose catalog fingerprint didn't change are copied from it,
+                instead of converted again (env: INCREMENTAL_FROM - optional)"""
     )
-    DatabaseKind kind = DatabaseKind.POSTGRES;
+    Path incrementalFrom;
+
+    /// [MetadataFile] loaded from [#incrementalFrom], if any.
+    private MetadataFile previousMeta;
 
     @Parameters(
             arity = "0..1",
@@ -133,11 +105,21 @@ public class GenerateCommand extends BaseCommand {
         validate();
         logInput();
 
-        try (final TableSchemaFetcher schemaFetcher = kind.fetcher(createConfiguration())) {
-            final List<TableSchema> tableSchemas = schemaFetcher.fetch(dbName, dbSchemas, dbTables, dbExcludedColumns);
+        // Gather Git info in the background, while fetching from the Database
+        final CompletableFuture<Git.GitInfo> gitInfo = Git.tryGetInfoAsync(Path.of("."));
+
+        try {
+            final Map<String, String> references = new HashMap<>();
+            final Map<String, String> fingerprints = new HashMap<>();
+            final Set<String> unchanged = new TreeSet<>();
+            final List<TableSchema> tableSchemas = db.fetch(references, fingerprints, previousFingerprints(), unchanged);
 
-            LOG.info("Will convert {} Table Schemas to Avro", tableSchemas.size());
-            for (final TableSchema ts : tableSchemas) {
+            final List<TableSchema> distinctTableSchemas = dedupe
+                    ? deduplicate(tableSchemas, references)
+                    : tableSchemas;
+
+            LOG.info("Will convert {} Table Schemas to Avro", distinctTableSchemas.size());
+            for (final TableSchema ts : distinctTableSchemas) {
                 LOG.info("  {}", ts.id());
             }
 
@@ -147,19 +129,23 @@ public class GenerateCommand extends BaseCommand {
             }
             LOG.info("Will generate schema to: {}", outputDir.toAbsolutePath().normalize());
 
-            // Map table schemas to avro schemas
-            final List<TableAvroSchemas> tablesAvroSchemas = tableSchemas.stream().parallel()
-                    .map(ts -> TableAvroSchemas.build(ts, dbName))
+            // Map table schemas to avro schemas, and copy forward those of unchanged tables
+            final SchemaInterner interner = new SchemaInterner();
+            final List<TableAvroSchemas> tablesAvroSchemas = Stream.concat(
+                            distinctTableSchemas.stream().parallel().map(ts -> TableAvroSchemas.build(ts, db.dbName(), interner)),
+                            loadUnchanged(unchanged, interner).stream())
                     .sorted((a, b) -> a.identifier().compareTo(b.identifier()))
                     .toList();
 
             // Save avro schemas to the designated output directory
             for (final TableAvroSchemas tas : tablesAvroSchemas) {
-                tas.saveTo(outputDir);
+                tas.saveTo(outputDir, storageLayout);
             }
 
             // Save skemium metadata to the designated output directory
-            final MetadataFile meta = MetadataFile.build(spec.commandLine().getParseResult().originalArgs(), tablesAvroSchemas);
+            final Set<String> generated = tablesAvroSchemas.stream().map(TableAvroSchemas::identifier).collect(Collectors.toSet());
+            fingerprints.keySet().removeIf(t -> !generated.contains(t) && !references.containsKey(t));
+            final MetadataFile meta = MetadataFile.build(spec.commandLine().getParseResult().originalArgs(), tablesAvroSchemas, references, fingerprints, gitInfo.join());
             meta.saveTo(outputDir);
             LOG.info("Generated Database Tables Schemas");
             return 0;
@@ -169,7 +155,66 @@ public class GenerateCommand extends BaseCommand {
         }
     }
 
+    /// @return Fingerprints of the tables saved by the previous run (see [#incrementalFrom]); `null` if there is none
+    private @Nullable Map<String, String> previousFingerprints() {
+        if (previousMeta == null) {
+            return null;
+        }
+        if (previousMeta.fingerprints() == null) {
+            LOG.warn("Previous run has no table fingerprints: all Tables will be converted");
+            return Map.of();
+        }
+        return previousMeta.fingerprints();
+    }
+
+    /// Loads the [TableAvroSchemas] of the given tables from the previous run (see [#incrementalFrom]).
+    /// Tables that were references in the previous run get the [TableAvroSchemas] of the table they referenced,
+    /// with their own identifier (see [MetadataFile#loadTableAvroSchemas(Path, String)]).
+    private List<TableAvroSchemas> loadUnchanged(final Set<String> unchanged, final SchemaInterner interner) throws IOException {
+        final List<TableAvroSchemas> result = new ArrayList<>(unchanged.size());
+        final SchemasSource source = SchemasSource.directory(incrementalFrom);
+        for (final String identifier : unchanged) {
+            LOG.debug("Table '{}' unchanged: copied from {}", identifier, incrementalFrom);
+            result.add(previousMeta.loadTableAvroSchemas(source, identifier, interner));
+        }
+        if (!result.isEmpty()) {
+            LOG.info("Copied {} unchanged Table Schemas from: {}", result.size(), incrementalFrom.toAbsolutePath().normalize());
+        }
+        return result;
+    }
+
+    /// Groups the given [TableSchema]s by structure (see [TableAvroSchemas#structuralFingerprint]),
+    /// keeping only the first table of each group (by identifier): the others are recorded in `references`.
+    /// Existing `references` to a table that is removed are redirected to the table kept in its place.
+    private List<TableSchema> deduplicate(final List<TableSchema> tableSchemas,
+                                          final Map<String, String> references) {
+        final Map<String, List<TableSchema>> groups = tableSchemas.stream().parallel()
+                .sorted(Comparator.comparing(ts -> TableAvroSchemas.identifier(ts.id(), db.dbName())))
+                .collect(Collectors.groupingBy(
+                        ts -> TableAvroSchemas.structuralFingerprint(ts, db.dbName()),
+                        LinkedHashMap::new,
+                        Collectors.toList()));
+
+        final Map<String, String> duplicates = new HashMap<>();
+        final List<TableSchema> result = new ArrayList<>(groups.size());
+        for (final List<TableSchema> group : groups.values()) {
+            final String representative = TableAvroSchemas.identifier(group.getFirst().id(), db.dbName());
+            result.add(group.getFirst());
+            for (final TableSchema duplicate : group.subList(1, group.size())) {
+                LOG.debug("Table '{}' has the same structure as '{}': recorded as reference", duplicate.id(), representative);
+                duplicates.put(TableAvroSchemas.identifier(duplicate.id(), db.dbName()), representative);
+            }
+        }
+        references.replaceAll((table, referenced) -> duplicates.getOrDefault(referenced, referenced));
+        references.putAll(duplicates);
+        LOG.info("Deduplicated {} Tables into {} distinct structures", tableSchemas.size(), result.size());
+
+        return result;
+    }
+
     private void validate() throws ParameterException {
+        db.validate(spec.commandLine());
+
         final File outputDirFile = outputDir.toFile();
         if (outputDirFile.exists() && (!outputDirFile.isDirectory() || !outputDirFile.canWrite())) {
             throw new ParameterException(
@@ -178,44 +223,27 @@ public class GenerateCommand extends BaseCommand {
             );
         }
 
+        if (incrementalFrom != null) {
+            if (dedupe) {
+                throw new ParameterException(spec.commandLine(), "--incremental-from and --dedupe are mutually exclusive");
+            }
+            try {
+                previousMeta = MetadataFile.loadFrom(incrementalFrom);
+            } catch (final IOException e) {
+                throw new ParameterException(spec.commandLine(), "Failed to read previous run metadata: " + incrementalFrom.toAbsolutePath(), e);
+            }
+        }
+
         LOG.debug("Input validated");
     }
 
     private void logInput() {
-        LOG.debug("Database");
-        LOG.debug("  Kind: {}", kind);
-        LOG.debug("  Host: {}:{}", hostname, port);
-        LOG.debug("  User: {}:{}", username, password.replaceAll(".", "*"));
-        LOG.debug("  Database (i.e. catalog): {}", dbName);
-        LOG.debug("Input");
-        if (dbSchemas == null || dbSchemas.isEmpty()) {
-            LOG.debug("  Schema(s): ALL");
-        } else {
-            LOG.debug("  Schema(s): {}", String.join(", ", dbSchemas));
-        }
-        if (dbTables == null || dbTables.isEmpty()) {
-            LOG.debug("  Table(s): ALL");
-        } else {
-            LOG.debug("  Table(s): {}", String.join(", ", dbTables));
-        }
-        if (dbExcludedColumns == null || dbExcludedColumns.isEmpty()) {
-            LOG.debug("  Excluded Column(s): NONE");
-        } else {
-            LOG.debug("  Excluded Column(s): {}", String.join(", ", dbExcludedColumns));
-        }
+        db.logInput();
+        LOG.debug("  Deduplicate: {}", dedupe);
+        LOG.debug("  Incremental from: {}", incrementalFrom != null ? incrementalFrom.toAbsolutePath().normalize() : null);
         LOG.debug("Output");
         LOG.debug("  Directory: {} (exists: {})", outputDir.toAbsolutePath().normalize(), outputDir.toFile().exists());
-    }
-
-    private Configuration createConfiguration() {
-        return Configuration.create()
-                .with(RelationalDatabaseConnectorConfig.HOSTNAME, hostname)
-                .with(RelationalDatabaseConnectorConfig.PORT, port)
-                .with(RelationalDatabaseConnectorConfig.USER, username)
-                .with(RelationalDatabaseConnectorConfig.PASSWORD, password)
-                .with(RelationalDatabaseConnectorConfig.DATABASE_NAME, dbName)
-                .with(RelationalDatabaseConnectorConfig.TOPIC_PREFIX, "unused.topic.prefix") //< NOTE: Required but unused field
-                .build();
+        LOG.debug("  Storage Layout: {}", storageLayout);
     }
 
     private static final DateTimeFormatter outputDirDateFormatter = new DateTimeFormatterBuilder()
@@ -0,0 +1,195 @@
+package io.snyk.skemium;
+
+import io.snyk.skemium.helpers.HistoryStore;
+import io.snyk.skemium.meta.MetadataFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+import picocli.CommandLine.Spec;
+
+import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+@Command(
+        name = "history",
+        headerHeading = "%n",
+        header = "Stores and retrieves snapshots of Avro Schemas generated from Tables in a Database",
+        synopsisHeading = "%n",
+        descriptionHeading = "%nDescription:%n%n",
+        description = """
+                Maintains an append-only store of the outputs of 'generate' (snapshots), where each version
+                of a table is stored only once. Snapshots can be compared via 'compare history:<snapshot-id> ...'.""",
+        parameterListHeading = "%nParameters:%n",
+        optionListHeading = "%nOptions:%n",
+        commandListHeading = "%nCommands:%n",
+        subcommands = {
+                HistoryCommand.IngestCommand.class,
+                HistoryCommand.MaterializeCommand.class,
+                HistoryCommand.ListCommand.class
+        }
+)
+public class HistoryCommand implements Runnable {
+
+    @Spec
+    CommandSpec spec;
+
+    @Override
+    public void run() {
+        throw new CommandLine.ParameterException(spec.commandLine(), "Missing required subcommand");
+    }
+
+    /// Base class for the `history` subcommands, providing the store directory option.
+    abstract static class StoreCommand extends BaseCommand {
+        @Spec
+        CommandSpec spec;
+
+        @Option(names = {"--store"},
+                defaultValue = "${env:HISTORY_STORE}",
+                showDefaultValue = CommandLine.Help.Visibility.ALWAYS,
+                description = "History store directory (env: HISTORY_STORE - optional)"
+        )
+        Path storeDir = HistoryStore.DEFAULT_DIR;
+    }
+
+    @Command(
+            name = "ingest",
+            headerHeading = "%n",
+            header = "Ingests a directory of Avro Schemas as a new snapshot",
+            synopsisHeading = "%n",
+            parameterListHeading = "%nParameters:%n",
+            optionListHeading = "%nOptions:%n"
+    )
+    static class IngestCommand extends StoreCommand {
+        private static final Logger LOG = LoggerFactory.getLogger(IngestCommand.class);
+
+        @Parameters(
+                arity = "1",
+                index = "0",
+                paramLabel = "SCHEMAS_DIR",
+                description = "Directory with the Database Table schemas (i.e. the output of 'generate')"
+        )
+        Path schemasDir;
+
+        @Option(names = {"--id"},
+                defaultValue = "${env:SNAPSHOT_ID}",
+                description = "Snapshot identifier (default: VCS tag, or commit, recorded by 'generate') (env: SNAPSHOT_ID - optional)"
+        )
+        String snapshotId = null;
+
+        @Override
+        public Integer call() {
+            setLogLevelFromVerbosity();
+            if (!schemasDir.toFile().isDirectory()) {
+                throw new CommandLine.ParameterException(
+                        spec.commandLine(),
+                        "Directory must exist: " + schemasDir.toAbsolutePath()
+                );
+            }
+            LOG.debug("Input");
+            LOG.debug("  Schemas Directory: {}", schemasDir.toAbsolutePath().normalize());
+            LOG.debug("  Snapshot ID: {}", snapshotId);
+            LOG.debug("  History Store: {}", storeDir.toAbsolutePath().normalize());
+
+            try {
+                final HistoryStore.Snapshot snapshot = new HistoryStore(storeDir).ingest(schemasDir, snapshotId);
+                spec.commandLine().getOut().println(snapshot.id());
+                return 0;
+            } catch (Exception e) {
+                LOG.error("Failed to ingest Database Tables Schemas", e);
+                return 1;
+            }
+        }
+    }
+
+    @Command(
+            name = "materialize",
+            headerHeading = "%n",
+            header = "Materializes a snapshot (or some of its tables) as a directory of Avro Schemas",
+            synopsisHeading = "%n",
+            parameterListHeading = "%nParameters:%n",
+            optionListHeading = "%nOptions:%n"
+    )
+    static class MaterializeCommand extends StoreCommand {
+        private static final Logger LOG = LoggerFactory.getLogger(MaterializeCommand.class);
+
+        @Parameters(
+                arity = "1",
+                index = "0",
+                paramLabel = "SNAPSHOT_ID",
+                description = "Snapshot identifier"
+        )
+        String snapshotId;
+
+        @Parameters(
+                arity = "1",
+                index = "1",
+                paramLabel = "OUTPUT_DIR",
+                description = "Output directory"
+        )
+        Path outputDir;
+
+        @Option(names = {"-t", "--table"},
+                split = ",",
+                defaultValue = "${env:TABLES}",
+                paramLabel = "TABLE",
+                description = "Tables to materialize (default: all); repeatable or comma-separated (env: TABLES - optional)"
+        )
+        List<String> tables = new ArrayList<>();
+
+        @Override
+        public Integer call() {
+            setLogLevelFromVerbosity();
+            LOG.debug("Input");
+            LOG.debug("  Snapshot ID: {}", snapshotId);
+            LOG.debug("  Output Directory: {}", outputDir.toAbsolutePath().normalize());
+            LOG.debug("  Tables: {}", tables.isEmpty() ? "<all>" : tables);
+            LOG.debug("  History Store: {}", storeDir.toAbsolutePath().normalize());
+
+            try {
+                final MetadataFile meta = new HistoryStore(storeDir).materialize(snapshotId, outputDir, new TreeSet<>(tables));
+                LOG.info("Materialized {} tables", meta.getTableIdentifiers().size());
+                return 0;
+            } catch (Exception e) {
+                LOG.error("Failed to materialize Database Tables Schemas", e);
+                return 1;
+            }
+        }
+    }
+
+    @Command(
+            name = "list",
+            headerHeading = "%n",
+            header = "Lists the snapshots in the store, in the order they were ingested",
+            synopsisHeading = "%n",
+            optionListHeading = "%nOptions:%n"
+    )
+    static class ListCommand extends StoreCommand {
+        private static final Logger LOG = LoggerFactory.getLogger(ListCommand.class);
+
+        @Override
+        public Integer call() {
+            setLogLevelFromVerbosity();
+            LOG.debug("Input");
+            LOG.debug("  History Store: {}", storeDir.toAbsolutePath().normalize());
+
+            try {
+                final PrintWriter out = spec.commandLine().getOut();
+                for (final HistoryStore.Snapshot snapshot : new HistoryStore(storeDir).snapshots()) {
+                    out.printf("%s\t%s\t%d tables (%d stored)%n", snapshot.id(), snapshot.ingested(), snapshot.tablesTotal(), snapshot.tablesAdded());
+                }
+                out.flush();
+                return 0;
+            } catch (Exception e) {
+                LOG.error("Failed to list snapshots", e);
+                return 1;
+            }
+        }
+    }
+}
@@ -13,8 +13,12 @@ import java.io.IOException;
 @Command(
         subcommands = {
                 GenerateCommand.class,
+                CaptureCommand.class,
                 CompareCommand.class,
                 CompareFilesCommand.class,
+                BisectCommand.class,
+                HistoryCommand.class,
+                WatchCommand.class,
                 CommandLine.HelpCommand.class
         },
         headerHeading = "%nUsage:%n",
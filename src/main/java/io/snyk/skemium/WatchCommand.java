@@ -0,0 +1,293 @@
+package io.snyk.skemium;
+
+import io.debezium.relational.TableId;
+import io.debezium.relational.TableSchema;
+import io.snyk.skemium.avro.SchemaInterner;
+import io.snyk.skemium.avro.TableAvroSchemas;
+import io.snyk.skemium.db.DatabaseKind;
+import io.snyk.skemium.db.PartitionMode;
+import io.snyk.skemium.db.TableSchemaFetcher;
+import io.snyk.skemium.db.postgres.PostgresTableSchemaFetcher;
+import io.snyk.skemium.helpers.CompatibilityCache;
+import io.snyk.skemium.helpers.Git;
+import io.snyk.skemium.meta.MetadataFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
+import picocli.CommandLine.Parameters;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+@Command(
+        name = "watch",
+        headerHeading = "%n",
+        header = "Watches a Database for schema changes, comparing them with a baseline",
+        synopsisHeading = "%n",
+        descriptionHeading = "%nDescription:%n%n",
+        description = """
+                Connects to Database, generates Avro Schemas of its tables to a directory, and listens for DDL
+                notifications: on each, regenerates only the affected tables, and compares them with the Avro Schemas
+                in a baseline directory, according to Compatibility Level.""",
+        parameterListHeading = "%nParameters:%n",
+        optionListHeading = "%nOptions:%n"
+)
+public class WatchCommand extends BaseComparisonCommand {
+    private static final Logger LOG = LoggerFactory.getLogger(WatchCommand.class);
+
+    /// How long to wait for a notification at a time.
+    private static final Duration POLL_INTERVAL = Duration.ofSeconds(5);
+
+    /// Maximum size of the cache directory, if any (same default as `compare`).
+    private static final long CACHE_MAX_SIZE_BYTES = 64 * 1024 * 1024;
+
+    @Mixin
+    DatabaseOptions db;
+
+    @Parameters(
+            arity = "1",
+            index = "0",
+            paramLabel = "BASELINE_SCHEMAS_DIR",
+            description = "Directory with the baseline Database Table schemas, to compare with"
+    )
+    Path baselineSchemasDir;
+
+    @Parameters(
+            arity = "1",
+            index = "1",
+            paramLabel = "DIRECTORY_PATH",
+            description = "Output directory, kept up to date with the Database"
+    )
+    Path outputDir;
+
+    @Option(
+            names = {"--channel"},
+            defaultValue = "${env:WATCH_CHANNEL}",
+            showDefaultValue = CommandLine.Help.Visibility.ALWAYS,
+            description = "LISTEN/NOTIFY channel DDL notifications are received from (env: WATCH_CHANNEL - optional)"
+    )
+    String channel = "skemium_ddl";
+
+    @Option(
+            names = {"--install-trigger"},
+            defaultValue = "${env:WATCH_INSTALL_TRIGGER}",
+            showDefaultValue = CommandLine.Help.Visibility.ALWAYS,
+            description = "Install (or replace) the event triggers notifying the channel of DDL commands; requires superuser (env: WATCH_INSTALL_TRIGGER - optional)"
+    )
+    Boolean installTrigger = false;
+
+    @Option(
+            names = {"--debounce"},
+            defaultValue = "${env:WATCH_DEBOUNCE}",
+            showDefaultValue = CommandLine.Help.Visibility.ALWAYS,
+            description = "Milliseconds to wait for further notifications, before regenerating: a migration is handled at once (env: WATCH_DEBOUNCE - optional)"
+    )
+    long debounceMs = 500;
+
+    @Option(
+            names = {"--max-events"},
+            defaultValue = "${env:WATCH_MAX_EVENTS}",
+            showDefaultValue = CommandLine.Help.Visibility.ALWAYS,
+            description = "Stop after the given number of changes to the selected tables; 0 to never stop (env: WATCH_MAX_EVENTS - optional)"
+    )
+    int maxEvents = 0;
+
+    @Option(names = {"--cache-dir"},
+            defaultValue = "${env:CACHE_DIR}",
+            description = "Directory to cache compatibility results in: tables not affected by a change are not checked again (env: CACHE_DIR - optional)"
+    )
+    Path cacheDir = null;
+
+    /// [TableAvroSchemas] of the selected tables, as saved in [#outputDir], by identifier.
+    private final Map<String, TableAvroSchemas> tables = new TreeMap<>();
+
+    /// Result of the last comparison with the baseline, updated with the tables affected by each change.
+    private CompareResult result;
+
+    @Override
+    public Integer call() {
+        setLogLevelFromVerbosity();
+        validate();
+        logInput();
+
+        try (final TableSchemaFetcher fetcher = db.openFetcher()) {
+            final PostgresTableSchemaFetcher listener = (PostgresTableSchemaFetcher) fetcher;
+            final Git.GitInfo gitInfo = Git.tryGetInfo(Path.of("."));
+            final CompatibilityCache cache = cacheDir != null
+                    ? new CompatibilityCache(cacheDir, CACHE_MAX_SIZE_BYTES)
+                    : null;
+
+            if (installTrigger) {
+                listener.installDdlTrigger(channel);
+            }
+            // Listen before generating, so that no change is missed in between
+            listener.listen(channel);
+
+            // Generate all the selected tables, and compare them with the baseline
+            Map<TableId, String> fingerprints = db.fetchFingerprints(fetcher);
+            update(fetcher, fingerprints.keySet(), Set.of());
+            save(fingerprints, gitInfo);
+            boolean checkPassed = compare(cache, null);
+            LOG.info("Watching for DDL notifications on channel: {}", channel);
+
+            int events = 0;
+            while (maxEvents == 0 || events < maxEvents) {
+                final List<String> notifications = awaitNotifications(listener);
+                if (notifications.isEmpty()) {
+                    continue;
+                }
+                LOG.info("Received {} DDL notifications", notifications.size());
+                notifications.forEach(n -> LOG.debug("  {}", n));
+
+                // Tables affected are those whose fingerprint changed, including tables affected indirectly (e.g. via types)
+                final Map<TableId, String> prevFingerprints = fingerprints;
+                final Map<TableId, String> nextFingerprints = db.fetchFingerprints(fetcher);
+                final Set<TableId> changed = new HashSet<>();
+                nextFingerprints.forEach((tId, fingerprint) -> {
+                    if (!fingerprint.equals(prevFingerprints.get(tId))) {
+                        changed.add(tId);
+                    }
+                });
+                final Set<TableId> removed = new HashSet<>(prevFingerprints.keySet());
+                removed.removeAll(nextFingerprints.keySet());
+                fingerprints = nextFingerprints;
+                if (changed.isEmpty() && removed.isEmpty()) {
+                    LOG.info("No selected Table affected");
+                    continue;
+                }
+
+                ++events;
+                update(fetcher, changed, removed);
+                save(fingerprints, gitInfo);
+                final Set<String> affected = new HashSet<>();
+                changed.forEach(tId -> affected.add(TableAvroSchemas.identifier(tId, db.dbName())));
+                removed.forEach(tId -> affected.add(TableAvroSchemas.identifier(tId, db.dbName())));
+                checkPassed = compare(cache, affected);
+            }
+
+            LOG.info("Stopped watching after {} changes", events);
+            return checkPassed ? 0 : 1;
+        } catch (Exception e) {
+            LOG.error("Failed to watch Database Tables Schemas", e);
+            return 1;
+        }
+    }
+
+    /// Waits for a notification, then for further notifications until none arrive for [#debounceMs].
+    private List<String> awaitNotifications(final PostgresTableSchemaFetcher listener) throws Exception {
+        final List<String> result = new ArrayList<>(listener.awaitNotifications(POLL_INTERVAL));
+        if (!result.isEmpty()) {
+            List<String> more;
+            while (!(more = listener.awaitNotifications(Duration.ofMillis(debounceMs))).isEmpty()) {
+                result.addAll(more);
+            }
+        }
+        return result;
+    }
+
+    /// Regenerates the changed tables, saving them to [#outputDir], and deletes the files of the removed tables.
+    private void update(final TableSchemaFetcher fetcher, final Set<TableId> changed, final Set<TableId> removed) throws Exception {
+        final Set<String> removedIds = new HashSet<>();
+        removed.forEach(tId -> removedIds.add(TableAvroSchemas.identifier(tId, db.dbName())));
+        // Tables changed but not found anymore were dropped in the meantime
+        changed.forEach(tId -> removedIds.add(TableAvroSchemas.identifier(tId, db.dbName())));
+
+        final List<TableSchema> tableSchemas = db.fetch(fetcher, changed);
+        LOG.info("Will convert {} Table Schemas to Avro", tableSchemas.size());
+        final SchemaInterner interner = new SchemaInterner();
+        for (final TableSchema ts : tableSchemas) {
+            LOG.info("  {}", ts.id());
+            final TableAvroSchemas tas = TableAvroSchemas.build(ts, db.dbName(), interner);
+            tas.saveTo(outputDir);
+            tables.put(tas.identifier(), tas);
+            removedIds.remove(tas.identifier());
+        }
+
+        for (final String identifier : removedIds) {
+            LOG.info("Table '{}' removed", identifier);
+            tables.remove(identifier);
+            for (final String filename : TableAvroSchemas.filenames(identifier)) {
+                Files.deleteIfExists(outputDir.resolve(filename));
+            }
+        }
+    }
+
+    private void save(final Map<TableId, String> fingerprints, final Git.GitInfo gitInfo) throws IOException {
+        final Map<String, String> fingerprintsById = new TreeMap<>();
+        fingerprints.forEach((tId, fingerprint) -> fingerprintsById.put(TableAvroSchemas.identifier(tId, db.dbName()), fingerprint));
+        fingerprintsById.keySet().retainAll(tables.keySet());
+
+        MetadataFile.build(spec.commandLine().getParseResult().originalArgs(), List.copyOf(tables.values()), Map.of(), fingerprintsById, gitInfo)
+                .saveTo(outputDir);
+        LOG.info("Generated Database Tables Schemas to: {}", outputDir.toAbsolutePath().normalize());
+    }
+
+    /// Compares [#outputDir] with the baseline: tables whose schemas are the same as in the baseline are skipped.
+    ///
+    /// @param affected Identifiers of the only tables changed (or removed) since the last comparison, or `null` to compare all
+    private boolean compare(final CompatibilityCache cache, final Set<String> affected) throws IOException {
+        final CompareResult.Options options = CompareResult.Options.DEFAULT.withCache(cache).withSkipUnchanged(true);
+        if (result == null || affected == null) {
+            result = CompareResult.build(baselineSchemasDir, outputDir, compatibilityLevel, options);
+        } else {
+            LOG.debug("Comparing {} affected Tables with the baseline", affected.size());
+            result = result.merge(CompareResult.build(baselineSchemasDir, outputDir, compatibilityLevel, options.withTables(affected)), affected);
+        }
+        writeOutput(result);
+        return checkPassed(result);
+    }
+
+    private void validate() throws ParameterException {
+        db.validate(spec.commandLine());
+        if (db.captureFile != null || db.kind != DatabaseKind.POSTGRES) {
+            throw new ParameterException(spec.commandLine(), "Only a live POSTGRES Database can be watched");
+        }
+        if (db.partitionMode != PartitionMode.ALL) {
+            throw new ParameterException(spec.commandLine(), "Only '--partitions=ALL' is supported when watching");
+        }
+
+        if (!baselineSchemasDir.toFile().isDirectory()) {
+            throw new ParameterException(spec.commandLine(), "Directory must exist: " + baselineSchemasDir.toAbsolutePath());
+        }
+        final File outputDirFile = outputDir.toFile();
+        if (outputDirFile.exists() && (!outputDirFile.isDirectory() || !outputDirFile.canWrite())) {
+            throw new ParameterException(
+                    spec.commandLine(),
+                    "Output directory must not exist or be a writable directory: " + outputDirFile.getAbsolutePath()
+            );
+        }
+        if (!outputDirFile.exists() && !outputDirFile.mkdirs()) {
+            throw new ParameterException(spec.commandLine(), "Could not create output directory: " + outputDirFile.getAbsolutePath());
+        }
+        if (debounceMs < 0 || maxEvents < 0) {
+            throw new ParameterException(spec.commandLine(), "--debounce and --max-events must not be negative");
+        }
+
+        validateOutput();
+
+        LOG.debug("Input validated");
+    }
+
+    private void logInput() {
+        db.logInput();
+        LOG.debug("  Baseline Schema Directory: {}", baselineSchemasDir.toAbsolutePath().normalize());
+        LOG.debug("  Channel: {} (install trigger: {})", channel, installTrigger);
+        LOG.debug("  Debounce: {}ms", debounceMs);
+        LOG.debug("  Max events: {}", maxEvents);
+        LOG.debug("  Output Directory: {}", outputDir.toAbsolutePath().normalize());
+        logCommonInput();
+    }
+}
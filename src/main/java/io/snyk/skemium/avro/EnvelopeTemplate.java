@@ -0,0 +1,173 @@
+package io.snyk.skemium.avro;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.snyk.skemium.helpers.JSON;
+import org.apache.avro.Schema;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/// Table-independent part of a Debezium Envelope Avro [Schema].
+///
+/// The Envelopes generated by Debezium for the tables of a database share the same structure: they differ only in
+/// their namespace and in the Value record embedded in the `before`/`after` fields.
+/// A template captures everything else (e.g. the `source` and `transaction` blocks),
+/// so that an Envelope can be stored as a reference to the template, and reconstituted from it plus
+/// the Value [Schema] of the table.
+///
+/// Templates are content-addressed: the [#id()] is the SHA256 of the template schema,
+/// and it's used to name the template file.
+///
+/// @see StorageLayout#COMPACT
+final class EnvelopeTemplate {
+    private static final Logger LOG = LoggerFactory.getLogger(EnvelopeTemplate.class);
+
+    static final String FILENAME_FMT = ".skemium.envelope.%s.avsc";
+    static final String REFERENCE_TEMPLATE_KEY = "skemium.envelopeTemplate";
+    static final String REFERENCE_VALUE_KEY = "value";
+
+    private static final String TEMPLATE_NAMESPACE = "skemium.envelope.template";
+    private static final String CONNECT_NAME_PROP = "connect.name";
+
+    /// Templates already loaded, indexed by their location (see [SchemasSource#locate(String)]): they are immutable once written.
+    private static final Map<String, EnvelopeTemplate> LOADED = new ConcurrentHashMap<>();
+
+    private final Schema schema;
+    private final String id;
+
+    private EnvelopeTemplate(@Nonnull final Schema schema) {
+        this.schema = schema;
+        this.id = DigestUtils.sha256Hex(schema.toString());
+    }
+
+    /// @return Identifier of the template: the SHA256 of its [Schema].
+    String id() {
+        return id;
+    }
+
+    /// @return Filename of the template file.
+    String filename() {
+        return FILENAME_FMT.formatted(id);
+    }
+
+    /// Extracts the template from an Envelope [Schema].
+    ///
+    /// The extraction is validated by reconstituting the Envelope: if the result is not identical to the input
+    /// (e.g. the Envelope has a shape this logic does not know about), no template is returned.
+    ///
+    /// @param envelopeSchema Envelope [Schema] of a table
+    /// @param valueSchema    Value [Schema] of the same table
+    /// @return The [EnvelopeTemplate], or empty if the Envelope can't be reconstituted from it
+    static Optional<EnvelopeTemplate> extract(@Nonnull final Schema envelopeSchema, @Nonnull final Schema valueSchema) {
+        if (envelopeSchema.getType() != Schema.Type.RECORD || valueSchema.getType() != Schema.Type.RECORD) {
+            return Optional.empty();
+        }
+
+        final Schema placeholder = Schema.createRecord(valueSchema.getName(), null, TEMPLATE_NAMESPACE, false, List.of());
+        final EnvelopeTemplate template = new EnvelopeTemplate(
+                rebuild(envelopeSchema, TEMPLATE_NAMESPACE, valueSchema.getFullName(), placeholder));
+
+        final Schema reconstituted = template.materialize(valueSchema);
+        if (!reconstituted.toString().equals(envelopeSchema.toString())) {
+            LOG.debug("Envelope '{}' can't be reconstituted from its template", envelopeSchema.getFullName());
+            return Optional.empty();
+        }
+        return Optional.of(template);
+    }
+
+    /// Reconstitutes the Envelope [Schema] of a table, from this template.
+    ///
+    /// @param valueSchema Value [Schema] of the table
+    /// @return The Envelope [Schema], in the same namespace as the Value [Schema]
+    Schema materialize(@Nonnull final Schema valueSchema) {
+        final String placeholderFullName = TEMPLATE_NAMESPACE + "." + valueSchema.getName();
+        return rebuild(schema, valueSchema.getNamespace(), placeholderFullName, valueSchema);
+    }
+
+    /// Saves the template file in the given directory, unless already present.
+    ///
+    /// @param outputDir [Path] to the directory where to save the file. Directory MUST already exist and be writable.
+    /// @throws FileNotFoundException
+    /// @throws JsonProcessingException
+    void saveTo(@Nonnull final Path outputDir) throws FileNotFoundException, JsonProcessingException {
+        final Path templateOutputPath = outputDir.toAbsolutePath().resolve(filename());
+        if (templateOutputPath.toFile().exists()) {
+            return;
+        }
+
+        LOG.trace("Saving ENVELOPE template: {}", templateOutputPath);
+        try (final PrintWriter out = new PrintWriter(templateOutputPath.toString())) {
+            out.println(JSON.pretty(schema.toString()));
+        }
+    }
+
+    /// Loads a template from a [SchemasSource], validating that its content matches the identifier.
+    ///
+    /// @param source [SchemasSource] to load the template file from
+    /// @param id     Identifier of the template
+    /// @return An [EnvelopeTemplate]
+    /// @throws IOException
+    static EnvelopeTemplate loadFrom(@Nonnull final SchemasSource source, @Nonnull final String id) throws IOException {
+        final String templateFilename = FILENAME_FMT.formatted(id);
+        final String templateInputPath = source.locate(templateFilename);
+
+        final EnvelopeTemplate loaded = LOADED.get(templateInputPath);
+        if (loaded != null) {
+            return loaded;
+        }
+
+        LOG.trace("Loading ENVELOPE template: {}", templateInputPath);
+        final EnvelopeTemplate template = new EnvelopeTemplate(new Schema.Parser().parse(source.read(templateFilename)));
+        if (!Objects.equals(id, template.id())) {
+            throw new IOException("Envelope template '%s' does not match its identifier (%s)".formatted(templateInputPath, template.id()));
+        }
+
+        LOADED.put(templateInputPath, template);
+        return template;
+    }
+
+    /// Rebuilds a record [Schema] in the given namespace,
+    /// replacing every reference to the record named `fromFullName` with the `to` [Schema].
+    private static Schema rebuild(final Schema record, final String namespace, final String fromFullName, final Schema to) {
+        final List<Schema.Field> fields = new ArrayList<>(record.getFields().size());
+        for (final Schema.Field field : record.getFields()) {
+            fields.add(new Schema.Field(field, replace(field.schema(), fromFullName, to)));
+        }
+
+        final Schema rebuilt = Schema.createRecord(record.getName(), record.getDoc(), namespace, record.isError(), fields);
+        record.forEachProperty((key, value) -> {
+            if (CONNECT_NAME_PROP.equals(key)) {
+                rebuilt.addProp(key, rebuilt.getFullName());
+            } else {
+                rebuilt.addProp(key, value);
+            }
+        });
+        return rebuilt;
+    }
+
+    private static Schema replace(final Schema schema, final String fromFullName, final Schema to) {
+        if (schema.getType() == Schema.Type.RECORD && schema.getFullName().equals(fromFullName)) {
+            return to;
+        }
+        if (schema.isUnion()) {
+            final List<Schema> branches = new ArrayList<>(schema.getTypes().size());
+            for (final Schema branch : schema.getTypes()) {
+                branches.add(replace(branch, fromFullName, to));
+            }
+            return Schema.createUnion(branches);
+        }
+        return schema;
+    }
+}
@@ -0,0 +1,322 @@
+package io.snyk.skemium.avro;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.confluent.kafka.schemaregistry.CompatibilityLevel;
+import org.apache.avro.LogicalType;
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/// Structural, field-level diff between a "Curr(ent)" and a "Next" Avro [Schema].
+///
+/// The schemas produced by [TableAvroSchemas#build] have a regular shape: records (possibly nested in a nullable union,
+/// like the `before`/`after` fields of an Envelope) of primitive or logical-typed fields.
+/// For that shape, the diff is computed in a single pass over both [Schema] trees, matching fields by name,
+/// and also yields the BACKWARD and FORWARD compatibility [Verdict]s:
+///
+///   - BACKWARD (NEXT reads data written with CURRENT): every field [Kind#ADDED] must have a default
+///   - FORWARD (CURRENT reads data written with NEXT): every field [Kind#REMOVED] must have a default
+///
+/// Any other difference in type (e.g. a field changing from `int` to `long`, a nested array of records, or a record
+/// being renamed) is [Kind#RETYPED], and makes the [Verdict]s [Verdict#UNDECIDED]: those cases are better left to
+/// Schema Registry's `CompatibilityChecker`.
+///
+/// @param changes  [List] of the changes found, in field order (CURRENT fields first, then the ones added in NEXT)
+/// @param backward BACKWARD compatibility [Verdict]
+/// @param forward  FORWARD compatibility [Verdict]
+public record SchemaDiff(@JsonProperty(value = "changes", required = true, index = 0) @Nonnull List<FieldChange> changes,
+                         @JsonProperty(value = "backward", required = true, index = 1) @Nonnull Verdict backward,
+                         @JsonProperty(value = "forward", required = true, index = 2) @Nonnull Verdict forward) {
+    /// Path of the root of the schema.
+    public static final String ROOT_PATH = "";
+
+    /// Kind of change of a field.
+    public enum Kind {
+        /// Field absent in CURRENT, present in NEXT.
+        ADDED,
+        /// Field present in CURRENT, absent in NEXT.
+        REMOVED,
+        /// Field type changed in a way that affects schema resolution.
+        RETYPED,
+        /// Field default value changed.
+        DEFAULT_CHANGED,
+        /// Field (or type) changed only in documentation, ordering or custom properties (e.g. `connect.*`).
+        PROPERTIES_CHANGED
+    }
+
+    /// Compatibility verdict derived from a [SchemaDiff].
+    public enum Verdict {
+        COMPATIBLE,
+        INCOMPATIBLE,
+        /// The diff contains changes this logic can't decide about.
+        UNDECIDED;
+
+        private Verdict and(final Verdict other) {
+            return this.ordinal() >= other.ordinal() ? this : other;
+        }
+    }
+
+    /// A change to a field.
+    ///
+    /// @param path Dot-separated path of the field, from the root of the schema (e.g. `after.name`);
+    ///             [#ROOT_PATH] if the change is to the whole schema
+    /// @param kind [Kind] of the change
+    public record FieldChange(@JsonProperty(value = "path", required = true, index = 0) @Nonnull String path,
+                              @JsonProperty(value = "kind", required = true, index = 1) @Nonnull Kind kind) {
+    }
+
+    /// Computes the diff between two [Schema]s.
+    ///
+    /// @param curr CURRENT [Schema], or `null` if absent (e.g. Key of a table without primary key)
+    /// @param next NEXT [Schema], or `null` if absent
+    /// @return The [SchemaDiff]
+    public static SchemaDiff between(@Nullable final Schema curr, @Nullable final Schema next) {
+        if (curr == null && next == null) {
+            return new SchemaDiff(List.of(), Verdict.COMPATIBLE, Verdict.COMPATIBLE);
+        }
+        if (curr == null || next == null) {
+            return new SchemaDiff(
+                    List.of(new FieldChange(ROOT_PATH, curr == null ? Kind.ADDED : Kind.REMOVED)),
+                    Verdict.UNDECIDED,
+                    Verdict.UNDECIDED);
+        }
+
+        final Walker walker = new Walker();
+        walker.walk(ROOT_PATH, curr, next);
+        return new SchemaDiff(List.copyOf(walker.changes), walker.backward, walker.forward);
+    }
+
+    /// @return `true` if the schemas are equivalent (i.e. equal, except for the order of record fields).
+    @JsonIgnore
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    /// Compatibility [Verdict] for the given [CompatibilityLevel], with CURRENT as the only previous schema.
+    ///
+    /// @param level [CompatibilityLevel] to apply
+    /// @return The [Verdict]
+    public Verdict verdict(@Nonnull final CompatibilityLevel level) {
+        return switch (level) {
+            case NONE -> Verdict.COMPATIBLE;
+            case BACKWARD, BACKWARD_TRANSITIVE -> backward;
+            case FORWARD, FORWARD_TRANSITIVE -> forward;
+            case FULL, FULL_TRANSITIVE -> backward.and(forward);
+        };
+    }
+
+    /// Single pass over two [Schema] trees, accumulating changes and verdicts.
+    private static final class Walker {
+        private final List<FieldChange> changes = new ArrayList<>();
+        private Verdict backward = Verdict.COMPATIBLE;
+        private Verdict forward = Verdict.COMPATIBLE;
+        /// Full names of the records being walked (i.e. enclosing the current path), to stop at recursive references.
+        private final Set<String> enclosingRecords = new HashSet<>();
+
+        private void walk(final String path, final Schema curr, final Schema next) {
+            if (curr.equals(next) && sameDocs(curr, next, new HashSet<>())) {
+                return;
+            }
+
+            if (isWalkableRecord(curr, next)) {
+                walkRecord(path, curr, next);
+            } else if (isNullableUnion(curr) && isNullableUnion(next)
+                    && nullIndex(curr) == nullIndex(next)
+                    && isWalkableRecord(nonNullBranch(curr), nonNullBranch(next))) {
+                walkRecord(path, nonNullBranch(curr), nonNullBranch(next));
+            } else if (resolutionSignature(curr).equals(resolutionSignature(next))) {
+                changes.add(new FieldChange(path, Kind.PROPERTIES_CHANGED));
+            } else {
+                changes.add(new FieldChange(path, Kind.RETYPED));
+                backward = backward.and(Verdict.UNDECIDED);
+                forward = forward.and(Verdict.UNDECIDED);
+            }
+        }
+
+        private void walkRecord(final String path, final Schema curr, final Schema next) {
+            // NOTE: A recursive reference is the record being walked: its changes are found where it's defined
+            if (!enclosingRecords.add(curr.getFullName())) {
+                return;
+            }
+            try {
+                walkFields(path, curr, next);
+            } finally {
+                enclosingRecords.remove(curr.getFullName());
+            }
+        }
+
+        private void walkFields(final String path, final Schema curr, final Schema next) {
+            if (!Objects.equals(curr.getObjectProps(), next.getObjectProps())
+                    || !Objects.equals(curr.getDoc(), next.getDoc())
+                    || !Objects.equals(curr.getAliases(), next.getAliases())) {
+                changes.add(new FieldChange(path, Kind.PROPERTIES_CHANGED));
+            }
+
+            for (final Schema.Field currField : curr.getFields()) {
+                final String fieldPath = path.isEmpty() ? currField.name() : path + "." + currField.name();
+                final Schema.Field nextField = next.getField(currField.name());
+
+                if (nextField == null) {
+                    changes.add(new FieldChange(fieldPath, Kind.REMOVED));
+                    if (!currField.hasDefaultValue()) {
+                        forward = forward.and(Verdict.INCOMPATIBLE);
+                    }
+                    continue;
+                }
+
+                walk(fieldPath, currField.schema(), nextField.schema());
+                if (currField.hasDefaultValue() != nextField.hasDefaultValue()
+                        || !Objects.equals(currField.defaultVal(), nextField.defaultVal())) {
+                    changes.add(new FieldChange(fieldPath, Kind.DEFAULT_CHANGED));
+                }
+                if (!Objects.equals(currField.getObjectProps(), nextField.getObjectProps())
+                        || !Objects.equals(currField.doc(), nextField.doc())
+                        || !Objects.equals(currField.aliases(), nextField.aliases())
+                        || currField.order() != nextField.order()) {
+                    changes.add(new FieldChange(fieldPath, Kind.PROPERTIES_CHANGED));
+                }
+            }
+
+            for (final Schema.Field nextField : next.getFields()) {
+                if (curr.getField(nextField.name()) == null) {
+                    changes.add(new FieldChange(path.isEmpty() ? nextField.name() : path + "." + nextField.name(), Kind.ADDED));
+                    if (!nextField.hasDefaultValue()) {
+                        backward = backward.and(Verdict.INCOMPATIBLE);
+                    }
+                }
+            }
+        }
+
+        /// `true` if [equal][Schema#equals(Object)] schemas have the same documentation and aliases as well, at any depth:
+        /// [Schema#equals(Object)] ignores them, both on schemas and on record fields.
+        private static boolean sameDocs(final Schema curr, final Schema next, final Set<String> seenNames) {
+            if (!Objects.equals(curr.getDoc(), next.getDoc())) {
+                return false;
+            }
+            switch (curr.getType()) {
+                case RECORD -> {
+                    if (!Objects.equals(curr.getAliases(), next.getAliases())) {
+                        return false;
+                    }
+                    if (!seenNames.add(curr.getFullName())) {
+                        return true;
+                    }
+                    for (final Schema.Field currField : curr.getFields()) {
+                        final Schema.Field nextField = next.getField(currField.name());
+                        if (!Objects.equals(currField.doc(), nextField.doc())
+                                || !Objects.equals(currField.aliases(), nextField.aliases())
+                                || !sameDocs(currField.schema(), nextField.schema(), seenNames)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+                case ENUM, FIXED -> {
+                    return Objects.equals(curr.getAliases(), next.getAliases());
+                }
+                case ARRAY -> {
+                    return sameDocs(curr.getElementType(), next.getElementType(), seenNames);
+                }
+                case MAP -> {
+                    return sameDocs(curr.getValueType(), next.getValueType(), seenNames);
+                }
+                case UNION -> {
+                    for (int i = 0; i < curr.getTypes().size(); ++i) {
+                        if (!sameDocs(curr.getTypes().get(i), next.getTypes().get(i), seenNames)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+                default -> {
+                    return true;
+                }
+            }
+        }
+
+        private static boolean isWalkableRecord(final Schema curr, final Schema next) {
+            return curr.getType() == Schema.Type.RECORD
+                    && next.getType() == Schema.Type.RECORD
+                    && curr.getFullName().equals(next.getFullName());
+        }
+
+        private static boolean isNullableUnion(final Schema schema) {
+            return schema.isUnion() && schema.getTypes().size() == 2 && nullIndex(schema) >= 0;
+        }
+
+        private static int nullIndex(final Schema union) {
+            for (int i = 0; i < union.getTypes().size(); ++i) {
+                if (union.getTypes().get(i).getType() == Schema.Type.NULL) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private static Schema nonNullBranch(final Schema nullableUnion) {
+            return nullableUnion.getTypes().get(1 - nullIndex(nullableUnion));
+        }
+    }
+
+    /// Describes only the parts of a [Schema] that matter for schema resolution (plus logical types, conservatively):
+    /// schemas with the same signature differ only in documentation or custom properties.
+    private static String resolutionSignature(final Schema schema) {
+        final StringBuilder sb = new StringBuilder();
+        appendSignature(sb, schema, new HashSet<>());
+        return sb.toString();
+    }
+
+    private static void appendSignature(final StringBuilder sb, final Schema schema, final Set<String> seenNames) {
+        switch (schema.getType()) {
+            case RECORD -> {
+                sb.append("record:").append(schema.getFullName());
+                if (seenNames.add(schema.getFullName())) {
+                    sb.append('{');
+                    for (final Schema.Field field : schema.getFields()) {
+                        sb.append(field.name()).append(':');
+                        appendSignature(sb, field.schema(), seenNames);
+                        sb.append(field.hasDefaultValue() ? "=default" : "").append(';');
+                    }
+                    sb.append('}');
+                }
+            }
+            case ENUM -> sb.append("enum:").append(schema.getFullName()).append(schema.getEnumSymbols());
+            case FIXED -> sb.append("fixed:").append(schema.getFullName()).append('[').append(schema.getFixedSize()).append(']');
+            case ARRAY -> {
+                sb.append("array<");
+                appendSignature(sb, schema.getElementType(), seenNames);
+                sb.append('>');
+            }
+            case MAP -> {
+                sb.append("map<");
+                appendSignature(sb, schema.getValueType(), seenNames);
+                sb.append('>');
+            }
+            case UNION -> {
+                sb.append("union[");
+                for (final Schema branch : schema.getTypes()) {
+                    appendSignature(sb, branch, seenNames);
+                    sb.append(',');
+                }
+                sb.append(']');
+            }
+            default -> sb.append(schema.getType().getName());
+        }
+
+        final LogicalType logicalType = schema.getLogicalType();
+        if (logicalType != null) {
+            sb.append('/').append(logicalType.getName());
+            if (logicalType instanceof LogicalTypes.Decimal decimal) {
+                sb.append('(').append(decimal.getPrecision()).append(',').append(decimal.getScale()).append(')');
+            }
+        }
+    }
+}
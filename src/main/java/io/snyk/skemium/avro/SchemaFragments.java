@@ -0,0 +1,169 @@
+package io.snyk.skemium.avro;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.snyk.skemium.helpers.JSON;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Objects;
+
+/// Content-addressed store of the fragments of Avro Schema files, shared by all the tables in a directory.
+///
+/// The schema files of the tables of a database repeat the same sub-schemas over and over: the Debezium `source`
+/// and `transaction` blocks of every Envelope, the Value record embedded in its own Envelope, column types with the
+/// same logical type and parameters, and so on.
+/// Splitting a schema file replaces every sub-schema (or field) at least [#MIN_FRAGMENT_LENGTH] long with a reference
+/// to a fragment, named after the SHA256 of its content, and saved once per directory.
+/// Fragments can contain references to other fragments.
+///
+/// Splitting and resolving work on the JSON of the schema, so resolving a file gives back exactly the JSON it was
+/// split from (and the same [org.apache.avro.Schema]).
+///
+/// @see StorageLayout#FRAGMENTS
+final class SchemaFragments {
+    private static final Logger LOG = LoggerFactory.getLogger(SchemaFragments.class);
+
+    static final String FILENAME_FMT = ".skemium.fragment.%s.json";
+    static final String REFERENCE_KEY = "skemium.fragment";
+
+    /// Minimum length of the (compact) JSON of a sub-schema, for it to be worth a fragment.
+    static final int MIN_FRAGMENT_LENGTH = 128;
+
+    private static final String TYPE_KEY = "type";
+
+    private SchemaFragments() {
+    }
+
+    /// Splits the JSON of a schema into fragments.
+    ///
+    /// @param schemaJson JSON of an Avro Schema
+    /// @param fragments  [Map] the fragments are added to, from their identifier to their (compact) JSON
+    /// @return The JSON of the schema, with fragments replaced by references
+    /// @throws JsonProcessingException
+    static JsonNode split(@Nonnull final String schemaJson, @Nonnull final Map<String, String> fragments) throws JsonProcessingException {
+        return split(JSON.toJsonNode(schemaJson), fragments, true);
+    }
+
+    private static JsonNode split(final JsonNode node, final Map<String, String> fragments, final boolean root) throws JsonProcessingException {
+        if (node.isArray()) {
+            final ArrayNode array = JsonNodeFactory.instance.arrayNode(node.size());
+            for (final JsonNode element : node) {
+                array.add(split(element, fragments, false));
+            }
+            return array;
+        }
+        if (!node.isObject()) {
+            return node;
+        }
+
+        final ObjectNode object = JsonNodeFactory.instance.objectNode();
+        for (final Map.Entry<String, JsonNode> field : node.properties()) {
+            object.set(field.getKey(), split(field.getValue(), fragments, false));
+        }
+
+        // Only (sub-)schemas and fields have a type: other objects (e.g. default values) stay inline
+        if (root || !object.has(TYPE_KEY)) {
+            return object;
+        }
+        final String fragment = JSON.compact(object);
+        if (fragment.length() < MIN_FRAGMENT_LENGTH) {
+            return object;
+        }
+
+        final String id = DigestUtils.sha256Hex(fragment);
+        fragments.putIfAbsent(id, fragment);
+        return JsonNodeFactory.instance.objectNode().put(REFERENCE_KEY, id);
+    }
+
+    /// Saves the fragments files in the given directory, unless already present.
+    ///
+    /// @param outputDir [Path] to the directory where to save the files. Directory MUST already exist and be writable.
+    /// @param fragments [Map] of fragment identifiers to their JSON (see [#split(String, Map)])
+    /// @throws FileNotFoundException
+    static void saveTo(@Nonnull final Path outputDir, @Nonnull final Map<String, String> fragments) throws FileNotFoundException {
+        for (final Map.Entry<String, String> fragment : fragments.entrySet()) {
+            final Path fragmentOutputPath = outputDir.toAbsolutePath().resolve(FILENAME_FMT.formatted(fragment.getKey()));
+            if (fragmentOutputPath.toFile().exists()) {
+                continue;
+            }
+
+            LOG.trace("Saving schema fragment: {}", fragmentOutputPath);
+            try (final PrintWriter out = new PrintWriter(fragmentOutputPath.toString())) {
+                out.println(fragment.getValue());
+            }
+        }
+    }
+
+    /// @param schemaJson JSON read from a schema file
+    /// @return `true` if it might contain references to fragments, and needs to be resolved
+    static boolean hasReferences(@Nonnull final String schemaJson) {
+        return schemaJson.contains(REFERENCE_KEY);
+    }
+
+    /// Resolves the references to fragments in the JSON of a schema, loading the fragments from a [SchemasSource].
+    ///
+    /// @param source     [SchemasSource] to load the fragment files from
+    /// @param schemaJson JSON of an Avro Schema, with references to fragments
+    /// @param loaded     [Map] of the fragments already loaded (and resolved) from `source`, by identifier:
+    ///                   fragments loaded are added to it, to be reused by the following calls on the same `source`
+    /// @return The complete JSON of the Avro Schema
+    /// @throws IOException If a fragment is not found, or doesn't match its identifier
+    static String resolve(@Nonnull final SchemasSource source,
+                          @Nonnull final String schemaJson,
+                          @Nonnull final Map<String, JsonNode> loaded) throws IOException {
+        return JSON.compact(resolve(source, JSON.toJsonNode(schemaJson), loaded));
+    }
+
+    private static JsonNode resolve(final SchemasSource source, final JsonNode node, final Map<String, JsonNode> loaded) throws IOException {
+        if (node.isArray()) {
+            final ArrayNode array = JsonNodeFactory.instance.arrayNode(node.size());
+            for (final JsonNode element : node) {
+                array.add(resolve(source, element, loaded));
+            }
+            return array;
+        }
+        if (!node.isObject()) {
+            return node;
+        }
+        if (node.size() == 1 && node.has(REFERENCE_KEY)) {
+            return load(source, node.get(REFERENCE_KEY).asText(), loaded);
+        }
+
+        final ObjectNode object = JsonNodeFactory.instance.objectNode();
+        for (final Map.Entry<String, JsonNode> field : node.properties()) {
+            object.set(field.getKey(), resolve(source, field.getValue(), loaded));
+        }
+        return object;
+    }
+
+    private static JsonNode load(final SchemasSource source, final String id, final Map<String, JsonNode> loaded) throws IOException {
+        // NOTE: Fragments are content-addressed: the identifier is enough to tell them apart
+        final JsonNode alreadyLoaded = loaded.get(id);
+        if (alreadyLoaded != null) {
+            return alreadyLoaded;
+        }
+
+        final String fragmentFilename = FILENAME_FMT.formatted(id);
+        final String fragmentInputPath = source.locate(fragmentFilename);
+        LOG.trace("Loading schema fragment: {}", fragmentInputPath);
+        final JsonNode fragment = JSON.toJsonNode(source.read(fragmentFilename));
+        if (!Objects.equals(id, DigestUtils.sha256Hex(JSON.compact(fragment)))) {
+            throw new IOException("Schema fragment '%s' does not match its identifier".formatted(fragmentInputPath));
+        }
+
+        final JsonNode resolved = resolve(source, fragment, loaded);
+        loaded.put(id, resolved);
+        return resolved;
+    }
+}
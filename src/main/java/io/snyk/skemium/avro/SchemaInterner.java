@@ -0,0 +1,228 @@
+package io.snyk.skemium.avro;
+
+import org.apache.avro.Schema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/// Interns Avro [Schema]s, so that identical (sub-)schemas are represented by the same, shared, instance.
+///
+/// Every table loaded or built by [TableAvroSchemas] repeats the same sub-schemas: the Debezium `source` and
+/// `transaction` blocks, the Value record embedded in its own Envelope, the same column types, and so on.
+/// Interning rebuilds a [Schema] bottom-up, replacing each sub-schema with the first identical one seen by
+/// the [SchemaInterner]: this reduces the heap used by thousands of tables, and turns the equality checks on the shared
+/// parts into reference comparisons (see [Schema#equals(Object)]).
+///
+/// Two schemas are considered identical only if they serialize to the same JSON: unlike [Schema#equals(Object)],
+/// documentation and aliases are compared as well.
+///
+/// Interned schemas are kept for the lifetime of the [SchemaInterner], that should be scoped to the tables loaded
+/// or built together (e.g. by one comparison): they MUST NOT be modified.
+public final class SchemaInterner {
+    private static final Logger LOG = LoggerFactory.getLogger(SchemaInterner.class);
+
+    /// Placeholder for the schemas being interned, to detect recursive schemas.
+    private static final Schema IN_PROGRESS = Schema.create(Schema.Type.NULL);
+
+    private final Map<Key, Schema> interned = new ConcurrentHashMap<>();
+
+    /// Interns a [Schema] and all its sub-schemas.
+    ///
+    /// Recursive schemas (i.e. records referencing themselves) are returned as they are.
+    ///
+    /// @param schema Avro [Schema] to intern
+    /// @return The shared instance identical to the given [Schema]
+    public Schema intern(@Nonnull final Schema schema) {
+        try {
+            return intern(schema, new IdentityHashMap<>());
+        } catch (RecursiveSchemaException e) {
+            LOG.trace("Skip interning recursive Avro Schema: {}", schema.getFullName());
+            return schema;
+        }
+    }
+
+    /// @return Number of distinct (sub-)schemas interned so far.
+    public int size() {
+        return interned.size();
+    }
+
+    /// Copies a [Schema] the way a parser would build it from its JSON: named types are shared by name,
+    /// any other (sub-)schema is a distinct instance, even if identical to another one (i.e. the opposite of interning).
+    ///
+    /// @param schema Avro [Schema] to copy (e.g. interned)
+    /// @return A copy of the [Schema]
+    public static Schema unshare(@Nonnull final Schema schema) {
+        return unshare(schema, new HashMap<>());
+    }
+
+    private static Schema unshare(final Schema schema, final Map<String, Schema> named) {
+        return switch (schema.getType()) {
+            case RECORD -> {
+                final Schema seen = named.get(schema.getFullName());
+                if (seen != null) {
+                    yield seen;
+                }
+
+                final Schema record = Schema.createRecord(schema.getName(), schema.getDoc(), schema.getNamespace(), schema.isError());
+                named.put(schema.getFullName(), record);
+                for (final String alias : schema.getAliases()) {
+                    record.addAlias(alias);
+                }
+                record.setFields(schema.getFields().stream()
+                        .map(field -> new Schema.Field(field, unshare(field.schema(), named)))
+                        .toList());
+                yield withProps(record, schema);
+            }
+            case UNION -> withProps(Schema.createUnion(schema.getTypes().stream().map(type -> unshare(type, named)).toList()), schema);
+            case ARRAY -> withProps(Schema.createArray(unshare(schema.getElementType(), named)), schema);
+            case MAP -> withProps(Schema.createMap(unshare(schema.getValueType(), named)), schema);
+            // Named types without sub-schemas are shared by name anyway
+            case ENUM, FIXED -> schema;
+            default -> withProps(Schema.create(schema.getType()), schema);
+        };
+    }
+
+    private Schema intern(final Schema schema, final Map<Schema, Schema> visited) {
+        final Schema seen = visited.get(schema);
+        if (seen == IN_PROGRESS) {
+            throw new RecursiveSchemaException();
+        }
+        if (seen != null) {
+            return seen;
+        }
+        visited.put(schema, IN_PROGRESS);
+
+        final Schema rebuilt = switch (schema.getType()) {
+            case RECORD -> {
+                final List<Schema.Field> fields = new ArrayList<>(schema.getFields().size());
+                boolean changed = false;
+                for (final Schema.Field field : schema.getFields()) {
+                    final Schema fieldSchema = intern(field.schema(), visited);
+                    changed |= fieldSchema != field.schema();
+                    fields.add(new Schema.Field(field, fieldSchema));
+                }
+                if (!changed) {
+                    yield schema;
+                }
+
+                final Schema record = Schema.createRecord(schema.getName(), schema.getDoc(), schema.getNamespace(), schema.isError());
+                for (final String alias : schema.getAliases()) {
+                    record.addAlias(alias);
+                }
+                record.setFields(fields);
+                yield withProps(record, schema);
+            }
+            case UNION -> {
+                final List<Schema> types = schema.getTypes().stream().map(type -> intern(type, visited)).toList();
+                yield sameInstances(types, schema.getTypes())
+                        ? schema
+                        : withProps(Schema.createUnion(types), schema);
+            }
+            case ARRAY -> {
+                final Schema elementType = intern(schema.getElementType(), visited);
+                yield elementType == schema.getElementType()
+                        ? schema
+                        : withProps(Schema.createArray(elementType), schema);
+            }
+            case MAP -> {
+                final Schema valueType = intern(schema.getValueType(), visited);
+                yield valueType == schema.getValueType()
+                        ? schema
+                        : withProps(Schema.createMap(valueType), schema);
+            }
+            // Enums, fixed and primitive types have no sub-schemas
+            default -> schema;
+        };
+
+        final Schema result = interned.computeIfAbsent(new Key(rebuilt), key -> rebuilt);
+        visited.put(schema, result);
+        return result;
+    }
+
+    /// Copies properties (and logical type) of the original [Schema] to the rebuilt one.
+    private static Schema withProps(final Schema rebuilt, final Schema original) {
+        rebuilt.addAllProps(original);
+        if (original.getLogicalType() != null) {
+            original.getLogicalType().addToSchema(rebuilt);
+        }
+        return rebuilt;
+    }
+
+    private static boolean sameInstances(final List<Schema> a, final List<Schema> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); ++i) {
+            if (a.get(i) != b.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /// Wraps a [Schema] to compare it with the ones already interned.
+    ///
+    /// Sub-schemas are compared by reference: a rebuilt [Schema] is only made of sub-schemas already interned.
+    private record Key(Schema schema) {
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Key(final Schema other))) {
+                return false;
+            }
+            if (schema == other) {
+                return true;
+            }
+            if (!schema.equals(other)) {
+                return false;
+            }
+
+            return switch (schema.getType()) {
+                case RECORD -> schema.isError() == other.isError()
+                        && Objects.equals(schema.getDoc(), other.getDoc())
+                        && Objects.equals(schema.getAliases(), other.getAliases())
+                        && sameFields(schema.getFields(), other.getFields());
+                case UNION -> sameInstances(schema.getTypes(), other.getTypes());
+                case ARRAY -> schema.getElementType() == other.getElementType();
+                case MAP -> schema.getValueType() == other.getValueType();
+                // Small enough to compare their JSON, including documentation and aliases
+                case ENUM, FIXED -> schema.toString().equals(other.toString());
+                default -> true;
+            };
+        }
+
+        @Override
+        public int hashCode() {
+            // NOTE: Avro caches the hash code of a Schema
+            return schema.hashCode();
+        }
+
+        private static boolean sameFields(final List<Schema.Field> a, final List<Schema.Field> b) {
+            for (int i = 0; i < a.size(); ++i) {
+                final Schema.Field fieldA = a.get(i);
+                final Schema.Field fieldB = b.get(i);
+                if (fieldA.schema() != fieldB.schema()
+                        || !Objects.equals(fieldA.doc(), fieldB.doc())
+                        || !Objects.equals(fieldA.aliases(), fieldB.aliases())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class RecursiveSchemaException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private RecursiveSchemaException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package io.snyk.skemium.avro;
+
+import io.snyk.skemium.helpers.GitSchemasSource;
+import io.snyk.skemium.helpers.HistoryStore;
+import io.snyk.skemium.helpers.JSON;
+import io.snyk.skemium.meta.MetadataFile;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/// Source of the files of a directory of Table Schemas (i.e. the output of `generate`), read one at a time by name.
+///
+/// Besides a directory on filesystem ([#directory(Path)]), the files can be read straight from the object database
+/// of a Git repository, without a checkout (see [GitSchemasSource]), from a snapshot of a [HistoryStore], or served
+/// from [TableAvroSchemas] already in memory (see [#memory(String, MetadataFile, Iterable)]).
+public interface SchemasSource extends Closeable {
+
+    /// @param filename Name of a file in the source
+    /// @return `true` if the file exists
+    /// @throws IOException
+    boolean exists(@Nonnull String filename) throws IOException;
+
+    /// Reads a file, as UTF-8 text.
+    ///
+    /// @param filename Name of a file in the source
+    /// @return Content of the file
+    /// @throws FileNotFoundException If the file does not exist
+    /// @throws IOException
+    String read(@Nonnull String filename) throws IOException;
+
+    /// @param filename Name of a file in the source
+    /// @return Human-readable location of the file, for logging and error messages; also identifies the file across sources
+    String locate(@Nonnull String filename);
+
+    /// Loads the [TableAvroSchemas] of a table saved in the source (i.e. not referencing another table).
+    ///
+    /// @param identifier The identifier of the table
+    /// @return An [TableAvroSchemas]
+    /// @throws IOException
+    /// @see TableAvroSchemas#loadFrom(SchemasSource, String)
+    default TableAvroSchemas load(@Nonnull final String identifier) throws IOException {
+        return load(identifier, new SchemaInterner());
+    }
+
+    /// Same as [#load(String)], sharing sub-schemas with the other tables interned by `interner`.
+    ///
+    /// @param identifier The identifier of the table
+    /// @param interner   [SchemaInterner] of the tables loaded (or built) together
+    /// @return An [TableAvroSchemas]
+    /// @throws IOException
+    /// @see TableAvroSchemas#loadFrom(SchemasSource, String, SchemaInterner)
+    default TableAvroSchemas load(@Nonnull final String identifier, @Nonnull final SchemaInterner interner) throws IOException {
+        return TableAvroSchemas.loadFrom(this, identifier, interner);
+    }
+
+    @Override
+    default void close() throws IOException {
+    }
+
+    /// [SchemasSource] of a directory on filesystem.
+    ///
+    /// @param dir [Path] to the directory
+    /// @return A [SchemasSource]
+    static SchemasSource directory(@Nonnull final Path dir) {
+        return new Directory(dir.toAbsolutePath());
+    }
+
+    /// [SchemasSource] of the given location: either a directory, a `history:<snapshot-id>` of a [HistoryStore]
+    /// (see [HistoryStore#open(String)]), or a `<git-ref>:<path>` in the Git repository of the working directory
+    /// (see [GitSchemasSource#open(Path, String)]).
+    ///
+    /// @param location [Path] to a directory, `history:<snapshot-id>` or `<git-ref>:<path>`
+    /// @return A [SchemasSource]; MUST be closed after use
+    /// @throws IOException If the location is a `<git-ref>:<path>` that can't be resolved
+    static SchemasSource of(@Nonnull final Path location) throws IOException {
+        if (!Files.isDirectory(location) && HistoryStore.isHistoryLocation(location.toString())) {
+            return HistoryStore.open(location.toString());
+        }
+        if (!Files.isDirectory(location) && GitSchemasSource.isGitLocation(location.toString())) {
+            return GitSchemasSource.open(Path.of(""), location.toString());
+        }
+        return directory(location);
+    }
+
+    /// Checks that a location can be opened as a [SchemasSource] (see [#of(Path)]), closing it straight away.
+    ///
+    /// @param location [Path] to a directory, `history:<snapshot-id>` or `<git-ref>:<path>`
+    /// @throws IOException If the location can't be resolved
+    static void validate(@Nonnull final Path location) throws IOException {
+        of(location).close();
+    }
+
+    /// [SchemasSource] of [TableAvroSchemas] already in memory (e.g. just converted from a Database), described by a
+    /// [MetadataFile] the same way [MetadataFile#saveTo(Path)] and [TableAvroSchemas#saveTo(Path)] would on filesystem.
+    ///
+    /// Tables are returned by [#load(String, SchemaInterner)] as they are, without serializing and parsing them.
+    ///
+    /// @param location Human-readable location of the tables (e.g. the Database they come from)
+    /// @param meta     [MetadataFile] describing the tables
+    /// @param tables   [TableAvroSchemas] saved in the source
+    /// @return A [SchemasSource]
+    static SchemasSource memory(@Nonnull final String location,
+                                @Nonnull final MetadataFile meta,
+                                @Nonnull final Iterable<TableAvroSchemas> tables) {
+        final Map<String, TableAvroSchemas> byIdentifier = new HashMap<>();
+        for (final TableAvroSchemas tas : tables) {
+            byIdentifier.put(tas.identifier(), tas);
+        }
+        return new Memory(location, meta, byIdentifier);
+    }
+
+    /// [SchemasSource] of a directory on filesystem.
+    ///
+    /// @param dir Absolute [Path] to the directory
+    record Directory(@Nonnull Path dir) implements SchemasSource {
+        @Override
+        public boolean exists(@Nonnull final String filename) {
+            return dir.resolve(filename).toFile().exists();
+        }
+
+        @Override
+        public String read(@Nonnull final String filename) throws IOException {
+            return Files.readString(dir.resolve(filename), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String locate(@Nonnull final String filename) {
+            return dir.resolve(filename).normalize().toString();
+        }
+    }
+
+    /// [SchemasSource] of [TableAvroSchemas] in memory: files are serialized on demand.
+    ///
+    /// @param location Human-readable location of the tables
+    /// @param meta     [MetadataFile] describing the tables
+    /// @param tables   [Map] of table identifiers to their [TableAvroSchemas]
+    record Memory(@Nonnull String location,
+                  @Nonnull MetadataFile meta,
+                  @Nonnull Map<String, TableAvroSchemas> tables) implements SchemasSource {
+        @Override
+        public boolean exists(@Nonnull final String filename) {
+            if (MetadataFile.FILENAME.equals(filename)) {
+                return true;
+            }
+            final TableAvroSchemas tas = table(filename);
+            return tas != null && (!filename.equals(tas.keyFilename()) || tas.keySchema() != null);
+        }
+
+        @Override
+        public String read(@Nonnull final String filename) throws IOException {
+            if (MetadataFile.FILENAME.equals(filename)) {
+                return JSON.pretty(meta);
+            }
+
+            final TableAvroSchemas tas = table(filename);
+            if (tas == null || (filename.equals(tas.keyFilename()) && tas.keySchema() == null)) {
+                throw new FileNotFoundException(locate(filename));
+            }
+            if (filename.equals(tas.keyFilename())) {
+                return JSON.pretty(tas.keySchema().toString());
+            }
+            if (filename.equals(tas.valueFilename())) {
+                return JSON.pretty(tas.valueSchema().toString());
+            }
+            if (filename.equals(tas.envelopeFilename())) {
+                return JSON.pretty(tas.envelopeSchema().toString());
+            }
+            return tas.checksum();
+        }
+
+        @Override
+        public String locate(@Nonnull final String filename) {
+            return location + "/" + filename;
+        }
+
+        @Override
+        public TableAvroSchemas load(@Nonnull final String identifier, @Nonnull final SchemaInterner interner) throws IOException {
+            final TableAvroSchemas tas = tables.get(identifier);
+            if (tas == null) {
+                throw new FileNotFoundException(locate(TableAvroSchemas.filenames(identifier).get(1)));
+            }
+            return tas;
+        }
+
+        private TableAvroSchemas table(final String filename) {
+            final String identifier = TableAvroSchemas.identifierOf(filename);
+            return identifier != null ? tables.get(identifier) : null;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package io.snyk.skemium.avro;
+
+/// Layouts available to store [TableAvroSchemas] on filesystem.
+///
+/// [TableAvroSchemas#loadFrom] detects the layout of each file, so directories using different layouts
+/// are interchangeable: the checksums are computed on the [org.apache.avro.Schema]s, not on the files.
+public enum StorageLayout {
+    /// Every file contains the complete Avro Schema (default).
+    FULL,
+
+    /// The Envelope file only references a shared Envelope template, plus the name of the table Value schema.
+    /// The Envelope is reconstituted when loading.
+    COMPACT,
+
+    /// Every sub-schema shared across files (e.g. the Debezium `source` block, or the Value embedded in the Envelope)
+    /// is stored once, in a content-addressed fragment file, and files only reference it.
+    /// References are resolved when loading.
+    FRAGMENTS
+}
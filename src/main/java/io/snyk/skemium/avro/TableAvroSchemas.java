@@ -1,9 +1,15 @@
 package io.snyk.skemium.avro;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
 import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.debezium.relational.TableId;
 import io.debezium.relational.TableSchema;
 import io.snyk.skemium.helpers.JSON;
+import org.apache.avro.JsonProperties;
 import org.apache.avro.Schema;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.slf4j.Logger;
@@ -14,10 +20,19 @@ import javax.annotation.Nullable;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 import static io.snyk.skemium.helpers.Avro.kafkaConnectSchemaToAvroSchema;
 
@@ -53,19 +68,116 @@ public record TableAvroSchemas(@Nonnull String identifier,
     /// @param debeziumTableSchema The Debezium [TableSchema]
     /// @param database The database (catalog) name; if `null`, the identifier is derived from [TableSchema] as-is
     public static TableAvroSchemas build(final TableSchema debeziumTableSchema, @Nullable final String database) {
-        final String baseIdentifier = debeziumTableSchema.id().identifier();
-        final String identifier = (database != null && !database.isEmpty() && debeziumTableSchema.id().catalog() == null)
-                ? database + "." + baseIdentifier
-                : baseIdentifier;
+        return build(debeziumTableSchema, database, new SchemaInterner());
+    }
 
-        return new TableAvroSchemas(
-                identifier,
+    /// Same as [#build(TableSchema, String)], sharing sub-schemas with the other tables interned by `interner`.
+    ///
+    /// @param debeziumTableSchema The Debezium [TableSchema]
+    /// @param database            The database (catalog) name; if `null`, the identifier is derived from [TableSchema] as-is
+    /// @param interner            [SchemaInterner] of the tables built (or loaded) together
+    public static TableAvroSchemas build(final TableSchema debeziumTableSchema,
+                                         @Nullable final String database,
+                                         @Nonnull final SchemaInterner interner) {
+        return interned(
+                identifier(debeziumTableSchema.id(), database),
                 kafkaConnectSchemaToAvroSchema(debeziumTableSchema.keySchema()),
                 kafkaConnectSchemaToAvroSchema(debeziumTableSchema.valueSchema()),
-                kafkaConnectSchemaToAvroSchema(debeziumTableSchema.getEnvelopeSchema().schema())
+                kafkaConnectSchemaToAvroSchema(debeziumTableSchema.getEnvelopeSchema().schema()),
+                interner
         );
     }
 
+    /// Creates a [TableAvroSchemas], interning its [Schema]s via [SchemaInterner]:
+    /// sub-schemas shared with other tables (or between Value and Envelope) become the same instance.
+    private static TableAvroSchemas interned(final String identifier,
+                                             @Nullable final Schema keySchema,
+                                             final Schema valueSchema,
+                                             final Schema envelopeSchema,
+                                             final SchemaInterner interner) {
+        return new TableAvroSchemas(
+                identifier,
+                keySchema != null ? interner.intern(keySchema) : null,
+                interner.intern(valueSchema),
+                interner.intern(envelopeSchema));
+    }
+
+    /// Identifier that [#build(TableSchema, String)] assigns to the [TableAvroSchemas] of a Debezium [TableId].
+    ///
+    /// @param tableId  The Debezium [TableId]
+    /// @param database The database (catalog) name; if `null`, the identifier is derived from [TableId] as-is
+    /// @return The identifier, in the form `database.schema.table`
+    public static String identifier(final TableId tableId, @Nullable final String database) {
+        final String baseIdentifier = tableId.identifier();
+        return (database != null && !database.isEmpty() && tableId.catalog() == null)
+                ? database + "." + baseIdentifier
+                : baseIdentifier;
+    }
+
+    /// Fingerprint of the structure of a Debezium [TableSchema], independent of the table identifier.
+    ///
+    /// Tables with the same fingerprint (e.g. the same table in every schema of a schema-per-tenant database) have
+    /// the same [TableAvroSchemas], except for the identifier: [#withIdentifier(String)] converts one into the other.
+    ///
+    /// @param debeziumTableSchema The Debezium [TableSchema]
+    /// @param database            The database (catalog) name; see [#build(TableSchema, String)]
+    /// @return SHA256 of the structure of the Key, Value and Envelope Kafka Connect schemas
+    public static String structuralFingerprint(final TableSchema debeziumTableSchema, @Nullable final String database) {
+        final String identifier = identifier(debeziumTableSchema.id(), database);
+
+        final StringBuilder sb = new StringBuilder();
+        appendStructure(sb, debeziumTableSchema.keySchema(), identifier);
+        sb.append("\n");
+        appendStructure(sb, debeziumTableSchema.valueSchema(), identifier);
+        sb.append("\n");
+        appendStructure(sb, debeziumTableSchema.getEnvelopeSchema().schema(), identifier);
+
+        return DigestUtils.sha256Hex(sb.toString());
+    }
+
+    /// Fingerprint of an Avro [Schema] of a table, independent of the table identifier.
+    ///
+    /// The [Schema]s of tables with the same structure have the same fingerprint: the identifier is removed from the
+    /// names of the [Schema] (the same way [#withIdentifier(String)] replaces it), without copying it.
+    ///
+    /// @param schema     Avro [Schema] (Key, Value or Envelope) of the table
+    /// @param identifier The identifier of the table
+    /// @return SHA256 of the structure of the [Schema], including documentation and properties
+    public static String structuralFingerprint(@Nonnull final Schema schema, @Nonnull final String identifier) {
+        final StringBuilder sb = new StringBuilder();
+        appendStructure(sb, schema, identifier, new HashSet<>());
+        return DigestUtils.sha256Hex(sb.toString());
+    }
+
+    /// Returns a copy of this [TableAvroSchemas] for another table with the same structure.
+    ///
+    /// The identifier of a table is used as namespace of its Avro [Schema]s (and in the `connect.name` property):
+    /// this replaces it everywhere, leaving any other namespace (e.g. the one of the Debezium `source` block) untouched.
+    ///
+    /// @param newIdentifier The identifier of the other table
+    /// @return A [TableAvroSchemas] identical to this one, except for the identifier
+    public TableAvroSchemas withIdentifier(@Nonnull final String newIdentifier) {
+        return withIdentifier(newIdentifier, new SchemaInterner());
+    }
+
+    /// Same as [#withIdentifier(String)], sharing sub-schemas with the other tables interned by `interner`.
+    ///
+    /// @param newIdentifier The identifier of the other table
+    /// @param interner      [SchemaInterner] of the tables loaded (or built) together
+    /// @return A [TableAvroSchemas] identical to this one, except for the identifier
+    public TableAvroSchemas withIdentifier(@Nonnull final String newIdentifier, @Nonnull final SchemaInterner interner) {
+        if (identifier.equals(newIdentifier)) {
+            return this;
+        }
+
+        return interned(
+                newIdentifier,
+                keySchema != null ? renameNamespace(keySchema, identifier, newIdentifier) : null,
+                renameNamespace(valueSchema, identifier, newIdentifier),
+                renameNamespace(envelopeSchema, identifier, newIdentifier),
+                interner);
+    }
+
     /// @return Filename of the Table Avro [Schema] for the Key.
     public String keyFilename() {
         return KEY_FILENAME_FMT.formatted(identifier);
@@ -98,27 +210,81 @@ public record TableAvroSchemas(@Nonnull String identifier,
         return CHECKSUM_FILENAME_FMT.formatted(identifier);
     }
 
+    /// Filenames of all the files a [TableAvroSchemas] can be saved to (Key, Value, Envelope and checksum).
+    ///
+    /// @param identifier The identifier of the schema
+    /// @return [List] of filenames
+    public static List<String> filenames(@Nonnull final String identifier) {
+        return List.of(
+                KEY_FILENAME_FMT.formatted(identifier),
+                VALUE_FILENAME_FMT.formatted(identifier),
+                ENVELOPE_FILENAME_FMT.formatted(identifier),
+                CHECKSUM_FILENAME_FMT.formatted(identifier));
+    }
+
+    /// Inverse of [#filenames(String)].
+    ///
+    /// @param filename Name of one of the files a [TableAvroSchemas] can be saved to
+    /// @return The identifier of the table, or `null` if the filename doesn't belong to a [TableAvroSchemas]
+    public static @Nullable String identifierOf(@Nonnull final String filename) {
+        for (final String fmt : List.of(KEY_FILENAME_FMT, VALUE_FILENAME_FMT, ENVELOPE_FILENAME_FMT, CHECKSUM_FILENAME_FMT)) {
+            final String suffix = fmt.formatted("");
+            if (filename.length() > suffix.length() && filename.endsWith(suffix)) {
+                return filename.substring(0, filename.length() - suffix.length());
+            }
+        }
+        return null;
+    }
+
+    /// Saves the [TableAvroSchemas] to filesystem in the given directory, using the [StorageLayout#FULL] layout.
+    ///
+    /// @param outputDir [Path] to the directory where to save the files. Directory MUST already exist and be writable.
+    /// @throws FileNotFoundException
+    /// @throws JsonProcessingException
+    /// @see #saveTo(Path, StorageLayout)
+    public void saveTo(@Nonnull final Path outputDir) throws FileNotFoundException, JsonProcessingException {
+        saveTo(outputDir, StorageLayout.FULL);
+    }
+
     /// Saves the [TableAvroSchemas] to filesystem in the given directory.
     ///
     /// The files will be named based on the [#identifier()].
     /// An additional file with the content of [#checksum()] will also be created and named [#checksumFilename()].
     ///
+    /// When using [StorageLayout#COMPACT], the Envelope file only references a template file, shared by all the
+    /// tables in the directory. If the Envelope can't be reconstituted from a template, it's saved in full instead.
+    ///
+    /// When using [StorageLayout#FRAGMENTS], every sub-schema shared with other files is replaced by a reference
+    /// to a fragment file, saved (once) in the same directory.
+    ///
     /// WARNING: Any existing files with the same names will be overridden.
     ///
     /// @param outputDir [Path] to the directory where to save the files. Directory MUST already exist and be writable.
+    /// @param layout    [StorageLayout] to use
     /// @throws FileNotFoundException
     /// @throws JsonProcessingException
-    public void saveTo(@Nonnull final Path outputDir) throws FileNotFoundException, JsonProcessingException {
-        LOG.info("Saving Table Avro Schemas: {} -> {}", identifier, outputDir);
+    public void saveTo(@Nonnull final Path outputDir, @Nonnull final StorageLayout layout) throws FileNotFoundException, JsonProcessingException {
+        LOG.info("Saving Table Avro Schemas: {} -> {} ({})", identifier, outputDir, layout);
         final Path keyOutputPath = outputDir.toAbsolutePath().resolve(keyFilename());
         final Path valueOutputPath = outputDir.toAbsolutePath().resolve(valueFilename());
         final Path envelopeOutputPath = outputDir.toAbsolutePath().resolve(envelopeFilename());
         final Path checksumOutputPath = outputDir.toAbsolutePath().resolve(checksumFilename());
 
-        if (keySchema != null) {
+        final Optional<EnvelopeTemplate> envelopeTemplate = layout == StorageLayout.COMPACT
+                ? EnvelopeTemplate.extract(envelopeSchema, valueSchema)
+                : Optional.empty();
+
+        // NOTE: Fragments are saved before the files referencing them
+        final Map<String, String> fragments = new LinkedHashMap<>();
+        final String keyOutput = keySchema != null ? serialize(keySchema, layout, fragments) : null;
+        final String valueOutput = serialize(valueSchema, layout, fragments);
+        final String envelopeOutput = envelopeTemplate.isEmpty() ? serialize(envelopeSchema, layout, fragments) : null;
+        SchemaFragments.saveTo(outputDir, fragments);
+
+        if (keyOutput != null) {
             LOG.trace("Saving KEY Avro Schema: {} -> {}", identifier, keyOutputPath);
             try (final PrintWriter out = new PrintWriter(keyOutputPath.toString())) {
-                out.println(JSON.pretty(keySchema.toString()));
+                out.println(keyOutput);
             }
         } else {
             LOG.trace("Skip saving KEY Avro Schema: {} == NULL", identifier);
@@ -126,12 +292,27 @@ public record TableAvroSchemas(@Nonnull String identifier,
 
         LOG.trace("Saving VALUE Avro Schema: {} -> {}", identifier, valueOutputPath);
         try (final PrintWriter out = new PrintWriter(valueOutputPath.toString())) {
-            out.println(JSON.pretty(valueSchema.toString()));
+            out.println(valueOutput);
         }
 
-        LOG.trace("Saving ENVELOPE Avro Schema: {} -> {}", identifier, envelopeOutputPath);
-        try (final PrintWriter out = new PrintWriter(envelopeOutputPath.toString())) {
-            out.println(JSON.pretty(envelopeSchema.toString()));
+        if (envelopeTemplate.isPresent()) {
+            LOG.trace("Saving ENVELOPE Avro Schema reference: {} -> {} (template: {})", identifier, envelopeOutputPath, envelopeTemplate.get().id());
+            envelopeTemplate.get().saveTo(outputDir);
+
+            final Map<String, String> reference = new LinkedHashMap<>();
+            reference.put(EnvelopeTemplate.REFERENCE_TEMPLATE_KEY, envelopeTemplate.get().id());
+            reference.put(EnvelopeTemplate.REFERENCE_VALUE_KEY, valueSchema.getFullName());
+            try (final PrintWriter out = new PrintWriter(envelopeOutputPath.toString())) {
+                out.println(JSON.pretty(reference));
+            }
+        } else {
+            if (layout == StorageLayout.COMPACT) {
+                LOG.warn("ENVELOPE Avro Schema of '{}' does not match any template: saving it in full", identifier);
+            }
+            LOG.trace("Saving ENVELOPE Avro Schema: {} -> {}", identifier, envelopeOutputPath);
+            try (final PrintWriter out = new PrintWriter(envelopeOutputPath.toString())) {
+                out.println(envelopeOutput);
+            }
         }
 
         LOG.trace("Saving checksum: {} -> {}", identifier, checksumOutputPath);
@@ -140,19 +321,39 @@ public record TableAvroSchemas(@Nonnull String identifier,
         }
     }
 
+    /// Serializes a [Schema] to (pretty) JSON, splitting it into fragments if using [StorageLayout#FRAGMENTS].
+    private static String serialize(final Schema schema, final StorageLayout layout, final Map<String, String> fragments) throws JsonProcessingException {
+        if (layout == StorageLayout.FRAGMENTS) {
+            return JSON.pretty(SchemaFragments.split(schema.toString(), fragments));
+        }
+        return JSON.pretty(schema.toString());
+    }
+
     /// @return A Schema Registry's [AvroSchema] object, from the [#keySchema()].
+    /// @see #toSchemaRegistryAvroSchema(Schema)
     public AvroSchema keySchemaToSchemaRegistryAvroSchema() {
-        return new AvroSchema(keySchema);
+        return toSchemaRegistryAvroSchema(keySchema);
     }
 
     /// @return A Schema Registry's [AvroSchema] object, from the [#valueSchema()].
+    /// @see #toSchemaRegistryAvroSchema(Schema)
     public AvroSchema valueSchemaToSchemaRegistryAvroSchema() {
-        return new AvroSchema(valueSchema);
+        return toSchemaRegistryAvroSchema(valueSchema);
     }
 
     /// @return A Schema Registry's [AvroSchema] object, from the [#envelopeSchema()].
+    /// @see #toSchemaRegistryAvroSchema(Schema)
     public AvroSchema envelopeSchemaToSchemaRegistryAvroSchema() {
-        return new AvroSchema(envelopeSchema);
+        return toSchemaRegistryAvroSchema(envelopeSchema);
+    }
+
+    /// Wraps a [Schema] in an [AvroSchema], on a copy of it (see [SchemaInterner#unshare(Schema)]).
+    ///
+    /// The compatibility checks of Avro memoize their results by (reader, writer) [Schema] instances, reporting a
+    /// memoized incompatibility at the location it was first found: [SchemaInterner] shares instances that a parser
+    /// would keep separate (e.g. the same column type in different fields), so checks are run on instances that aren't.
+    private static AvroSchema toSchemaRegistryAvroSchema(final Schema schema) {
+        return new AvroSchema(SchemaInterner.unshare(schema));
     }
 
     /// Loads an [TableAvroSchemas] from filesystem.
@@ -161,20 +362,48 @@ public record TableAvroSchemas(@Nonnull String identifier,
     ///
     /// If the checksum file is absent, logs a warning but continues.
     ///
+    /// All [StorageLayout]s are supported: an Envelope file referencing a template is reconstituted
+    /// from the template and the Value [Schema], and references to fragments are resolved.
+    ///
     /// @param inputDir   [Path] to the directory
     /// @param identifier The identifier of the schema
     /// @return An [TableAvroSchemas]
     /// @throws IOException
     public static TableAvroSchemas loadFrom(@Nonnull final Path inputDir, @Nonnull final String identifier) throws IOException {
-        final Path keyInputPath = inputDir.toAbsolutePath().resolve(KEY_FILENAME_FMT.formatted(identifier));
-        final Path valueInputPath = inputDir.toAbsolutePath().resolve(VALUE_FILENAME_FMT.formatted(identifier));
-        final Path envelopeInputPath = inputDir.toAbsolutePath().resolve(ENVELOPE_FILENAME_FMT.formatted(identifier));
-        final Path checksumInputPath = inputDir.toAbsolutePath().resolve(CHECKSUM_FILENAME_FMT.formatted(identifier));
+        return loadFrom(SchemasSource.directory(inputDir), identifier);
+    }
+
+    /// Same as [#loadFrom(Path, String)], but loading the files from a [SchemasSource].
+    ///
+    /// @param source     [SchemasSource] to load the files from
+    /// @param identifier The identifier of the schema
+    /// @return An [TableAvroSchemas]
+    /// @throws IOException
+    public static TableAvroSchemas loadFrom(@Nonnull final SchemasSource source, @Nonnull final String identifier) throws IOException {
+        return loadFrom(source, identifier, new SchemaInterner());
+    }
+
+    /// Same as [#loadFrom(SchemasSource, String)], sharing sub-schemas with the other tables interned by `interner`.
+    ///
+    /// @param source     [SchemasSource] to load the files from
+    /// @param identifier The identifier of the schema
+    /// @param interner   [SchemaInterner] of the tables loaded (or built) together
+    /// @return An [TableAvroSchemas]
+    /// @throws IOException
+    public static TableAvroSchemas loadFrom(@Nonnull final SchemasSource source,
+                                            @Nonnull final String identifier,
+                                            @Nonnull final SchemaInterner interner) throws IOException {
+        final String keyFilename = KEY_FILENAME_FMT.formatted(identifier);
+        final String valueFilename = VALUE_FILENAME_FMT.formatted(identifier);
+        final String envelopeFilename = ENVELOPE_FILENAME_FMT.formatted(identifier);
+        final String checksumFilename = CHECKSUM_FILENAME_FMT.formatted(identifier);
+        // Fragments shared by the files of the table (e.g. the Value embedded in the Envelope) are loaded once
+        final Map<String, JsonNode> fragments = new HashMap<>();
 
         Schema keySchema = null;
-        if (keyInputPath.toFile().exists()) {
-            LOG.trace("Loading KEY Avro Schema: {} <- {}", identifier, keyInputPath);
-            keySchema = new Schema.Parser().parse(keyInputPath.toFile());
+        if (source.exists(keyFilename)) {
+            LOG.trace("Loading KEY Avro Schema: {} <- {}", identifier, source.locate(keyFilename));
+            keySchema = new Schema.Parser().parse(read(source, keyFilename, fragments));
             if (!Objects.equals(identifier, keySchema.getNamespace())) {
                 LOG.warn("KEY Avro Schema does not match Table identifier: '{}' != '{}'", keySchema.getNamespace(), identifier);
             }
@@ -182,31 +411,31 @@ public record TableAvroSchemas(@Nonnull String identifier,
             LOG.trace("Skip loading KEY Avro Schema: {} == NULL", identifier);
         }
 
-        LOG.trace("Loading VALUE Avro Schema: {} <- {}", identifier, valueInputPath);
-        final Schema valueSchema = new Schema.Parser().parse(valueInputPath.toFile());
+        LOG.trace("Loading VALUE Avro Schema: {} <- {}", identifier, source.locate(valueFilename));
+        final Schema valueSchema = new Schema.Parser().parse(read(source, valueFilename, fragments));
         if (!Objects.equals(identifier, valueSchema.getNamespace())) {
             LOG.warn("VALUE Avro Schema does not match Table identifier: '{}' != '{}'", valueSchema.getNamespace(), identifier);
         }
 
-        LOG.trace("Loading ENVELOPE Avro Schema: {} <- {}", identifier, envelopeInputPath);
-        final Schema envelopeSchema = new Schema.Parser().parse(envelopeInputPath.toFile());
+        LOG.trace("Loading ENVELOPE Avro Schema: {} <- {}", identifier, source.locate(envelopeFilename));
+        final Schema envelopeSchema = loadEnvelope(source, envelopeFilename, valueSchema, fragments);
         if (!Objects.equals(identifier, envelopeSchema.getNamespace())) {
             LOG.warn("ENVELOPE Avro Schema does not match Table identifier: '{}' != '{}'", envelopeSchema.getNamespace(), identifier);
         }
 
-        final TableAvroSchemas res = new TableAvroSchemas(identifier, keySchema, valueSchema, envelopeSchema);
+        final TableAvroSchemas res = interned(identifier, keySchema, valueSchema, envelopeSchema, interner);
 
-        if (!checksumInputPath.toFile().exists()) {
+        if (!source.exists(checksumFilename)) {
             LOG.warn("Checksum '{}' not found: skipping validation", identifier);
             return res;
         }
 
-        LOG.trace("Loading checksum: {} <- {}", identifier, checksumInputPath);
-        final String checksumInput = Files.readString(checksumInputPath, StandardCharsets.UTF_8).trim();
+        LOG.trace("Loading checksum: {} <- {}", identifier, source.locate(checksumFilename));
+        final String checksumInput = source.read(checksumFilename).trim();
         final String checksumComputed = res.checksum();
         if (!checksumInput.equals(checksumComputed)) {
             throw new IOException(String.format("Input Checksum '%s' (%s) does not match '%s' computed checksum (%s)",
-                    checksumInputPath,
+                    source.locate(checksumFilename),
                     checksumInput,
                     identifier,
                     checksumComputed
@@ -215,4 +444,206 @@ public record TableAvroSchemas(@Nonnull String identifier,
 
         return res;
     }
+
+    /// Loads the Envelope [Schema], either parsing it from file or reconstituting it from a template.
+    private static Schema loadEnvelope(final SchemasSource source,
+                                       final String envelopeFilename,
+                                       final Schema valueSchema,
+                                       final Map<String, JsonNode> fragments) throws IOException {
+        final String envelopeInput = read(source, envelopeFilename, fragments);
+
+        // NOTE: A full Envelope schema only mentions the reference key if a field is named like it,
+        // so we only pay for the extra parsing when there is a chance it's a reference.
+        if (envelopeInput.contains(EnvelopeTemplate.REFERENCE_TEMPLATE_KEY)) {
+            final JsonNode envelopeNode = JSON.toJsonNode(envelopeInput);
+            if (envelopeNode.isObject() && envelopeNode.has(EnvelopeTemplate.REFERENCE_TEMPLATE_KEY)) {
+                final String templateId = envelopeNode.get(EnvelopeTemplate.REFERENCE_TEMPLATE_KEY).asText();
+                final String valueFullName = envelopeNode.path(EnvelopeTemplate.REFERENCE_VALUE_KEY).asText();
+                if (!Objects.equals(valueFullName, valueSchema.getFullName())) {
+                    throw new IOException("Envelope '%s' references VALUE Avro Schema '%s', but found '%s'".formatted(
+                            source.locate(envelopeFilename),
+                            valueFullName,
+                            valueSchema.getFullName()));
+                }
+
+                LOG.trace("Reconstituting ENVELOPE Avro Schema from template: {}", templateId);
+                return EnvelopeTemplate.loadFrom(source, templateId).materialize(valueSchema);
+            }
+        }
+
+        return new Schema.Parser().parse(envelopeInput);
+    }
+
+    /// Reads the JSON of a [Schema] file, resolving the references to fragments, if any.
+    private static String read(final SchemasSource source, final String filename, final Map<String, JsonNode> fragments) throws IOException {
+        final String input = source.read(filename);
+        return SchemaFragments.hasReferences(input) ? SchemaFragments.resolve(source, input, fragments) : input;
+    }
+
+    /// Appends a description of a Kafka Connect schema to the given [StringBuilder],
+    /// replacing the identifier of the table in the schema names (the same way [#withIdentifier(String)] does).
+    private static void appendStructure(final StringBuilder sb,
+                                        @Nullable final org.apache.kafka.connect.data.Schema connectSchema,
+                                        final String identifier) {
+        if (connectSchema == null) {
+            sb.append("null");
+            return;
+        }
+
+        sb.append('{').append(connectSchema.type())
+                .append('|').append(renameNamespace(connectSchema.name(), identifier, ""))
+                .append('|').append(connectSchema.version())
+                .append('|').append(connectSchema.doc())
+                .append('|').append(connectSchema.parameters())
+                .append('|').append(connectSchema.isOptional())
+                .append('|').append(connectSchema.defaultValue() instanceof byte[] bytes
+                        ? Arrays.toString(bytes)
+                        : connectSchema.defaultValue());
+        switch (connectSchema.type()) {
+            case STRUCT -> {
+                for (final org.apache.kafka.connect.data.Field field : connectSchema.fields()) {
+                    sb.append('|').append(field.name()).append('=');
+                    appendStructure(sb, field.schema(), identifier);
+                }
+            }
+            case MAP -> {
+                sb.append('|');
+                appendStructure(sb, connectSchema.keySchema(), identifier);
+                sb.append('|');
+                appendStructure(sb, connectSchema.valueSchema(), identifier);
+            }
+            case ARRAY -> {
+                sb.append('|');
+                appendStructure(sb, connectSchema.valueSchema(), identifier);
+            }
+            default -> {
+            }
+        }
+        sb.append('}');
+    }
+
+    /// Appends a description of an Avro [Schema] to the given [StringBuilder], replacing the identifier of the table
+    /// in the schema names (the same way [#withIdentifier(String)] does). Named types are described once, like in JSON.
+    private static void appendStructure(final StringBuilder sb,
+                                        final Schema schema,
+                                        final String identifier,
+                                        final Set<String> seenNames) {
+        sb.append('{').append(schema.getType().getName());
+        switch (schema.getType()) {
+            case RECORD, ENUM, FIXED -> {
+                appendText(sb, renameNamespace(schema.getFullName(), identifier, ""));
+                if (!seenNames.add(schema.getFullName())) {
+                    sb.append('}');
+                    return;
+                }
+                appendText(sb, schema.getDoc());
+                appendText(sb, schema.getAliases().stream().map(alias -> renameNamespace(alias, identifier, "")).sorted().toList().toString());
+            }
+            default -> {
+            }
+        }
+        appendProps(sb, schema.getObjectProps(), identifier);
+
+        switch (schema.getType()) {
+            case RECORD -> {
+                for (final Schema.Field field : schema.getFields()) {
+                    appendText(sb, field.name());
+                    appendText(sb, field.doc());
+                    appendText(sb, new TreeSet<>(field.aliases()).toString());
+                    appendText(sb, field.order().name());
+                    appendText(sb, field.hasDefaultValue() ? describe(field.defaultVal()) : null);
+                    appendProps(sb, field.getObjectProps(), identifier);
+                    appendStructure(sb, field.schema(), identifier, seenNames);
+                }
+            }
+            case ENUM -> {
+                appendText(sb, schema.getEnumSymbols().toString());
+                appendText(sb, schema.getEnumDefault());
+            }
+            case FIXED -> sb.append('|').append(schema.getFixedSize());
+            case UNION -> schema.getTypes().forEach(type -> appendStructure(sb, type, identifier, seenNames));
+            case ARRAY -> appendStructure(sb, schema.getElementType(), identifier, seenNames);
+            case MAP -> appendStructure(sb, schema.getValueType(), identifier, seenNames);
+            default -> {
+            }
+        }
+        sb.append('}');
+    }
+
+    /// Appends properties (sorted by name), replacing the identifier of the table in `connect.name`.
+    private static void appendProps(final StringBuilder sb, final Map<String, Object> props, final String identifier) {
+        new TreeMap<>(props).forEach((name, value) -> {
+            appendText(sb, name);
+            appendText(sb, name.equals("connect.name") && value instanceof String connectName
+                    ? renameNamespace(connectName, identifier, "")
+                    : describe(value));
+        });
+    }
+
+    /// Describes a default value or property, as returned by Avro (i.e. JSON as Java objects).
+    private static String describe(@Nullable final Object value) {
+        if (value == null || value == JsonProperties.NULL_VALUE) {
+            return "null";
+        }
+        if (value instanceof byte[] bytes) {
+            return Arrays.toString(bytes);
+        }
+        if (value instanceof Collection<?> collection) {
+            return collection.stream().map(TableAvroSchemas::describe).toList().toString();
+        }
+        if (value instanceof Map<?, ?> map) {
+            final Map<String, String> described = new LinkedHashMap<>();
+            map.forEach((k, v) -> described.put(String.valueOf(k), describe(v)));
+            return described.toString();
+        }
+        return value.getClass().getSimpleName() + ":" + value;
+    }
+
+    /// Appends a (possibly `null`) text, prefixed by its length: descriptions are unambiguous, whatever the text contains.
+    private static void appendText(final StringBuilder sb, @Nullable final String text) {
+        if (text == null) {
+            sb.append("|-");
+        } else {
+            sb.append('|').append(text.length()).append(':').append(text);
+        }
+    }
+
+    private static Schema renameNamespace(final Schema schema, final String fromNamespace, final String toNamespace) {
+        try {
+            final JsonNode renamed = renameNamespace(JSON.toJsonNode(schema.toString()), fromNamespace, toNamespace);
+            return new Schema.Parser().parse(JSON.compact(renamed));
+        } catch (final JsonProcessingException e) {
+            throw new IllegalStateException("Unable to rename namespace of Avro Schema: " + schema.getFullName(), e);
+        }
+    }
+
+    private static JsonNode renameNamespace(final JsonNode node, final String fromNamespace, final String toNamespace) {
+        if (node.isObject()) {
+            final ObjectNode obj = (ObjectNode) node;
+            obj.properties().forEach(prop -> {
+                final JsonNode value = prop.getValue();
+                if (value.isTextual() && (prop.getKey().equals("namespace") || prop.getKey().equals("connect.name"))) {
+                    prop.setValue(TextNode.valueOf(renameNamespace(value.asText(), fromNamespace, toNamespace)));
+                } else {
+                    renameNamespace(value, fromNamespace, toNamespace);
+                }
+            });
+        } else if (node.isArray()) {
+            ((ArrayNode) node).forEach(item -> renameNamespace(item, fromNamespace, toNamespace));
+        }
+        return node;
+    }
+
+    private static String renameNamespace(@Nullable final String name, final String fromNamespace, final String toNamespace) {
+        if (name == null) {
+            return null;
+        }
+        if (name.equals(fromNamespace)) {
+            return toNamespace;
+        }
+        if (name.startsWith(fromNamespace + ".")) {
+            return toNamespace + name.substring(fromNamespace.length());
+        }
+        return name;
+    }
 }
@@ -0,0 +1,188 @@
+package io.snyk.skemium.db;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.debezium.document.ArrayReader;
+import io.debezium.document.ArrayWriter;
+import io.debezium.relational.Table;
+import io.debezium.relational.TableId;
+import io.debezium.relational.history.JsonTableChangeSerializer;
+import io.debezium.relational.history.TableChanges;
+import io.snyk.skemium.helpers.JSON;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/// Snapshot of the parts of a Database catalog needed to build the [io.debezium.relational.TableSchema]s of its tables,
+/// captured by the `capture` command and replayed by `generate --from-capture` without a Database connection.
+///
+/// Tables are stored in the same format used by Debezium for its schema history
+/// (see [JsonTableChangeSerializer]): columns, types, defaults, primary keys.
+///
+/// @param created   When was the snapshot captured.
+/// @param kind      [DatabaseKind] of the Database.
+/// @param database  Database (Catalog) name.
+/// @param charset   Name of the character set of the Database.
+/// @param timeZone  Time zone of the Database session, used to interpret default values.
+/// @param tables    Tables, serialized as Debezium table changes.
+/// @param types     Database types referenced by the columns of the tables (including their element/parent types).
+/// @param partitions Partitions of partitioned tables (see [TableSchemaFetcher#fetchPartitions(String)]); `NULL` if there are none.
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CatalogCapture(
+        @JsonFormat(without = {
+                JsonFormat.Feature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS,
+                JsonFormat.Feature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS,
+        })
+        @JsonProperty(value = "created", required = true, index = 0)
+        Instant created,
+        @JsonProperty(value = "kind", required = true, index = 1)
+        DatabaseKind kind,
+        @JsonProperty(value = "database", required = true, index = 2)
+        String database,
+        @JsonProperty(value = "charset", index = 3)
+        String charset,
+        @JsonProperty(value = "timeZone", index = 4)
+        String timeZone,
+        @JsonProperty(value = "tables", required = true, index = 5)
+        JsonNode tables,
+        @JsonProperty(value = "types", required = true, index = 6)
+        List<Type> types,
+        @JsonProperty(value = "partitions", index = 7)
+        List<Partition> partitions
+) {
+    private static final Logger LOG = LoggerFactory.getLogger(CatalogCapture.class);
+
+    /// Describes a Database type.
+    ///
+    /// @param name       Name of the type.
+    /// @param oid        Identifier of the type in the Database.
+    /// @param jdbcId     JDBC type (see [java.sql.Types]).
+    /// @param parentOid  Identifier of the type this type is based on (e.g. for domain types); `NULL` if none.
+    /// @param elementOid Identifier of the type of the elements, for array types; `NULL` otherwise.
+    /// @param enumValues Values of enumerated types; `NULL` otherwise.
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Type(
+            @JsonProperty(value = "name", required = true)
+            String name,
+            @JsonProperty(value = "oid", required = true)
+            int oid,
+            @JsonProperty(value = "jdbcId", required = true)
+            int jdbcId,
+            @JsonProperty("parentOid")
+            Integer parentOid,
+            @JsonProperty("elementOid")
+            Integer elementOid,
+            @JsonProperty("enumValues")
+            List<String> enumValues
+    ) {
+    }
+
+    /// Describes a partition, and the (top-most) partitioned table it belongs to.
+    public record Partition(
+            @JsonProperty(value = "schema", required = true)
+            String schema,
+            @JsonProperty(value = "table", required = true)
+            String table,
+            @JsonProperty(value = "parentSchema", required = true)
+            String parentSchema,
+            @JsonProperty(value = "parentTable", required = true)
+            String parentTable
+    ) {
+    }
+
+    /// Builds a [CatalogCapture].
+    ///
+    /// @param kind       [DatabaseKind] of the Database
+    /// @param database   Database (Catalog) name
+    /// @param charset    Name of the character set of the Database
+    /// @param timeZone   Time zone of the Database session
+    /// @param tables     Debezium [Table]s to capture
+    /// @param types      Database types referenced by the tables
+    /// @param partitions [Map] of partitions [TableId], to the [TableId] of the partitioned table they belong to
+    /// @return A [CatalogCapture]
+    /// @throws IOException If the tables can't be serialized
+    public static CatalogCapture build(@Nonnull final DatabaseKind kind,
+                                       @Nonnull final String database,
+                                       @Nullable final String charset,
+                                       @Nullable final String timeZone,
+                                       @Nonnull final Collection<Table> tables,
+                                       @Nonnull final Collection<Type> types,
+                                       @Nonnull final Map<TableId, TableId> partitions) throws IOException {
+        final TableChanges tableChanges = new TableChanges();
+        tables.stream()
+                .sorted(Comparator.comparing(t -> t.id().identifier()))
+                .forEach(tableChanges::create);
+
+        return new CatalogCapture(Instant.now(),
+                kind,
+                database,
+                charset,
+                timeZone,
+                JSON.toJsonNode(ArrayWriter.defaultWriter().write(new JsonTableChangeSerializer().serialize(tableChanges))),
+                types.stream().sorted(Comparator.comparingInt(Type::oid)).toList(),
+                partitions.isEmpty() ? null : partitions.entrySet().stream()
+                        .map(p -> new Partition(p.getKey().schema(), p.getKey().table(), p.getValue().schema(), p.getValue().table()))
+                        .sorted(Comparator.comparing(Partition::schema).thenComparing(Partition::table))
+                        .toList());
+    }
+
+    /// Deserializes the captured tables.
+    ///
+    /// @return [List] of Debezium [Table]s
+    /// @throws IOException If the tables can't be deserialized
+    public List<Table> readTables() throws IOException {
+        final List<Table> result = new ArrayList<>();
+        // NOTE: Identifiers are `SCHEMA.TABLE` (or `CATALOG.SCHEMA.TABLE`), never `CATALOG.TABLE`
+        for (final TableChanges.TableChange tableChange : new JsonTableChangeSerializer().deserialize(ArrayReader.defaultReader().readArray(JSON.compact(tables)), false)) {
+            result.add(tableChange.getTable());
+        }
+        return result;
+    }
+
+    /// @return A [Map] of partitions [TableId], to the [TableId] of the partitioned table they belong to;
+    ///         [TableId]s don't carry the catalog
+    public Map<TableId, TableId> readPartitions() {
+        final Map<TableId, TableId> result = new HashMap<>();
+        if (partitions != null) {
+            for (final Partition p : partitions) {
+                result.put(new TableId(null, p.schema(), p.table()), new TableId(null, p.parentSchema(), p.parentTable()));
+            }
+        }
+        return result;
+    }
+
+    /// Save the [CatalogCapture] to the given file [Path], as compact JSON.
+    ///
+    /// @param outputFile [Path] to the file. Parent directory MUST already exist and be writable.
+    /// @throws IOException
+    public void saveTo(@Nonnull final Path outputFile) throws IOException {
+        LOG.debug("Saving catalog capture: {}", outputFile.toAbsolutePath());
+        try (final PrintWriter out = new PrintWriter(outputFile.toAbsolutePath().toString())) {
+            out.println(JSON.compact(this));
+        }
+    }
+
+    /// Loads a [CatalogCapture] from filesystem.
+    ///
+    /// @param inputFile [Path] to the file
+    /// @return A [CatalogCapture]
+    /// @throws IOException
+    public static CatalogCapture loadFrom(@Nonnull final Path inputFile) throws IOException {
+        LOG.debug("Loading catalog capture: {}", inputFile.toAbsolutePath());
+        return JSON.from(inputFile.toFile(), CatalogCapture.class);
+    }
+}
@@ -0,0 +1,291 @@
+package io.snyk.skemium.db;
+
+import io.debezium.relational.TableId;
+import io.debezium.relational.Tables;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/// Compiled filter of the schemas, tables and columns of a Database, as selected on the command line
+/// (i.e. included schemas, included tables and excluded columns).
+///
+/// Every name given is either:
+///
+///   * an exact name (e.g. `public`)
+///   * a glob, if it contains `*` or `?` (e.g. `tenant_*`)
+///   * a regular expression, if enclosed in `/` (e.g. `/tenant_[0-9]+/`)
+///
+/// Tables are matched by `TABLE` or `SCHEMA.TABLE`, and columns by `SCHEMA.TABLE.COLUMN`.
+///
+/// Exact names are matched via hash lookups, split by schema and table upfront, so that no qualified name has to be
+/// formatted for every table (or column) checked: globs and regular expressions are compiled once, and only evaluated
+/// for the names not matched exactly. Exact names and globs can also be pushed into catalog queries
+/// (see [Names#exact()] and [Names#globs()]), to avoid reading tables that would be filtered out anyway.
+public final class CatalogFilter {
+    /// Filter including all schemas, tables and columns.
+    public static final CatalogFilter ALL = new CatalogFilter(null, null, null, null, null);
+
+    @Nullable
+    private final Names schemas;
+    @Nullable
+    private final Names tables;
+    /// Tables included via an exact `SCHEMA.TABLE`: schema to table names.
+    @Nullable
+    private final Map<String, Set<String>> qualifiedTables;
+    @Nullable
+    private final Columns excludedColumns;
+    /// Tables excluded, whatever the names above: schema to table names.
+    @Nullable
+    private final Map<String, Set<String>> excludedTables;
+
+    private CatalogFilter(@Nullable final Names schemas,
+                          @Nullable final Names tables,
+                          @Nullable final Map<String, Set<String>> qualifiedTables,
+                          @Nullable final Columns excludedColumns,
+                          @Nullable final Map<String, Set<String>> excludedTables) {
+        this.schemas = schemas;
+        this.tables = tables;
+        this.qualifiedTables = qualifiedTables;
+        this.excludedColumns = excludedColumns;
+        this.excludedTables = excludedTables;
+    }
+
+    /// Compiles the given names into a [CatalogFilter].
+    ///
+    /// @param includedSchemas [Set] of Schemas to include; if `null` (or empty) all schemas are included
+    /// @param includedTables  [Set] of Tables to include (`TABLE` or `SCHEMA.TABLE`); if `null` (or empty) all tables are included
+    /// @param excludedColumns [Set] of Columns to exclude (`SCHEMA.TABLE.COLUMN`); if `null` (or empty) no column is excluded
+    /// @return A [CatalogFilter]
+    /// @throws java.util.regex.PatternSyntaxException If a regular expression is invalid
+    public static CatalogFilter compile(@Nullable final Set<String> includedSchemas,
+                                        @Nullable final Set<String> includedTables,
+                                        @Nullable final Set<String> excludedColumns) {
+        final Names tables = Names.compile(includedTables);
+        Map<String, Set<String>> qualifiedTables = null;
+        if (tables != null) {
+            qualifiedTables = new HashMap<>();
+            for (final String table : tables.exact()) {
+                final int dot = table.indexOf('.');
+                if (dot > 0) {
+                    qualifiedTables.computeIfAbsent(table.substring(0, dot), s -> new HashSet<>()).add(table.substring(dot + 1));
+                }
+            }
+        }
+        return new CatalogFilter(Names.compile(includedSchemas), tables, qualifiedTables, Columns.compile(excludedColumns), null);
+    }
+
+    /// Builds a [CatalogFilter] including exactly the given tables: unlike [#compile], names are taken as they are
+    /// (i.e. never as globs or regular expressions, nor split on `.`).
+    ///
+    /// @param tableIds        [Set] of [TableId]s of the tables to include; the catalog is ignored
+    /// @param excludedColumns [Set] of Columns to exclude (`SCHEMA.TABLE.COLUMN`); if `null` (or empty) no column is excluded
+    /// @return A [CatalogFilter]; if `tableIds` is empty, no table is included
+    /// @throws java.util.regex.PatternSyntaxException If a regular expression is invalid
+    public static CatalogFilter of(final Set<TableId> tableIds, @Nullable final Set<String> excludedColumns) {
+        final Map<String, Set<String>> qualifiedTables = new HashMap<>();
+        for (final TableId tableId : tableIds) {
+            qualifiedTables.computeIfAbsent(tableId.schema(), s -> new HashSet<>()).add(tableId.table());
+        }
+        return new CatalogFilter(
+                new Names(Set.copyOf(qualifiedTables.keySet()), List.of(), List.of()),
+                new Names(Set.of(), List.of(), List.of()),
+                qualifiedTables,
+                Columns.compile(excludedColumns),
+                null);
+    }
+
+    /// Excludes the given tables from this filter (e.g. partitions, left out in favour of their partitioned table).
+    ///
+    /// @param tableIds [Set] of [TableId]s of the tables to exclude; the catalog is ignored
+    /// @return A [CatalogFilter] including what this one does, except the given tables
+    public CatalogFilter excluding(final Set<TableId> tableIds) {
+        if (tableIds.isEmpty()) {
+            return this;
+        }
+
+        final Map<String, Set<String>> excluded = new HashMap<>();
+        if (excludedTables != null) {
+            excludedTables.forEach((schema, tablesInSchema) -> excluded.put(schema, new HashSet<>(tablesInSchema)));
+        }
+        for (final TableId tableId : tableIds) {
+            excluded.computeIfAbsent(tableId.schema(), s -> new HashSet<>()).add(tableId.table());
+        }
+        return new CatalogFilter(schemas, tables, qualifiedTables, excludedColumns, excluded);
+    }
+
+    /// @return `true` if the schema is included
+    public boolean includesSchema(final String schema) {
+        return schemas == null || schemas.matches(schema);
+    }
+
+    /// @return `true` if the table is included, by name or by `SCHEMA.TABLE`, and not excluded (the schema is not checked)
+    public boolean includesTable(final String schema, final String table) {
+        if (excludedTables != null) {
+            final Set<String> excludedInSchema = excludedTables.get(schema);
+            if (excludedInSchema != null && excludedInSchema.contains(table)) {
+                return false;
+            }
+        }
+        if (tables == null || tables.exact().contains(table)) {
+            return true;
+        }
+        final Set<String> tablesInSchema = qualifiedTables.get(schema);
+        if (tablesInSchema != null && tablesInSchema.contains(table)) {
+            return true;
+        }
+        return tables.hasPatterns() && (tables.matchesPattern(table) || tables.matchesPattern(schema + "." + table));
+    }
+
+    /// @return `true` if both the schema and the table are included
+    public boolean includes(final TableId tableId) {
+        return includesSchema(tableId.schema()) && includesTable(tableId.schema(), tableId.table());
+    }
+
+    /// @return `true` if the column is not excluded
+    public boolean includesColumn(final String schema, final String table, final String column) {
+        return excludedColumns == null || !excludedColumns.matches(schema, table, column);
+    }
+
+    /// @return Included schemas; `null` if all schemas are included
+    public @Nullable Names schemas() {
+        return schemas;
+    }
+
+    /// @return Included tables, as given (i.e. `TABLE` or `SCHEMA.TABLE`); `null` if all tables are included
+    public @Nullable Names tables() {
+        return tables;
+    }
+
+    /// @return Tables included via an exact `SCHEMA.TABLE` (or [TableId]): schema to table names;
+    ///         `null` if all tables are included
+    public @Nullable Map<String, Set<String>> qualifiedTables() {
+        return qualifiedTables;
+    }
+
+    /// @return [Tables.ColumnNameFilter] applying [#includesColumn]; `null` if no column is excluded
+    public @Nullable Tables.ColumnNameFilter columnNameFilter() {
+        return excludedColumns == null
+                ? null
+                : (catalog, schema, table, column) -> includesColumn(schema, table, column);
+    }
+
+    /// Compiled set of names: exact names, globs and regular expressions.
+    ///
+    /// @param exact    Exact names
+    /// @param globs    Globs, as given (i.e. `*` matches any sequence of characters, `?` any character)
+    /// @param patterns Compiled globs and regular expressions
+    public record Names(Set<String> exact, List<String> globs, List<Pattern> patterns) {
+        @Nullable
+        static Names compile(@Nullable final Set<String> names) {
+            if (names == null || names.isEmpty()) {
+                return null;
+            }
+
+            final Set<String> exact = new HashSet<>();
+            final List<String> globs = new ArrayList<>();
+            final List<Pattern> patterns = new ArrayList<>();
+            for (final String name : names) {
+                if (isRegex(name)) {
+                    patterns.add(Pattern.compile(name.substring(1, name.length() - 1)));
+                } else if (isGlob(name)) {
+                    globs.add(name);
+                    patterns.add(globToPattern(name));
+                } else {
+                    exact.add(name);
+                }
+            }
+            return new Names(Set.copyOf(exact), List.copyOf(globs), List.copyOf(patterns));
+        }
+
+        /// @return `true` if the name is matched exactly, or by any glob or regular expression
+        public boolean matches(final String name) {
+            return exact.contains(name) || matchesPattern(name);
+        }
+
+        /// @return `true` if there are any globs or regular expressions
+        public boolean hasPatterns() {
+            return !patterns.isEmpty();
+        }
+
+        /// @return `true` if there are any regular expressions (i.e. patterns that are not globs)
+        public boolean hasRegexes() {
+            return patterns.size() > globs.size();
+        }
+
+        boolean matchesPattern(final String name) {
+            for (final Pattern pattern : patterns) {
+                if (pattern.matcher(name).matches()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /// Compiled set of `SCHEMA.TABLE.COLUMN` names: exact names are split by schema and table.
+    private record Columns(Map<String, Map<String, Set<String>>> exact, Names names) {
+        @Nullable
+        static Columns compile(@Nullable final Set<String> columns) {
+            final Names names = Names.compile(columns);
+            if (names == null) {
+                return null;
+            }
+
+            final Map<String, Map<String, Set<String>>> exact = new HashMap<>();
+            for (final String column : names.exact()) {
+                final String[] parts = column.split("\\.", 3);
+                if (parts.length == 3) {
+                    exact.computeIfAbsent(parts[0], s -> new HashMap<>())
+                            .computeIfAbsent(parts[1], t -> new HashSet<>())
+                            .add(parts[2]);
+                }
+            }
+            return new Columns(exact, names);
+        }
+
+        boolean matches(final String schema, final String table, final String column) {
+            final Map<String, Set<String>> tablesInSchema = exact.get(schema);
+            if (tablesInSchema != null) {
+                final Set<String> columnsInTable = tablesInSchema.get(table);
+                if (columnsInTable != null && columnsInTable.contains(column)) {
+                    return true;
+                }
+            }
+            return names.hasPatterns() && names.matchesPattern(schema + "." + table + "." + column);
+        }
+    }
+
+    static boolean isRegex(final String name) {
+        return name.length() > 2 && name.startsWith("/") && name.endsWith("/");
+    }
+
+    static boolean isGlob(final String name) {
+        return name.indexOf('*') >= 0 || name.indexOf('?') >= 0;
+    }
+
+    static Pattern globToPattern(final String glob) {
+        final StringBuilder regex = new StringBuilder();
+        final StringBuilder literal = new StringBuilder();
+        for (final char c : glob.toCharArray()) {
+            if (c == '*' || c == '?') {
+                if (!literal.isEmpty()) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '*' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (!literal.isEmpty()) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+}
@@ -1,7 +1,9 @@
 package io.snyk.skemium.db;
 
 import io.debezium.config.Configuration;
+import io.snyk.skemium.db.postgres.PostgresCaptureTableSchemaFetcher;
 import io.snyk.skemium.db.postgres.PostgresTableSchemaFetcher;
+import io.snyk.skemium.db.schemahistory.SchemaHistoryTableSchemaFetcher;
 
 /**
  * Kind of Databases supported.
@@ -11,7 +13,13 @@ public enum DatabaseKind {
      * PostgreSQL.
      * {@see https://www.postgresql.org/}
      */
-    POSTGRES;
+    POSTGRES,
+    /**
+     * Debezium schema history file, as written by {@code FileSchemaHistory} (e.g. by the MySQL connector):
+     * tables are reconstructed from the history, instead of read from a Database.
+     * {@see https://debezium.io/documentation/reference/stable/configuration/storage.html}
+     */
+    SCHEMA_HISTORY;
 
     /**
      * Creates the {@link TableSchemaFetcher} for the given {@link DatabaseKind}.
@@ -22,6 +30,21 @@ public enum DatabaseKind {
     public TableSchemaFetcher fetcher(final Configuration config) {
         return switch (this) {
             case POSTGRES -> new PostgresTableSchemaFetcher(config);
+            case SCHEMA_HISTORY -> new SchemaHistoryTableSchemaFetcher(config);
+        };
+    }
+
+    /**
+     * Creates the {@link TableSchemaFetcher} for the given {@link DatabaseKind}, reading from a {@link CatalogCapture}
+     * instead of connecting to the Database.
+     *
+     * @param capture {@link CatalogCapture} of a Database of this {@link DatabaseKind}.
+     * @return Corresponding {@link TableSchemaFetcher}.
+     */
+    public TableSchemaFetcher fetcher(final CatalogCapture capture) {
+        return switch (this) {
+            case POSTGRES -> new PostgresCaptureTableSchemaFetcher(capture);
+            case SCHEMA_HISTORY -> new SchemaHistoryTableSchemaFetcher(capture);
         };
     }
 }
@@ -0,0 +1,24 @@
+package io.snyk.skemium.db;
+
+/**
+ * How partitions of partitioned tables are handled when generating schemas.
+ * <p>
+ * Partitions share the structure of their partitioned (parent) table:
+ * producing a schema for each of them is usually redundant.
+ */
+public enum PartitionMode {
+    /**
+     * Every partition is treated as a table of its own.
+     */
+    ALL,
+
+    /**
+     * Only the partitioned (parent) table is kept: partitions are omitted.
+     */
+    PARENT,
+
+    /**
+     * Only the partitioned (parent) table is kept: partitions are recorded as references to it.
+     */
+    REFERENCE
+}
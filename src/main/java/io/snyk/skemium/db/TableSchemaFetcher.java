@@ -1,9 +1,11 @@
 package io.snyk.skemium.db;
 
+import io.debezium.relational.TableId;
 import io.debezium.relational.TableSchema;
 
 import javax.annotation.Nullable;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /// Interface describing a [AutoCloseable] type that can fetch all/some [TableSchema] from a Database.
@@ -22,8 +24,81 @@ public interface TableSchemaFetcher extends AutoCloseable {
     ///                        each column has to be a fully qualified name (e.g. `SCHEMA.TABLE.COLUMN`)
     /// @return A [List] of [TableSchema] of all the tables found
     /// @throws Exception Thrown if schemas/tables where indicated but were not found.
-    List<TableSchema> fetch(String database,
-                            @Nullable Set<String> includedSchemas,
-                            @Nullable Set<String> includedTables,
-                            @Nullable Set<String> excludedColumns) throws Exception;
+    default List<TableSchema> fetch(String database,
+                                    @Nullable Set<String> includedSchemas,
+                                    @Nullable Set<String> includedTables,
+                                    @Nullable Set<String> excludedColumns) throws Exception {
+        return fetch(database, CatalogFilter.compile(includedSchemas, includedTables, excludedColumns));
+    }
+
+    /// Fetches the [TableSchema] of exactly the given tables in the Database (see [CatalogFilter#of]).
+    ///
+    /// @param database        Database (Catalog) name
+    /// @param tables          [Set] of [TableId]s of the tables to fetch; [TableId]s don't need to carry the catalog.
+    ///                        If empty, no table is fetched
+    /// @param excludedColumns [Set] of Columns to exclude;
+    ///                        each column has to be a fully qualified name (e.g. `SCHEMA.TABLE.COLUMN`)
+    /// @return A [List] of [TableSchema] of the tables found
+    /// @throws Exception Thrown if the tables could not be fetched.
+    default List<TableSchema> fetch(String database,
+                                    Set<TableId> tables,
+                                    @Nullable Set<String> excludedColumns) throws Exception {
+        return fetch(database, CatalogFilter.of(tables, excludedColumns));
+    }
+
+    /// Fetches the [TableSchema] of the tables in the Database included by a [CatalogFilter].
+    ///
+    /// Tables not included are never read (e.g. partitions excluded via [CatalogFilter#excluding(Set)]).
+    ///
+    /// @param database Database (Catalog) name
+    /// @param filter   [CatalogFilter] of the schemas and tables to include, and columns to exclude
+    /// @return A [List] of [TableSchema] of all the tables found
+    /// @throws Exception Thrown if schemas/tables where indicated but were not found.
+    List<TableSchema> fetch(String database, CatalogFilter filter) throws Exception;
+
+    /// Fetches the partitions of partitioned tables in the Database.
+    ///
+    /// Nested partitions are mapped to the top-most partitioned table they belong to.
+    /// Databases that don't support partitioning return an empty [Map].
+    ///
+    /// @param database Database (Catalog) name
+    /// @return A [Map] of partitions [TableId], to the [TableId] of the partitioned table they belong to;
+    ///         [TableId]s don't carry the catalog
+    /// @throws Exception Thrown if the partitions could not be fetched.
+    default Map<TableId, TableId> fetchPartitions(String database) throws Exception {
+        return Map.of();
+    }
+
+    /// Fetches a fingerprint of the catalog definition of each selected table in the Database.
+    ///
+    /// Fingerprints are much cheaper to compute than [TableSchema]s, and change whenever the [TableSchema]
+    /// of the table could: tables whose fingerprint didn't change since a previous run don't need fetching again.
+    /// Fingerprints are only comparable with those of the same [DatabaseKind].
+    ///
+    /// @param database        Database (Catalog) name
+    /// @param includedSchemas [Set] of Schemas to include; if `null` all schemas are included
+    /// @param includedTables  [Set] of Tables to include; if `null` all tables are included
+    /// @return A [Map] of [TableId] to fingerprint; [TableId]s don't carry the catalog.
+    ///         `null` if the Database doesn't support fingerprinting
+    /// @throws Exception Thrown if the fingerprints could not be fetched.
+    @Nullable
+    default Map<TableId, String> fetchFingerprints(String database,
+                                                   @Nullable Set<String> includedSchemas,
+                                                   @Nullable Set<String> includedTables) throws Exception {
+        return null;
+    }
+
+    /// Captures the catalog information needed to fetch the [TableSchema]s of the Database later,
+    /// without a connection (see [DatabaseKind#fetcher(CatalogCapture)]).
+    ///
+    /// Only schemas and tables can be filtered: columns are excluded when fetching from the [CatalogCapture].
+    ///
+    /// @param database        Database (Catalog) name
+    /// @param includedSchemas [Set] of Schemas to include; if `null` all schemas are included
+    /// @param includedTables  [Set] of Tables to include; if `null` all tables are included
+    /// @return A [CatalogCapture] of the tables found
+    /// @throws Exception Thrown if the catalog could not be captured.
+    CatalogCapture capture(String database,
+                           @Nullable Set<String> includedSchemas,
+                           @Nullable Set<String> includedTables) throws Exception;
 }
@@ -0,0 +1,340 @@
+package io.snyk.skemium.db.postgres;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.debezium.connector.postgresql.PostgresType;
+import io.debezium.connector.postgresql.TypeRegistry;
+import io.debezium.connector.postgresql.connection.PostgresConnection;
+import io.debezium.jdbc.JdbcConfiguration;
+import io.snyk.skemium.db.CatalogCapture;
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.TypeInfo;
+import org.postgresql.jdbc.TypeInfoCache;
+
+import javax.annotation.Nullable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * A {@link PostgresConnection} answering the catalog queries {@link TypeRegistry} runs from a given set of types
+ * (e.g. captured, or cached), so that a {@link TypeRegistry} is built through its public constructor without reading
+ * {@code pg_type} from a Database.
+ * <p>
+ * Types not given (e.g. created after they were cached) are looked up via the live connection, if any, the same way
+ * {@link TypeRegistry} would; otherwise they resolve to {@link PostgresType#UNKNOWN}, as they would if the Database
+ * didn't know them. Any other query fails: a change to the queries {@link TypeRegistry} runs is detected,
+ * rather than answered wrongly.
+ * <p>
+ * The JDBC objects handed to {@link TypeRegistry} are dynamic proxies, implementing only the methods it uses
+ * (registered for {@code native-image} in {@code proxy-config.json}).
+ */
+final class CatalogTypesConnection extends PostgresConnection {
+    private static final String CONNECTION_USAGE = "skemium-" + CatalogTypesConnection.class.getName();
+
+    /// Precision and scale of the built-in types: they are known to the JDBC driver, no connection needed.
+    private static final TypeInfo TYPE_INFO = new TypeInfoCache(null, TypeRegistry.UNKNOWN_LENGTH);
+
+    /// Lists all the types (as `TypeRegistry#SQL_TYPES`).
+    static final String TYPES_QUERY = "SELECT t.oid AS oid, t.typname AS name, t.typelem AS element, t.typbasetype AS parentoid, "
+            + "t.typtypmod as modifiers, t.typcategory as category, e.values as enum_values "
+            + "FROM pg_catalog.pg_type t JOIN pg_catalog.pg_namespace n ON (t.typnamespace = n.oid) "
+            + "LEFT JOIN (SELECT t.enumtypid as id, array_agg(t.enumlabel) as values FROM pg_catalog.pg_enum t GROUP BY id) e "
+            + "ON (t.oid = e.id) WHERE n.nspname != 'pg_toast'";
+    /// Looks up a type by name (as `TypeRegistry#SQL_NAME_LOOKUP`).
+    private static final String TYPE_BY_NAME_QUERY = TYPES_QUERY + " AND t.typname = ?";
+    /// Looks up a type by OID (as `TypeRegistry#SQL_OID_LOOKUP`).
+    private static final String TYPE_BY_OID_QUERY = TYPES_QUERY + " AND t.oid = ?";
+    /// Finds the JDBC type of each type name, in the order of the search path (as `TypeRegistry.SqlTypeMapper#SQL_TYPE_DETAILS`).
+    static final String SQL_TYPES_QUERY = "SELECT DISTINCT ON (typname) typname, typinput='array_in'::regproc, typtype, sp.r, pg_type.oid "
+            + "  FROM pg_catalog.pg_type "
+            + "  LEFT "
+            + "  JOIN (select ns.oid as nspoid, ns.nspname, r.r "
+            + "          from pg_namespace as ns "
+            + "          join ( select s.r, (current_schemas(false))[s.r] as nspname "
+            + "                   from generate_series(1, array_upper(current_schemas(false), 1)) as s(r) ) as r "
+            + "         using ( nspname ) "
+            + "       ) as sp "
+            + "    ON sp.nspoid = typnamespace "
+            + " ORDER BY typname, sp.r, pg_type.oid;";
+
+    /// Row of [#TYPES_QUERY].
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record TypeRow(
+            @JsonProperty(value = "oid", required = true)
+            int oid,
+            @JsonProperty(value = "name", required = true)
+            String name,
+            @JsonProperty(value = "element", required = true)
+            int element,
+            @JsonProperty(value = "parentOid", required = true)
+            int parentOid,
+            @JsonProperty(value = "modifiers", required = true)
+            int modifiers,
+            @JsonProperty(value = "category", required = true)
+            String category,
+            @JsonProperty("enumValues")
+            List<String> enumValues
+    ) {
+    }
+
+    /// Row of [#SQL_TYPES_QUERY].
+    ///
+    /// @param name  Name of the type
+    /// @param array `true` if it's an array type
+    /// @param type  Kind of type (i.e. `pg_type.typtype`)
+    record SqlTypeRow(
+            @JsonProperty(value = "name", required = true)
+            String name,
+            @JsonProperty(value = "array", required = true)
+            boolean array,
+            @JsonProperty(value = "type", required = true)
+            String type
+    ) {
+    }
+
+    private final List<TypeRow> types;
+    private final List<SqlTypeRow> sqlTypes;
+    @Nullable
+    private final PostgresConnection live;
+
+    /// @param types    Rows of [#TYPES_QUERY]
+    /// @param sqlTypes Rows of [#SQL_TYPES_QUERY]
+    /// @param live     Connection to look up types not in `types` via; if `null`, they are unknown
+    CatalogTypesConnection(final List<TypeRow> types, final List<SqlTypeRow> sqlTypes, @Nullable final PostgresConnection live) {
+        super(JdbcConfiguration.create().build(), CONNECTION_USAGE);
+        this.types = types;
+        this.sqlTypes = sqlTypes;
+        this.live = live;
+    }
+
+    /// Builds a [TypeRegistry] with the given types, without a Database connection.
+    ///
+    /// @param types Types recorded in a [CatalogCapture]
+    /// @return A [TypeRegistry]
+    static TypeRegistry typeRegistryOf(final List<CatalogCapture.Type> types) {
+        final List<TypeRow> typeRows = new ArrayList<>();
+        final Map<String, SqlTypeRow> sqlTypeRows = new LinkedHashMap<>();
+        for (final CatalogCapture.Type type : types) {
+            typeRows.add(new TypeRow(
+                    type.oid(),
+                    type.name(),
+                    type.elementOid() != null ? type.elementOid() : 0,
+                    type.parentOid() != null ? type.parentOid() : 0,
+                    TypeRegistry.NO_TYPE_MODIFIER,
+                    type.enumValues() != null ? "E" : type.elementOid() != null ? "A" : "U",
+                    type.enumValues()));
+            // NOTE: The inverse of the mapping in `TypeRegistry.SqlTypeMapper` (types known to the JDBC driver ignore it)
+            sqlTypeRows.putIfAbsent(type.name(), new SqlTypeRow(
+                    type.name(),
+                    type.jdbcId() == Types.ARRAY,
+                    switch (type.jdbcId()) {
+                        case Types.STRUCT -> "c";
+                        case Types.DISTINCT -> "d";
+                        case Types.VARCHAR -> "e";
+                        default -> "b";
+                    }));
+        }
+        return new TypeRegistry(new CatalogTypesConnection(typeRows, List.copyOf(sqlTypeRows.values()), null));
+    }
+
+    /// Reads the rows of [#TYPES_QUERY] and [#SQL_TYPES_QUERY] from a Database.
+    ///
+    /// @param connection [PostgresConnection] to the Database
+    /// @param typeRows    Receives the rows of [#TYPES_QUERY]
+    /// @param sqlTypeRows Receives the rows of [#SQL_TYPES_QUERY]
+    /// @throws SQLException If the Database can't be queried
+    static void readRows(final PostgresConnection connection,
+                         final List<TypeRow> typeRows,
+                         final List<SqlTypeRow> sqlTypeRows) throws SQLException {
+        connection.query(TYPES_QUERY, rs -> {
+            while (rs.next()) {
+                final Array enumValues = rs.getArray("enum_values");
+                typeRows.add(new TypeRow(
+                        (int) rs.getLong("oid"),
+                        rs.getString("name"),
+                        (int) rs.getLong("element"),
+                        (int) rs.getLong("parentoid"),
+                        (int) rs.getLong("modifiers"),
+                        rs.getString("category"),
+                        enumValues != null ? List.of((String[]) enumValues.getArray()) : null));
+            }
+        });
+        connection.query(SQL_TYPES_QUERY, rs -> {
+            while (rs.next()) {
+                sqlTypeRows.add(new SqlTypeRow(rs.getString(1), rs.getBoolean(2), rs.getString(3)));
+            }
+        });
+    }
+
+    @Override
+    public synchronized Connection connection() {
+        return proxy(Connection.class, (method, args) -> switch (method.getName()) {
+            case "createStatement" -> createStatement();
+            case "prepareStatement" -> prepareStatement((String) args[0]);
+            case "unwrap" -> unwrap((Class<?>) args[0]);
+            case "isWrapperFor" -> args[0] == BaseConnection.class;
+            case "close" -> null;
+            default -> throw unsupported(method);
+        });
+    }
+
+    @Override
+    public synchronized Connection connection(final boolean executeOnConnect) {
+        return connection();
+    }
+
+    private Statement createStatement() {
+        return proxy(Statement.class, (method, args) -> switch (method.getName()) {
+            case "executeQuery" -> {
+                final String sql = (String) args[0];
+                if (TYPES_QUERY.equals(sql)) {
+                    yield typesResultSet(types);
+                }
+                if (SQL_TYPES_QUERY.equals(sql)) {
+                    yield resultSet(sqlTypes.stream()
+                            .map(row -> new Object[]{row.name(), row.array(), row.type()})
+                            .toList(), List.of());
+                }
+                throw new SQLFeatureNotSupportedException("Unexpected type registry query: " + sql);
+            }
+            case "close" -> null;
+            default -> throw unsupported(method);
+        });
+    }
+
+    private PreparedStatement prepareStatement(final String sql) throws SQLException {
+        final Predicate<Object> byParameter;
+        if (TYPE_BY_NAME_QUERY.equals(sql)) {
+            byParameter = name -> types.stream().anyMatch(t -> t.name().equals(name));
+        } else if (TYPE_BY_OID_QUERY.equals(sql)) {
+            byParameter = oid -> types.stream().anyMatch(t -> oid.equals(t.oid()));
+        } else {
+            throw new SQLFeatureNotSupportedException("Unexpected type registry query: " + sql);
+        }
+
+        final Object[] parameter = new Object[1];
+        final List<PreparedStatement> liveStatements = new ArrayList<>(1);
+        return proxy(PreparedStatement.class, (method, args) -> switch (method.getName()) {
+            case "setString", "setInt" -> {
+                parameter[0] = args[1];
+                yield null;
+            }
+            case "executeQuery" -> {
+                if (byParameter.test(parameter[0]) || live == null) {
+                    yield typesResultSet(types.stream()
+                            .filter(t -> parameter[0].equals(t.name()) || parameter[0].equals(t.oid()))
+                            .toList());
+                }
+                // Not given: look it up in the Database
+                final PreparedStatement liveStatement = live.connection().prepareStatement(sql);
+                liveStatements.add(liveStatement);
+                if (parameter[0] instanceof Integer oid) {
+                    liveStatement.setInt(1, oid);
+                } else {
+                    liveStatement.setString(1, (String) parameter[0]);
+                }
+                yield liveStatement.executeQuery();
+            }
+            case "close" -> {
+                for (final PreparedStatement liveStatement : liveStatements) {
+                    liveStatement.close();
+                }
+                yield null;
+            }
+            default -> throw unsupported(method);
+        });
+    }
+
+    private Object unwrap(final Class<?> type) throws SQLException {
+        if (type != BaseConnection.class) {
+            throw new SQLFeatureNotSupportedException("Unexpected unwrap: " + type.getName());
+        }
+        if (live != null) {
+            return live.connection().unwrap(BaseConnection.class);
+        }
+        return proxy(BaseConnection.class, (method, args) -> switch (method.getName()) {
+            case "getTypeInfo" -> TYPE_INFO;
+            default -> throw unsupported(method);
+        });
+    }
+
+    private static ResultSet typesResultSet(final List<TypeRow> rows) {
+        return resultSet(
+                rows.stream().map(row -> new Object[]{
+                        (long) row.oid(),
+                        row.name(),
+                        (long) row.element(),
+                        (long) row.parentOid(),
+                        (long) row.modifiers(),
+                        row.category(),
+                        row.enumValues() != null ? row.enumValues().toArray(String[]::new) : null
+                }).toList(),
+                List.of("oid", "name", "element", "parentoid", "modifiers", "category", "enum_values"));
+    }
+
+    /// @param rows    Values of each row, by column index
+    /// @param columns Column labels, by column index
+    private static ResultSet resultSet(final List<Object[]> rows, final List<String> columns) {
+        final int[] current = {-1};
+        return proxy(ResultSet.class, (method, args) -> {
+            if (method.getName().equals("next")) {
+                return ++current[0] < rows.size();
+            }
+            if (method.getName().equals("close")) {
+                return null;
+            }
+
+            final Object[] row = rows.get(current[0]);
+            final int column = args[0] instanceof String label ? columns.indexOf(label) : (Integer) args[0] - 1;
+            if (column < 0) {
+                throw new SQLException("Unknown column: " + args[0]);
+            }
+            final Object value = row[column];
+            return switch (method.getName()) {
+                case "getLong" -> (Long) value;
+                case "getString" -> (String) value;
+                case "getBoolean" -> (Boolean) value;
+                case "getArray" -> value == null ? null : proxy(Array.class, (arrayMethod, arrayArgs) -> switch (arrayMethod.getName()) {
+                    case "getArray" -> value;
+                    case "free" -> null;
+                    default -> throw unsupported(arrayMethod);
+                });
+                default -> throw unsupported(method);
+            };
+        });
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(Method method, Object[] args) throws Throwable;
+    }
+
+    private static <T> T proxy(final Class<T> type, final Handler handler) {
+        final InvocationHandler invocationHandler = (proxy, method, args) -> switch (method.getName()) {
+            case "toString" -> "CatalogTypes" + type.getSimpleName();
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            default -> handler.invoke(method, args);
+        };
+        return type.cast(Proxy.newProxyInstance(CatalogTypesConnection.class.getClassLoader(), new Class<?>[]{type}, invocationHandler));
+    }
+
+    private static SQLFeatureNotSupportedException unsupported(final Method method) {
+        return new SQLFeatureNotSupportedException("Unsupported by type registry connection: "
+                + method.getDeclaringClass().getSimpleName() + "#" + method.getName());
+    }
+}
@@ -0,0 +1,142 @@
+package io.snyk.skemium.db.postgres;
+
+import io.debezium.config.Configuration;
+import io.debezium.connector.postgresql.PostgresConnectorConfig;
+import io.debezium.connector.postgresql.PostgresValueConverter;
+import io.debezium.connector.postgresql.TypeRegistry;
+import io.debezium.connector.postgresql.connection.PostgresDefaultValueConverter;
+import io.debezium.relational.RelationalDatabaseConnectorConfig;
+import io.debezium.relational.Table;
+import io.debezium.relational.TableId;
+import io.debezium.relational.TableSchema;
+import io.snyk.skemium.db.CatalogCapture;
+import io.snyk.skemium.db.CatalogFilter;
+import io.snyk.skemium.db.TableSchemaFetcher;
+import org.postgresql.jdbc.TimestampUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.stream.Collectors;
+
+/**
+ * The {@link TableSchemaFetcher} for PostgreSQL, reading from a {@link CatalogCapture} instead of a Database.
+ * <p>
+ * Captured tables go through the same Debezium value converters and schema builder as tables read
+ * by {@link PostgresTableSchemaFetcher}: the resulting {@link TableSchema}s are the same.
+ */
+public class PostgresCaptureTableSchemaFetcher implements TableSchemaFetcher {
+    private static final Logger LOG = LoggerFactory.getLogger(PostgresCaptureTableSchemaFetcher.class);
+
+    private final CatalogCapture capture;
+    private final List<Table> tables;
+    private final Configuration configuration;
+    private final PostgresValueConverter valueConverter;
+    private final PostgresDefaultValueConverter defaultValueConverter;
+
+    public PostgresCaptureTableSchemaFetcher(final CatalogCapture capture) throws RuntimeException {
+        this.capture = capture;
+
+        LOG.trace("Reading captured tables");
+        try {
+            this.tables = capture.readTables();
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to read tables from catalog capture", e);
+        }
+
+        this.configuration = Configuration.create()
+                .with(RelationalDatabaseConnectorConfig.DATABASE_NAME, capture.database())
+                .with(RelationalDatabaseConnectorConfig.TOPIC_PREFIX, "unused.topic.prefix") //< NOTE: Required but unused field
+                .build();
+        final PostgresConnectorConfig connectorConfig = new PostgresConnectorConfig(configuration);
+
+        LOG.trace("Setting up value converters from captured types");
+        final TypeRegistry typeRegistry = CatalogTypesConnection.typeRegistryOf(capture.types());
+        final Charset charset = capture.charset() != null ? Charset.forName(capture.charset()) : StandardCharsets.UTF_8;
+        final TimeZone timeZone = capture.timeZone() != null ? TimeZone.getTimeZone(capture.timeZone()) : TimeZone.getDefault();
+        valueConverter = PostgresValueConverter.of(connectorConfig, charset, typeRegistry);
+        defaultValueConverter = new PostgresDefaultValueConverter(valueConverter, new TimestampUtils(false, () -> timeZone), typeRegistry);
+    }
+
+    @Override
+    public List<TableSchema> fetch(final String database, final CatalogFilter filter) throws Exception {
+        final List<TableSchema> result = new ArrayList<>();
+
+        final List<Table> selectedTables = selectTables(database, filter);
+
+        try (final PostgresSchemaRefreshable postgresSchema = PostgresTableSchemaFetcher.createSchema(
+                configuration,
+                PostgresTableSchemaFetcher.connectorConfig(configuration, filter),
+                valueConverter,
+                defaultValueConverter)) {
+            for (final Table table : selectedTables) {
+                postgresSchema.refresh(table);
+                result.add(postgresSchema.schemaFor(table.id()));
+            }
+        } catch (final Exception e) {
+            throw new Exception("Failed to load Postgres Schema from catalog capture", e);
+        }
+
+        return result;
+    }
+
+    @Override
+    public Map<TableId, TableId> fetchPartitions(final String database) {
+        // Only partitions of captured tables: others can't be collapsed onto their partitioned table
+        final Set<TableId> capturedTables = tables.stream()
+                .map(t -> new TableId(null, t.id().schema(), t.id().table()))
+                .collect(Collectors.toSet());
+        final Map<TableId, TableId> result = new HashMap<>();
+        capture.readPartitions().forEach((partition, parent) -> {
+            if (capturedTables.contains(parent)) {
+                result.put(partition, parent);
+            }
+        });
+        LOG.debug("Found {} Partitions", result.size());
+
+        return result;
+    }
+
+    @Override
+    public CatalogCapture capture(final String database,
+                                  @Nullable final Set<String> includedSchemas,
+                                  @Nullable final Set<String> includedTables) throws Exception {
+        return CatalogCapture.build(capture.kind(),
+                database,
+                capture.charset(),
+                capture.timeZone(),
+                selectTables(database, CatalogFilter.compile(includedSchemas, includedTables, null)),
+                capture.types(),
+                fetchPartitions(database));
+    }
+
+    /// Finds the captured tables in the selected schemas, the same way [PostgresTableSchemaFetcher] does in the Database.
+    private List<Table> selectTables(final String database, final CatalogFilter filter) {
+        if (!capture.database().equals(database)) {
+            throw new IllegalArgumentException("Catalog capture is of Database '%s', not '%s'".formatted(capture.database(), database));
+        }
+
+        final List<Table> result = tables.stream()
+                .filter(t -> filter.includes(t.id()))
+                .toList();
+        LOG.debug("Selected {} Tables in total (out of {} captured): ", result.size(), tables.size());
+        result.forEach(t -> LOG.trace("  {}", t.id().identifier()));
+
+        return result;
+    }
+
+    @Override
+    public void close() {
+        // Nothing to close
+    }
+}
@@ -1,30 +1,55 @@
 package io.snyk.skemium.db.postgres;
 
+import io.debezium.config.CommonConnectorConfig;
 import io.debezium.config.Configuration;
+import io.debezium.config.Field;
 import io.debezium.connector.common.CdcSourceTaskContext;
 import io.debezium.connector.postgresql.PostgresConnectorConfig;
+import io.debezium.connector.postgresql.PostgresType;
 import io.debezium.connector.postgresql.PostgresValueConverter;
 import io.debezium.connector.postgresql.TypeRegistry;
 import io.debezium.connector.postgresql.connection.PostgresConnection;
 import io.debezium.connector.postgresql.connection.PostgresDefaultValueConverter;
+import io.debezium.jdbc.JdbcConfiguration;
+import io.debezium.relational.Column;
 import io.debezium.relational.CustomConverterRegistry;
+import io.debezium.relational.Table;
 import io.debezium.relational.TableId;
 import io.debezium.relational.TableSchema;
 import io.debezium.relational.Tables;
+import io.snyk.skemium.db.CatalogCapture;
+import io.snyk.skemium.db.CatalogFilter;
 import io.snyk.skemium.db.CatalogSchemaAndTableTopicNamingStrategy;
+import io.snyk.skemium.db.DatabaseKind;
 import io.snyk.skemium.db.TableSchemaFetcher;
+import org.apache.kafka.common.config.ConfigDef;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
 import org.postgresql.jdbc.TimestampUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
 import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicInteger;
-
-import static io.debezium.relational.RelationalDatabaseConnectorConfig.COLUMN_EXCLUDE_LIST;
+import java.util.regex.Pattern;
 
 /**
  * The {@link TableSchemaFetcher} for PostgreSQL.
@@ -36,126 +61,547 @@ public class PostgresTableSchemaFetcher implements TableSchemaFetcher {
 
     private static final String CONNECTION_USAGE = "skemium-" + PostgresTableSchemaFetcher.class.getName();
 
+    /// Maximum time to wait for a lock (e.g. behind DDL), in milliseconds; 0 to wait indefinitely.
+    /// Set as `lock_timeout` on every connection.
+    public static final Field LOCK_TIMEOUT_MS = Field.create("skemium.lock.timeout.ms")
+            .withType(ConfigDef.Type.INT)
+            .withDefault(0)
+            .withDescription("Maximum time to wait for a lock, in milliseconds; 0 to wait indefinitely");
+
+    /// Maximum duration of any query, in milliseconds; 0 for no limit. Set as `statement_timeout` on every connection.
+    public static final Field STATEMENT_TIMEOUT_MS = Field.create("skemium.statement.timeout.ms")
+            .withType(ConfigDef.Type.INT)
+            .withDefault(0)
+            .withDescription("Maximum duration of any query, in milliseconds; 0 for no limit");
+
+    /// Directory to cache the types of the Database in (see [TypeRegistryCache]); not cached if unset.
+    public static final Field TYPE_CACHE_DIR = Field.create("skemium.type.cache.dir")
+            .withType(ConfigDef.Type.STRING)
+            .withDescription("Directory to cache the types of the Database in");
+
+    /// Read tables from the catalog in batches, paced by a [Throttle].
+    public static final Field THROTTLE = Field.create("skemium.throttle")
+            .withType(ConfigDef.Type.BOOLEAN)
+            .withDefault(false)
+            .withDescription("Read tables from the catalog in batches, pacing them based on their latency");
+
     private final Configuration configuration;
-    private final PostgresConnection connection;
+    private final boolean throttle;
+    private final LateTypeRegistryConnection connection;
+    private final TypeRegistry typeRegistry;
+    private final Charset charset;
     private final PostgresValueConverter valueConverter;
     private final PostgresDefaultValueConverter defaultValueConverter;
 
-    private final Set<String> postgresBuiltInSchemas = Set.of(
-            "information_schema", // See: https://www.postgresql.org/docs/current/information-schema.html
-            "pg_catalog"          // See: https://www.postgresql.org/docs/current/ddl-schemas.html#DDL-SCHEMAS-CATALOG
-    );
+    /// Lists every partition (at any depth) with its root partitioned table.
+    /// Based on `pg_inherits`, starting from partitioned tables that are not partitions themselves.
+    private static final String PARTITIONS_QUERY = """
+            WITH RECURSIVE partitions(child, root) AS (
+                SELECT i.inhrelid, i.inhparent
+                FROM pg_catalog.pg_inherits i
+                JOIN pg_catalog.pg_class p ON p.oid = i.inhparent
+                WHERE p.relkind = 'p' AND NOT p.relispartition
+              UNION ALL
+                SELECT i.inhrelid, partitions.root
+                FROM pg_catalog.pg_inherits i
+                JOIN partitions ON i.inhparent = partitions.child
+            )
+            SELECT cn.nspname, c.relname, rn.nspname, r.relname
+            FROM partitions
+            JOIN pg_catalog.pg_class c ON c.oid = partitions.child
+            JOIN pg_catalog.pg_namespace cn ON cn.oid = c.relnamespace
+            JOIN pg_catalog.pg_class r ON r.oid = partitions.root
+            JOIN pg_catalog.pg_namespace rn ON rn.oid = r.relnamespace
+            WHERE c.relispartition""";
+
+    /// Selects, from `pg_class c` joined with `pg_namespace n`, the tables (and views) Debezium can read, outside built-in
+    /// (see https://www.postgresql.org/docs/current/ddl-schemas.html#DDL-SCHEMAS-CATALOG) and temporary schemas.
+    private static final String READABLE_TABLES_CONDITION = """
+            WHERE c.relkind IN ('r', 'p', 'v', 'm')
+              AND n.nspname NOT IN ('information_schema', 'pg_catalog', 'pg_toast')
+              AND n.nspname !~ '^pg_(toast_)?temp_'""";
+
+    /// Hashes, for every table (and view) Debezium can read, the parts of the catalog its [TableSchema] is built from:
+    /// columns (name, position, type, type modifier, nullability, default), their types (including the base type of
+    /// domains, the element type of arrays and the labels of enumerations) and the primary key.
+    private static final String FINGERPRINTS_QUERY = """
+            SELECT n.nspname, c.relname, md5(concat_ws('|',
+                c.relkind,
+                (SELECT string_agg(concat_ws(',',
+                            a.attnum, a.attname, a.atttypid, a.atttypmod, a.attnotnull, a.attndims,
+                            t.typname, t.typtype, t.typbasetype, t.typtypmod, t.typnotnull, t.typelem,
+                            pg_catalog.pg_get_expr(d.adbin, d.adrelid),
+                            (SELECT string_agg(e.enumlabel, ',' ORDER BY e.enumtypid, e.enumsortorder)
+                             FROM pg_catalog.pg_enum e
+                             WHERE e.enumtypid IN (t.oid, t.typbasetype, t.typelem))),
+                        ';' ORDER BY a.attnum)
+                 FROM pg_catalog.pg_attribute a
+                 JOIN pg_catalog.pg_type t ON t.oid = a.atttypid
+                 LEFT JOIN pg_catalog.pg_attrdef d ON d.adrelid = a.attrelid AND d.adnum = a.attnum
+                 WHERE a.attrelid = c.oid AND a.attnum > 0 AND NOT a.attisdropped),
+                (SELECT string_agg(k.conkey::text, ';' ORDER BY k.conname)
+                 FROM pg_catalog.pg_constraint k
+                 WHERE k.conrelid = c.oid AND k.contype = 'p')))
+            FROM pg_catalog.pg_class c
+            JOIN pg_catalog.pg_namespace n ON n.oid = c.relnamespace
+            """ + READABLE_TABLES_CONDITION;
+
+    /// Lists every table (and view) Debezium can read, outside built-in and temporary schemas:
+    /// [#pushDown(CatalogFilter, List)] conditions are appended to it.
+    private static final String TABLES_QUERY = """
+            SELECT n.nspname, c.relname
+            FROM pg_catalog.pg_class c
+            JOIN pg_catalog.pg_namespace n ON n.oid = c.relnamespace
+            """ + READABLE_TABLES_CONDITION;
+
+    /// Valid (unquoted) name of a `LISTEN/NOTIFY` channel: also used to name the event trigger function.
+    private static final Pattern CHANNEL_PATTERN = Pattern.compile("[a-z_][a-z0-9_]{0,40}");
+
+    /// Function notifying the channel (`%1$s`) of every object created, altered or dropped by a DDL command,
+    /// with payload `OBJECT_TYPE OBJECT_IDENTITY` (e.g. `table public.album`).
+    private static final String DDL_NOTIFY_FUNCTION = """
+            CREATE OR REPLACE FUNCTION %1$s_notify() RETURNS event_trigger LANGUAGE plpgsql AS $$
+            DECLARE
+                obj record;
+            BEGIN
+                IF TG_EVENT = 'sql_drop' THEN
+                    FOR obj IN SELECT object_type, object_identity FROM pg_catalog.pg_event_trigger_dropped_objects() LOOP
+                        PERFORM pg_catalog.pg_notify('%1$s', concat_ws(' ', obj.object_type, obj.object_identity));
+                    END LOOP;
+                ELSE
+                    FOR obj IN SELECT object_type, object_identity FROM pg_catalog.pg_event_trigger_ddl_commands() LOOP
+                        PERFORM pg_catalog.pg_notify('%1$s', concat_ws(' ', obj.object_type, obj.object_identity));
+                    END LOOP;
+                END IF;
+            END
+            $$""";
 
     public PostgresTableSchemaFetcher(final Configuration config) throws RuntimeException {
-        this.configuration = config;
+        this.configuration = withSessionSettings(config);
+        this.throttle = config.getBoolean(THROTTLE);
 
         LOG.trace("Creating PostgresConnector-like configuration");
         final PostgresConnectorConfig connectorConfig = new PostgresConnectorConfig(configuration);
 
+        LOG.trace("Setting up database connection");
+        final LateTypeRegistryConnection dbConn = new LateTypeRegistryConnection(connectorConfig.getJdbcConfig());
+
         LOG.trace("Determining database type registry, charset and more");
         final TypeRegistry dbTypeRegistry;
         final Charset dbCharset;
         final TimestampUtils dbTimestampUtils;
-        try (final PostgresConnection tmpDbConn = new PostgresConnection(connectorConfig.getJdbcConfig(), CONNECTION_USAGE)) {
-            dbTypeRegistry = new TypeRegistry(tmpDbConn);
-            dbCharset = tmpDbConn.getDatabaseCharset();
-            dbTimestampUtils = tmpDbConn.getTimestampUtils();
+        try {
+            dbTypeRegistry = loadTypeRegistry(dbConn, connectorConfig.getJdbcConfig());
+            dbCharset = dbConn.getDatabaseCharset();
+            dbTimestampUtils = dbConn.getTimestampUtils();
         } catch (final Exception e) {
-            LOG.error("Failed to establish first database connection", e);
+            LOG.error("Failed to establish database connection", e);
+            dbConn.close();
             throw new RuntimeException(e);
         }
 
         LOG.trace("Setting up value converters");
-        final PostgresConnection.PostgresValueConverterBuilder psqlValueConverterBuilder = (typeRegistry) -> PostgresValueConverter.of(
-                connectorConfig,
-                dbCharset,
-                dbTypeRegistry);
-        valueConverter = psqlValueConverterBuilder.build(dbTypeRegistry);
+        typeRegistry = dbTypeRegistry;
+        charset = dbCharset;
+        valueConverter = PostgresValueConverter.of(connectorConfig, dbCharset, dbTypeRegistry);
         defaultValueConverter = new PostgresDefaultValueConverter(valueConverter, dbTimestampUtils, dbTypeRegistry);
+        dbConn.init(dbTypeRegistry, defaultValueConverter);
+        connection = dbConn;
+    }
 
-        LOG.trace("Setting up database connection");
-        connection = new PostgresConnection(connectorConfig.getJdbcConfig(), psqlValueConverterBuilder, CONNECTION_USAGE);
+    /// @return [TypeRegistry] of the Database, via the [TypeRegistryCache] in [#TYPE_CACHE_DIR] if set
+    private TypeRegistry loadTypeRegistry(final PostgresConnection conn, final JdbcConfiguration jdbcConfig) throws Exception {
+        final String typeCacheDir = configuration.getString(TYPE_CACHE_DIR);
+        if (typeCacheDir == null) {
+            return new TypeRegistry(conn);
+        }
+        return new TypeRegistryCache(Path.of(typeCacheDir))
+                .load(conn, "%s:%d/%s".formatted(jdbcConfig.getHostname(), jdbcConfig.getPort(), jdbcConfig.getDatabase()));
+    }
+
+    /// [PostgresConnection] whose [TypeRegistry] is set after connecting (see [#init]), rather than loaded by its
+    /// constructor: the same connection is used to build the [TypeRegistry] (or look it up in a [TypeRegistryCache])
+    /// and to read the catalog.
+    private static final class LateTypeRegistryConnection extends PostgresConnection {
+        private TypeRegistry lateTypeRegistry;
+        private PostgresDefaultValueConverter lateDefaultValueConverter;
+
+        LateTypeRegistryConnection(final JdbcConfiguration jdbcConfig) {
+            super(jdbcConfig, CONNECTION_USAGE);
+        }
+
+        void init(final TypeRegistry typeRegistry, final PostgresDefaultValueConverter defaultValueConverter) {
+            this.lateTypeRegistry = typeRegistry;
+            this.lateDefaultValueConverter = defaultValueConverter;
+        }
+
+        @Override
+        public TypeRegistry getTypeRegistry() {
+            return Objects.requireNonNull(lateTypeRegistry, "Type registry not set");
+        }
+
+        @Override
+        public PostgresDefaultValueConverter getDefaultValueConverter() {
+            return Objects.requireNonNull(lateDefaultValueConverter, "Default value converter not set");
+        }
+
+        /// Reads the given tables of a schema into `tables`, like [#readSchema] does, but without listing every table
+        /// of the schema first: columns and primary keys are read table by table, by exact name.
+        /// Reading a batch of tables then costs in proportion to the batch, rather than to the schema.
+        void readTables(final Tables tables, final String database, final String schema, final List<String> tableNames) throws SQLException {
+            final DatabaseMetaData metadata = connection().getMetaData();
+            final Set<String> selectedTables = Set.copyOf(tableNames);
+            final Tables.TableFilter tableFilter = Tables.TableFilter.fromPredicate(t -> schema.equals(t.schema()) && selectedTables.contains(t.table()));
+            for (final String table : tableNames) {
+                // NOTE: Tables dropped since they were selected have no columns, and are skipped
+                for (final Map.Entry<TableId, List<Column>> columns : getColumnsDetails(database, schema, table, tableFilter, null, metadata, Set.of()).entrySet()) {
+                    final List<Column> sortedColumns = new ArrayList<>(columns.getValue());
+                    Collections.sort(sortedColumns);
+                    tables.overwriteTable(columns.getKey(), sortedColumns, readPrimaryKeyOrUniqueIndexNames(metadata, columns.getKey()), null, List.of());
+                }
+            }
+        }
+    }
+
+    /// @return [Configuration] executing `SET lock_timeout` and `SET statement_timeout` on connect, if requested,
+    ///         after any other statement to execute on connect
+    private static Configuration withSessionSettings(final Configuration config) {
+        final List<String> statements = new ArrayList<>();
+        if (config.getInteger(LOCK_TIMEOUT_MS) > 0) {
+            statements.add("SET lock_timeout = " + config.getInteger(LOCK_TIMEOUT_MS));
+        }
+        if (config.getInteger(STATEMENT_TIMEOUT_MS) > 0) {
+            statements.add("SET statement_timeout = " + config.getInteger(STATEMENT_TIMEOUT_MS));
+        }
+        if (statements.isEmpty()) {
+            return config;
+        }
+
+        final String onConnectStatementsKey = CommonConnectorConfig.DATABASE_CONFIG_PREFIX + JdbcConfiguration.ON_CONNECT_STATEMENTS.name();
+        final String onConnectStatements = config.getString(onConnectStatementsKey);
+        if (onConnectStatements != null && !onConnectStatements.isBlank()) {
+            statements.addFirst(onConnectStatements);
+        }
+        return config.edit().with(onConnectStatementsKey, String.join(";", statements)).build();
     }
 
     @Override
-    public List<TableSchema> fetch(final String database,
-                                   @Nullable final Set<String> includedSchemas,
-                                   @Nullable final Set<String> includedTables,
-                                   @Nullable final Set<String> excludedColumns) throws Exception {
+    public List<TableSchema> fetch(final String database, final CatalogFilter filter) throws Exception {
         final List<TableSchema> result = new ArrayList<>();
 
-        // IMPORTANT: At this stage we only filter by `includedSchemas` and `includedTables`.
-        // Filtering out `excludedColumns` happens later,
-        // by injecting configuration (i.e. `COLUMN_EXCLUDE_LIST`).
+        // IMPORTANT: At this stage we only filter by schemas and tables.
+        // Filtering out `excludedColumns` happens later, by injecting the column filter in the configuration.
+        final List<Table> allSelectedTables = selectTables(database, filter);
 
-        LOG.trace("Fetching Schemas");
-        final AtomicInteger totalSchemas = new AtomicInteger(0);
-        final Set<String> selectedSchemas = connection.readAllSchemaNames((s) -> {
-            // Always exclude built-in schemas
-            if (postgresBuiltInSchemas.contains(s)) {
-                return false;
+        // Filter-out Columns, if requested
+        final PostgresConnectorConfig connectorConfig = connectorConfig(configuration, filter);
+
+        // Only the selected tables are read from the catalog, and have their `TableSchema` built
+        try (final PostgresSchemaRefreshable postgresSchema = createSchema(configuration, connectorConfig, valueConverter, defaultValueConverter)) {
+            for (final Table table : allSelectedTables) {
+                postgresSchema.refresh(table);
+                result.add(postgresSchema.schemaFor(table.id()));
             }
+        } catch (final Exception e) {
+            throw new Exception("Failed to load Postgres Schema", e);
+        }
+
+        return result;
+    }
+
+    @Override
+    public CatalogCapture capture(final String database,
+                                  @Nullable final Set<String> includedSchemas,
+                                  @Nullable final Set<String> includedTables) throws Exception {
+        final List<Table> tables = selectTables(database, CatalogFilter.compile(includedSchemas, includedTables, null));
+
+        LOG.trace("Capturing Types");
+        final Map<Integer, CatalogCapture.Type> types = new LinkedHashMap<>();
+        for (final Table table : tables) {
+            table.columns().forEach(column -> captureType(typeRegistry.get(column.nativeType()), types));
+        }
+        LOG.debug("Captured {} Tables and {} Types", tables.size(), types.size());
+
+        final String timeZone = connection.queryAndMap("SHOW TimeZone", rs -> rs.next() ? rs.getString(1) : null);
+
+        return CatalogCapture.build(DatabaseKind.POSTGRES, database, charset.name(), timeZone, tables, types.values(), fetchPartitions(database));
+    }
+
+    /// Records a [PostgresType], and the types it depends on, in `types`.
+    private static void captureType(@Nullable final PostgresType type, final Map<Integer, CatalogCapture.Type> types) {
+        if (type == null || type == PostgresType.UNKNOWN || types.containsKey(type.getOid())) {
+            return;
+        }
 
-            totalSchemas.getAndIncrement();
-            if (includedSchemas != null && !includedSchemas.isEmpty()) {
-                return includedSchemas.contains(s);
+        types.put(type.getOid(), new CatalogCapture.Type(
+                type.getName(),
+                type.getOid(),
+                type.getJdbcId(),
+                type.getParentType() != null ? type.getParentType().getOid() : null,
+                type.getElementType() != null ? type.getElementType().getOid() : null,
+                type.isEnumType() ? type.getEnumValues() : null));
+        captureType(type.getParentType(), types);
+        captureType(type.getElementType(), types);
+    }
+
+    /// Finds, and reads from the catalog, the tables in the selected schemas of the Database.
+    ///
+    /// Selected tables are found by a single catalog query, with the filter pushed down where possible
+    /// (see [#pushDown(CatalogFilter, List)]): only those are then read by Debezium, one schema at a time.
+    /// With [#THROTTLE], they are read in batches instead, paced by a [Throttle], each reading only the tables in it
+    /// (see [LateTypeRegistryConnection#readTables]).
+    private List<Table> selectTables(final String database, final CatalogFilter filter) throws Exception {
+        LOG.trace("Fetching Tables");
+        final Map<String, Set<String>> selectedTablesBySchema = new TreeMap<>();
+        final List<String[]> params = new ArrayList<>();
+        final String query = TABLES_QUERY + pushDown(filter, params);
+        final AtomicInteger totalTables = new AtomicInteger(0);
+        connection.prepareQuery(query, ps -> setParams(ps, params), rs -> {
+            while (rs.next()) {
+                totalTables.getAndIncrement();
+                final String schema = rs.getString(1);
+                final String table = rs.getString(2);
+                if (filter.includesSchema(schema) && filter.includesTable(schema, table)) {
+                    selectedTablesBySchema.computeIfAbsent(schema, sch -> new HashSet<>()).add(table);
+                }
             }
-            return true;
         });
-        LOG.debug("Selected {} Schemas (out of {}): ", selectedSchemas.size(), totalSchemas.get());
-        selectedSchemas.forEach(s -> LOG.trace("  {}", s));
+        LOG.debug("Selected Tables in {} Schemas (out of {} Tables matching the catalog query)", selectedTablesBySchema.size(), totalTables.get());
 
-        LOG.trace("Fetching Tables");
-        final List<TableId> allSelectedTables = new ArrayList<>();
-        for (final String selectedSchema : selectedSchemas) {
+        final List<Table> allSelectedTables = new ArrayList<>();
+        final Throttle batches = Throttle.of(throttle);
+        for (final Map.Entry<String, Set<String>> selected : selectedTablesBySchema.entrySet()) {
+            final String selectedSchema = selected.getKey();
             LOG.trace("Fetching Tables from Schema: {}", selectedSchema);
 
-            final AtomicInteger totalTablesForSchema = new AtomicInteger(0);
-            final Tables selectedTables = new Tables();
-            connection.readSchema(
-                    selectedTables,
-                    database,
-                    selectedSchema,
-                    Tables.TableFilter.fromPredicate((t) -> {
-                        totalTablesForSchema.getAndIncrement();
-                        if (includedTables != null && !includedTables.isEmpty()) {
-                            return includedTables.contains(t.table()) ||
-                                    includedTables.contains("%s.%s".formatted(t.schema(), t.table()));
-                        }
-                        return true;
-                    }),
-                    null, //< No Column filtering during this step
-                    true
-            );
-            LOG.debug("Selected {} Tables in Schema {} (out of {})", selectedTables.size(), selectedSchema, totalTablesForSchema.get());
-            selectedTables.tableIds().forEach(t -> LOG.trace("  {}", t.identifier()));
-            allSelectedTables.addAll(selectedTables.tableIds());
+            batches.forEachBatch(selected.getValue().stream().sorted().toList(), batch -> {
+                final Set<String> selectedTablesInBatch = Set.copyOf(batch);
+                final Tables selectedTables = new Tables();
+                try {
+                    if (throttle) {
+                        // NOTE: Listing the whole schema for every batch would make reading it quadratic
+                        connection.readTables(selectedTables, database, selectedSchema, batch);
+                    } else {
+                        connection.readSchema(
+                                selectedTables,
+                                database,
+                                selectedSchema,
+                                // NOTE: The schema is a pattern (e.g. `_` matches any character)
+                                Tables.TableFilter.fromPredicate((t) -> selectedSchema.equals(t.schema()) && selectedTablesInBatch.contains(t.table())),
+                                null, //< No Column filtering during this step
+                                true
+                        );
+                    }
+                } catch (final SQLException e) {
+                    // Leave the connection usable, for the batch to be retried
+                    if (!connection.connection().getAutoCommit()) {
+                        connection.connection().rollback();
+                    }
+                    throw e;
+                }
+                LOG.debug("Selected {} Tables in Schema {}", selectedTables.size(), selectedSchema);
+                selectedTables.tableIds().forEach(t -> LOG.trace("  {}", t.identifier()));
+                selectedTables.tableIds().forEach(t -> allSelectedTables.add(selectedTables.forTable(t)));
+            });
         }
+        batches.logSummary();
         LOG.debug("Selected {} Tables in total: ", allSelectedTables.size());
 
-        // Filter-out Columns, if requested
-        final PostgresConnectorConfig connectorConfig = excludedColumns != null
-                ? new PostgresConnectorConfig(configuration.edit().with(COLUMN_EXCLUDE_LIST, String.join(",", excludedColumns)).build())
+        return allSelectedTables;
+    }
+
+    /// Conditions on the schema (`n.nspname`) and table (`c.relname`) names of a catalog query, matching a superset of
+    /// the tables included by the filter: exact names and globs are pushed down, as `= ANY` and `LIKE ANY` of text arrays.
+    /// Regular expressions are not (their syntax differs from PostgreSQL's): if there are any, names are not filtered.
+    ///
+    /// @param filter [CatalogFilter] to push down
+    /// @param params [List] of text arrays, to add the parameters of the conditions to
+    /// @return SQL conditions, each starting with ` AND `; empty if nothing can be pushed down
+    static String pushDown(final CatalogFilter filter, final List<String[]> params) {
+        final StringBuilder conditions = new StringBuilder();
+
+        final CatalogFilter.Names schemas = filter.schemas();
+        if (schemas != null && !schemas.hasRegexes()) {
+            conditions.append(" AND (n.nspname = ANY(?) OR n.nspname LIKE ANY(?))");
+            params.add(schemas.exact().toArray(String[]::new));
+            params.add(schemas.globs().stream().map(PostgresTableSchemaFetcher::globToLike).toArray(String[]::new));
+        }
+
+        final CatalogFilter.Names tables = filter.tables();
+        if (tables != null && !tables.hasRegexes()) {
+            conditions.append(" AND (c.relname = ANY(?) OR n.nspname || '.' || c.relname = ANY(?)"
+                    + " OR c.relname LIKE ANY(?) OR n.nspname || '.' || c.relname LIKE ANY(?))");
+            final String[] qualified = filter.qualifiedTables().entrySet().stream()
+                    .flatMap(e -> e.getValue().stream().map(table -> e.getKey() + "." + table))
+                    .toArray(String[]::new);
+            final String[] likes = tables.globs().stream().map(PostgresTableSchemaFetcher::globToLike).toArray(String[]::new);
+            params.add(tables.exact().toArray(String[]::new));
+            params.add(qualified);
+            params.add(likes);
+            params.add(likes);
+        }
+
+        return conditions.toString();
+    }
+
+    private static void setParams(final PreparedStatement ps, final List<String[]> params) throws SQLException {
+        for (int i = 0; i < params.size(); ++i) {
+            ps.setArray(i + 1, ps.getConnection().createArrayOf("text", params.get(i)));
+        }
+    }
+
+    /// @return `LIKE` pattern equivalent to the glob (i.e. `*` is `%`, `?` is `_`), escaping `\`, `%` and `_`
+    static String globToLike(final String glob) {
+        final StringBuilder like = new StringBuilder(glob.length());
+        for (final char c : glob.toCharArray()) {
+            switch (c) {
+                case '\\', '%', '_' -> like.append('\\').append(c);
+                case '*' -> like.append('%');
+                case '?' -> like.append('_');
+                default -> like.append(c);
+            }
+        }
+        return like.toString();
+    }
+
+    /// @return [PostgresConnectorConfig] that excludes the columns excluded by the filter, if any
+    static PostgresConnectorConfig connectorConfig(final Configuration configuration, final CatalogFilter filter) {
+        final Tables.ColumnNameFilter columnFilter = filter.columnNameFilter();
+        return columnFilter != null
+                ? new FilteredPostgresConnectorConfig(configuration, columnFilter)
                 : new PostgresConnectorConfig(configuration);
+    }
+
+    /// [PostgresConnectorConfig] excluding columns via a compiled [CatalogFilter], instead of matching every column
+    /// against each regular expression of `COLUMN_EXCLUDE_LIST`.
+    private static class FilteredPostgresConnectorConfig extends PostgresConnectorConfig {
+        private final Tables.ColumnNameFilter columnFilter;
+
+        FilteredPostgresConnectorConfig(final Configuration configuration, final Tables.ColumnNameFilter columnFilter) {
+            super(configuration);
+            this.columnFilter = columnFilter;
+        }
 
-        try (final PostgresSchemaRefreshable postgresSchema = new PostgresSchemaRefreshable(
+        @Override
+        public Tables.ColumnNameFilter getColumnFilter() {
+            return columnFilter;
+        }
+
+        @Override
+        public boolean isColumnsFiltered() {
+            return true;
+        }
+    }
+
+    static PostgresSchemaRefreshable createSchema(final Configuration configuration,
+                                                  final PostgresConnectorConfig connectorConfig,
+                                                  final PostgresValueConverter valueConverter,
+                                                  final PostgresDefaultValueConverter defaultValueConverter) {
+        return new PostgresSchemaRefreshable(
                 new CdcSourceTaskContext<>(configuration, connectorConfig, connectorConfig.getCustomMetricTags()),
                 defaultValueConverter,
                 CatalogSchemaAndTableTopicNamingStrategy.create(connectorConfig),
                 valueConverter,
-                new CustomConverterRegistry(null))) {
-            postgresSchema.refresh(connection, true);
+                new CustomConverterRegistry(null));
+    }
 
-            for (final TableId tId : allSelectedTables) {
-                result.add(postgresSchema.schemaFor(tId));
+    @Override
+    public Map<TableId, TableId> fetchPartitions(final String database) throws Exception {
+        final Map<TableId, TableId> result = new HashMap<>();
+
+        LOG.trace("Fetching Partitions");
+        connection.query(PARTITIONS_QUERY, rs -> {
+            while (rs.next()) {
+                result.put(
+                        new TableId(null, rs.getString(1), rs.getString(2)),
+                        new TableId(null, rs.getString(3), rs.getString(4)));
             }
-        } catch (final Exception e) {
-            throw new Exception("Failed to load Postgres Schema", e);
-        }
+        });
+        LOG.debug("Found {} Partitions", result.size());
+
+        return result;
+    }
+
+    @Override
+    public Map<TableId, String> fetchFingerprints(final String database,
+                                                  @Nullable final Set<String> includedSchemas,
+                                                  @Nullable final Set<String> includedTables) throws Exception {
+        final Map<TableId, String> result = new HashMap<>();
+        final CatalogFilter filter = CatalogFilter.compile(includedSchemas, includedTables, null);
+        final List<String[]> params = new ArrayList<>();
+
+        LOG.trace("Fetching Fingerprints");
+        connection.prepareQuery(FINGERPRINTS_QUERY + pushDown(filter, params), ps -> setParams(ps, params), rs -> {
+            while (rs.next()) {
+                final TableId tId = new TableId(null, rs.getString(1), rs.getString(2));
+                if (filter.includes(tId)) {
+                    result.put(tId, rs.getString(3));
+                }
+            }
+        });
+        LOG.debug("Fingerprinted {} Tables", result.size());
 
         return result;
     }
 
+    /// Installs (or replaces) the event triggers notifying `channel` of every DDL command, once completed
+    /// (`ddl_command_end`) and of every object dropped (`sql_drop`): see [#listen(String)].
+    ///
+    /// NOTE: Creating event triggers requires superuser privileges.
+    ///
+    /// @param channel Name of the `LISTEN/NOTIFY` channel
+    /// @throws SQLException If the event triggers can't be created
+    public void installDdlTrigger(final String channel) throws SQLException {
+        validateChannel(channel);
+
+        LOG.debug("Installing DDL event triggers, notifying channel: {}", channel);
+        connection.execute(
+                DDL_NOTIFY_FUNCTION.formatted(channel),
+                "DROP EVENT TRIGGER IF EXISTS %1$s_ddl_command_end".formatted(channel),
+                "CREATE EVENT TRIGGER %1$s_ddl_command_end ON ddl_command_end EXECUTE FUNCTION %1$s_notify()".formatted(channel),
+                "DROP EVENT TRIGGER IF EXISTS %1$s_sql_drop".formatted(channel),
+                "CREATE EVENT TRIGGER %1$s_sql_drop ON sql_drop EXECUTE FUNCTION %1$s_notify()".formatted(channel));
+    }
+
+    /// Starts listening to `channel` on the connection of this fetcher: notifications are then returned
+    /// by [#awaitNotifications(Duration)], for as long as this fetcher is open.
+    ///
+    /// @param channel Name of the `LISTEN/NOTIFY` channel
+    /// @throws SQLException If the connection fails
+    public void listen(final String channel) throws SQLException {
+        validateChannel(channel);
+
+        LOG.debug("Listening to channel: {}", channel);
+        connection.execute("LISTEN " + channel);
+    }
+
+    /// Waits for notifications on the channels listened to (see [#listen(String)]).
+    ///
+    /// @param timeout Maximum time to wait, if no notification was received already
+    /// @return Payloads of the notifications received, in order; empty if none was received within `timeout`
+    /// @throws SQLException If the connection fails
+    public List<String> awaitNotifications(final Duration timeout) throws SQLException {
+        final Connection conn = connection.connection();
+        // Notifications are only delivered outside of transactions
+        if (!conn.getAutoCommit()) {
+            conn.commit();
+        }
+
+        // NOTE: A timeout of 0 would wait forever
+        final PGNotification[] notifications = conn.unwrap(PGConnection.class)
+                .getNotifications((int) Math.max(1, timeout.toMillis()));
+        if (notifications == null) {
+            return List.of();
+        }
+        return Arrays.stream(notifications).map(PGNotification::getParameter).toList();
+    }
+
+    private static void validateChannel(final String channel) {
+        if (!CHANNEL_PATTERN.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid channel name (expected: %s): %s".formatted(CHANNEL_PATTERN.pattern(), channel));
+        }
+    }
+
     @Override
     public synchronized void close() {
         try {
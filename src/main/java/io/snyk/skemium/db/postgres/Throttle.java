@@ -0,0 +1,131 @@
+package io.snyk.skemium.db.postgres;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Paces reads from the catalog of a Database, to bound their impact on it (e.g. a busy production primary).
+ * <p>
+ * Items (e.g. tables) are read in batches: after each batch, reading pauses for as long as the batch took,
+ * so that at most half of the time of the connection is spent reading. The size of the batches adapts to the latency
+ * observed per item: it shrinks when the Database slows down (compared to the fastest batch so far), and grows back
+ * otherwise. Batches that fail because of {@code statement_timeout} or {@code lock_timeout} are retried, smaller,
+ * after an exponential backoff.
+ */
+class Throttle {
+    private static final Logger LOG = LoggerFactory.getLogger(Throttle.class);
+
+    static final int INITIAL_BATCH_SIZE = 50;
+    static final int MAX_BATCH_SIZE = 500;
+    static final int MAX_RETRIES = 3;
+    static final Duration INITIAL_BACKOFF = Duration.ofSeconds(1);
+
+    /// Latency per item, above which (compared to the fastest batch) the Database is considered to be slowing down.
+    private static final double SLOWDOWN_RATIO = 2.0;
+
+    /// SQL states of queries cancelled by `statement_timeout` and of locks not acquired within `lock_timeout`.
+    private static final String SQL_STATE_QUERY_CANCELED = "57014";
+    private static final String SQL_STATE_LOCK_NOT_AVAILABLE = "55P03";
+
+    /// Action run on each batch.
+    @FunctionalInterface
+    interface BatchAction<T> {
+        void accept(List<T> batch) throws SQLException;
+    }
+
+    private final boolean enabled;
+    private int batchSize;
+    private double fastestNanosPerItem = Double.MAX_VALUE;
+
+    private int batches = 0;
+    private int retries = 0;
+    private long pausedNanos = 0;
+
+    private Throttle(final boolean enabled) {
+        this.enabled = enabled;
+        this.batchSize = enabled ? INITIAL_BATCH_SIZE : Integer.MAX_VALUE;
+    }
+
+    /// @return [Throttle] pacing batches, if `enabled`; otherwise running all items in a single batch, without retries
+    static Throttle of(final boolean enabled) {
+        return new Throttle(enabled);
+    }
+
+    /// Runs `action` on consecutive batches of `items`, pausing between them, and retrying batches that time out.
+    ///
+    /// @param items  Items to run `action` on, in order
+    /// @param action Action to run on each batch; it must have no effect if it fails
+    /// @throws SQLException         If a batch fails for reasons other than a timeout, or times out too many times in a row
+    /// @throws InterruptedException If interrupted while pausing
+    <T> void forEachBatch(final List<T> items, final BatchAction<T> action) throws SQLException, InterruptedException {
+        int next = 0;
+        int attempt = 0;
+        while (next < items.size()) {
+            final List<T> batch = items.subList(next, Math.min(items.size(), next + batchSize));
+            final long start = System.nanoTime();
+            try {
+                action.accept(batch);
+            } catch (final SQLException e) {
+                if (!enabled || !isTimeout(e) || attempt >= MAX_RETRIES) {
+                    throw e;
+                }
+                ++attempt;
+                ++retries;
+                batchSize = Math.max(1, batchSize / 2);
+                final Duration backoff = INITIAL_BACKOFF.multipliedBy(1L << (attempt - 1));
+                LOG.warn("Batch of {} timed out ({}): retrying in {}ms, with batches of {} (attempt {} of {})",
+                        batch.size(), e.getMessage(), backoff.toMillis(), batchSize, attempt, MAX_RETRIES);
+                pause(backoff.toNanos());
+                continue;
+            }
+            next += batch.size();
+            attempt = 0;
+            ++batches;
+
+            if (enabled && next < items.size()) {
+                final long elapsedNanos = System.nanoTime() - start;
+                adapt(batch.size(), elapsedNanos);
+                pause(elapsedNanos);
+            }
+        }
+    }
+
+    /// Adapts the size of the next batches to the latency per item of the last one.
+    private void adapt(final int size, final long elapsedNanos) {
+        final double nanosPerItem = (double) elapsedNanos / size;
+        fastestNanosPerItem = Math.min(fastestNanosPerItem, nanosPerItem);
+
+        if (nanosPerItem > fastestNanosPerItem * SLOWDOWN_RATIO) {
+            batchSize = Math.max(1, batchSize / 2);
+            LOG.debug("Database slowing down ({}ms per item): reducing batches to {}", String.format("%.1f", nanosPerItem / 1_000_000), batchSize);
+        } else if (batchSize < MAX_BATCH_SIZE) {
+            batchSize = Math.min(MAX_BATCH_SIZE, batchSize + Math.max(1, batchSize / 4));
+        }
+    }
+
+    private void pause(final long nanos) throws InterruptedException {
+        pausedNanos += nanos;
+        Thread.sleep(Duration.ofNanos(nanos));
+    }
+
+    /// @return `true` if the exception was caused by `statement_timeout` or `lock_timeout`
+    static boolean isTimeout(final SQLException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException
+                    && (SQL_STATE_QUERY_CANCELED.equals(sqlException.getSQLState()) || SQL_STATE_LOCK_NOT_AVAILABLE.equals(sqlException.getSQLState()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void logSummary() {
+        if (enabled) {
+            LOG.info("Throttled reads: {} batches, {} retries, paused for {}ms in total", batches, retries, pausedNanos / 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package io.snyk.skemium.db.postgres;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.debezium.connector.postgresql.TypeRegistry;
+import io.debezium.connector.postgresql.connection.PostgresConnection;
+import io.snyk.skemium.cli.ManifestReader;
+import io.snyk.skemium.helpers.JSON;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * On-disk cache of the types of PostgreSQL Databases, to build a {@link TypeRegistry} without loading all of
+ * {@code pg_type} (i.e. thousands of composite and array types, in Databases with many tables or extensions).
+ * <p>
+ * There is one entry per Database (host, port and name), holding the rows of the catalog queries {@link TypeRegistry}
+ * runs, alongside the server version, a fingerprint of {@code pg_type}, {@code pg_enum} and the schema search path
+ * (computed by a single query, see {@link #FINGERPRINT_QUERY}) and the Skemium version: the entry is used only if all
+ * of them still match, and replaced otherwise. The {@link TypeRegistry} is built over a {@link CatalogTypesConnection}
+ * serving those rows, that looks up any type created since (e.g. while watching) in the Database.
+ * <p>
+ * The cache directory can be shared by concurrent processes: entries are written to a temporary file first,
+ * then atomically moved in place.
+ */
+final class TypeRegistryCache {
+    private static final Logger LOG = LoggerFactory.getLogger(TypeRegistryCache.class);
+
+    private static final String ENTRY_FILENAME_FMT = "types-%s.json";
+    private static final String TEMP_FILENAME_PREFIX = ".tmp-";
+    private static final String UNKNOWN_VERSION = "unknown";
+
+    /// Server version, and hash of every type (including the labels of enumerations) a [TypeRegistry] is built from,
+    /// and of the search path (that decides which type a name refers to).
+    private static final String FINGERPRINT_QUERY = """
+            SELECT pg_catalog.current_setting('server_version_num'), md5(concat_ws('|',
+                array_to_string(pg_catalog.current_schemas(false), ','),
+                (SELECT string_agg(concat_ws(',',
+                            t.oid, t.typname, t.typnamespace, t.typtype, t.typcategory, t.typbasetype, t.typelem, t.typtypmod),
+                        ';' ORDER BY t.oid)
+                 FROM pg_catalog.pg_type t),
+                (SELECT string_agg(concat_ws(',', e.enumtypid, e.enumlabel), ';' ORDER BY e.enumtypid, e.enumsortorder)
+                 FROM pg_catalog.pg_enum e)))""";
+
+    /// Entry of the cache.
+    ///
+    /// @param serverVersion Version of the server (i.e. `server_version_num`)
+    /// @param fingerprint   Fingerprint of the types (see [#FINGERPRINT_QUERY])
+    /// @param version       Skemium version
+    /// @param types         Types of the Database (see [CatalogTypesConnection#TYPES_QUERY])
+    /// @param sqlTypes      JDBC types of the type names (see [CatalogTypesConnection#SQL_TYPES_QUERY])
+    record Entry(
+            @JsonProperty(value = "serverVersion", required = true)
+            String serverVersion,
+            @JsonProperty(value = "fingerprint", required = true)
+            String fingerprint,
+            @JsonProperty(value = "version", required = true)
+            String version,
+            @JsonProperty(value = "types", required = true)
+            List<CatalogTypesConnection.TypeRow> types,
+            @JsonProperty(value = "sqlTypes", required = true)
+            List<CatalogTypesConnection.SqlTypeRow> sqlTypes
+    ) {
+    }
+
+    private final Path cacheDir;
+    private final String version;
+
+    /// @param cacheDir [Path] to the cache directory; created if it doesn't exist
+    /// @throws IOException If the cache directory can't be created
+    TypeRegistryCache(@Nonnull final Path cacheDir) throws IOException {
+        this(cacheDir, Objects.requireNonNullElse(
+                ManifestReader.SINGLETON.getAttribute(ManifestReader.MANIFEST_KEY_PRJ_VER),
+                UNKNOWN_VERSION));
+    }
+
+    TypeRegistryCache(@Nonnull final Path cacheDir, @Nonnull final String version) throws IOException {
+        this.cacheDir = Files.createDirectories(cacheDir);
+        this.version = version;
+    }
+
+    /// Builds the [TypeRegistry] of the Database, from the cache if its types didn't change since they were cached;
+    /// otherwise reads its types via `connection`, and caches them.
+    /// Either way, types not cached (e.g. created later) are looked up via `connection`.
+    ///
+    /// @param connection [PostgresConnection] to the Database
+    /// @param database   Identifies the Database (e.g. host, port and name): an entry is kept for each
+    /// @return A [TypeRegistry]
+    /// @throws SQLException If the Database can't be queried
+    TypeRegistry load(@Nonnull final PostgresConnection connection, @Nonnull final String database) throws SQLException {
+        final String[] serverVersionAndFingerprint = connection.queryAndMap(FINGERPRINT_QUERY,
+                rs -> rs.next() ? new String[]{rs.getString(1), rs.getString(2)} : null);
+        final String serverVersion = serverVersionAndFingerprint[0];
+        final String fingerprint = serverVersionAndFingerprint[1];
+
+        final Path entryPath = cacheDir.resolve(ENTRY_FILENAME_FMT.formatted(DigestUtils.sha256Hex(database)));
+        final Entry entry = read(entryPath);
+        if (entry != null
+                && serverVersion.equals(entry.serverVersion())
+                && fingerprint.equals(entry.fingerprint())
+                && version.equals(entry.version())) {
+            LOG.debug("Loaded {} Types from type registry cache: {}", entry.types().size(), entryPath);
+            return new TypeRegistry(new CatalogTypesConnection(entry.types(), entry.sqlTypes(), connection));
+        }
+
+        LOG.debug("Type registry cache miss: loading Types from the Database");
+        final List<CatalogTypesConnection.TypeRow> types = new ArrayList<>();
+        final List<CatalogTypesConnection.SqlTypeRow> sqlTypes = new ArrayList<>();
+        CatalogTypesConnection.readRows(connection, types, sqlTypes);
+        write(entryPath, new Entry(serverVersion, fingerprint, version, types, sqlTypes));
+        return new TypeRegistry(new CatalogTypesConnection(types, sqlTypes, connection));
+    }
+
+    @Nullable
+    private static Entry read(final Path entryPath) {
+        try {
+            return JSON.from(entryPath.toFile(), Entry.class);
+        } catch (final NoSuchFileException | FileNotFoundException e) {
+            return null;
+        } catch (final IOException e) {
+            LOG.warn("Ignoring unreadable type registry cache entry: {}", entryPath, e);
+            return null;
+        }
+    }
+
+    private void write(final Path entryPath, final Entry entry) {
+        Path tempPath = null;
+        try {
+            tempPath = Files.createTempFile(cacheDir, TEMP_FILENAME_PREFIX, ".json");
+            Files.writeString(tempPath, JSON.compact(entry), StandardCharsets.UTF_8);
+            Files.move(tempPath, entryPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            LOG.debug("Cached {} Types: {}", entry.types().size(), entryPath);
+        } catch (final AtomicMoveNotSupportedException e) {
+            LOG.warn("Type registry cache directory does not support atomic moves: Types not cached ({})", cacheDir);
+        } catch (final IOException e) {
+            LOG.warn("Unable to write type registry cache entry: {}", entryPath, e);
+        } finally {
+            if (tempPath != null) {
+                try {
+                    Files.deleteIfExists(tempPath);
+                } catch (final IOException e) {
+                    LOG.debug("Unable to delete temporary file: {}", tempPath, e);
+                }
+            }
+        }
+    }
+}
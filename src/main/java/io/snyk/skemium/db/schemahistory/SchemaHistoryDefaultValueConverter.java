@@ -0,0 +1,60 @@
+package io.snyk.skemium.db.schemahistory;
+
+import io.debezium.jdbc.JdbcValueConverters;
+import io.debezium.relational.Column;
+import io.debezium.relational.DefaultValueConverter;
+import io.debezium.relational.ValueConverter;
+import org.apache.kafka.connect.data.ConnectSchema;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+
+/**
+ * A {@link DefaultValueConverter} for columns read from a Debezium schema history, without a connector-specific parser.
+ * <p>
+ * Connectors record default values as their (normalized) SQL expression: literals, optionally single-quoted,
+ * are converted via {@link JdbcValueConverters}. Anything else (e.g. function calls) is left without a default,
+ * as a connector would do for expressions it can't evaluate.
+ */
+class SchemaHistoryDefaultValueConverter implements DefaultValueConverter {
+    private static final Logger LOG = LoggerFactory.getLogger(SchemaHistoryDefaultValueConverter.class);
+
+    private final JdbcValueConverters valueConverters;
+
+    SchemaHistoryDefaultValueConverter(final JdbcValueConverters valueConverters) {
+        this.valueConverters = valueConverters;
+    }
+
+    @Override
+    public Optional<Object> parseDefaultValue(final Column column, final String defaultValueExpression) {
+        if (defaultValueExpression == null) {
+            return Optional.empty();
+        }
+
+        try {
+            final Schema schema = valueConverters.schemaBuilder(column).build();
+            final ValueConverter converter = valueConverters.converter(column, new Field(column.name(), -1, schema));
+            if (converter == null) {
+                return Optional.empty();
+            }
+
+            final Object value = converter.convert(unquote(defaultValueExpression.trim()));
+            // The default value must already be in the representation of the schema: it's checked when set
+            ConnectSchema.validateValue(schema, value);
+            return Optional.ofNullable(value);
+        } catch (final Exception e) {
+            LOG.debug("Ignoring default value of column '{}' that can't be converted: {}", column.name(), defaultValueExpression, e);
+            return Optional.empty();
+        }
+    }
+
+    private static String unquote(final String expression) {
+        if (expression.length() >= 2 && expression.startsWith("'") && expression.endsWith("'")) {
+            return expression.substring(1, expression.length() - 1).replace("''", "'");
+        }
+        return expression;
+    }
+}
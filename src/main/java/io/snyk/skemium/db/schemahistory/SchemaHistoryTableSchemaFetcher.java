@@ -0,0 +1,244 @@
+package io.snyk.skemium.db.schemahistory;
+
+import io.debezium.config.Configuration;
+import io.debezium.config.Field;
+import io.debezium.document.Array;
+import io.debezium.document.Document;
+import io.debezium.document.DocumentReader;
+import io.debezium.jdbc.JdbcValueConverters;
+import io.debezium.relational.CustomConverterRegistry;
+import io.debezium.relational.RelationalDatabaseConnectorConfig;
+import io.debezium.relational.Table;
+import io.debezium.relational.TableId;
+import io.debezium.relational.TableSchema;
+import io.debezium.relational.TableSchemaBuilder;
+import io.debezium.relational.Tables;
+import io.debezium.relational.history.HistoryRecord;
+import io.debezium.relational.history.JsonTableChangeSerializer;
+import io.debezium.relational.history.TableChanges;
+import io.debezium.schema.FieldNameSelector;
+import io.debezium.schema.SchemaFactory;
+import io.debezium.schema.SchemaNameAdjuster;
+import io.snyk.skemium.db.CatalogCapture;
+import io.snyk.skemium.db.CatalogFilter;
+import io.snyk.skemium.db.CatalogSchemaAndTableTopicNamingStrategy;
+import io.snyk.skemium.db.DatabaseKind;
+import io.snyk.skemium.db.TableSchemaFetcher;
+import org.apache.kafka.common.config.ConfigDef;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The {@link TableSchemaFetcher} for a Debezium schema history file (i.e. written by {@code FileSchemaHistory}).
+ * <p>
+ * The history is replayed, one record at a time, applying the table changes of each record to the Debezium
+ * {@link Tables}: the result are the tables as they were when the last record was written.
+ * <p>
+ * Tables are identified by {@code SCHEMA.TABLE}: for connectors that identify tables by {@code CATALOG.TABLE}
+ * (e.g. MySQL), the catalog is used as the schema.
+ * <p>
+ * The connectors that write schema histories (e.g. MySQL, SQL Server, Oracle) are not available: column types are
+ * converted by the generic Debezium JDBC value converters, and the {@code source} block of the envelope only has the
+ * fields shared by all connectors. As the schemas generated can differ from those of the connector (e.g. MySQL
+ * {@code ENUM}, {@code YEAR} or unsigned columns), schema histories are rejected unless {@link #APPROXIMATE} is set.
+ */
+public class SchemaHistoryTableSchemaFetcher implements TableSchemaFetcher {
+    private static final Logger LOG = LoggerFactory.getLogger(SchemaHistoryTableSchemaFetcher.class);
+
+    /// Path to the schema history file; same property used by Debezium `FileSchemaHistory`.
+    public static final Field FILE_PATH = Field.create("schema.history.internal.file.filename")
+            .withDescription("The path to the file that contains the Database schema history");
+
+    /// Accept to convert the schema history with the generic value converters and `source` block, instead of those
+    /// of the connector that wrote it: the schemas generated can differ from the connector's.
+    public static final Field APPROXIMATE = Field.create("skemium.schema.history.approximate")
+            .withType(ConfigDef.Type.BOOLEAN)
+            .withDefault(false)
+            .withDescription("Whether to accept schemas that approximate those of the connector that wrote the schema history");
+
+    @Nullable
+    private final Path historyFile;
+    @Nullable
+    private final CatalogCapture capture;
+    private final String database;
+    private final TableSchemaBuilder schemaBuilder;
+    private final CatalogSchemaAndTableTopicNamingStrategy topicNamingStrategy;
+
+    /// @param config Configuration, with the schema history file ([#FILE_PATH]) and the Database name
+    /// @throws IllegalArgumentException If [#APPROXIMATE] is not set: the connector that wrote the history can't be reproduced
+    public SchemaHistoryTableSchemaFetcher(final Configuration config) {
+        this(historyFile(config), null, config.getString(RelationalDatabaseConnectorConfig.DATABASE_NAME));
+    }
+
+    /// @param capture [CatalogCapture] of a schema history, taken with [#APPROXIMATE] set
+    public SchemaHistoryTableSchemaFetcher(final CatalogCapture capture) {
+        this(null, capture, capture.database());
+    }
+
+    /// @return [Path] to the schema history file, once checked that approximate schemas are accepted (see [#APPROXIMATE])
+    private static Path historyFile(final Configuration config) {
+        if (!config.getBoolean(APPROXIMATE)) {
+            throw new IllegalArgumentException("""
+                    Schema history can't be converted faithfully: the value converters and `source` block of the \
+                    connector that wrote it are not available. Set '%s' to accept approximate schemas \
+                    (generic JDBC value converters, and `source` block shared by all connectors)""".formatted(APPROXIMATE.name()));
+        }
+        return Path.of(config.getString(FILE_PATH));
+    }
+
+    private SchemaHistoryTableSchemaFetcher(@Nullable final Path historyFile, @Nullable final CatalogCapture capture, final String database) {
+        this.historyFile = historyFile;
+        this.capture = capture;
+        this.database = database;
+
+        LOG.trace("Setting up generic value converters");
+        final JdbcValueConverters valueConverters = new JdbcValueConverters();
+        schemaBuilder = new TableSchemaBuilder(
+                valueConverters,
+                new SchemaHistoryDefaultValueConverter(valueConverters),
+                SchemaNameAdjuster.NO_OP,
+                new CustomConverterRegistry(null),
+                SchemaFactory.get().sourceInfoSchemaBuilder().name("io.debezium.connector.common.Source").build(),
+                FieldNameSelector.defaultSelector(SchemaNameAdjuster.NO_OP),
+                false);
+        topicNamingStrategy = new CatalogSchemaAndTableTopicNamingStrategy(Configuration.create()
+                .with(RelationalDatabaseConnectorConfig.TOPIC_PREFIX, "unused.topic.prefix") //< NOTE: Required but unused field
+                .build()
+                .asProperties());
+    }
+
+    @Override
+    public List<TableSchema> fetch(final String database, final CatalogFilter filter) throws Exception {
+        final List<Table> selectedTables = selectTables(database, filter);
+
+        // Filter-out Columns, if requested
+        final Tables.ColumnNameFilter columnFilter = filter.columnNameFilter();
+
+        final List<TableSchema> result = new ArrayList<>(selectedTables.size());
+        for (final Table table : selectedTables) {
+            result.add(schemaBuilder.create(topicNamingStrategy, table, columnFilter, null, null));
+        }
+        return result;
+    }
+
+    @Override
+    public CatalogCapture capture(final String database,
+                                  @Nullable final Set<String> includedSchemas,
+                                  @Nullable final Set<String> includedTables) throws Exception {
+        return CatalogCapture.build(DatabaseKind.SCHEMA_HISTORY,
+                database,
+                null,
+                null,
+                selectTables(database, CatalogFilter.compile(includedSchemas, includedTables, null)),
+                List.of(),
+                fetchPartitions(database));
+    }
+
+    /// Finds the tables in the selected schemas, once the schema history is replayed.
+    private List<Table> selectTables(final String database, final CatalogFilter filter) throws IOException {
+        if (!this.database.equals(database)) {
+            throw new IllegalArgumentException("Schema history is of Database '%s', not '%s'".formatted(this.database, database));
+        }
+
+        final List<Table> tables = capture != null ? capture.readTables() : replay(database);
+
+        final List<Table> result = tables.stream()
+                .filter(t -> filter.includes(t.id()))
+                .sorted(Comparator.comparing(t -> t.id().identifier()))
+                .toList();
+        LOG.debug("Selected {} Tables in total (out of {}): ", result.size(), tables.size());
+        result.forEach(t -> LOG.trace("  {}", t.id().identifier()));
+
+        return result;
+    }
+
+    /// Replays the schema history file, streaming it one record (i.e. line) at a time.
+    ///
+    /// Records without table changes (e.g. written by Debezium versions older than 1.2, or for DDL that doesn't
+    /// change tables) are skipped: their DDL can't be parsed without the connector.
+    ///
+    /// @param database Database (Catalog) name, assigned to the tables
+    /// @return [List] of [Table]s, as they are at the end of the history
+    /// @throws IOException If the file can't be read, or contains an invalid record
+    List<Table> replay(final String database) throws IOException {
+        LOG.trace("Replaying schema history: {}", historyFile);
+        final Tables tables = new Tables();
+        final DocumentReader reader = DocumentReader.defaultReader();
+        final JsonTableChangeSerializer serializer = new JsonTableChangeSerializer();
+
+        int lineNumber = 0;
+        int records = 0;
+        int skippedRecords = 0;
+        try (final BufferedReader in = Files.newBufferedReader(historyFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                final Document record;
+                try {
+                    record = reader.read(line);
+                } catch (final IOException e) {
+                    throw new IOException("Invalid schema history record at %s:%d".formatted(historyFile, lineNumber), e);
+                }
+                records++;
+
+                final Array tableChanges = record.getArray(HistoryRecord.Fields.TABLE_CHANGES);
+                if (tableChanges == null || tableChanges.isEmpty()) {
+                    LOG.trace("Skipping schema history record without table changes at line {}: {}",
+                            lineNumber, record.getString(HistoryRecord.Fields.DDL_STATEMENTS));
+                    skippedRecords++;
+                    continue;
+                }
+
+                // NOTE: Identifiers are `CATALOG.TABLE` or `CATALOG.SCHEMA.TABLE`, and the catalog becomes the schema
+                // of the table if it has none (see `#normalize(TableId, String)`)
+                for (final TableChanges.TableChange change : serializer.deserialize(tableChanges, true)) {
+                    apply(tables, change, database);
+                }
+            }
+        }
+        if (skippedRecords > 0) {
+            LOG.warn("Skipped {} schema history records without table changes (out of {})", skippedRecords, records);
+        }
+        LOG.debug("Replayed {} schema history records: found {} Tables", records, tables.size());
+
+        return tables.tableIds().stream().map(tables::forTable).toList();
+    }
+
+    private static void apply(final Tables tables, final TableChanges.TableChange change, final String database) {
+        final TableId id = normalize(change.getId(), database);
+        switch (change.getType()) {
+            case CREATE, ALTER -> {
+                if (change.getPreviousId() != null) {
+                    tables.removeTable(normalize(change.getPreviousId(), database));
+                }
+                tables.overwriteTable(change.getTable().edit().tableId(id).create());
+            }
+            case DROP -> tables.removeTable(id);
+        }
+    }
+
+    /// @return [TableId] in the given database, using the catalog as schema if there is none
+    private static TableId normalize(final TableId id, final String database) {
+        return new TableId(database, id.schema() != null ? id.schema() : id.catalog(), id.table());
+    }
+
+    @Override
+    public void close() {
+        // Nothing to close
+    }
+}
@@ -0,0 +1,154 @@
+package io.snyk.skemium.helpers;
+
+import io.snyk.skemium.cli.ManifestReader;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/// Persistent, on-disk cache of the results memoized by [CompatibilityMemo].
+///
+/// Each entry is a small JSON file, named after the SHA256 of the memo key and of the Skemium version
+/// (results of a different version are never reused).
+///
+/// The cache directory can be shared by concurrent processes: entries are written to a temporary file first,
+/// then atomically moved in place, and entries disappearing (e.g. evicted by another process) are treated as misses.
+/// The size of the directory is bounded by evicting the least recently used entries (see [#evict()]):
+/// the last-modified time of an entry is updated every time it's read.
+public class CompatibilityCache {
+    private static final Logger LOG = LoggerFactory.getLogger(CompatibilityCache.class);
+
+    private static final String ENTRY_FILENAME_FMT = "%s.json";
+    private static final String ENTRY_FILENAME_SUFFIX = ".json";
+    private static final String TEMP_FILENAME_PREFIX = ".tmp-";
+    private static final String UNKNOWN_VERSION = "unknown";
+
+    private final Path cacheDir;
+    private final long maxSizeBytes;
+    private final String version;
+
+    /// @param cacheDir     [Path] to the cache directory; created if it doesn't exist
+    /// @param maxSizeBytes Maximum size of the cache directory, enforced by [#evict()]
+    /// @throws IOException If the cache directory can't be created
+    public CompatibilityCache(@Nonnull final Path cacheDir, final long maxSizeBytes) throws IOException {
+        this(cacheDir, maxSizeBytes, Objects.requireNonNullElse(
+                ManifestReader.SINGLETON.getAttribute(ManifestReader.MANIFEST_KEY_PRJ_VER),
+                UNKNOWN_VERSION));
+    }
+
+    CompatibilityCache(@Nonnull final Path cacheDir, final long maxSizeBytes, @Nonnull final String version) throws IOException {
+        this.cacheDir = Files.createDirectories(cacheDir);
+        this.maxSizeBytes = maxSizeBytes;
+        this.version = version;
+    }
+
+    /// Looks up an entry, marking it as recently used.
+    ///
+    /// @param key  Memo key
+    /// @param type [Class] of the cached value
+    /// @return The cached value, or empty if not present (or unreadable)
+    public <T> Optional<T> get(@Nonnull final List<Object> key, @Nonnull final Class<T> type) {
+        final Path entryPath = entryPath(key);
+        try {
+            final T value = JSON.from(entryPath.toFile(), type);
+            Files.setLastModifiedTime(entryPath, FileTime.from(Instant.now()));
+            return Optional.ofNullable(value);
+        } catch (final NoSuchFileException | FileNotFoundException e) {
+            return Optional.empty();
+        } catch (final IOException e) {
+            LOG.warn("Ignoring unreadable compatibility cache entry: {}", entryPath, e);
+            return Optional.empty();
+        }
+    }
+
+    /// Stores an entry, replacing any existing one.
+    ///
+    /// @param key   Memo key
+    /// @param value Value to cache
+    public void put(@Nonnull final List<Object> key, @Nonnull final Object value) {
+        final Path entryPath = entryPath(key);
+        Path tempPath = null;
+        try {
+            tempPath = Files.createTempFile(cacheDir, TEMP_FILENAME_PREFIX, ENTRY_FILENAME_SUFFIX);
+            Files.writeString(tempPath, JSON.compact(value), StandardCharsets.UTF_8);
+            Files.move(tempPath, entryPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            LOG.trace("Cached compatibility result: {}", entryPath);
+        } catch (final AtomicMoveNotSupportedException e) {
+            LOG.warn("Compatibility cache directory does not support atomic moves: result not cached ({})", cacheDir);
+        } catch (final IOException e) {
+            LOG.warn("Unable to write compatibility cache entry: {}", entryPath, e);
+        } finally {
+            if (tempPath != null) {
+                try {
+                    Files.deleteIfExists(tempPath);
+                } catch (final IOException e) {
+                    LOG.debug("Unable to delete temporary file: {}", tempPath, e);
+                }
+            }
+        }
+    }
+
+    /// Deletes the least recently used entries, until the size of the cache directory is within the maximum size.
+    ///
+    /// @return Number of entries deleted
+    public int evict() {
+        final List<Entry> entries = new ArrayList<>();
+        try (final Stream<Path> paths = Files.list(cacheDir)) {
+            paths.filter(path -> path.getFileName().toString().endsWith(ENTRY_FILENAME_SUFFIX))
+                    .filter(path -> !path.getFileName().toString().startsWith(TEMP_FILENAME_PREFIX))
+                    .forEach(path -> {
+                        try {
+                            entries.add(new Entry(path, Files.size(path), Files.getLastModifiedTime(path)));
+                        } catch (final IOException e) {
+                            LOG.trace("Compatibility cache entry disappeared: {}", path);
+                        }
+                    });
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Unable to list compatibility cache directory: " + cacheDir, e);
+        }
+
+        long sizeBytes = entries.stream().mapToLong(Entry::sizeBytes).sum();
+        int evicted = 0;
+        entries.sort(Comparator.comparing(Entry::lastModified));
+        for (final Entry entry : entries) {
+            if (sizeBytes <= maxSizeBytes) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(entry.path());
+                evicted++;
+            } catch (final IOException e) {
+                LOG.debug("Unable to evict compatibility cache entry: {}", entry.path(), e);
+            }
+            sizeBytes -= entry.sizeBytes();
+        }
+        LOG.debug("Compatibility cache: {} entries, {} evicted ({} bytes, max {})", entries.size(), evicted, sizeBytes, maxSizeBytes);
+
+        return evicted;
+    }
+
+    private Path entryPath(final List<Object> key) {
+        return cacheDir.resolve(ENTRY_FILENAME_FMT.formatted(DigestUtils.sha256Hex(version + "\n" + key)));
+    }
+
+    private record Entry(Path path, long sizeBytes, FileTime lastModified) {
+    }
+}
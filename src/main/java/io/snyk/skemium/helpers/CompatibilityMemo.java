@@ -0,0 +1,288 @@
+package io.snyk.skemium.helpers;
+
+import io.confluent.kafka.schemaregistry.CompatibilityLevel;
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.snyk.skemium.avro.SchemaDiff;
+import io.snyk.skemium.avro.TableAvroSchemas;
+import org.apache.avro.Schema;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/// Memoizes the results of [SchemaRegistry] checks, for the duration of a comparison.
+///
+/// Many tables can share the same pair of (current, next) schemas, except for the table identifier
+/// (e.g. audit tables cloned from a template): each component (Key, Value, Envelope) is checked once per distinct pair.
+///
+/// Changes are detected via a field-level [SchemaDiff], that also decides compatibility for the most common changes
+/// (e.g. adding or removing fields): [SchemaRegistry] is left to check the rest.
+///
+/// Schemas are fingerprinted ignoring the table identifier (see [TableAvroSchemas#structuralFingerprint(Schema, String)]),
+/// and checked as they are: the identifier is replaced with a placeholder in the memoized results,
+/// and the placeholder with the identifier of the table they are found for.
+///
+/// Optionally, results are also stored in a [CompatibilityCache], so that they can be reused across comparisons.
+public class CompatibilityMemo {
+    private static final String PLACEHOLDER_IDENTIFIER = "skemium.memo.placeholder";
+
+    private final Map<List<Object>, Object> results = new ConcurrentHashMap<>();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    private final AtomicInteger cacheHits = new AtomicInteger();
+    private final AtomicInteger nativeVerdicts = new AtomicInteger();
+    private final @Nullable CompatibilityCache cache;
+
+    public CompatibilityMemo() {
+        this(null);
+    }
+
+    /// @param cache [CompatibilityCache] to look up results not found in memory, and to store new results into
+    public CompatibilityMemo(@Nullable final CompatibilityCache cache) {
+        this.cache = cache;
+    }
+
+    /// Memoized equivalent of [SchemaRegistry#checkCompatibility] and [SchemaRegistry#detectSchemaChanges].
+    ///
+    /// @param curr               Current schemas, provided as a [TableAvroSchemas]
+    /// @param next               Next schemas, provided as a [TableAvroSchemas]
+    /// @param compatibilityLevel Compatibility Level to apply
+    /// @return [Result] of both the compatibility check and the change detection
+    public Result check(@Nonnull final TableAvroSchemas curr,
+                        @Nonnull final TableAvroSchemas next,
+                        @Nonnull final CompatibilityLevel compatibilityLevel) {
+        return check(curr, next, compatibilityLevel, false);
+    }
+
+    /// Memoized equivalent of [SchemaRegistry#checkCompatibility] and [SchemaRegistry#detectSchemaChanges],
+    /// optionally evaluating the compatibility matrix as well (see [Result#compatibilityMatrix()]).
+    ///
+    /// @param curr               Current schemas, provided as a [TableAvroSchemas]
+    /// @param next               Next schemas, provided as a [TableAvroSchemas]
+    /// @param compatibilityLevel Compatibility Level to apply
+    /// @param withMatrix         `true` to also evaluate the compatibility matrix
+    /// @return [Result] of the compatibility check, the change detection and (optionally) the compatibility matrix
+    public Result check(@Nonnull final TableAvroSchemas curr,
+                        @Nonnull final TableAvroSchemas next,
+                        @Nonnull final CompatibilityLevel compatibilityLevel,
+                        final boolean withMatrix) {
+        return check(prepare(curr), prepare(next), compatibilityLevel, withMatrix);
+    }
+
+    /// Prepares [TableAvroSchemas] for memoized checks (see [Prepared]), so that they can be checked against
+    /// multiple others (e.g. NEXT against multiple baselines) while being fingerprinted and parsed only once.
+    ///
+    /// @param schemas [TableAvroSchemas] to prepare
+    /// @return The [Prepared] schemas
+    public Prepared prepare(@Nonnull final TableAvroSchemas schemas) {
+        return new Prepared(schemas);
+    }
+
+    /// Memoized equivalent of [SchemaRegistry#checkCompatibility] and [SchemaRegistry#detectSchemaChanges],
+    /// on [Prepared] schemas: they are shared across all levels evaluated, and across checks.
+    ///
+    /// @param curr               Current schemas, provided as [Prepared] by [#prepare(TableAvroSchemas)]
+    /// @param next               Next schemas, provided as [Prepared] by [#prepare(TableAvroSchemas)]
+    /// @param compatibilityLevel Compatibility Level to apply
+    /// @param withMatrix         `true` to also evaluate the compatibility matrix
+    /// @return [Result] of the compatibility check, the change detection and (optionally) the compatibility matrix
+    /// @throws IllegalArgumentException If the schemas are not of the same table
+    public Result check(@Nonnull final Prepared curr,
+                        @Nonnull final Prepared next,
+                        @Nonnull final CompatibilityLevel compatibilityLevel,
+                        final boolean withMatrix) {
+        if (!curr.identifier.equals(next.identifier)) {
+            throw new IllegalArgumentException("Cannot check schemas of different tables: '%s' != '%s'".formatted(curr.identifier, next.identifier));
+        }
+        final PreparedPair pair = new PreparedPair(curr, next);
+
+        final TableDiff diff = new TableDiff(
+                memoize(List.of("keyDiff", pair.curr.key, pair.next.key), SchemaDiff.class,
+                        () -> SchemaDiff.between(pair.curr.schemas.keySchema(), pair.next.schemas.keySchema())),
+                memoize(List.of("valueDiff", pair.curr.value, pair.next.value), SchemaDiff.class,
+                        () -> SchemaDiff.between(pair.curr.schemas.valueSchema(), pair.next.schemas.valueSchema())),
+                memoize(List.of("envelopeDiff", pair.curr.envelope, pair.next.envelope), SchemaDiff.class,
+                        () -> SchemaDiff.between(pair.curr.schemas.envelopeSchema(), pair.next.schemas.envelopeSchema())));
+
+        return new Result(
+                checkCompatibility(pair, diff, compatibilityLevel),
+                new SchemaRegistry.ChangeResult(!diff.key().isEmpty(), !diff.value().isEmpty(), !diff.envelope().isEmpty()),
+                diff,
+                withMatrix ? compatibilityMatrix(pair, diff) : null);
+    }
+
+    /// Checks compatibility of each component, unless its [SchemaDiff] already proves it compatible:
+    /// [SchemaRegistry] is only used to decide the remaining cases, and to report the incompatibilities.
+    private SchemaRegistry.CompatibilityResult checkCompatibility(final PreparedPair pair, final TableDiff diff, final CompatibilityLevel compatibilityLevel) {
+        final String identifier = pair.curr.identifier;
+        return new SchemaRegistry.CompatibilityResult(
+                compatibilityLevel,
+                memoizeIncompatibilities(List.of("key", compatibilityLevel, pair.curr.key, pair.next.key), identifier,
+                        () -> isCompatible(diff.key(), compatibilityLevel)
+                                ? List.of()
+                                : SchemaRegistry.checkKeyCompatibility(pair.curr.schemas, pair.next.schemas, compatibilityLevel)),
+                memoizeIncompatibilities(List.of("value", compatibilityLevel, pair.curr.value, pair.next.value), identifier,
+                        () -> isCompatible(diff.value(), compatibilityLevel)
+                                ? List.of()
+                                : SchemaRegistry.checkSchemaCompatibility(pair.curr.valueSchema(), pair.next.valueSchema(), compatibilityLevel)),
+                memoizeIncompatibilities(List.of("envelope", compatibilityLevel, pair.curr.envelope, pair.next.envelope), identifier,
+                        () -> isCompatible(diff.envelope(), compatibilityLevel)
+                                ? List.of()
+                                : SchemaRegistry.checkSchemaCompatibility(pair.curr.envelopeSchema(), pair.next.envelopeSchema(), compatibilityLevel)));
+    }
+
+    /// Memoizes incompatibilities found for the table with the given identifier, replacing it with a placeholder:
+    /// results found in the memo (i.e. possibly of another table) get the placeholder replaced with the identifier.
+    private List<String> memoizeIncompatibilities(final List<Object> key, final String identifier, final Supplier<List<String>> check) {
+        final AtomicReference<List<String>> checked = new AtomicReference<>();
+        final List<String> memoized = memoize(key, List.class, () -> {
+            checked.set(check.get());
+            return replace(checked.get(), identifier, PLACEHOLDER_IDENTIFIER);
+        });
+        return checked.get() != null ? checked.get() : replace(memoized, PLACEHOLDER_IDENTIFIER, identifier);
+    }
+
+    private boolean isCompatible(final SchemaDiff diff, final CompatibilityLevel compatibilityLevel) {
+        if (diff.verdict(compatibilityLevel) == SchemaDiff.Verdict.COMPATIBLE) {
+            nativeVerdicts.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /// Evaluates which [CompatibilityLevel]s the pair satisfies.
+    ///
+    /// Only [CompatibilityLevel#BACKWARD] and [CompatibilityLevel#FORWARD] are actually checked: [CompatibilityLevel#FULL]
+    /// is satisfied if both are, and with a single previous schema each transitive level is the same as its non-transitive one.
+    private Map<CompatibilityLevel, Boolean> compatibilityMatrix(final PreparedPair pair, final TableDiff diff) {
+        final boolean backward = checkCompatibility(pair, diff, CompatibilityLevel.BACKWARD).isCompatible();
+        final boolean forward = checkCompatibility(pair, diff, CompatibilityLevel.FORWARD).isCompatible();
+
+        final Map<CompatibilityLevel, Boolean> matrix = new EnumMap<>(CompatibilityLevel.class);
+        matrix.put(CompatibilityLevel.NONE, true);
+        matrix.put(CompatibilityLevel.BACKWARD, backward);
+        matrix.put(CompatibilityLevel.BACKWARD_TRANSITIVE, backward);
+        matrix.put(CompatibilityLevel.FORWARD, forward);
+        matrix.put(CompatibilityLevel.FORWARD_TRANSITIVE, forward);
+        matrix.put(CompatibilityLevel.FULL, backward && forward);
+        matrix.put(CompatibilityLevel.FULL_TRANSITIVE, backward && forward);
+        return matrix;
+    }
+
+    /// @return Number of checks whose result was found in the memo.
+    public int hits() {
+        return hits.get();
+    }
+
+    /// @return Number of checks whose result was found in the [CompatibilityCache] (included in [#hits()]).
+    public int cacheHits() {
+        return cacheHits.get();
+    }
+
+    /// @return Number of checks that had to be executed.
+    public int misses() {
+        return misses.get();
+    }
+
+    /// @return Number of executed compatibility checks decided by [SchemaDiff] alone, without [SchemaRegistry].
+    public int nativeVerdicts() {
+        return nativeVerdicts.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T memoize(final List<Object> key, final Class<? super T> type, final Supplier<T> check) {
+        final Object memoized = results.get(key);
+        if (memoized != null) {
+            hits.incrementAndGet();
+            return (T) memoized;
+        }
+
+        final Optional<T> cached = cache != null
+                ? cache.get(key, type).map(value -> (T) value)
+                : Optional.empty();
+        if (cached.isPresent()) {
+            hits.incrementAndGet();
+            cacheHits.incrementAndGet();
+            results.put(key, cached.get());
+            return cached.get();
+        }
+
+        misses.incrementAndGet();
+        final T result = check.get();
+        results.put(key, result);
+        if (cache != null) {
+            cache.put(key, result);
+        }
+        return result;
+    }
+
+    private static String fingerprint(@Nullable final Schema schema, final String identifier) {
+        return schema != null ? TableAvroSchemas.structuralFingerprint(schema, identifier) : "null";
+    }
+
+    private static List<String> replace(final List<String> incompatibilities, final String target, final String replacement) {
+        return incompatibilities.stream()
+                .map(incompatibility -> incompatibility.replace(target, replacement))
+                .toList();
+    }
+
+    /// [TableAvroSchemas] prepared for memoized checks: fingerprinted and (lazily) parsed as [AvroSchema]s only once.
+    public static final class Prepared {
+        private final String identifier;
+        private final TableAvroSchemas schemas;
+        private final String key;
+        private final String value;
+        private final String envelope;
+        private AvroSchema valueSchema;
+        private AvroSchema envelopeSchema;
+
+        private Prepared(final TableAvroSchemas schemas) {
+            this.identifier = schemas.identifier();
+            this.schemas = schemas;
+            this.key = fingerprint(schemas.keySchema(), identifier);
+            this.value = fingerprint(schemas.valueSchema(), identifier);
+            this.envelope = fingerprint(schemas.envelopeSchema(), identifier);
+        }
+
+        private AvroSchema valueSchema() {
+            return valueSchema != null ? valueSchema : (valueSchema = schemas.valueSchemaToSchemaRegistryAvroSchema());
+        }
+
+        private AvroSchema envelopeSchema() {
+            return envelopeSchema != null ? envelopeSchema : (envelopeSchema = schemas.envelopeSchemaToSchemaRegistryAvroSchema());
+        }
+    }
+
+    /// A (current, next) pair of [Prepared] schemas.
+    private record PreparedPair(Prepared curr, Prepared next) {
+    }
+
+    /// Wraps the results of [#check].
+    ///
+    /// @param compatibilityResult Result of the compatibility check
+    /// @param changeResult        Result of the change detection
+    /// @param diff                Field-level [SchemaDiff]s the change detection is based on
+    /// @param compatibilityMatrix [Map] of every [CompatibilityLevel], to whether it's satisfied; `null` if not requested
+    public record Result(@Nonnull SchemaRegistry.CompatibilityResult compatibilityResult,
+                         @Nonnull SchemaRegistry.ChangeResult changeResult,
+                         @Nonnull TableDiff diff,
+                         @Nullable Map<CompatibilityLevel, Boolean> compatibilityMatrix) {
+    }
+
+    /// [SchemaDiff]s of each component of a table.
+    ///
+    /// @param key      [SchemaDiff] of the Key Schema
+    /// @param value    [SchemaDiff] of the Value Schema
+    /// @param envelope [SchemaDiff] of the Envelope Schema
+    public record TableDiff(@Nonnull SchemaDiff key,
+                            @Nonnull SchemaDiff value,
+                            @Nonnull SchemaDiff envelope) {
+    }
+}
@@ -1,20 +1,28 @@
 package io.snyk.skemium.helpers;
 
-import org.eclipse.jgit.api.errors.GitAPIException;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefDatabase;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /// Helper to interact with local Git repositories.
 public class Git {
@@ -28,13 +36,84 @@ public class Git {
     public record GitInfo(@Nullable String commit, @Nullable String branch, @Nullable String tag) {
     }
 
+    /// A commit of a local Git repository.
+    ///
+    /// @param id      Commit identifier (full SHA-1)
+    /// @param author  Name of the author
+    /// @param summary First line of the commit message
+    public record Commit(
+            @JsonProperty(required = true, index = 0) @Nonnull String id,
+            @JsonProperty(required = true, index = 1) @Nonnull String author,
+            @JsonProperty(required = true, index = 2) @Nonnull String summary) {
+    }
+
+    /// Opens the local Git repository containing the given path: the repository is searched for upwards, like `git` does.
+    ///
+    /// @param gitRepoPath Local path inside the repository
+    /// @return A [Repository]; MUST be closed after use
+    /// @throws IOException If no repository is found
+    public static Repository openRepository(@Nonnull final Path gitRepoPath) throws IOException {
+        final FileRepositoryBuilder repoBuilder = new FileRepositoryBuilder()
+                .readEnvironment()
+                .findGitDir(gitRepoPath.toAbsolutePath().toFile());
+        if (repoBuilder.getGitDir() == null) {
+            throw new IOException("Git repository not found from: " + gitRepoPath.toAbsolutePath());
+        }
+        return repoBuilder.build();
+    }
+
+    /// Resolves a revision (e.g. branch, tag, `HEAD~3`, SHA-1) to the identifier of a commit.
+    ///
+    /// @param repository [Repository] to resolve the revision in
+    /// @param revision   Any revision `git rev-parse` accepts
+    /// @return [ObjectId] of the commit
+    /// @throws IOException If the revision is not found, or it's not a commit
+    public static ObjectId resolveCommit(@Nonnull final Repository repository, @Nonnull final String revision) throws IOException {
+        final ObjectId commitId = repository.resolve(revision + "^{commit}");
+        if (commitId == null) {
+            throw new IOException("Git revision not found: " + revision);
+        }
+        return commitId;
+    }
+
+    /// Lists the commits from `from` (excluded) to `to` (included) that modified the given path, like
+    /// `git log --first-parent --reverse from..to -- path`.
+    ///
+    /// Only first parents are followed, so that a merge counts as a single commit of the mainline.
+    ///
+    /// @param repository [Repository] to walk the history of
+    /// @param from       Oldest commit, excluded (e.g. the last known good one)
+    /// @param to         Newest commit, included
+    /// @param path       Path relative to the root of the repository; empty for the whole repository
+    /// @return [List] of [Commit]s, oldest first
+    /// @throws IOException
+    public static List<Commit> listCommits(@Nonnull final Repository repository,
+                                           @Nonnull final ObjectId from,
+                                           @Nonnull final ObjectId to,
+                                           @Nonnull final String path) throws IOException {
+        final List<Commit> commits = new ArrayList<>();
+        try (final RevWalk walk = new RevWalk(repository)) {
+            walk.setFirstParent(true);
+            if (!path.isEmpty()) {
+                walk.setTreeFilter(AndTreeFilter.create(PathFilter.create(path), TreeFilter.ANY_DIFF));
+            }
+            walk.markStart(walk.parseCommit(to));
+            walk.markUninteresting(walk.parseCommit(from));
+            for (final RevCommit commit : walk) {
+                commits.add(new Commit(commit.getName(), commit.getAuthorIdent().getName(), commit.getShortMessage()));
+            }
+        }
+
+        Collections.reverse(commits);
+        return commits;
+    }
+
     /// Returns current information about a local Git Repository.
     ///
     /// @param gitRepoPath Local path to the repository
     /// @return A [GitInfo] object
     /// @throws IOException
-    /// @throws GitAPIException
-    public static GitInfo getInfo(final Path gitRepoPath) throws IOException, GitAPIException {
+    public static GitInfo getInfo(final Path gitRepoPath) throws IOException {
         final FileRepositoryBuilder repoBuilder = new FileRepositoryBuilder()
                 .setGitDir(gitRepoPath.resolve(".git").toFile());
 
@@ -42,12 +121,10 @@ public class Git {
             final String commit = getCurrentCommit(repository);
             final String branch = getCurrentBranch(repository);
 
-            try (final org.eclipse.jgit.api.Git git = new org.eclipse.jgit.api.Git(repository)) {
-                return new GitInfo(
-                        commit,
-                        branch,
-                        getTagForCommit(git, commit));
-            }
+            return new GitInfo(
+                    commit,
+                    branch,
+                    getTagForCommit(repository, commit));
         }
     }
 
@@ -65,6 +142,15 @@ public class Git {
         }
     }
 
+    /// Same as [#tryGetInfo(Path)], but gathering the information in the background (e.g. while fetching from the
+    /// Database), so that it's ready by the time it's needed.
+    ///
+    /// @param gitRepoPath Local path to the repository
+    /// @return A [CompletableFuture] of a [GitInfo] object; it never completes exceptionally
+    public static CompletableFuture<GitInfo> tryGetInfoAsync(final Path gitRepoPath) {
+        return CompletableFuture.supplyAsync(() -> tryGetInfo(gitRepoPath));
+    }
+
     private static String getCurrentCommit(final Repository repository) throws IOException {
         final ObjectId head = repository.resolve(Constants.HEAD);
         if (head == null) {
@@ -77,20 +163,22 @@ public class Git {
         return repository.getBranch();
     }
 
-    private static String getTagForCommit(final org.eclipse.jgit.api.Git git, final String commitId) throws GitAPIException, IOException {
+    /// Finds a tag pointing at the given commit, comparing it with the object each tag points at, once peeled.
+    ///
+    /// Tags are peeled via the ref database: for packed tags (the vast majority, in large repositories),
+    /// the peeled object is recorded in `packed-refs` already, so no object is read at all.
+    private static String getTagForCommit(final Repository repository, final String commitId) throws IOException {
         if (commitId == null) {
             return null;
         }
 
-        final List<Ref> tags = git.tagList().call();
-        try (RevWalk walk = new RevWalk(git.getRepository())) {
-            final RevCommit commit = walk.parseCommit(ObjectId.fromString(commitId));
-            for (Ref tag : tags) {
-                final ObjectId tagObjectId = tag.getPeeledObjectId() != null ? tag.getPeeledObjectId() : tag.getObjectId();
-                final RevCommit tagCommit = walk.parseCommit(tagObjectId);
-                if (commit.equals(tagCommit)) {
-                    return tag.getName();
-                }
+        final ObjectId commit = ObjectId.fromString(commitId);
+        final RefDatabase refDatabase = repository.getRefDatabase();
+        for (final Ref tag : refDatabase.getRefsByPrefix(Constants.R_TAGS)) {
+            final Ref peeledTag = tag.isPeeled() ? tag : refDatabase.peel(tag);
+            final ObjectId tagObjectId = peeledTag.getPeeledObjectId() != null ? peeledTag.getPeeledObjectId() : peeledTag.getObjectId();
+            if (commit.equals(tagObjectId)) {
+                return tag.getName();
             }
         }
         return null;
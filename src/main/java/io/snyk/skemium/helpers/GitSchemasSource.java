@@ -0,0 +1,149 @@
+package io.snyk.skemium.helpers;
+
+import io.snyk.skemium.avro.SchemasSource;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/// [SchemasSource] reading files from a directory of a Git revision (e.g. `main:schemas`), straight from the object
+/// database of the repository (loose objects or pack files): nothing is checked out, and each file is read only if
+/// and when needed. The tree of the directory is read once, when opened, to index the files it contains.
+public final class GitSchemasSource implements SchemasSource {
+    private static final Logger LOG = LoggerFactory.getLogger(GitSchemasSource.class);
+
+    /// Separates the Git reference from the path of the directory, like in `git show <git-ref>:<path>`.
+    public static final char SEPARATOR = ':';
+
+    private final String location;
+    private final Repository repository;
+    private final ObjectReader reader;
+    private final ObjectId treeId;
+    /// Files of the directory (including those in sub-directories), by path relative to it.
+    private final Map<String, ObjectId> files;
+
+    private GitSchemasSource(final String location, final Repository repository, final ObjectId treeId, final Map<String, ObjectId> files) {
+        this.location = location;
+        this.repository = repository;
+        this.reader = repository.newObjectReader();
+        this.treeId = treeId;
+        this.files = files;
+    }
+
+    /// @param location A location given by the user
+    /// @return `true` if the location has the `<git-ref>:<path>` format
+    public static boolean isGitLocation(@Nonnull final String location) {
+        return location.indexOf(SEPARATOR) > 0;
+    }
+
+    /// Opens a directory of a Git revision.
+    ///
+    /// @param gitRepoPath Local path inside the repository (the repository is searched for upwards, like `git` does)
+    /// @param location    `<git-ref>:<path>`, where `<path>` is relative to the root of the repository
+    ///                    (e.g. `origin/main:schemas`)
+    /// @return A [GitSchemasSource]; MUST be closed after use
+    /// @throws IOException If the repository is not found, or the location does not resolve to a directory
+    public static GitSchemasSource open(@Nonnull final Path gitRepoPath, @Nonnull final String location) throws IOException {
+        final Repository repository = Git.openRepository(gitRepoPath);
+        try {
+            // NOTE: A trailing separator (e.g. `main:`) resolves to the root of the repository
+            final ObjectId treeId = repository.resolve(location);
+            if (treeId == null) {
+                throw new IOException("Git location not found: " + location);
+            }
+            final Map<String, ObjectId> files = new HashMap<>();
+            try (final ObjectReader reader = repository.newObjectReader()) {
+                if (reader.open(treeId).getType() != Constants.OBJ_TREE) {
+                    throw new IOException("Git location is not a directory: " + location);
+                }
+                try (final TreeWalk walk = new TreeWalk(reader)) {
+                    walk.addTree(treeId);
+                    walk.setRecursive(true);
+                    while (walk.next()) {
+                        files.put(walk.getPathString(), walk.getObjectId(0));
+                    }
+                }
+            }
+
+            LOG.debug("Reading schemas from Git: {} ({}, {} files)", location, treeId.getName(), files.size());
+            return new GitSchemasSource(location, repository, treeId, files);
+        } catch (final IOException | RuntimeException e) {
+            repository.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean exists(@Nonnull final String filename) {
+        return files.containsKey(filename);
+    }
+
+    @Override
+    public String read(@Nonnull final String filename) throws IOException {
+        final ObjectId blobId = files.get(filename);
+        if (blobId == null) {
+            throw new FileNotFoundException(locate(filename));
+        }
+        return new String(reader.open(blobId, Constants.OBJ_BLOB).getBytes(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String locate(@Nonnull final String filename) {
+        return location.endsWith(String.valueOf(SEPARATOR)) || location.endsWith("/")
+                ? location + filename
+                : location + "/" + filename;
+    }
+
+    /// @param other Another [GitSchemasSource]
+    /// @return `true` if both read from the same Git repository (i.e. they can be diffed)
+    public boolean isSameRepository(@Nonnull final GitSchemasSource other) {
+        return repository.getDirectory().equals(other.repository.getDirectory());
+    }
+
+    /// Names of the files that differ between this directory and another one of the same repository,
+    /// via a tree diff: only the tree objects are read, not the files.
+    ///
+    /// @param other Another [GitSchemasSource] of the same repository (see [#isSameRepository(GitSchemasSource)])
+    /// @return [Set] of names of the files added, removed or modified
+    /// @throws IOException
+    public Set<String> diff(@Nonnull final GitSchemasSource other) throws IOException {
+        if (!isSameRepository(other)) {
+            throw new IllegalArgumentException("Can't diff '%s' and '%s': different Git repositories".formatted(location, other.location));
+        }
+        if (treeId.equals(other.treeId)) {
+            return Set.of();
+        }
+
+        final Set<String> changed = new HashSet<>();
+        try (final TreeWalk walk = new TreeWalk(reader)) {
+            walk.addTree(treeId);
+            walk.addTree(other.treeId);
+            walk.setFilter(TreeFilter.ANY_DIFF);
+            while (walk.next()) {
+                changed.add(walk.getPathString());
+            }
+        }
+        LOG.debug("Git tree diff '{}' -> '{}': {} files changed", location, other.location, changed.size());
+        return changed;
+    }
+
+    @Override
+    public void close() {
+        reader.close();
+        repository.close();
+    }
+}
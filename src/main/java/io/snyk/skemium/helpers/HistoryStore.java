@@ -0,0 +1,367 @@
+package io.snyk.skemium.helpers;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.snyk.skemium.avro.SchemasSource;
+import io.snyk.skemium.avro.TableAvroSchemas;
+import io.snyk.skemium.meta.MetadataFile;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/// Append-only store of snapshots of directories of Table Schemas (i.e. outputs of `generate`), answering questions
+/// like "what did table X look like at release Y" without keeping a full copy of every snapshot.
+///
+/// The store is a directory laid out as:
+///
+///   - `index.json`: the snapshots, in the order they were ingested (see [Index])
+///   - `snapshots/<snapshot-id>.json`: the metadata file of each snapshot, mapping each table to its checksum
+///   - `objects/<checksum>/`: the schemas of each version of a table, content-addressed by checksum
+///     (always in the [io.snyk.skemium.avro.StorageLayout#FULL] layout)
+///
+/// Ingesting a snapshot only stores the tables whose checksum is not in the store already: tables unchanged since the
+/// previous snapshot are skipped without even being read. A snapshot, or a single table of it, is read back via its
+/// metadata file, straight from the objects (see [#source(String)]).
+///
+/// Snapshots are never modified once ingested. The store supports one writer at a time, and any number of readers.
+public class HistoryStore {
+    private static final Logger LOG = LoggerFactory.getLogger(HistoryStore.class);
+
+    /// Prefix of the locations of snapshots, like `history:<snapshot-id>` (see [#isHistoryLocation(String)]).
+    public static final String LOCATION_PREFIX = "history:";
+
+    /// Default store directory, relative to the working directory.
+    public static final Path DEFAULT_DIR = Path.of(".skemium", "history");
+
+    private static final Pattern SNAPSHOT_ID_PATTERN = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]*");
+    private static final String INDEX_FILENAME = "index.json";
+    private static final String SNAPSHOTS_DIRNAME = "snapshots";
+    private static final String SNAPSHOT_FILENAME_FMT = "%s.json";
+    private static final String OBJECTS_DIRNAME = "objects";
+    private static final String TEMP_FILENAME_PREFIX = ".tmp-";
+    private static final String TAG_REF_PREFIX = "refs/tags/";
+
+    /// A snapshot in the store.
+    ///
+    /// @param id          Identifier of the snapshot
+    /// @param ingested    When the snapshot was ingested
+    /// @param tablesTotal Number of tables in the snapshot
+    /// @param tablesAdded Number of table versions added to the store by the snapshot (i.e. not stored already)
+    public record Snapshot(
+            @JsonProperty(required = true, index = 0) @Nonnull String id,
+            @JsonProperty(required = true, index = 1) @Nonnull String ingested,
+            @JsonProperty(required = true, index = 2) int tablesTotal,
+            @JsonProperty(required = true, index = 3) int tablesAdded) {
+    }
+
+    /// Index of the store.
+    ///
+    /// @param snapshots [Snapshot]s, in the order they were ingested
+    public record Index(@JsonProperty(required = true, index = 0) @Nonnull List<Snapshot> snapshots) {
+    }
+
+    private final Path storeDir;
+
+    /// @param storeDir [Path] to the store directory; created when the first snapshot is ingested
+    public HistoryStore(@Nonnull final Path storeDir) {
+        this.storeDir = storeDir.toAbsolutePath();
+    }
+
+    /// @param location A location given by the user
+    /// @return `true` if the location has the `history:<snapshot-id>` (or `history:<store-dir>:<snapshot-id>`) format
+    public static boolean isHistoryLocation(@Nonnull final String location) {
+        return location.startsWith(LOCATION_PREFIX) && location.length() > LOCATION_PREFIX.length();
+    }
+
+    /// Opens a snapshot given its location: `history:<snapshot-id>` for a snapshot in the store at [#DEFAULT_DIR],
+    /// or `history:<store-dir>:<snapshot-id>` for a snapshot in the store at `<store-dir>`.
+    ///
+    /// @param location Location of the snapshot (see [#isHistoryLocation(String)])
+    /// @return A [SchemasSource]
+    /// @throws IOException If the snapshot is not found
+    public static SchemasSource open(@Nonnull final String location) throws IOException {
+        final String storeAndId = location.substring(LOCATION_PREFIX.length());
+        final int separator = storeAndId.lastIndexOf(':');
+        final HistoryStore store = separator > 0
+                ? new HistoryStore(Path.of(storeAndId.substring(0, separator)))
+                : new HistoryStore(DEFAULT_DIR);
+        return store.source(storeAndId.substring(separator + 1));
+    }
+
+    /// @return The snapshots in the store, in the order they were ingested
+    /// @throws IOException
+    public List<Snapshot> snapshots() throws IOException {
+        final Path indexPath = storeDir.resolve(INDEX_FILENAME);
+        if (!Files.exists(indexPath)) {
+            return List.of();
+        }
+        return JSON.from(indexPath.toFile(), Index.class).snapshots();
+    }
+
+    /// Ingests a directory of Table Schemas as a new snapshot.
+    ///
+    /// @param schemasDir [Path] to the directory of Table Schemas
+    /// @param snapshotId Identifier of the snapshot; if `null`, the tag (or, failing that, the commit) recorded in the
+    ///                   metadata file is used
+    /// @return The new [Snapshot]
+    /// @throws IOException
+    /// @throws IllegalArgumentException If the identifier is invalid, or a snapshot with the same identifier exists
+    public Snapshot ingest(@Nonnull final Path schemasDir, @Nullable final String snapshotId) throws IOException {
+        final MetadataFile meta = MetadataFile.loadFrom(schemasDir);
+        final String id = snapshotId != null ? snapshotId : defaultSnapshotId(meta);
+        validateSnapshotId(id);
+
+        final List<Snapshot> snapshots = new ArrayList<>(snapshots());
+        if (snapshots.stream().anyMatch(snapshot -> snapshot.id().equals(id))) {
+            throw new IllegalArgumentException("Snapshot already exists: " + id);
+        }
+
+        // Tables unchanged since the previous snapshot are known to be stored already
+        final Map<String, String> previousChecksums = snapshots.isEmpty()
+                ? Map.of()
+                : snapshot(snapshots.getLast().id()).schemas();
+
+        final Path objectsDir = Files.createDirectories(storeDir.resolve(OBJECTS_DIRNAME));
+        int added = 0;
+        for (final Map.Entry<String, String> table : meta.schemas().entrySet()) {
+            final String identifier = table.getKey();
+            final String checksum = table.getValue();
+            if (checksum.equals(previousChecksums.get(identifier))) {
+                continue;
+            }
+
+            final Path objectDir = objectsDir.resolve(checksum);
+            if (Files.exists(objectDir.resolve(checksumFilename(identifier)))) {
+                LOG.trace("Table '{}' ({}) already stored", identifier, checksum);
+                continue;
+            }
+
+            LOG.debug("Storing table '{}' ({})", identifier, checksum);
+            saveObject(meta.loadTableAvroSchemas(schemasDir, identifier), Files.createDirectories(objectDir));
+            ++added;
+        }
+
+        // The snapshot is visible only once all its tables are stored
+        writeAtomically(Files.createDirectories(storeDir.resolve(SNAPSHOTS_DIRNAME)).resolve(SNAPSHOT_FILENAME_FMT.formatted(id)), JSON.pretty(meta), false);
+        final Snapshot snapshot = new Snapshot(id, Instant.now().toString(), meta.schemas().size(), added);
+        snapshots.add(snapshot);
+        writeAtomically(storeDir.resolve(INDEX_FILENAME), JSON.pretty(new Index(snapshots)), true);
+
+        LOG.info("Ingested snapshot '{}': {} tables, {} stored", id, snapshot.tablesTotal(), snapshot.tablesAdded());
+        return snapshot;
+    }
+
+    /// @param snapshotId Identifier of the snapshot
+    /// @return The metadata file of the snapshot
+    /// @throws IOException If the snapshot is not found
+    public MetadataFile snapshot(@Nonnull final String snapshotId) throws IOException {
+        return JSON.from(readSnapshotFile(snapshotId), MetadataFile.class);
+    }
+
+    /// [SchemasSource] of a snapshot: reads the files of each table straight from the objects.
+    ///
+    /// @param snapshotId Identifier of the snapshot
+    /// @return A [SchemasSource]
+    /// @throws IOException If the snapshot is not found
+    public SchemasSource source(@Nonnull final String snapshotId) throws IOException {
+        final String metaJson = readSnapshotFile(snapshotId);
+        final Map<String, String> checksums = JSON.from(metaJson, MetadataFile.class).schemas();
+        LOG.debug("Reading schemas from history snapshot: {} ({})", snapshotId, storeDir);
+        return new Source(snapshotId, metaJson, checksums);
+    }
+
+    /// Materializes a snapshot (or some of its tables) as a directory of Table Schemas, as `generate` would produce it.
+    ///
+    /// @param snapshotId Identifier of the snapshot
+    /// @param outputDir  [Path] to the output directory; created if it doesn't exist
+    /// @param tables     Tables to materialize; empty for all
+    /// @return The [MetadataFile] saved in the output directory
+    /// @throws IOException
+    public MetadataFile materialize(@Nonnull final String snapshotId,
+                                   @Nonnull final Path outputDir,
+                                   @Nonnull final Set<String> tables) throws IOException {
+        final MetadataFile meta = snapshot(snapshotId);
+        final MetadataFile subset = tables.isEmpty() ? meta : subset(meta, tables);
+        Files.createDirectories(outputDir);
+
+        for (final Map.Entry<String, String> table : subset.schemas().entrySet()) {
+            final Path objectDir = storeDir.resolve(OBJECTS_DIRNAME).resolve(table.getValue());
+            for (final String filename : TableAvroSchemas.filenames(table.getKey())) {
+                if (Files.exists(objectDir.resolve(filename))) {
+                    Files.copy(objectDir.resolve(filename), outputDir.resolve(filename), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+        subset.saveTo(outputDir);
+
+        LOG.info("Materialized snapshot '{}': {} tables -> {}", snapshotId, subset.getTableIdentifiers().size(), outputDir.toAbsolutePath().normalize());
+        return subset;
+    }
+
+    /// Restricts a [MetadataFile] to the given tables, plus the tables they reference.
+    private static MetadataFile subset(final MetadataFile meta, final Set<String> tables) {
+        final TreeMap<String, String> schemas = new TreeMap<>();
+        final TreeMap<String, String> references = new TreeMap<>();
+        final TreeMap<String, String> fingerprints = new TreeMap<>();
+        for (final String table : tables) {
+            if (!meta.getTableIdentifiers().contains(table)) {
+                throw new IllegalArgumentException("Table not found in snapshot: " + table);
+            }
+            final String reference = meta.getReference(table);
+            if (reference != null) {
+                references.put(table, reference);
+            }
+            final String source = Objects.requireNonNullElse(reference, table);
+            schemas.put(source, meta.schemas().get(source));
+            if (meta.fingerprints() != null && meta.fingerprints().containsKey(table)) {
+                fingerprints.put(table, meta.fingerprints().get(table));
+            }
+        }
+
+        return new MetadataFile(meta.created(),
+                meta.arguments(),
+                schemas.size(),
+                schemas,
+                DigestUtils.sha256Hex(String.join("", schemas.values())),
+                meta.vcsCommit(),
+                meta.vcsBranch(),
+                meta.vcsTag(),
+                references.isEmpty() ? null : references,
+                fingerprints.isEmpty() ? null : fingerprints);
+    }
+
+    private String readSnapshotFile(final String snapshotId) throws IOException {
+        validateSnapshotId(snapshotId);
+        final Path snapshotPath = storeDir.resolve(SNAPSHOTS_DIRNAME).resolve(SNAPSHOT_FILENAME_FMT.formatted(snapshotId));
+        if (!Files.exists(snapshotPath)) {
+            throw new FileNotFoundException("History snapshot '%s' not found in: %s".formatted(snapshotId, storeDir));
+        }
+        return Files.readString(snapshotPath, StandardCharsets.UTF_8);
+    }
+
+    /// Saves the files of a [TableAvroSchemas] into an object directory: the checksum file goes last,
+    /// as it marks the object as complete.
+    private static void saveObject(final TableAvroSchemas tas, final Path objectDir) throws IOException {
+        final Path tempDir = Files.createTempDirectory(objectDir, TEMP_FILENAME_PREFIX);
+        try {
+            tas.saveTo(tempDir);
+            for (final String filename : TableAvroSchemas.filenames(tas.identifier())) {
+                if (Files.exists(tempDir.resolve(filename)) && !filename.equals(tas.checksumFilename())) {
+                    Files.move(tempDir.resolve(filename), objectDir.resolve(filename), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(tempDir.resolve(tas.checksumFilename()), objectDir.resolve(tas.checksumFilename()), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            try (final Stream<Path> leftovers = Files.list(tempDir)) {
+                for (final Path leftover : leftovers.toList()) {
+                    Files.deleteIfExists(leftover);
+                }
+            }
+            Files.deleteIfExists(tempDir);
+        }
+    }
+
+    private void writeAtomically(final Path path, final String content, final boolean replace) throws IOException {
+        final Path tempPath = Files.createTempFile(path.getParent(), TEMP_FILENAME_PREFIX, ".json");
+        try {
+            Files.writeString(tempPath, content, StandardCharsets.UTF_8);
+            if (replace) {
+                Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } else if (Files.exists(path)) {
+                throw new FileAlreadyExistsException(path.toString());
+            } else {
+                Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    private static String defaultSnapshotId(final MetadataFile meta) {
+        if (meta.vcsTag() != null) {
+            return meta.vcsTag().startsWith(TAG_REF_PREFIX) ? meta.vcsTag().substring(TAG_REF_PREFIX.length()) : meta.vcsTag();
+        }
+        if (meta.vcsCommit() != null) {
+            return meta.vcsCommit();
+        }
+        throw new IllegalArgumentException("Snapshot identifier required: no VCS tag or commit recorded in the metadata file");
+    }
+
+    private static void validateSnapshotId(final String snapshotId) {
+        if (!SNAPSHOT_ID_PATTERN.matcher(snapshotId).matches()) {
+            throw new IllegalArgumentException("Invalid snapshot identifier (expected: %s): %s".formatted(SNAPSHOT_ID_PATTERN, snapshotId));
+        }
+    }
+
+    private static String checksumFilename(final String identifier) {
+        return TableAvroSchemas.filenames(identifier).getLast();
+    }
+
+    /// [SchemasSource] of a snapshot: the metadata file is the snapshot's, while the files of each table are read
+    /// from the object of the table version in the snapshot.
+    private final class Source implements SchemasSource {
+        private final String snapshotId;
+        private final String metaJson;
+        private final Map<String, String> checksums;
+        private final Map<String, Path> paths = new HashMap<>();
+
+        private Source(final String snapshotId, final String metaJson, final Map<String, String> checksums) {
+            this.snapshotId = snapshotId;
+            this.metaJson = metaJson;
+            this.checksums = checksums;
+        }
+
+        @Override
+        public boolean exists(@Nonnull final String filename) {
+            if (filename.equals(MetadataFile.FILENAME)) {
+                return true;
+            }
+            final Path path = path(filename);
+            return path != null && Files.exists(path);
+        }
+
+        @Override
+        public String read(@Nonnull final String filename) throws IOException {
+            if (filename.equals(MetadataFile.FILENAME)) {
+                return metaJson;
+            }
+            final Path path = path(filename);
+            if (path == null || !Files.exists(path)) {
+                throw new FileNotFoundException(locate(filename));
+            }
+            return Files.readString(path, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String locate(@Nonnull final String filename) {
+            return LOCATION_PREFIX + snapshotId + "/" + filename;
+        }
+
+        private @Nullable Path path(final String filename) {
+            return paths.computeIfAbsent(filename, f -> {
+                final String identifier = TableAvroSchemas.identifierOf(f);
+                final String checksum = identifier != null ? checksums.get(identifier) : null;
+                return checksum != null ? storeDir.resolve(OBJECTS_DIRNAME).resolve(checksum).resolve(f) : null;
+            });
+        }
+    }
+}
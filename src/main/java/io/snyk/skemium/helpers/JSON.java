@@ -29,6 +29,10 @@ public class JSON {
         return OBJECT_MAPPER.readValue(source, clazz);
     }
 
+    public static <T> T from(final String source, final Class<T> clazz) throws IOException {
+        return OBJECT_MAPPER.readValue(source, clazz);
+    }
+
     public static String pretty(final Object jsonObj) throws JsonProcessingException {
         return OBJECT_MAPPER
                 .writerWithDefaultPrettyPrinter()
@@ -7,6 +7,7 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.confluent.kafka.schemaregistry.CompatibilityChecker;
 import io.confluent.kafka.schemaregistry.CompatibilityLevel;
 import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.snyk.skemium.avro.SchemaDiff;
 import io.snyk.skemium.avro.TableAvroSchemas;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,38 +38,55 @@ public class SchemaRegistry {
             LOG.warn("Checking compatibility of Table Avro Schemas with mismatching identifiers: '{}' != '{}'", curr.identifier(), next.identifier());
         }
 
-        // Key _might_ be NULL, so we need to account for it
-        List<String> keyCompatibilityErrors;
+        return new CompatibilityResult(
+                compatibilityLevel,
+                checkKeyCompatibility(curr, next, checker),
+                checker.isCompatible(
+                        next.valueSchemaToSchemaRegistryAvroSchema(),
+                        List.of(curr.valueSchemaToSchemaRegistryAvroSchema())),
+                checker.isCompatible(
+                        next.envelopeSchemaToSchemaRegistryAvroSchema(),
+                        List.of(curr.envelopeSchemaToSchemaRegistryAvroSchema())));
+    }
+
+    /// Check compatibility between the Key Schemas of a "Curr(ent)" and a "Next" [TableAvroSchemas],
+    /// applying the given [CompatibilityLevel].
+    ///
+    /// The Key Schema _might_ be `null` (e.g. table without primary key): changing from/to `null` is an incompatibility.
+    ///
+    /// @param curr               Current schemas, provided as a [TableAvroSchemas]
+    /// @param next               Next schemas, provided as a [TableAvroSchemas]
+    /// @param compatibilityLevel Compatibility Level to apply
+    /// @return List of incompatibility error messages, empty if compatible
+    public static List<String> checkKeyCompatibility(@Nonnull final TableAvroSchemas curr,
+                                                     @Nonnull final TableAvroSchemas next,
+                                                     @Nonnull final CompatibilityLevel compatibilityLevel) {
+        return checkKeyCompatibility(curr, next, CompatibilityChecker.checker(compatibilityLevel));
+    }
+
+    private static List<String> checkKeyCompatibility(final TableAvroSchemas curr,
+                                                      final TableAvroSchemas next,
+                                                      final CompatibilityChecker checker) {
         if (curr.keySchema() != null && next.keySchema() != null) {         // curr.key=NOT NULL, next.key=NOT NULL
-            keyCompatibilityErrors = checker.isCompatible(
+            return checker.isCompatible(
                     next.keySchemaToSchemaRegistryAvroSchema(),
                     List.of(curr.keySchemaToSchemaRegistryAvroSchema())
             );
         } else if (curr.keySchema() == null && next.keySchema() == null) {  // curr.key=NULL, next.key=NULL
-            keyCompatibilityErrors = List.of();
+            return List.of();
         } else if (curr.keySchema() == null) {                              // curr.key=NULL, next.key=NOT NULL
-            keyCompatibilityErrors = List.of(
+            return List.of(
                     "Key Schema for '%s' changed from NULL to NOT NULL (%s)".formatted(
                             curr.identifier(),
                             next.keySchema().toString())
             );
         } else {                                                            // curr.key=NOT NULL, next.key=NULL
-            keyCompatibilityErrors = List.of(
+            return List.of(
                     "Key Schema for '%s' changed from NOT NULL (%s) to NULL".formatted(
                             curr.identifier(),
                             curr.keySchema().toString())
             );
         }
-
-        return new CompatibilityResult(
-                compatibilityLevel,
-                keyCompatibilityErrors,
-                checker.isCompatible(
-                        next.valueSchemaToSchemaRegistryAvroSchema(),
-                        List.of(curr.valueSchemaToSchemaRegistryAvroSchema())),
-                checker.isCompatible(
-                        next.envelopeSchemaToSchemaRegistryAvroSchema(),
-                        List.of(curr.envelopeSchemaToSchemaRegistryAvroSchema())));
     }
 
     /// Check compatibility between two individual AvroSchema objects, applying the
@@ -167,7 +185,7 @@ public class SchemaRegistry {
 
     /// Detect changes between current and next TableAvroSchemas.
     /// This identifies if schemas have actually changed, regardless of
-    /// compatibility.
+    /// compatibility, via a field-level [SchemaDiff] of each schema.
     ///
     /// @param curr Current schemas, provided as a [TableAvroSchemas]
     /// @param next Next schemas, provided as a [TableAvroSchemas]
@@ -179,30 +197,10 @@ public class SchemaRegistry {
                     curr.identifier(), next.identifier());
         }
 
-        // Check key schema changes
-        boolean keyChanged;
-        if (curr.keySchema() != null && next.keySchema() != null) {
-            // Both have key schemas - compare them
-            keyChanged = !checkSchemaEquality(
-                    curr.keySchemaToSchemaRegistryAvroSchema(),
-                    next.keySchemaToSchemaRegistryAvroSchema());
-        } else if (curr.keySchema() == null && next.keySchema() == null) {
-            // Both null - no change
-            keyChanged = false;
-        } else {
-            // One is null, the other isn't - definitely changed
-            keyChanged = true;
-        }
-
-        // Check value schema changes (value schema is always present)
-        final boolean valueChanged = !checkSchemaEquality(
-                curr.valueSchemaToSchemaRegistryAvroSchema(),
-                next.valueSchemaToSchemaRegistryAvroSchema());
-
-        // Check envelope schema changes (envelope schema is always present)
-        final boolean envelopeChanged = !checkSchemaEquality(
-                curr.envelopeSchemaToSchemaRegistryAvroSchema(),
-                next.envelopeSchemaToSchemaRegistryAvroSchema());
+        // A missing Key Schema (e.g. table without primary key) is a change only if the other one is present
+        final boolean keyChanged = !SchemaDiff.between(curr.keySchema(), next.keySchema()).isEmpty();
+        final boolean valueChanged = !SchemaDiff.between(curr.valueSchema(), next.valueSchema()).isEmpty();
+        final boolean envelopeChanged = !SchemaDiff.between(curr.envelopeSchema(), next.envelopeSchema()).isEmpty();
 
         LOG.debug("Schema changes detected for '{}': key={}, value={}, envelope={}",
                 curr.identifier(), keyChanged, valueChanged, envelopeChanged);
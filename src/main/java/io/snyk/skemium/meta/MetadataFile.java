@@ -4,6 +4,8 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import io.snyk.skemium.avro.SchemaInterner;
+import io.snyk.skemium.avro.SchemasSource;
 import io.snyk.skemium.avro.TableAvroSchemas;
 import io.snyk.skemium.helpers.Git;
 import io.snyk.skemium.helpers.JSON;
@@ -12,6 +14,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintWriter;
@@ -21,6 +24,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.function.BinaryOperator;
 import java.util.stream.Collectors;
 
@@ -37,6 +41,11 @@ import java.util.stream.Collectors;
 /// @param vcsCommit      Local VCS commit at the time of the generation, if any; `NULL` otherwise.
 /// @param vcsBranch      Local VCS branch at the time of the generation, if any; `NULL` otherwise.
 /// @param vcsTag         Local VCS tag at the time of the generation, if any; `NULL` otherwise.
+/// @param references     A [Map] of identifiers of tables whose Avro Schemas were not saved,
+///                       to the identifier of the table with the same structure whose Avro Schemas stand in for them
+///                       (see [TableAvroSchemas#withIdentifier(String)]); `NULL` if there are none.
+/// @param fingerprints   A [Map] of catalog fingerprints of the tables, indexed by their identifier, used by
+///                       `generate --incremental-from` to skip unchanged tables; `NULL` if not supported by the Database.
 public record MetadataFile(
         @JsonFormat(without = {
                 JsonFormat.Feature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS,
@@ -57,7 +66,11 @@ public record MetadataFile(
         @JsonProperty("vcsBranch")
         String vcsBranch,
         @JsonProperty("vcsTag")
-        String vcsTag
+        String vcsTag,
+        @JsonProperty("references")
+        TreeMap<String, String> references,
+        @JsonProperty("fingerprints")
+        TreeMap<String, String> fingerprints
 ) {
     private static final Logger LOG = LoggerFactory.getLogger(MetadataFile.class);
 
@@ -69,8 +82,52 @@ public record MetadataFile(
 
     public static MetadataFile build(@Nonnull List<String> arguments,
                                      @Nonnull List<TableAvroSchemas> avroSchemas) throws JsonProcessingException {
-        final Git.GitInfo gitInfo = Git.tryGetInfo(Path.of("."));
+        return build(arguments, avroSchemas, Map.of());
+    }
+
+    /// Builds a [MetadataFile] for the given [TableAvroSchemas], plus the tables referencing them.
+    ///
+    /// @param arguments   Command line arguments passed to the `generate` command
+    /// @param avroSchemas [List] of the [TableAvroSchemas] saved
+    /// @param references  [Map] of identifiers of tables not saved, to the identifier of the [TableAvroSchemas]
+    ///                    that stands in for them
+    /// @return A [MetadataFile]
+    public static MetadataFile build(@Nonnull List<String> arguments,
+                                     @Nonnull List<TableAvroSchemas> avroSchemas,
+                                     @Nonnull Map<String, String> references) throws JsonProcessingException {
+        return build(arguments, avroSchemas, references, Git.tryGetInfo(Path.of(".")));
+    }
 
+    /// Same as [#build(List, List, Map)], but with the [Git.GitInfo] already gathered
+    /// (e.g. via [Git#tryGetInfoAsync(Path)], while fetching from the Database).
+    ///
+    /// @param arguments   Command line arguments passed to the `generate` command
+    /// @param avroSchemas [List] of the [TableAvroSchemas] saved
+    /// @param references  [Map] of identifiers of tables not saved, to the identifier of the [TableAvroSchemas]
+    ///                    that stands in for them
+    /// @param gitInfo     [Git.GitInfo] of the local repository
+    /// @return A [MetadataFile]
+    public static MetadataFile build(@Nonnull List<String> arguments,
+                                     @Nonnull List<TableAvroSchemas> avroSchemas,
+                                     @Nonnull Map<String, String> references,
+                                     @Nonnull Git.GitInfo gitInfo) throws JsonProcessingException {
+        return build(arguments, avroSchemas, references, Map.of(), gitInfo);
+    }
+
+    /// Same as [#build(List, List, Map, Git.GitInfo)], but also recording the catalog fingerprints of the tables.
+    ///
+    /// @param arguments    Command line arguments passed to the `generate` command
+    /// @param avroSchemas  [List] of the [TableAvroSchemas] saved
+    /// @param references   [Map] of identifiers of tables not saved, to the identifier of the [TableAvroSchemas]
+    ///                     that stands in for them
+    /// @param fingerprints [Map] of identifiers of tables, to their catalog fingerprint
+    /// @param gitInfo      [Git.GitInfo] of the local repository
+    /// @return A [MetadataFile]
+    public static MetadataFile build(@Nonnull List<String> arguments,
+                                     @Nonnull List<TableAvroSchemas> avroSchemas,
+                                     @Nonnull Map<String, String> references,
+                                     @Nonnull Map<String, String> fingerprints,
+                                     @Nonnull Git.GitInfo gitInfo) throws JsonProcessingException {
         return new MetadataFile(Instant.now(),
                 arguments,
                 avroSchemas.size(),
@@ -85,7 +142,9 @@ public record MetadataFile(
                         .collect(Collectors.joining())),
                 gitInfo.commit(),
                 gitInfo.branch(),
-                gitInfo.tag());
+                gitInfo.tag(),
+                references.isEmpty() ? null : new TreeMap<>(references),
+                fingerprints.isEmpty() ? null : new TreeMap<>(fingerprints));
     }
 
     /// Save a file with the content of [MetadataFile] in the given directory [Path].
@@ -113,6 +172,15 @@ public record MetadataFile(
         return JSON.from(fileInputPath.toFile(), MetadataFile.class);
     }
 
+    /// Loads an [MetadataFile] from a [SchemasSource].
+    ///
+    /// @param source [SchemasSource] to load the file from
+    /// @return An [MetadataFile]
+    /// @throws IOException
+    public static MetadataFile loadFrom(@Nonnull final SchemasSource source) throws IOException {
+        return JSON.from(source.read(FILENAME.toString()), MetadataFile.class);
+    }
+
     @JsonProperty(value = "created_ISO8601", required = true, access = JsonProperty.Access.READ_ONLY, index = 0)
     public String createdISO8601() {
         return created.toString();
@@ -129,4 +197,65 @@ public record MetadataFile(
     public boolean hasTableSchemas(String identifier) {
         return schemas.containsKey(identifier);
     }
+
+    /// Loads the [TableAvroSchemas] of one of the tables described by this [MetadataFile].
+    ///
+    /// If the table is a reference, the [TableAvroSchemas] of the referenced table are loaded instead,
+    /// and assigned the identifier of the table (see [TableAvroSchemas#withIdentifier(String)]).
+    ///
+    /// @param inputDir   [Path] to the directory this [MetadataFile] was loaded from
+    /// @param identifier The identifier of the table
+    /// @return An [TableAvroSchemas]
+    /// @throws IOException
+    public TableAvroSchemas loadTableAvroSchemas(@Nonnull final Path inputDir, @Nonnull final String identifier) throws IOException {
+        return loadTableAvroSchemas(SchemasSource.directory(inputDir), identifier);
+    }
+
+    /// Same as [#loadTableAvroSchemas(Path, String)], but loading the files from a [SchemasSource].
+    ///
+    /// @param source     [SchemasSource] this [MetadataFile] was loaded from
+    /// @param identifier The identifier of the table
+    /// @return An [TableAvroSchemas]
+    /// @throws IOException
+    public TableAvroSchemas loadTableAvroSchemas(@Nonnull final SchemasSource source, @Nonnull final String identifier) throws IOException {
+        return loadTableAvroSchemas(source, identifier, new SchemaInterner());
+    }
+
+    /// Same as [#loadTableAvroSchemas(SchemasSource, String)], sharing sub-schemas with the other tables interned by `interner`.
+    ///
+    /// @param source     [SchemasSource] this [MetadataFile] was loaded from
+    /// @param identifier The identifier of the table
+    /// @param interner   [SchemaInterner] of the tables loaded (or built) together (e.g. by one comparison)
+    /// @return An [TableAvroSchemas]
+    /// @throws IOException
+    public TableAvroSchemas loadTableAvroSchemas(@Nonnull final SchemasSource source,
+                                                 @Nonnull final String identifier,
+                                                 @Nonnull final SchemaInterner interner) throws IOException {
+        final String reference = getReference(identifier);
+        if (reference != null) {
+            LOG.trace("Table '{}' references '{}'", identifier, reference);
+            return source.load(reference, interner).withIdentifier(identifier, interner);
+        }
+        return source.load(identifier, interner);
+    }
+
+    @JsonIgnore
+    /// Identifiers of all the tables described: the ones with [TableAvroSchemas] saved, and the ones referencing them.
+    public Set<String> getTableIdentifiers() {
+        if (references == null || references.isEmpty()) {
+            return schemas.keySet();
+        }
+
+        final Set<String> identifiers = new TreeSet<>(schemas.keySet());
+        identifiers.addAll(references.keySet());
+        return identifiers;
+    }
+
+    @JsonIgnore
+    /// Shorthand to get the identifier of the [TableAvroSchemas] standing in for the given table.
+    ///
+    /// @return The identifier of the referenced table, or `null` if the given table is not a reference
+    public @Nullable String getReference(String identifier) {
+        return references != null ? references.get(identifier) : null;
+    }
 }
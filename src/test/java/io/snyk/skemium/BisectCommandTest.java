@@ -0,0 +1,144 @@
+package io.snyk.skemium;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.confluent.kafka.schemaregistry.CompatibilityLevel;
+import io.snyk.skemium.avro.TableAvroSchemas;
+import io.snyk.skemium.helpers.Avro;
+import io.snyk.skemium.helpers.JSON;
+import io.snyk.skemium.meta.MetadataFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.shaded.org.apache.commons.io.FileUtils;
+import picocli.CommandLine;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BisectCommandTest {
+    Path REPO_DIR;
+    Path OUTPUT_FILE;
+
+    @BeforeEach
+    public void createTempFiles() throws Exception {
+        REPO_DIR = Files.createTempDirectory("skemium-test-bisect-");
+        OUTPUT_FILE = Files.createTempFile("skemium-test-bisect-result", ".json");
+
+        final Path dirPath = TestHelper.RESOURCES.resolve("schema_change-non_backward_compatible");
+        final TableAvroSchemas currArtist = TableAvroSchemas.loadFrom(dirPath.resolve("current"), "chinook.public.artist");
+        final TableAvroSchemas nextArtist = TableAvroSchemas.loadFrom(dirPath.resolve("next"), "chinook.public.artist");
+        final TableAvroSchemas employee = TableAvroSchemas.loadFrom(TestHelper.RESOURCES.resolve("schema_employee"), "chinook.public.employee");
+        final TableAvroSchemas otherEmployee = employee.withIdentifier("chinook.public.other_employee");
+        final Path schemasDir = Files.createDirectories(REPO_DIR.resolve("schemas"));
+
+        try (final org.eclipse.jgit.api.Git git = org.eclipse.jgit.api.Git.init().setDirectory(REPO_DIR.toFile()).call()) {
+            saveAndCommit(git, schemasDir, "good", List.of(currArtist, employee));
+            git.tag().setName("good").call();
+
+            // Not modifying the schemas: not a candidate
+            Files.writeString(REPO_DIR.resolve("README.md"), "test");
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("readme").setSign(false).call();
+
+            saveAndCommit(git, schemasDir, "add other_employee", List.of(currArtist, employee, otherEmployee));
+            saveAndCommit(git, schemasDir, "break artist", List.of(nextArtist, employee, otherEmployee));
+            saveAndCommit(git, schemasDir, "remove other_employee", List.of(nextArtist, employee));
+        }
+    }
+
+    private static void saveAndCommit(final org.eclipse.jgit.api.Git git,
+                                      final Path schemasDir,
+                                      final String message,
+                                      final List<TableAvroSchemas> tables) throws Exception {
+        FileUtils.cleanDirectory(schemasDir.toFile());
+        for (final TableAvroSchemas tas : tables) {
+            tas.saveTo(schemasDir);
+        }
+        MetadataFile.build(List.of(), tables).saveTo(schemasDir);
+        git.add().addFilepattern(".").call();
+        git.add().setUpdate(true).addFilepattern(".").call();
+        git.commit().setMessage(message).setSign(false).call();
+    }
+
+    @AfterEach
+    public void deleteTempFiles() throws IOException {
+        if (REPO_DIR != null) {
+            FileUtils.deleteDirectory(REPO_DIR.toFile());
+        }
+        if (OUTPUT_FILE != null) {
+            Files.deleteIfExists(OUTPUT_FILE);
+        }
+    }
+
+    @Test
+    void refreshBisectResultFileSchema() throws JsonProcessingException, FileNotFoundException {
+        Avro.saveAvroSchemaForType(BisectResult.class, BisectResult.AVRO_SCHEMA_FILENAME);
+    }
+
+    @Test
+    public void shouldFindFirstIncompatibleCommit() throws IOException {
+        final BisectResult res = BisectResult.build(REPO_DIR, "schemas", "good", "HEAD", Set.of(), CompatibilityLevel.BACKWARD, false);
+        assertTrue(res.found());
+        assertEquals("break artist", res.firstBadCommit().summary());
+        assertEquals(Set.of("chinook.public.artist"), res.tables());
+        assertEquals(3, res.commitsTotal());
+        assertEquals(3, res.checksTotal());
+        assertFalse(res.valueIncompatibilities().get("chinook.public.artist").isEmpty());
+        assertTrue(res.tablesWithChanges().isEmpty());
+
+        // Nothing fails up to the commit before
+        final BisectResult beforeRes = BisectResult.build(REPO_DIR, "schemas", "good", "HEAD~2", Set.of(), CompatibilityLevel.BACKWARD, false);
+        assertFalse(beforeRes.found());
+        assertNull(beforeRes.firstBadCommit());
+        assertEquals(1, beforeRes.commitsTotal());
+
+        // Unrelated tables are never loaded past GOOD
+        final BisectResult employeeRes = BisectResult.build(REPO_DIR, "schemas", "good", "HEAD", Set.of("chinook.public.employee"), CompatibilityLevel.BACKWARD, false);
+        assertFalse(employeeRes.found());
+        assertEquals(1, employeeRes.checksTotal());
+
+        assertThrows(IllegalArgumentException.class, () -> BisectResult.build(REPO_DIR, "schemas", "good", "HEAD", Set.of("chinook.public.other_employee"), CompatibilityLevel.BACKWARD, false));
+        assertThrows(IOException.class, () -> BisectResult.build(REPO_DIR, "schemas", "missing", "HEAD", Set.of(), CompatibilityLevel.BACKWARD, false));
+    }
+
+    @Test
+    public void shouldFindFirstChangedCommitInCIMode() throws IOException {
+        final BisectResult res = BisectResult.build(REPO_DIR, "schemas", "good", "HEAD", Set.of(), CompatibilityLevel.NONE, true);
+        assertTrue(res.found());
+        assertEquals("break artist", res.firstBadCommit().summary());
+        assertEquals(Set.of("chinook.public.artist"), res.tablesWithChanges());
+        assertTrue(res.valueIncompatibilities().isEmpty());
+    }
+
+    @Test
+    public void shouldBisectViaCommandLine() throws IOException {
+        final CommandLine cmdLine = new CommandLine(new BisectCommand())
+                .setOut(new PrintWriter(new StringWriter()))
+                .setErr(new PrintWriter(new StringWriter()));
+
+        assertEquals(0, cmdLine.execute(
+                "--repository", REPO_DIR.toString(),
+                "--output", OUTPUT_FILE.toAbsolutePath().toString(),
+                "good", "HEAD", "./schemas/"));
+        final BisectResult res = JSON.from(OUTPUT_FILE.toFile(), BisectResult.class);
+        assertEquals("break artist", res.firstBadCommit().summary());
+        assertEquals("schemas", res.schemasPath());
+
+        assertEquals(1, cmdLine.execute(
+                "--repository", REPO_DIR.toString(),
+                "--table", "chinook.public.employee",
+                "good", "HEAD", "schemas"));
+    }
+}
@@ -2,8 +2,10 @@ package io.snyk.skemium;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import io.confluent.kafka.schemaregistry.CompatibilityLevel;
+import io.snyk.skemium.avro.TableAvroSchemas;
 import io.snyk.skemium.helpers.Avro;
 import io.snyk.skemium.helpers.JSON;
+import io.snyk.skemium.meta.MetadataFile;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -18,6 +20,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -25,6 +28,7 @@ import java.util.Set;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class CompareCommandTest extends WithPostgresContainer {
@@ -228,6 +232,63 @@ class CompareCommandTest extends WithPostgresContainer {
         assertEquals(Set.of(), res.addedTables());
     }
 
+    @Test
+    public void shouldCompareDirectoryAgainstDatabase() throws IOException, SQLException {
+        final List<String> dbArgs = List.of(
+                "--hostname", POSTGRES_CONTAINER.getHost(),
+                "--port", POSTGRES_CONTAINER.getMappedPort(POSTGRES_DEFAULT_PORT).toString(),
+                "--database", DB_NAME,
+                "--username", DB_USER,
+                "--password", DB_PASS,
+                "--table", "artist,album");
+        final CommandLine generateCmdLine = new CommandLine(new GenerateCommand())
+                .setOut(new PrintWriter(new StringWriter()))
+                .setErr(new PrintWriter(new StringWriter()));
+        final CommandLine compareCmdLine = new CommandLine(new CompareCommand())
+                .setOut(new PrintWriter(new StringWriter()))
+                .setErr(new PrintWriter(new StringWriter()));
+
+        final List<String> generateArgs = new ArrayList<>(dbArgs);
+        generateArgs.add(CURR_DIR.toAbsolutePath().toString());
+        assertEquals(0, generateCmdLine.execute(generateArgs.toArray(String[]::new)));
+
+        final List<String> compareArgs = new ArrayList<>(dbArgs);
+        compareArgs.addAll(List.of("--next-db", "--ci-mode", "--output", OUTPUT_FILE.toAbsolutePath().toString(), CURR_DIR.toAbsolutePath().toString()));
+
+        // Database unchanged: no schema changes
+        assertEquals(0, compareCmdLine.execute(compareArgs.toArray(String[]::new)));
+        CompareResult res = JSON.from(OUTPUT_FILE.toFile(), CompareResult.class);
+        assertEquals(Path.of("postgres:%s:%s/%s".formatted(POSTGRES_CONTAINER.getHost(), POSTGRES_CONTAINER.getMappedPort(POSTGRES_DEFAULT_PORT), DB_NAME)), res.nextSchemasDir());
+        assertEquals(Set.of("chinook.public.artist", "chinook.public.album"), res.valueIncompatibilities().keySet());
+        assertFalse(res.hasAnySchemaChanges());
+
+        try (final Connection connection = getConnection()) {
+            connection.prepareStatement("ALTER TABLE chinook.public.artist ALTER COLUMN name SET NOT NULL").execute();
+        }
+        try {
+            // Database changed: same result as comparing with the output of `generate`, without writing it
+            assertEquals(1, compareCmdLine.execute(compareArgs.toArray(String[]::new)));
+            res = JSON.from(OUTPUT_FILE.toFile(), CompareResult.class);
+
+            final List<String> generateNextArgs = new ArrayList<>(dbArgs);
+            generateNextArgs.add(NEXT_DIR.toAbsolutePath().toString());
+            assertEquals(0, generateCmdLine.execute(generateNextArgs.toArray(String[]::new)));
+            final CompareResult fromDirs = CompareResult.build(CURR_DIR, NEXT_DIR, CompatibilityLevel.BACKWARD);
+            assertEquals(fromDirs.valueIncompatibilities(), res.valueIncompatibilities());
+            assertEquals(fromDirs.envelopeIncompatibilities(), res.envelopeIncompatibilities());
+            assertEquals(fromDirs.valueSchemaChanged(), res.valueSchemaChanged());
+        } finally {
+            try (final Connection connection = getConnection()) {
+                connection.prepareStatement("ALTER TABLE chinook.public.artist ALTER COLUMN name DROP NOT NULL").execute();
+            }
+        }
+
+        // NEXT_SCHEMAS_DIR and --next-db are mutually exclusive, and one of them is required
+        compareArgs.add(NEXT_DIR.toAbsolutePath().toString());
+        assertEquals(2, compareCmdLine.execute(compareArgs.toArray(String[]::new)));
+        assertEquals(2, compareCmdLine.execute(CURR_DIR.toAbsolutePath().toString()));
+    }
+
     @Test
     public void shouldReportIncompatibleSchemaChange_AddMandatoryColumnWithoutDefaultValue() throws IOException, SQLException {
         // TODO Map logger to stdout/err, if possible
@@ -545,4 +606,227 @@ class CompareCommandTest extends WithPostgresContainer {
 
         assertEquals(0, cmdLine.execute("--ci-mode", "--compatibility", CompatibilityLevel.BACKWARD.toString(), currDir.toAbsolutePath().toString(), nextDir.toAbsolutePath().toString()));
     }
+
+    @Test
+    public void shouldCheckChangedTablesFirstAndStopInFailFastMode() throws IOException {
+        final Path dirPath = Path.of("src/test/resources/schema_change-non_backward_compatible");
+        final TableAvroSchemas currArtist = TableAvroSchemas.loadFrom(dirPath.resolve("current"), "chinook.public.artist");
+        final TableAvroSchemas nextArtist = TableAvroSchemas.loadFrom(dirPath.resolve("next"), "chinook.public.artist");
+        final TableAvroSchemas employee = TableAvroSchemas.loadFrom(Path.of("src/test/resources/schema_employee"), "chinook.public.employee");
+
+        // Unchanged tables sort before the incompatible one
+        final List<TableAvroSchemas> unchanged = List.of(
+                employee.withIdentifier("chinook.public.aa_employee"),
+                employee.withIdentifier("chinook.public.ab_employee"),
+                employee.withIdentifier("chinook.public.ac_employee"));
+        final List<TableAvroSchemas> currTables = new ArrayList<>(unchanged);
+        currTables.add(currArtist);
+        final List<TableAvroSchemas> nextTables = new ArrayList<>(unchanged);
+        nextTables.add(nextArtist);
+        for (final TableAvroSchemas tas : currTables) {
+            tas.saveTo(CURR_DIR);
+        }
+        MetadataFile.build(List.of(), currTables).saveTo(CURR_DIR);
+        for (final TableAvroSchemas tas : nextTables) {
+            tas.saveTo(NEXT_DIR);
+        }
+        MetadataFile.build(List.of(), nextTables).saveTo(NEXT_DIR);
+
+        final CompareResult fullResult = CompareResult.build(CURR_DIR, NEXT_DIR, CompatibilityLevel.BACKWARD);
+        assertFalse(fullResult.truncated());
+        assertEquals(4, fullResult.keySchemaChanged().size());
+
+        // Stops right after the changed table, checked first
+        final CompareResult failFastResult = CompareResult.build(CURR_DIR, NEXT_DIR, CompatibilityLevel.BACKWARD, CompareResult.Options.DEFAULT.withFailFast(CompareResult.FailFast.ON_INCOMPATIBILITY));
+        assertTrue(failFastResult.truncated());
+        assertEquals(Set.of("chinook.public.artist"), failFastResult.keySchemaChanged().keySet());
+        assertEquals(fullResult.incompatibilitiesTotal(), failFastResult.incompatibilitiesTotal());
+
+        // A compatible change is enough to stop, in CI mode
+        final CompareResult ciFailFastResult = CompareResult.build(CURR_DIR, NEXT_DIR, CompatibilityLevel.NONE, CompareResult.Options.DEFAULT.withFailFast(CompareResult.FailFast.ON_CHANGE));
+        assertTrue(ciFailFastResult.truncated());
+        assertEquals(0, ciFailFastResult.incompatibilitiesTotal());
+        assertEquals(Set.of("chinook.public.artist"), ciFailFastResult.tablesWithChanges());
+
+        // Without changes, all tables are checked
+        final CompareResult noChangesResult = CompareResult.build(CURR_DIR, CURR_DIR, CompatibilityLevel.BACKWARD, CompareResult.Options.DEFAULT.withFailFast(CompareResult.FailFast.ON_CHANGE));
+        assertFalse(noChangesResult.truncated());
+        assertEquals(4, noChangesResult.keySchemaChanged().size());
+
+        // Skipping unchanged tables (via checksums, as these are plain directories) gives the same result
+        final CompareResult skipUnchangedResult = CompareResult.build(CURR_DIR, NEXT_DIR, CompatibilityLevel.BACKWARD, CompareResult.Options.DEFAULT.withMatrix(true).withSkipUnchanged(true));
+        assertEquals(fullResult.keyIncompatibilities(), skipUnchangedResult.keyIncompatibilities());
+        assertEquals(fullResult.valueIncompatibilities(), skipUnchangedResult.valueIncompatibilities());
+        assertEquals(fullResult.keySchemaChanged(), skipUnchangedResult.keySchemaChanged());
+        assertEquals(fullResult.tablesWithChanges(), skipUnchangedResult.tablesWithChanges());
+        assertTrue(skipUnchangedResult.compatibilityMatrix().get("chinook.public.aa_employee").values().stream().allMatch(Boolean::booleanValue));
+
+        final CommandLine cmdLine = new CommandLine(new CompareCommand()).setOut(new PrintWriter(new StringWriter())).setErr(new PrintWriter(new StringWriter()));
+        assertEquals(1, cmdLine.execute("--fail-fast", "--output", OUTPUT_FILE.toAbsolutePath().toString(), CURR_DIR.toAbsolutePath().toString(), NEXT_DIR.toAbsolutePath().toString()));
+        assertTrue(JSON.from(OUTPUT_FILE.toFile(), CompareResult.class).truncated());
+    }
+
+    @Test
+    public void shouldCheckTransitiveCompatibilityAgainstHistory() throws IOException {
+        final Path dirPath = Path.of("src/test/resources/schema_change-non_backward_compatible");
+        final TableAvroSchemas oldArtist = TableAvroSchemas.loadFrom(dirPath.resolve("current"), "chinook.public.artist");
+        final TableAvroSchemas artist = TableAvroSchemas.loadFrom(dirPath.resolve("next"), "chinook.public.artist");
+        final TableAvroSchemas employee = TableAvroSchemas.loadFrom(Path.of("src/test/resources/schema_employee"), "chinook.public.employee");
+
+        // The same old version of the table, in multiple history directories (and absent from the last one)
+        final List<Path> historyDirs = new ArrayList<>();
+        for (final List<TableAvroSchemas> historyTables : List.of(List.of(oldArtist, employee), List.of(oldArtist, employee), List.of(employee))) {
+            final Path historyDir = Files.createTempDirectory("skemium-test-history-");
+            historyDirs.add(historyDir);
+            for (final TableAvroSchemas tas : historyTables) {
+                tas.saveTo(historyDir);
+            }
+            MetadataFile.build(List.of(), historyTables).saveTo(historyDir);
+        }
+        for (final Path dir : List.of(CURR_DIR, NEXT_DIR)) {
+            artist.saveTo(dir);
+            employee.saveTo(dir);
+            MetadataFile.build(List.of(), List.of(artist, employee)).saveTo(dir);
+        }
+
+        try {
+            // Non-transitive levels ignore the history
+            final CompareResult backwardResult = CompareResult.build(CURR_DIR, NEXT_DIR, CompatibilityLevel.BACKWARD, CompareResult.Options.DEFAULT.withHistory(historyDirs));
+            assertEquals(0, backwardResult.incompatibilitiesTotal());
+            assertEquals(historyDirs, backwardResult.historySchemasDirs());
+
+            // Transitive levels check NEXT against the old version too, reporting its incompatibilities once
+            final CompareResult transitiveResult = CompareResult.build(CURR_DIR, NEXT_DIR, CompatibilityLevel.BACKWARD_TRANSITIVE, CompareResult.Options.DEFAULT.withHistory(historyDirs).withMatrix(true));
+            final CompareResult oldVersionResult = CompareResult.build(historyDirs.get(0), NEXT_DIR, CompatibilityLevel.BACKWARD);
+            assertTrue(transitiveResult.incompatibilitiesTotal() > 0);
+            assertEquals(oldVersionResult.valueIncompatibilities(), transitiveResult.valueIncompatibilities());
+            assertEquals(oldVersionResult.envelopeIncompatibilities(), transitiveResult.envelopeIncompatibilities());
+            assertTrue(transitiveResult.compatibilityMatrix().get("chinook.public.artist").get(CompatibilityLevel.BACKWARD));
+            assertFalse(transitiveResult.compatibilityMatrix().get("chinook.public.artist").get(CompatibilityLevel.BACKWARD_TRANSITIVE));
+            assertTrue(transitiveResult.compatibilityMatrix().get("chinook.public.employee").get(CompatibilityLevel.FULL_TRANSITIVE));
+
+            final CommandLine cmdLine = new CommandLine(new CompareCommand()).setOut(new PrintWriter(new StringWriter())).setErr(new PrintWriter(new StringWriter()));
+            assertEquals(1, cmdLine.execute("--compatibility", CompatibilityLevel.BACKWARD_TRANSITIVE.toString(),
+                    "--history", historyDirs.get(0).toAbsolutePath() + "," + historyDirs.get(1).toAbsolutePath(),
+                    "--history", historyDirs.get(2).toAbsolutePath().toString(),
+                    CURR_DIR.toAbsolutePath().toString(), NEXT_DIR.toAbsolutePath().toString()));
+        } finally {
+            for (final Path historyDir : historyDirs) {
+                FileUtils.deleteDirectory(historyDir.toFile());
+            }
+        }
+    }
+
+    @Test
+    public void shouldCompareNextAgainstCurrentAndBase() throws IOException {
+        final Path dirPath = Path.of("src/test/resources/schema_change-non_backward_compatible");
+        final TableAvroSchemas baseArtist = TableAvroSchemas.loadFrom(dirPath.resolve("current"), "chinook.public.artist");
+        final TableAvroSchemas artist = TableAvroSchemas.loadFrom(dirPath.resolve("next"), "chinook.public.artist");
+
+        // The target branch (CURRENT) already has the change that NEXT is compatible with, but BASE doesn't
+        final Path baseDir = Files.createTempDirectory("skemium-test-base-");
+        baseArtist.saveTo(baseDir);
+        MetadataFile.build(List.of(), List.of(baseArtist)).saveTo(baseDir);
+        for (final Path dir : List.of(CURR_DIR, NEXT_DIR)) {
+            artist.saveTo(dir);
+            MetadataFile.build(List.of(), List.of(artist)).saveTo(dir);
+        }
+
+        try {
+            final CompareResult res = CompareResult.build(CURR_DIR, NEXT_DIR, CompatibilityLevel.BACKWARD, CompareResult.Options.DEFAULT.withBase(baseDir));
+            final CompareResult baseRes = CompareResult.build(baseDir, NEXT_DIR, CompatibilityLevel.BACKWARD);
+
+            assertEquals(baseDir, res.baseSchemasDir());
+            assertEquals(0, res.keyIncompatibilitiesTotal() + res.valueIncompatibilitiesTotal() + res.envelopeIncompatibilitiesTotal());
+            assertEquals(baseRes.keyIncompatibilities(), res.baseKeyIncompatibilities());
+            assertEquals(baseRes.valueIncompatibilities(), res.baseValueIncompatibilities());
+            assertEquals(baseRes.envelopeIncompatibilities(), res.baseEnvelopeIncompatibilities());
+            assertEquals(baseRes.incompatibilitiesTotal(), res.baseIncompatibilitiesTotal());
+            assertEquals(res.baseIncompatibilitiesTotal(), res.incompatibilitiesTotal());
+
+            // Two-way comparisons don't report on BASE
+            assertNull(CompareResult.build(CURR_DIR, NEXT_DIR, CompatibilityLevel.BACKWARD).baseKeyIncompatibilities());
+
+            final CommandLine cmdLine = new CommandLine(new CompareCommand()).setOut(new PrintWriter(new StringWriter())).setErr(new PrintWriter(new StringWriter()));
+            assertEquals(0, cmdLine.execute(CURR_DIR.toAbsolutePath().toString(), NEXT_DIR.toAbsolutePath().toString()));
+            assertEquals(1, cmdLine.execute("--base", baseDir.toAbsolutePath().toString(), CURR_DIR.toAbsolutePath().toString(), NEXT_DIR.toAbsolutePath().toString()));
+        } finally {
+            FileUtils.deleteDirectory(baseDir.toFile());
+        }
+    }
+
+    @Test
+    public void shouldMergeResultsOfTheAffectedTablesOnly() throws IOException {
+        final Path dirPath = Path.of("src/test/resources/schema_change-non_backward_compatible");
+        final TableAvroSchemas currArtist = TableAvroSchemas.loadFrom(dirPath.resolve("current"), "chinook.public.artist");
+        final TableAvroSchemas nextArtist = TableAvroSchemas.loadFrom(dirPath.resolve("next"), "chinook.public.artist");
+        final TableAvroSchemas employee = TableAvroSchemas.loadFrom(Path.of("src/test/resources/schema_employee"), "chinook.public.employee");
+
+        currArtist.saveTo(CURR_DIR);
+        employee.saveTo(CURR_DIR);
+        MetadataFile.build(List.of(), List.of(currArtist, employee)).saveTo(CURR_DIR);
+        currArtist.saveTo(NEXT_DIR);
+        employee.saveTo(NEXT_DIR);
+        MetadataFile.build(List.of(), List.of(currArtist, employee)).saveTo(NEXT_DIR);
+        final CompareResult prevResult = CompareResult.build(CURR_DIR, NEXT_DIR, CompatibilityLevel.BACKWARD);
+        assertEquals(0, prevResult.incompatibilitiesTotal());
+
+        // Artist changes and employee is dropped: only these are compared again
+        nextArtist.saveTo(NEXT_DIR);
+        for (final String filename : TableAvroSchemas.filenames(employee.identifier())) {
+            Files.delete(NEXT_DIR.resolve(filename));
+        }
+        MetadataFile.build(List.of(), List.of(nextArtist)).saveTo(NEXT_DIR);
+        final Set<String> affected = Set.of("chinook.public.artist", "chinook.public.employee");
+        final CompareResult partialResult = CompareResult.build(CURR_DIR, NEXT_DIR, CompatibilityLevel.BACKWARD, CompareResult.Options.DEFAULT.withTables(Set.of("chinook.public.artist")));
+        assertEquals(Set.of("chinook.public.artist"), partialResult.keySchemaChanged().keySet());
+        assertTrue(partialResult.removedTables().isEmpty());
+
+        final CompareResult fullResult = CompareResult.build(CURR_DIR, NEXT_DIR, CompatibilityLevel.BACKWARD);
+        final CompareResult mergedResult = prevResult.merge(CompareResult.build(CURR_DIR, NEXT_DIR, CompatibilityLevel.BACKWARD, CompareResult.Options.DEFAULT.withTables(affected)), affected);
+        assertEquals(fullResult.keyIncompatibilities(), mergedResult.keyIncompatibilities());
+        assertEquals(fullResult.valueIncompatibilities(), mergedResult.valueIncompatibilities());
+        assertEquals(fullResult.envelopeIncompatibilities(), mergedResult.envelopeIncompatibilities());
+        assertEquals(fullResult.keySchemaChanged(), mergedResult.keySchemaChanged());
+        assertEquals(fullResult.valueFieldChanges(), mergedResult.valueFieldChanges());
+        assertEquals(Set.of("chinook.public.employee"), mergedResult.removedTables());
+        assertTrue(mergedResult.addedTables().isEmpty());
+        assertTrue(mergedResult.incompatibilitiesTotal() > 0);
+    }
+
+    @Test
+    public void shouldCompareNextAgainstBaseTablesMissingFromCurrent() throws IOException {
+        final Path dirPath = Path.of("src/test/resources/schema_change-non_backward_compatible");
+        final TableAvroSchemas baseArtist = TableAvroSchemas.loadFrom(dirPath.resolve("current"), "chinook.public.artist");
+        final TableAvroSchemas artist = TableAvroSchemas.loadFrom(dirPath.resolve("next"), "chinook.public.artist");
+        final TableAvroSchemas employee = TableAvroSchemas.loadFrom(Path.of("src/test/resources/schema_employee"), "chinook.public.employee");
+
+        // The target branch (CURRENT) dropped the table, that NEXT changes incompatibly with BASE
+        final Path baseDir = Files.createTempDirectory("skemium-test-base-");
+        baseArtist.saveTo(baseDir);
+        employee.saveTo(baseDir);
+        MetadataFile.build(List.of(), List.of(baseArtist, employee)).saveTo(baseDir);
+        employee.saveTo(CURR_DIR);
+        MetadataFile.build(List.of(), List.of(employee)).saveTo(CURR_DIR);
+        artist.saveTo(NEXT_DIR);
+        employee.saveTo(NEXT_DIR);
+        MetadataFile.build(List.of(), List.of(artist, employee)).saveTo(NEXT_DIR);
+
+        try {
+            final CompareResult res = CompareResult.build(CURR_DIR, NEXT_DIR, CompatibilityLevel.BACKWARD, CompareResult.Options.DEFAULT.withBase(baseDir));
+            final CompareResult baseRes = CompareResult.build(baseDir, NEXT_DIR, CompatibilityLevel.BACKWARD);
+
+            assertEquals(Set.of("chinook.public.artist"), res.addedTables());
+            assertFalse(res.keyIncompatibilities().containsKey("chinook.public.artist"));
+            assertTrue(baseRes.incompatibilitiesTotal() > 0);
+            assertEquals(baseRes.valueIncompatibilities(), res.baseValueIncompatibilities());
+            assertEquals(baseRes.envelopeIncompatibilities(), res.baseEnvelopeIncompatibilities());
+            assertEquals(baseRes.incompatibilitiesTotal(), res.baseIncompatibilitiesTotal());
+
+            // Fails fast on it as well
+            assertTrue(CompareResult.build(CURR_DIR, NEXT_DIR, CompatibilityLevel.BACKWARD, CompareResult.Options.DEFAULT.withBase(baseDir).withFailFast(CompareResult.FailFast.ON_INCOMPATIBILITY)).baseIncompatibilitiesTotal() > 0);
+        } finally {
+            FileUtils.deleteDirectory(baseDir.toFile());
+        }
+    }
 }
@@ -0,0 +1,159 @@
+package io.snyk.skemium;
+
+import io.debezium.relational.TableId;
+import io.debezium.relational.TableSchema;
+import io.snyk.skemium.db.CatalogCapture;
+import io.snyk.skemium.db.CatalogFilter;
+import io.snyk.skemium.db.DatabaseKind;
+import io.snyk.skemium.db.PartitionMode;
+import io.snyk.skemium.db.TableSchemaFetcher;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import picocli.CommandLine;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseOptionsTest {
+    private static final String DB_NAME = "chinook";
+    private static final TableId ALBUM = new TableId(null, "public", "album");
+    private static final TableId EVENT = new TableId(null, "partitioning", "event");
+    private static final TableId EVENT_2025 = new TableId(null, "partitioning", "event_2025");
+
+    /// [TableSchemaFetcher] recording the tables it reads: their catalog never changes.
+    private static class RecordingFetcher implements TableSchemaFetcher {
+        private final List<TableId> read = new ArrayList<>();
+
+        @Override
+        public List<TableSchema> fetch(final String database, final CatalogFilter filter) {
+            List.of(ALBUM, EVENT, EVENT_2025).stream().filter(filter::includes).forEach(read::add);
+            return List.of();
+        }
+
+        @Override
+        public Map<TableId, TableId> fetchPartitions(final String database) {
+            return Map.of(EVENT_2025, EVENT);
+        }
+
+        @Override
+        public Map<TableId, String> fetchFingerprints(final String database, final Set<String> includedSchemas, final Set<String> includedTables) {
+            return Map.of(ALBUM, "album", EVENT, "event", EVENT_2025, "event");
+        }
+
+        @Override
+        public CatalogCapture capture(final String database, final Set<String> includedSchemas, final Set<String> includedTables) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static DatabaseOptions options(final PartitionMode partitionMode, final Set<String> dbTables) {
+        final DatabaseOptions options = new DatabaseOptions();
+        options.dbName = DB_NAME;
+        options.dbTables = dbTables;
+        options.partitionMode = partitionMode;
+        return options;
+    }
+
+    @Test
+    void shouldReadAllTablesWithAllPartitions() throws Exception {
+        final RecordingFetcher fetcher = new RecordingFetcher();
+        final Map<String, String> references = new HashMap<>();
+        options(PartitionMode.ALL, null).fetch(fetcher, references);
+
+        assertEquals(List.of(ALBUM, EVENT, EVENT_2025), fetcher.read);
+        assertTrue(references.isEmpty());
+    }
+
+    @Test
+    void shouldNeverReadPartitionsCollapsedOntoTheirParent() throws Exception {
+        final RecordingFetcher parentFetcher = new RecordingFetcher();
+        final Map<String, String> parentReferences = new HashMap<>();
+        options(PartitionMode.PARENT, null).fetch(parentFetcher, parentReferences);
+
+        assertEquals(List.of(ALBUM, EVENT), parentFetcher.read);
+        assertTrue(parentReferences.isEmpty());
+
+        final RecordingFetcher referenceFetcher = new RecordingFetcher();
+        final Map<String, String> references = new HashMap<>();
+        options(PartitionMode.REFERENCE, null).fetch(referenceFetcher, references);
+
+        assertEquals(List.of(ALBUM, EVENT), referenceFetcher.read);
+        assertEquals(Map.of("chinook.partitioning.event_2025", "chinook.partitioning.event"), references);
+    }
+
+    @Test
+    void shouldReadPartitionsWhoseParentIsNotSelected() throws Exception {
+        final RecordingFetcher fetcher = new RecordingFetcher();
+        final Map<String, String> references = new HashMap<>();
+        options(PartitionMode.REFERENCE, Set.of("album", "event_2025")).fetch(fetcher, references);
+
+        assertEquals(List.of(ALBUM, EVENT_2025), fetcher.read);
+        assertTrue(references.isEmpty());
+    }
+
+    @Test
+    void shouldReadExactlyTheGivenTables() throws Exception {
+        final RecordingFetcher fetcher = new RecordingFetcher();
+        final DatabaseOptions options = options(PartitionMode.ALL, Set.of("album", "event*"));
+
+        assertEquals(List.of(), options.fetch(fetcher, Set.of(EVENT_2025, new TableId(null, "public", "other"))));
+        assertEquals(List.of(EVENT_2025), fetcher.read);
+
+        fetcher.read.clear();
+        options.fetch(fetcher, Set.of());
+        assertEquals(List.of(), fetcher.read);
+    }
+
+    @Test
+    void shouldReadAllTablesAgainWhenPartitionModeChanges() throws Exception {
+        final RecordingFetcher fetcher = new RecordingFetcher();
+        final Map<String, String> fingerprints = new HashMap<>();
+        options(PartitionMode.REFERENCE, null).fetch(fetcher, new HashMap<>(), fingerprints, null, new HashSet<>());
+
+        assertEquals(List.of(ALBUM, EVENT), fetcher.read);
+        // Partitions collapsed onto their parent are not fingerprinted
+        assertEquals(Set.of("chinook.public.album", "chinook.partitioning.event"), fingerprints.keySet());
+
+        // Nothing changed
+        fetcher.read.clear();
+        final Set<String> unchanged = new HashSet<>();
+        options(PartitionMode.REFERENCE, null).fetch(fetcher, new HashMap<>(), new HashMap<>(), fingerprints, unchanged);
+        assertEquals(List.of(), fetcher.read);
+        assertEquals(fingerprints.keySet(), unchanged);
+
+        // Partitions are now read, and so is every other table
+        fetcher.read.clear();
+        final Map<String, String> allFingerprints = new HashMap<>();
+        final Set<String> allUnchanged = new HashSet<>();
+        options(PartitionMode.ALL, null).fetch(fetcher, new HashMap<>(), allFingerprints, fingerprints, allUnchanged);
+        assertEquals(List.of(ALBUM, EVENT, EVENT_2025), fetcher.read);
+        assertEquals(3, allFingerprints.size());
+        assertTrue(allUnchanged.isEmpty());
+    }
+
+    @Test
+    void shouldRequireAcceptingApproximateSchemasFromSchemaHistory(@TempDir final Path tmpDir) throws Exception {
+        final CommandLine commandLine = new CommandLine(new GenerateCommand());
+        final DatabaseOptions options = options(PartitionMode.ALL, null);
+        options.kind = DatabaseKind.SCHEMA_HISTORY;
+        options.schemaHistoryFile = Files.createFile(tmpDir.resolve("schema-history.dat"));
+
+        final CommandLine.ParameterException e = assertThrows(CommandLine.ParameterException.class, () -> options.validate(commandLine));
+        assertTrue(e.getMessage().contains("--schema-history-approximate"));
+
+        options.schemaHistoryApproximate = true;
+        assertDoesNotThrow(() -> options.validate(commandLine));
+    }
+}
@@ -13,8 +13,12 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -286,4 +290,164 @@ public class GenerateCommandTest extends WithPostgresContainer {
         assertNotNull(playlistTrackDec.envelopeSchema());
         assertNotNull(playlistTrackNoPKeyDec.envelopeSchema());
     }
+
+    @Test
+    void shouldDeduplicateTablesWithTheSameStructure() throws IOException, SQLException {
+        try (final Connection connection = getConnection()) {
+            connection.prepareStatement("""
+                    CREATE SCHEMA tenant_a;
+                    CREATE TABLE tenant_a.account (id INT PRIMARY KEY, name VARCHAR(50) NOT NULL);
+                    CREATE TABLE tenant_a.note (id INT PRIMARY KEY, body TEXT);
+                    CREATE SCHEMA tenant_b;
+                    CREATE TABLE tenant_b.account (id INT PRIMARY KEY, name VARCHAR(50) NOT NULL);
+                    CREATE TABLE tenant_b.note (id INT PRIMARY KEY, body TEXT, created DATE);
+                    CREATE SCHEMA tenant_c;
+                    CREATE TABLE tenant_c.account (id INT PRIMARY KEY, name VARCHAR(50) NOT NULL);
+                    CREATE TABLE tenant_c.note (id INT PRIMARY KEY, body TEXT);
+                    """).execute();
+        }
+
+        final Path fullDir = Files.createTempDirectory("skemium-test-full-");
+        try {
+            // TODO Map logger to stdout/err, if possible
+            final CommandLine cmdLine = new CommandLine(new GenerateCommand())
+                    .setOut(new PrintWriter(new StringWriter()))
+                    .setErr(new PrintWriter(new StringWriter()));
+
+            final List<String> args = List.of(
+                    "--hostname", POSTGRES_CONTAINER.getHost(),
+                    "--port", POSTGRES_CONTAINER.getMappedPort(POSTGRES_DEFAULT_PORT).toString(),
+                    "--database", DB_NAME,
+                    "--username", DB_USER,
+                    "--password", DB_PASS,
+                    "--schema", "tenant_a,tenant_b,tenant_c");
+            assertEquals(0, cmdLine.execute(Stream.concat(args.stream(), Stream.of("--dedupe", TEMP_DIR.toAbsolutePath().toString())).toArray(String[]::new)));
+            assertEquals(0, cmdLine.execute(Stream.concat(args.stream(), Stream.of("--dedupe=false", fullDir.toAbsolutePath().toString())).toArray(String[]::new)));
+
+            // Only one table per distinct structure is saved...
+            final MetadataFile meta = MetadataFile.loadFrom(TEMP_DIR);
+            assertEquals(3, meta.schemaCount());
+            assertEquals(Set.of("chinook.tenant_a.account", "chinook.tenant_a.note", "chinook.tenant_b.note"), meta.getTableSchemasIdentifiers());
+            assertEquals(Map.of(
+                    "chinook.tenant_b.account", "chinook.tenant_a.account",
+                    "chinook.tenant_c.account", "chinook.tenant_a.account",
+                    "chinook.tenant_c.note", "chinook.tenant_a.note"
+            ), meta.references());
+
+            // ...but every table resolves to the same schemas generated without deduplication
+            final MetadataFile fullMeta = MetadataFile.loadFrom(fullDir);
+            assertEquals(fullMeta.getTableIdentifiers(), meta.getTableIdentifiers());
+            for (final String tableId : fullMeta.getTableIdentifiers()) {
+                assertEquals(fullMeta.schemas().get(tableId), meta.loadTableAvroSchemas(TEMP_DIR, tableId).checksum(), tableId);
+            }
+        } finally {
+            FileUtils.deleteDirectory(fullDir.toFile());
+            try (final Connection connection = getConnection()) {
+                connection.prepareStatement("DROP SCHEMA tenant_a, tenant_b, tenant_c CASCADE").execute();
+            }
+        }
+    }
+
+    @Test
+    void shouldGenerateSchemasFromCatalogCapture() throws IOException {
+        final Path captureFile = TEMP_DIR.resolve("chinook.capture.json");
+        final Path liveDir = TEMP_DIR.resolve("live");
+        final Path capturedDir = TEMP_DIR.resolve("captured");
+
+        // `capture` runs successfully
+        assertEquals(0, new CommandLine(new CaptureCommand()).execute(
+                "--hostname", POSTGRES_CONTAINER.getHost(),
+                "--port", POSTGRES_CONTAINER.getMappedPort(POSTGRES_DEFAULT_PORT).toString(),
+                "--database", DB_NAME,
+                "--username", DB_USER,
+                "--password", DB_PASS,
+                captureFile.toAbsolutePath().toString()
+        ));
+        assertTrue(captureFile.toFile().exists());
+
+        // `generate` from the capture, without connection options, produces the same schemas as from the Database
+        assertEquals(0, new CommandLine(new GenerateCommand()).execute(
+                "--hostname", POSTGRES_CONTAINER.getHost(),
+                "--port", POSTGRES_CONTAINER.getMappedPort(POSTGRES_DEFAULT_PORT).toString(),
+                "--database", DB_NAME,
+                "--username", DB_USER,
+                "--password", DB_PASS,
+                "--exclude-column", "public.customer.email",
+                liveDir.toAbsolutePath().toString()
+        ));
+        assertEquals(0, new CommandLine(new GenerateCommand()).execute(
+                "--from-capture", captureFile.toAbsolutePath().toString(),
+                "--exclude-column", "public.customer.email",
+                capturedDir.toAbsolutePath().toString()
+        ));
+
+        final MetadataFile liveMeta = MetadataFile.loadFrom(liveDir);
+        final MetadataFile capturedMeta = MetadataFile.loadFrom(capturedDir);
+        assertEquals(12, capturedMeta.schemaCount());
+        assertEquals(liveMeta.schemas(), capturedMeta.schemas());
+        assertEquals(liveMeta.checksumSHA256(), capturedMeta.checksumSHA256());
+
+        // A capture of another Database is rejected
+        assertEquals(2, new CommandLine(new GenerateCommand()).execute(
+                "--from-capture", captureFile.toAbsolutePath().toString(),
+                "--database", "BaNaNa",
+                capturedDir.toAbsolutePath().toString()
+        ));
+    }
+
+    @Test
+    void shouldGenerateIncrementallyFromPreviousRun() throws IOException, SQLException {
+        final Path firstDir = TEMP_DIR.resolve("first");
+        final Path secondDir = TEMP_DIR.resolve("second");
+        final Path thirdDir = TEMP_DIR.resolve("third");
+        final List<String> args = List.of(
+                "--hostname", POSTGRES_CONTAINER.getHost(),
+                "--port", POSTGRES_CONTAINER.getMappedPort(POSTGRES_DEFAULT_PORT).toString(),
+                "--database", DB_NAME,
+                "--username", DB_USER,
+                "--password", DB_PASS);
+
+        // Every run records the fingerprints of the tables
+        assertEquals(0, new CommandLine(new GenerateCommand()).execute(
+                Stream.concat(args.stream(), Stream.of(firstDir.toAbsolutePath().toString())).toArray(String[]::new)));
+        final MetadataFile firstMeta = MetadataFile.loadFrom(firstDir);
+        assertEquals(firstMeta.getTableIdentifiers(), firstMeta.fingerprints().keySet());
+
+        // Nothing changed: all tables are copied forward, with the same schemas
+        assertEquals(0, new CommandLine(new GenerateCommand()).execute(
+                Stream.concat(args.stream(), Stream.of("--incremental-from", firstDir.toAbsolutePath().toString(), secondDir.toAbsolutePath().toString())).toArray(String[]::new)));
+        final MetadataFile secondMeta = MetadataFile.loadFrom(secondDir);
+        assertEquals(firstMeta.schemas(), secondMeta.schemas());
+        assertEquals(firstMeta.fingerprints(), secondMeta.fingerprints());
+
+        try {
+            try (final Connection connection = getConnection()) {
+                connection.prepareStatement("ALTER TABLE public.artist ADD COLUMN country VARCHAR(50)").execute();
+            }
+
+            // Only the altered table is converted again
+            assertEquals(0, new CommandLine(new GenerateCommand()).execute(
+                    Stream.concat(args.stream(), Stream.of("--incremental-from", secondDir.toAbsolutePath().toString(), thirdDir.toAbsolutePath().toString())).toArray(String[]::new)));
+            final MetadataFile thirdMeta = MetadataFile.loadFrom(thirdDir);
+            assertEquals(firstMeta.getTableIdentifiers(), thirdMeta.getTableIdentifiers());
+            for (final String tableId : thirdMeta.getTableIdentifiers()) {
+                if (tableId.equals("chinook.public.artist")) {
+                    assertNotEquals(firstMeta.schemas().get(tableId), thirdMeta.schemas().get(tableId));
+                    assertNotEquals(firstMeta.fingerprints().get(tableId), thirdMeta.fingerprints().get(tableId));
+                    assertNotNull(TableAvroSchemas.loadFrom(thirdDir, tableId).valueSchema().getField("country"));
+                } else {
+                    assertEquals(firstMeta.schemas().get(tableId), thirdMeta.schemas().get(tableId), tableId);
+                    assertEquals(firstMeta.fingerprints().get(tableId), thirdMeta.fingerprints().get(tableId), tableId);
+                }
+            }
+        } finally {
+            try (final Connection connection = getConnection()) {
+                connection.prepareStatement("ALTER TABLE public.artist DROP COLUMN country").execute();
+            }
+        }
+
+        // Not together with deduplication
+        assertEquals(2, new CommandLine(new GenerateCommand()).execute(
+                Stream.concat(args.stream(), Stream.of("--dedupe", "--incremental-from", firstDir.toAbsolutePath().toString(), thirdDir.toAbsolutePath().toString())).toArray(String[]::new)));
+    }
 }
@@ -0,0 +1,122 @@
+package io.snyk.skemium;
+
+import io.snyk.skemium.meta.MetadataFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.shaded.org.apache.commons.io.FileUtils;
+import picocli.CommandLine;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WatchCommandTest extends WithPostgresContainer {
+    Path TEMP_DIR;
+
+    @BeforeEach
+    public void createTempDir() throws IOException {
+        TEMP_DIR = Files.createTempDirectory("skemium-test-");
+    }
+
+    @AfterEach
+    public void deleteTempDir() throws IOException {
+        if (TEMP_DIR != null) {
+            FileUtils.deleteDirectory(TEMP_DIR.toFile());
+        }
+    }
+
+    @Test
+    void shouldRegenerateAndCompareAffectedTablesOnDdlNotification() throws Exception {
+        final Path baselineDir = TEMP_DIR.resolve("baseline");
+        final Path watchDir = TEMP_DIR.resolve("watch");
+        final Path resultFile = TEMP_DIR.resolve("result.json");
+        final List<String> args = List.of(
+                "--hostname", POSTGRES_CONTAINER.getHost(),
+                "--port", POSTGRES_CONTAINER.getMappedPort(POSTGRES_DEFAULT_PORT).toString(),
+                "--database", DB_NAME,
+                "--username", DB_USER,
+                "--password", DB_PASS);
+
+        assertEquals(0, new CommandLine(new GenerateCommand()).execute(
+                Stream.concat(args.stream(), Stream.of(baselineDir.toAbsolutePath().toString())).toArray(String[]::new)));
+        final MetadataFile baselineMeta = MetadataFile.loadFrom(baselineDir);
+
+        final CommandLine watchCmdLine = new CommandLine(new WatchCommand())
+                .setOut(new PrintWriter(new StringWriter()))
+                .setErr(new PrintWriter(new StringWriter()));
+        final CompletableFuture<Integer> watch = CompletableFuture.supplyAsync(() -> watchCmdLine.execute(
+                Stream.concat(args.stream(), Stream.of(
+                        "--install-trigger",
+                        "--max-events", "1",
+                        "--debounce", "200",
+                        "--output", resultFile.toAbsolutePath().toString(),
+                        baselineDir.toAbsolutePath().toString(),
+                        watchDir.toAbsolutePath().toString())).toArray(String[]::new)));
+
+        try {
+            // Wait for the initial generation and comparison: same schemas as the baseline
+            final Instant deadline = Instant.now().plus(Duration.ofMinutes(1));
+            while (!Files.exists(resultFile) && !watch.isDone() && Instant.now().isBefore(deadline)) {
+                Thread.sleep(100);
+            }
+            assertFalse(watch.isDone());
+            assertEquals(baselineMeta.schemas(), MetadataFile.loadFrom(watchDir).schemas());
+
+            // DDL commands not changing the selected tables are ignored
+            try (final Connection connection = getConnection()) {
+                connection.prepareStatement("CREATE INDEX artist_name_idx ON public.artist (name)").execute();
+                connection.prepareStatement("ALTER TABLE public.artist ALTER COLUMN name SET NOT NULL").execute();
+            }
+
+            // Only the altered table is regenerated, and found incompatible with the baseline
+            assertEquals(1, watch.get(1, TimeUnit.MINUTES));
+            final MetadataFile watchMeta = MetadataFile.loadFrom(watchDir);
+            assertEquals(baselineMeta.getTableIdentifiers(), watchMeta.getTableIdentifiers());
+            for (final String tableId : watchMeta.getTableIdentifiers()) {
+                if (tableId.equals("chinook.public.artist")) {
+                    assertNotEquals(baselineMeta.schemas().get(tableId), watchMeta.schemas().get(tableId));
+                } else {
+                    assertEquals(baselineMeta.schemas().get(tableId), watchMeta.schemas().get(tableId), tableId);
+                }
+            }
+            assertTrue(Files.readString(resultFile).contains("chinook.public.artist"));
+        } finally {
+            watch.cancel(true);
+            try (final Connection connection = getConnection()) {
+                connection.prepareStatement("""
+                        DROP EVENT TRIGGER IF EXISTS skemium_ddl_ddl_command_end;
+                        DROP EVENT TRIGGER IF EXISTS skemium_ddl_sql_drop;
+                        DROP FUNCTION IF EXISTS skemium_ddl_notify();
+                        DROP INDEX IF EXISTS public.artist_name_idx;
+                        ALTER TABLE public.artist ALTER COLUMN name DROP NOT NULL;
+                        """).execute();
+            }
+        }
+    }
+
+    @Test
+    void shouldRefuseToWatchWithoutLiveDatabase() {
+        final CommandLine cmdLine = new CommandLine(new WatchCommand())
+                .setOut(new PrintWriter(new StringWriter()))
+                .setErr(new PrintWriter(new StringWriter()));
+
+        assertEquals(2, cmdLine.execute(
+                "--kind", "SCHEMA_HISTORY",
+                "--schema-history-file", TEMP_DIR.resolve("missing.dat").toString(),
+                "--database", DB_NAME,
+                TEMP_DIR.toString(),
+                TEMP_DIR.resolve("watch").toString()));
+    }
+}
@@ -0,0 +1,124 @@
+package io.snyk.skemium.avro;
+
+import io.confluent.kafka.schemaregistry.CompatibilityLevel;
+import org.apache.avro.Schema;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaDiffTest {
+
+    private static Schema record(final String fields) {
+        return new Schema.Parser().parse("""
+                {"type": "record", "name": "Value", "namespace": "chinook.public.artist", "fields": [%s]}
+                """.formatted(fields));
+    }
+
+    @Test
+    void shouldIgnoreFieldOrder() {
+        final Schema curr = record("""
+                {"name": "id", "type": "int"}, {"name": "name", "type": ["null", "string"], "default": null}""");
+        final Schema next = record("""
+                {"name": "name", "type": ["null", "string"], "default": null}, {"name": "id", "type": "int"}""");
+
+        final SchemaDiff diff = SchemaDiff.between(curr, next);
+        assertTrue(diff.isEmpty());
+        assertEquals(SchemaDiff.Verdict.COMPATIBLE, diff.verdict(CompatibilityLevel.FULL));
+    }
+
+    @Test
+    void shouldDecideAddedAndRemovedFields() {
+        final Schema curr = record("""
+                {"name": "id", "type": "int"}, {"name": "name", "type": "string"}""");
+        final Schema next = record("""
+                {"name": "id", "type": "int"}, {"name": "email", "type": ["null", "string"], "default": null}""");
+
+        final SchemaDiff diff = SchemaDiff.between(curr, next);
+        assertEquals(List.of(
+                new SchemaDiff.FieldChange("name", SchemaDiff.Kind.REMOVED),
+                new SchemaDiff.FieldChange("email", SchemaDiff.Kind.ADDED)), diff.changes());
+        // NEXT can read CURRENT (email has a default), but CURRENT can't read NEXT (name has no default)
+        assertEquals(SchemaDiff.Verdict.COMPATIBLE, diff.verdict(CompatibilityLevel.BACKWARD));
+        assertEquals(SchemaDiff.Verdict.INCOMPATIBLE, diff.verdict(CompatibilityLevel.FORWARD));
+        assertEquals(SchemaDiff.Verdict.INCOMPATIBLE, diff.verdict(CompatibilityLevel.FULL_TRANSITIVE));
+        assertEquals(SchemaDiff.Verdict.COMPATIBLE, diff.verdict(CompatibilityLevel.NONE));
+    }
+
+    @Test
+    void shouldDetectDefaultAndPropertiesChanges() {
+        final Schema curr = record("""
+                {"name": "id", "type": {"type": "int", "connect.type": "int16"}}, {"name": "name", "type": ["null", "string"], "default": null}""");
+        final Schema next = record("""
+                {"name": "id", "type": "int"}, {"name": "name", "type": ["string", "null"], "default": "unknown"}""");
+
+        final SchemaDiff diff = SchemaDiff.between(curr, next);
+        assertEquals(List.of(
+                new SchemaDiff.FieldChange("id", SchemaDiff.Kind.PROPERTIES_CHANGED),
+                new SchemaDiff.FieldChange("name", SchemaDiff.Kind.RETYPED),
+                new SchemaDiff.FieldChange("name", SchemaDiff.Kind.DEFAULT_CHANGED)), diff.changes());
+        assertEquals(SchemaDiff.Verdict.UNDECIDED, diff.verdict(CompatibilityLevel.BACKWARD));
+    }
+
+    @Test
+    void shouldWalkIntoEnvelopeRecords() throws IOException {
+        final Path dirPath = Path.of("src", "test", "resources", "schema_change-backward_compatible");
+        final TableAvroSchemas curr = TableAvroSchemas.loadFrom(dirPath.resolve("current"), "chinook.public.artist");
+        final TableAvroSchemas next = TableAvroSchemas.loadFrom(dirPath.resolve("next"), "chinook.public.artist");
+
+        final SchemaDiff envelopeDiff = SchemaDiff.between(curr.envelopeSchema(), next.envelopeSchema());
+        assertEquals(List.of(
+                new SchemaDiff.FieldChange("before.name", SchemaDiff.Kind.RETYPED),
+                new SchemaDiff.FieldChange("before.name", SchemaDiff.Kind.DEFAULT_CHANGED),
+                new SchemaDiff.FieldChange("after.name", SchemaDiff.Kind.RETYPED),
+                new SchemaDiff.FieldChange("after.name", SchemaDiff.Kind.DEFAULT_CHANGED)), envelopeDiff.changes());
+        assertEquals(SchemaDiff.Verdict.UNDECIDED, envelopeDiff.backward());
+
+        assertTrue(SchemaDiff.between(curr.keySchema(), next.keySchema()).isEmpty());
+    }
+
+    @Test
+    void shouldNotWalkRecursiveRecordsForever() {
+        final Schema curr = record("""
+                {"name": "id", "type": "int"},
+                {"name": "parent", "type": ["null", "Value"], "default": null}""");
+        final Schema next = record("""
+                {"name": "id", "type": "long"},
+                {"name": "parent", "type": ["null", "Value"], "default": null}""");
+
+        assertTrue(SchemaDiff.between(curr, curr).isEmpty());
+        assertEquals(List.of(
+                new SchemaDiff.FieldChange("id", SchemaDiff.Kind.RETYPED)), SchemaDiff.between(curr, next).changes());
+    }
+
+    @Test
+    void shouldDiffMissingSchemas() {
+        final Schema schema = record("""
+                {"name": "id", "type": "int"}""");
+
+        assertTrue(SchemaDiff.between(null, null).isEmpty());
+        assertEquals(List.of(new SchemaDiff.FieldChange(SchemaDiff.ROOT_PATH, SchemaDiff.Kind.ADDED)), SchemaDiff.between(null, schema).changes());
+        assertEquals(List.of(new SchemaDiff.FieldChange(SchemaDiff.ROOT_PATH, SchemaDiff.Kind.REMOVED)), SchemaDiff.between(schema, null).changes());
+        assertEquals(SchemaDiff.Verdict.UNDECIDED, SchemaDiff.between(schema, null).verdict(CompatibilityLevel.BACKWARD));
+    }
+
+    @Test
+    void shouldDetectDocChangesInNestedRecords() {
+        final Schema curr = record("""
+                {"name": "address", "type": {"type": "record", "name": "Address", "fields": [
+                    {"name": "city", "type": "string", "doc": "City"}]}}""");
+        final Schema next = record("""
+                {"name": "address", "type": {"type": "record", "name": "Address", "fields": [
+                    {"name": "city", "type": "string", "doc": "City name"}]}}""");
+
+        // Equal, according to Avro: field docs are ignored
+        assertEquals(curr, next);
+        final SchemaDiff diff = SchemaDiff.between(curr, next);
+        assertEquals(List.of(
+                new SchemaDiff.FieldChange("address.city", SchemaDiff.Kind.PROPERTIES_CHANGED)), diff.changes());
+        assertEquals(SchemaDiff.Verdict.COMPATIBLE, diff.verdict(CompatibilityLevel.FULL));
+    }
+}
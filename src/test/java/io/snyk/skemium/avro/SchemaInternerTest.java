@@ -0,0 +1,89 @@
+package io.snyk.skemium.avro;
+
+import io.snyk.skemium.TestHelper;
+import org.apache.avro.Schema;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SchemaInternerTest {
+
+    @Test
+    void shouldShareIdenticalSubSchemasAcrossTables() throws IOException {
+        final SchemasSource source = SchemasSource.directory(TestHelper.RESOURCES.resolve("schema_employee"));
+        final SchemaInterner interner = new SchemaInterner();
+        final TableAvroSchemas employee = TableAvroSchemas.loadFrom(source, "chinook.public.employee", interner);
+        final TableAvroSchemas otherEmployee = employee.withIdentifier("chinook.tenant_1.employee", interner);
+        final TableAvroSchemas reloaded = TableAvroSchemas.loadFrom(source, "chinook.public.employee", interner);
+
+        // Loading the same table twice gives the same instances
+        assertSame(employee.valueSchema(), reloaded.valueSchema());
+        assertSame(employee.envelopeSchema(), reloaded.envelopeSchema());
+
+        // The Value embedded in the Envelope is the Value itself
+        assertSame(employee.valueSchema(), employee.envelopeSchema().getField("before").schema().getTypes().get(1));
+
+        // The Debezium `source` block is shared by all tables
+        assertSame(
+                employee.envelopeSchema().getField("source").schema(),
+                otherEmployee.envelopeSchema().getField("source").schema());
+        assertNotSame(employee.valueSchema(), otherEmployee.valueSchema());
+
+        // Interning doesn't change the schemas
+        final Schema parsed = new Schema.Parser().parse(TestHelper.RESOURCES.resolve("schema_employee").resolve("chinook.public.employee.env.avsc").toFile());
+        assertNotSame(parsed, employee.envelopeSchema());
+        assertEquals(parsed.toString(), employee.envelopeSchema().toString());
+        assertSame(employee.envelopeSchema(), interner.intern(parsed));
+
+        // Another interner shares nothing with this one
+        final TableAvroSchemas loadedElsewhere = TableAvroSchemas.loadFrom(source, "chinook.public.employee");
+        assertEquals(employee, loadedElsewhere);
+        assertNotSame(employee.envelopeSchema(), loadedElsewhere.envelopeSchema());
+    }
+
+    @Test
+    void shouldUnshareSubSchemasLikeAParser() throws IOException {
+        final TableAvroSchemas employee = TableAvroSchemas.loadFrom(TestHelper.RESOURCES.resolve("schema_employee"), "chinook.public.employee");
+        final Schema parsed = new Schema.Parser().parse(employee.envelopeSchema().toString());
+        final Schema unshared = SchemaInterner.unshare(employee.envelopeSchema());
+
+        assertEquals(parsed.toString(), unshared.toString());
+        assertNotSame(employee.envelopeSchema(), unshared);
+        // Named types are shared, like the parser does: the Value in `before` is the one in `after`
+        assertSame(
+                unshared.getField("before").schema().getTypes().get(1),
+                unshared.getField("after").schema().getTypes().get(1));
+        // Other sub-schemas are not, even if identical
+        assertNotSame(unshared.getField("before").schema(), unshared.getField("after").schema());
+    }
+
+    @Test
+    void shouldNotShareSchemasThatOnlyDifferByDocumentation() {
+        final SchemaInterner interner = new SchemaInterner();
+        final Schema documented = interner.intern(new Schema.Parser().parse("""
+                {"type":"record","name":"Doc","namespace":"skemium.test.interner","fields":[{"name":"id","type":"int","doc":"Identifier"}]}"""));
+        final Schema undocumented = interner.intern(new Schema.Parser().parse("""
+                {"type":"record","name":"Doc","namespace":"skemium.test.interner","fields":[{"name":"id","type":"int"}]}"""));
+
+        // Avro considers them equal, but they don't serialize the same
+        assertEquals(documented, undocumented);
+        assertNotSame(documented, undocumented);
+        assertEquals("Identifier", documented.getField("id").doc());
+        assertEquals(null, undocumented.getField("id").doc());
+    }
+
+    @Test
+    void shouldLeaveRecursiveSchemasAsTheyAre() {
+        final Schema recursive = new Schema.Parser().parse("""
+                {"type":"record","name":"Node","namespace":"skemium.test.interner","fields":[
+                  {"name":"value","type":{"type":"string","connect.version":1}},
+                  {"name":"next","type":["null","Node"]}
+                ]}""");
+
+        assertSame(recursive, new SchemaInterner().intern(recursive));
+    }
+}
@@ -1,7 +1,12 @@
 package io.snyk.skemium.avro;
 
 import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.debezium.data.Envelope;
+import io.debezium.relational.TableId;
+import io.debezium.relational.TableSchema;
 import io.snyk.skemium.TestHelper;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -55,6 +60,145 @@ class TableAvroSchemasTest {
                 FileUtils.readFileToString(TEMP_DIR.resolve("chinook.public.employee.sha256").toFile(), StandardCharsets.UTF_8));
     }
 
+    @Test
+    void shouldSaveAndLoadCompactLayout() throws IOException {
+        final TableAvroSchemas employee = TableAvroSchemas.loadFrom(TestHelper.RESOURCES.resolve("schema_employee"), "chinook.public.employee");
+
+        employee.saveTo(TEMP_DIR.toAbsolutePath(), StorageLayout.COMPACT);
+
+        // Envelope file only contains a reference to the template
+        final String envelopeFile = FileUtils.readFileToString(TEMP_DIR.resolve("chinook.public.employee.env.avsc").toFile(), StandardCharsets.UTF_8);
+        assertTrue(envelopeFile.contains("\"skemium.envelopeTemplate\""));
+        assertTrue(envelopeFile.contains("\"chinook.public.employee.Value\""));
+        assertTrue(envelopeFile.length() < FileUtils.readFileToString(TestHelper.RESOURCES.resolve("schema_employee").resolve("chinook.public.employee.env.avsc").toFile(), StandardCharsets.UTF_8).length());
+        try (final var templates = Files.list(TEMP_DIR)) {
+            assertEquals(1, templates.filter(p -> p.getFileName().toString().startsWith(".skemium.envelope.")).count());
+        }
+
+        // Checksum is unchanged, and the Envelope is reconstituted identical
+        assertEquals(
+                FileUtils.readFileToString(TestHelper.RESOURCES.resolve("schema_employee").resolve("chinook.public.employee.sha256").toFile(), StandardCharsets.UTF_8),
+                FileUtils.readFileToString(TEMP_DIR.resolve("chinook.public.employee.sha256").toFile(), StandardCharsets.UTF_8));
+        final TableAvroSchemas reloaded = TableAvroSchemas.loadFrom(TEMP_DIR, "chinook.public.employee");
+        assertEquals(employee.envelopeSchema().toString(), reloaded.envelopeSchema().toString());
+        assertEquals(employee.checksum(), reloaded.checksum());
+    }
+
+    @Test
+    void shouldSaveAndLoadFragmentsLayout() throws IOException {
+        final TableAvroSchemas employee = TableAvroSchemas.loadFrom(TestHelper.RESOURCES.resolve("schema_employee"), "chinook.public.employee");
+        final TableAvroSchemas otherEmployee = employee.withIdentifier("chinook.tenant_1.employee");
+
+        employee.saveTo(TEMP_DIR.toAbsolutePath(), StorageLayout.FRAGMENTS);
+        final long fragmentsAfterFirstTable;
+        try (final var fragments = Files.list(TEMP_DIR)) {
+            fragmentsAfterFirstTable = fragments.filter(p -> p.getFileName().toString().startsWith(".skemium.fragment.")).count();
+        }
+        assertTrue(fragmentsAfterFirstTable > 0);
+
+        // Envelope file references fragments (e.g. the Value embedded in the Envelope is shared with the Value file)
+        final String envelopeFile = FileUtils.readFileToString(TEMP_DIR.resolve("chinook.public.employee.env.avsc").toFile(), StandardCharsets.UTF_8);
+        assertTrue(envelopeFile.contains("\"skemium.fragment\""));
+        assertTrue(envelopeFile.length() < FileUtils.readFileToString(TestHelper.RESOURCES.resolve("schema_employee").resolve("chinook.public.employee.env.avsc").toFile(), StandardCharsets.UTF_8).length());
+
+        // Another table only adds the fragments it does not share (e.g. the Debezium `source` block is shared)
+        otherEmployee.saveTo(TEMP_DIR.toAbsolutePath(), StorageLayout.FRAGMENTS);
+        try (final var fragments = Files.list(TEMP_DIR)) {
+            final long fragmentsAfterSecondTable = fragments.filter(p -> p.getFileName().toString().startsWith(".skemium.fragment.")).count();
+            assertTrue(fragmentsAfterSecondTable < 2 * fragmentsAfterFirstTable);
+        }
+
+        // Checksums are unchanged, and the Schemas are resolved identical
+        assertEquals(
+                FileUtils.readFileToString(TestHelper.RESOURCES.resolve("schema_employee").resolve("chinook.public.employee.sha256").toFile(), StandardCharsets.UTF_8),
+                FileUtils.readFileToString(TEMP_DIR.resolve("chinook.public.employee.sha256").toFile(), StandardCharsets.UTF_8));
+        assertEquals(employee, TableAvroSchemas.loadFrom(TEMP_DIR, "chinook.public.employee"));
+        assertEquals(otherEmployee, TableAvroSchemas.loadFrom(TEMP_DIR, "chinook.tenant_1.employee"));
+
+        // Fragments whose content does not match their identifier are rejected
+        final Path tamperedDir = Files.createDirectories(TEMP_DIR.resolve("tampered"));
+        employee.saveTo(tamperedDir, StorageLayout.FRAGMENTS);
+        try (final var fragments = Files.list(tamperedDir)) {
+            for (final Path fragment : fragments.filter(p -> p.getFileName().toString().startsWith(".skemium.fragment.")).toList()) {
+                Files.writeString(fragment, "{\"type\":\"string\"}");
+            }
+        }
+        assertThrows(IOException.class, () -> TableAvroSchemas.loadFrom(tamperedDir, "chinook.public.employee"));
+    }
+
+    @Test
+    void shouldChangeIdentifier() throws IOException {
+        final TableAvroSchemas employee = TableAvroSchemas.loadFrom(TestHelper.RESOURCES.resolve("schema_employee"), "chinook.public.employee");
+
+        final TableAvroSchemas otherEmployee = employee.withIdentifier("chinook.tenant_1.employee");
+        assertEquals("chinook.tenant_1.employee", otherEmployee.identifier());
+        assertEquals("chinook.tenant_1.employee.Key", otherEmployee.keySchema().getFullName());
+        assertEquals("chinook.tenant_1.employee.Key", otherEmployee.keySchema().getProp("connect.name"));
+        assertEquals("chinook.tenant_1.employee.Value", otherEmployee.valueSchema().getFullName());
+        assertEquals("chinook.tenant_1.employee.Envelope", otherEmployee.envelopeSchema().getFullName());
+        assertEquals("chinook.tenant_1.employee.Value", otherEmployee.envelopeSchema().getField("before").schema().getTypes().get(1).getFullName());
+        assertEquals("io.debezium.connector.postgresql.Source", otherEmployee.envelopeSchema().getField("source").schema().getFullName());
+        assertNotEquals(employee.checksum(), otherEmployee.checksum());
+
+        // Changing it back returns the original schemas
+        assertEquals(employee.checksum(), otherEmployee.withIdentifier("chinook.public.employee").checksum());
+    }
+
+    @Test
+    void shouldFingerprintTableStructureIndependentlyOfIdentifier() {
+        final TableSchema tenantA = tableSchema(new TableId(null, "tenant_a", "account"), SchemaBuilder.string().build());
+        final TableSchema tenantB = tableSchema(new TableId(null, "tenant_b", "account"), SchemaBuilder.string().build());
+        final TableSchema tenantC = tableSchema(new TableId(null, "tenant_c", "account"), SchemaBuilder.string().optional().build());
+
+        assertEquals(
+                TableAvroSchemas.structuralFingerprint(tenantA, "chinook"),
+                TableAvroSchemas.structuralFingerprint(tenantB, "chinook"));
+        assertNotEquals(
+                TableAvroSchemas.structuralFingerprint(tenantA, "chinook"),
+                TableAvroSchemas.structuralFingerprint(tenantC, "chinook"));
+
+        // Tables with the same fingerprint only differ by identifier
+        assertEquals(
+                TableAvroSchemas.build(tenantB, "chinook").checksum(),
+                TableAvroSchemas.build(tenantA, "chinook").withIdentifier("chinook.tenant_b.account").checksum());
+    }
+
+    @Test
+    void shouldFingerprintAvroSchemasIndependentlyOfIdentifier() throws IOException {
+        final TableAvroSchemas employee = TableAvroSchemas.loadFrom(TestHelper.RESOURCES.resolve("schema_employee"), "chinook.public.employee");
+        final TableAvroSchemas otherEmployee = employee.withIdentifier("chinook.tenant_1.employee");
+
+        assertEquals(
+                TableAvroSchemas.structuralFingerprint(employee.keySchema(), employee.identifier()),
+                TableAvroSchemas.structuralFingerprint(otherEmployee.keySchema(), otherEmployee.identifier()));
+        assertEquals(
+                TableAvroSchemas.structuralFingerprint(employee.envelopeSchema(), employee.identifier()),
+                TableAvroSchemas.structuralFingerprint(otherEmployee.envelopeSchema(), otherEmployee.identifier()));
+        assertNotEquals(
+                TableAvroSchemas.structuralFingerprint(employee.valueSchema(), employee.identifier()),
+                TableAvroSchemas.structuralFingerprint(otherEmployee.valueSchema(), employee.identifier()));
+        assertNotEquals(
+                TableAvroSchemas.structuralFingerprint(employee.keySchema(), employee.identifier()),
+                TableAvroSchemas.structuralFingerprint(employee.valueSchema(), employee.identifier()));
+    }
+
+    private static TableSchema tableSchema(final TableId tableId, final Schema nameSchema) {
+        final String namespace = "chinook." + tableId.schema() + "." + tableId.table();
+        final Schema keySchema = SchemaBuilder.struct().name(namespace + ".Key")
+                .field("id", Schema.INT32_SCHEMA)
+                .build();
+        final Schema valueSchema = SchemaBuilder.struct().name(namespace + ".Value").optional()
+                .field("id", Schema.INT32_SCHEMA)
+                .field("name", nameSchema)
+                .build();
+        final Envelope envelope = Envelope.defineSchema()
+                .withName(namespace + ".Envelope")
+                .withRecord(valueSchema)
+                .withSource(SchemaBuilder.struct().name("io.debezium.connector.postgresql.Source").field("db", Schema.STRING_SCHEMA).build())
+                .build();
+        return new TableSchema(tableId, keySchema, null, envelope, valueSchema, null);
+    }
+
     @Test
     void shouldConvertValueSchemaToSchemaRegistryAvroSchemaType() throws IOException {
         final TableAvroSchemas employee = TableAvroSchemas.loadFrom(TestHelper.RESOURCES.resolve("schema_employee"), "chinook.public.employee");
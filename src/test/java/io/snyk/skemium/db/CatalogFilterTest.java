@@ -0,0 +1,117 @@
+package io.snyk.skemium.db;
+
+import io.debezium.relational.TableId;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.PatternSyntaxException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogFilterTest {
+    @Test
+    void shouldIncludeEverythingWithoutNames() {
+        for (final CatalogFilter filter : List.of(CatalogFilter.ALL, CatalogFilter.compile(null, null, null), CatalogFilter.compile(Set.of(), Set.of(), Set.of()))) {
+            assertTrue(filter.includes(new TableId(null, "public", "album")));
+            assertTrue(filter.includesColumn("public", "album", "title"));
+            assertNull(filter.schemas());
+            assertNull(filter.tables());
+            assertNull(filter.columnNameFilter());
+        }
+    }
+
+    @Test
+    void shouldMatchExactNames() {
+        final CatalogFilter filter = CatalogFilter.compile(
+                Set.of("public", "sales"),
+                Set.of("album", "sales.invoice"),
+                Set.of("public.album.title"));
+
+        assertTrue(filter.includes(new TableId(null, "public", "album")));
+        assertTrue(filter.includes(new TableId(null, "sales", "album")));
+        assertTrue(filter.includes(new TableId(null, "sales", "invoice")));
+        assertFalse(filter.includes(new TableId(null, "public", "invoice")));
+        assertFalse(filter.includes(new TableId(null, "other", "album")));
+
+        assertFalse(filter.includesColumn("public", "album", "title"));
+        assertTrue(filter.includesColumn("sales", "album", "title"));
+        assertTrue(filter.includesColumn("public", "album", "album_id"));
+        assertFalse(filter.columnNameFilter().matches("chinook", "public", "album", "title"));
+    }
+
+    @Test
+    void shouldMatchGlobs() {
+        final CatalogFilter filter = CatalogFilter.compile(
+                Set.of("tenant_*"),
+                Set.of("in*", "public.play?ist"),
+                Set.of("*.*.created_*"));
+
+        assertTrue(filter.includesSchema("tenant_42"));
+        assertFalse(filter.includesSchema("public"));
+        assertTrue(filter.includesTable("public", "invoice"));
+        assertTrue(filter.includesTable("public", "playlist"));
+        assertFalse(filter.includesTable("sales", "playlist"));
+        assertFalse(filter.includesTable("public", "playlists"));
+        assertFalse(filter.includesColumn("public", "album", "created_at"));
+        assertTrue(filter.includesColumn("public", "album", "created"));
+
+        assertEquals(Set.of(), filter.schemas().exact());
+        assertEquals(List.of("tenant_*"), filter.schemas().globs());
+        assertFalse(filter.schemas().hasRegexes());
+
+        // Other regular expression characters are literals
+        assertTrue(CatalogFilter.compile(Set.of("a.b+*"), null, null).includesSchema("a.b+c"));
+        assertFalse(CatalogFilter.compile(Set.of("a.b+*"), null, null).includesSchema("axbbc"));
+    }
+
+    @Test
+    void shouldMatchRegexes() {
+        final CatalogFilter filter = CatalogFilter.compile(
+                Set.of("/tenant_[0-9]+/"),
+                Set.of("/(album|artist)/", "/sales\\.inv.*/"),
+                Set.of("/.*\\.(title|name)/"));
+
+        assertTrue(filter.includesSchema("tenant_42"));
+        assertFalse(filter.includesSchema("tenant_x"));
+        assertTrue(filter.includesTable("public", "album"));
+        assertTrue(filter.includesTable("sales", "invoice_line"));
+        assertFalse(filter.includesTable("public", "invoice"));
+        assertFalse(filter.includesColumn("public", "artist", "name"));
+        assertTrue(filter.includesColumn("public", "artist", "artist_id"));
+        assertTrue(filter.tables().hasRegexes());
+
+        assertThrows(PatternSyntaxException.class, () -> CatalogFilter.compile(Set.of("/[/"), null, null));
+    }
+
+    @Test
+    void shouldExcludeTables() {
+        final CatalogFilter filter = CatalogFilter.compile(Set.of("partitioning"), Set.of("event*"), null)
+                .excluding(Set.of(new TableId(null, "partitioning", "event_2025")));
+
+        assertTrue(filter.includes(new TableId(null, "partitioning", "event")));
+        assertTrue(filter.includes(new TableId(null, "partitioning", "event_2026")));
+        assertFalse(filter.includes(new TableId(null, "partitioning", "event_2025")));
+        assertFalse(CatalogFilter.ALL.excluding(Set.of(new TableId(null, "public", "album"))).includes(new TableId(null, "public", "album")));
+        assertTrue(CatalogFilter.ALL.excluding(Set.of(new TableId(null, "public", "album"))).includes(new TableId(null, "sales", "album")));
+        assertSame(CatalogFilter.ALL, CatalogFilter.ALL.excluding(Set.of()));
+    }
+
+    @Test
+    void shouldIncludeExactlyTheGivenTableIds() {
+        final CatalogFilter filter = CatalogFilter.of(
+                Set.of(new TableId(null, "public", "in*"), new TableId(null, "sales.eu", "/invoice/")),
+                Set.of("public.in*.total"));
+
+        assertTrue(filter.includes(new TableId(null, "public", "in*")));
+        assertTrue(filter.includes(new TableId(null, "sales.eu", "/invoice/")));
+        assertFalse(filter.includes(new TableId(null, "public", "invoice")));
+        assertFalse(filter.includes(new TableId(null, "sales.eu", "invoice")));
+        assertFalse(filter.includes(new TableId(null, "sales", "eu./invoice/")));
+        assertFalse(filter.includesColumn("public", "in*", "total"));
+        assertEquals(Map.of("public", Set.of("in*"), "sales.eu", Set.of("/invoice/")), filter.qualifiedTables());
+
+        assertFalse(CatalogFilter.of(Set.of(), null).includes(new TableId(null, "public", "album")));
+    }
+}
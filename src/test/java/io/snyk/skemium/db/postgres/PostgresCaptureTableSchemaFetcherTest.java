@@ -0,0 +1,112 @@
+package io.snyk.skemium.db.postgres;
+
+import io.debezium.relational.Column;
+import io.debezium.relational.Table;
+import io.debezium.relational.TableId;
+import io.debezium.relational.TableSchema;
+import io.snyk.skemium.avro.TableAvroSchemas;
+import io.snyk.skemium.db.CatalogCapture;
+import io.snyk.skemium.db.DatabaseKind;
+import io.snyk.skemium.db.TableSchemaFetcher;
+import org.apache.avro.Schema;
+import org.apache.kafka.connect.data.Field;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostgresCaptureTableSchemaFetcherTest {
+    private static final String DB_NAME = "chinook";
+
+    private static final List<CatalogCapture.Type> TYPES = List.of(
+            new CatalogCapture.Type("int4", 23, Types.INTEGER, null, null, null),
+            new CatalogCapture.Type("varchar", 1043, Types.VARCHAR, null, null, null),
+            new CatalogCapture.Type("_int4", 1007, Types.ARRAY, null, 23, null),
+            new CatalogCapture.Type("mood", 90001, Types.VARCHAR, null, null, List.of("sad", "ok", "happy")));
+
+    private static Table artist() {
+        return Table.editor()
+                .tableId(new TableId(DB_NAME, "public", "artist"))
+                .addColumns(
+                        Column.editor().name("artist_id").jdbcType(Types.INTEGER).nativeType(23).type("int4").position(1).optional(false).create(),
+                        Column.editor().name("name").jdbcType(Types.VARCHAR).nativeType(1043).type("varchar").length(120).position(2).optional(true).create(),
+                        Column.editor().name("mood").jdbcType(Types.VARCHAR).nativeType(90001).type("mood").position(3).optional(false)
+                                .defaultValueExpression("'ok'::mood").create(),
+                        Column.editor().name("ratings").jdbcType(Types.ARRAY).nativeType(1007).type("_int4").position(4).optional(true).create())
+                .setPrimaryKeyNames("artist_id")
+                .create();
+    }
+
+    private static Table event(final String name) {
+        return Table.editor()
+                .tableId(new TableId(DB_NAME, "partitioning", name))
+                .addColumns(Column.editor().name("id").jdbcType(Types.INTEGER).nativeType(23).type("int4").position(1).optional(false).create())
+                .setPrimaryKeyNames("id")
+                .create();
+    }
+
+    private static CatalogCapture capture() throws Exception {
+        return CatalogCapture.build(DatabaseKind.POSTGRES, DB_NAME, "UTF8", "UTC",
+                List.of(artist(), event("event"), event("event_2025")),
+                TYPES,
+                Map.of(new TableId(null, "partitioning", "event_2025"), new TableId(null, "partitioning", "event")));
+    }
+
+    @Test
+    void shouldFetchTableSchemasFromCapture(@TempDir final Path tmpDir) throws Exception {
+        final Path captureFile = tmpDir.resolve("capture.json");
+        capture().saveTo(captureFile);
+
+        try (final TableSchemaFetcher fetcher = DatabaseKind.POSTGRES.fetcher(CatalogCapture.loadFrom(captureFile))) {
+            final List<TableSchema> tableSchemas = fetcher.fetch(DB_NAME, null, null, null);
+            assertEquals(3, tableSchemas.size());
+
+            final TableSchema artist = tableSchemas.stream().filter(ts -> ts.id().table().equals("artist")).findFirst().orElseThrow();
+            assertEquals(List.of("artist_id"), artist.keySchema().fields().stream().map(Field::name).toList());
+            assertEquals(List.of("artist_id", "name", "mood", "ratings"), artist.valueSchema().fields().stream().map(Field::name).toList());
+
+            // Enum and array types are resolved via the captured types, defaults via the default value converter
+            final org.apache.kafka.connect.data.Schema mood = artist.valueSchema().field("mood").schema();
+            assertEquals("io.debezium.data.Enum", mood.name());
+            assertEquals("sad,ok,happy", mood.parameters().get("allowed"));
+            assertEquals("ok", mood.defaultValue());
+            assertEquals(org.apache.kafka.connect.data.Schema.Type.ARRAY, artist.valueSchema().field("ratings").schema().type());
+            assertEquals(org.apache.kafka.connect.data.Schema.Type.INT32, artist.valueSchema().field("ratings").schema().valueSchema().type());
+
+            // Same pipeline as for a live Database
+            final TableAvroSchemas avroSchemas = TableAvroSchemas.build(artist, DB_NAME);
+            assertEquals("chinook.public.artist", avroSchemas.identifier());
+            assertEquals(Schema.Type.INT, avroSchemas.valueSchema().getField("artist_id").schema().getType());
+
+            assertEquals(
+                    Map.of(new TableId(null, "partitioning", "event_2025"), new TableId(null, "partitioning", "event")),
+                    fetcher.fetchPartitions(DB_NAME));
+        }
+    }
+
+    @Test
+    void shouldFilterTablesAndColumnsFromCapture() throws Exception {
+        try (final TableSchemaFetcher fetcher = DatabaseKind.POSTGRES.fetcher(capture())) {
+            final List<TableSchema> publicSchemas = fetcher.fetch(DB_NAME, Set.of("public"), null, Set.of("public.artist.mood"));
+            assertEquals(1, publicSchemas.size());
+            assertNull(publicSchemas.getFirst().valueSchema().field("mood"));
+            assertNotNull(publicSchemas.getFirst().valueSchema().field("name"));
+
+            final List<TableSchema> eventSchemas = fetcher.fetch(DB_NAME, null, Set.of("partitioning.event"), null);
+            assertEquals(List.of("partitioning.event"), eventSchemas.stream().map(ts -> ts.id().schema() + "." + ts.id().table()).toList());
+
+            // Captures can be narrowed down further
+            final CatalogCapture narrowed = fetcher.capture(DB_NAME, null, Set.of("artist"));
+            assertEquals(1, narrowed.readTables().size());
+            assertEquals(TYPES.size(), narrowed.types().size());
+
+            assertThrows(IllegalArgumentException.class, () -> fetcher.fetch("other", null, null, null));
+        }
+    }
+}
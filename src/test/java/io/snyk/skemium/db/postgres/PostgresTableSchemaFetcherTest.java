@@ -1,15 +1,22 @@
 package io.snyk.skemium.db.postgres;
 
 import io.debezium.config.Configuration;
+import io.debezium.relational.TableId;
 import io.debezium.relational.TableSchema;
 import io.snyk.skemium.WithPostgresContainer;
+import io.snyk.skemium.avro.TableAvroSchemas;
 import org.junit.jupiter.api.Test;
+import org.testcontainers.shaded.org.apache.commons.io.FileUtils;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -44,6 +51,27 @@ class PostgresTableSchemaFetcherTest extends WithPostgresContainer {
         }
     }
 
+    @Test
+    void shouldFetchTheSameTableSchemasInThrottledBatches() throws Exception {
+        final Configuration config = createPostgresContainerConfiguration(POSTGRES_CONTAINER);
+        final Configuration throttledConfig = config.edit().with(PostgresTableSchemaFetcher.THROTTLE, true).build();
+
+        try (final PostgresTableSchemaFetcher fetcher = new PostgresTableSchemaFetcher(config);
+             final PostgresTableSchemaFetcher throttledFetcher = new PostgresTableSchemaFetcher(throttledConfig)) {
+            final Set<String> excludedColumns = Set.of("public.album.title");
+            final Map<TableId, TableSchema> tableSchemas = fetcher.fetch(DB_NAME, null, null, excludedColumns).stream()
+                    .collect(Collectors.toMap(TableSchema::id, Function.identity()));
+            final Map<TableId, TableSchema> throttledTableSchemas = throttledFetcher.fetch(DB_NAME, null, null, excludedColumns).stream()
+                    .collect(Collectors.toMap(TableSchema::id, Function.identity()));
+
+            assertEquals(tableSchemas.keySet(), throttledTableSchemas.keySet());
+            tableSchemas.forEach((tId, tableSchema) -> {
+                assertEquals(tableSchema.keySchema(), throttledTableSchemas.get(tId).keySchema());
+                assertEquals(tableSchema.valueSchema(), throttledTableSchemas.get(tId).valueSchema());
+            });
+        }
+    }
+
     @Test
     void shouldFetchSomeTableSchemas() throws Exception {
         final Configuration config = createPostgresContainerConfiguration(POSTGRES_CONTAINER);
@@ -88,4 +116,127 @@ class PostgresTableSchemaFetcherTest extends WithPostgresContainer {
             assertNotNull(artistTableSchema.valueSchema().field("artist_id"));
         }
     }
+
+    @Test
+    void shouldFetchTableSchemasMatchingGlobsAndRegexes() throws Exception {
+        final Configuration config = createPostgresContainerConfiguration(POSTGRES_CONTAINER);
+
+        try (final PostgresTableSchemaFetcher fetcher = new PostgresTableSchemaFetcher(config)) {
+            // Globs are pushed down into the catalog query
+            final List<TableSchema> globbed = fetcher.fetch(DB_NAME, Set.of("pub*"), Set.of("in*", "public.play?ist"), Set.of("public.invoice*.unit_*"));
+            assertEquals(
+                    List.of("public.invoice", "public.invoice_line", "public.playlist"),
+                    globbed.stream().map(t -> t.id().toString()).sorted().toList());
+            final TableSchema invoiceLine = globbed.stream().filter(t -> t.id().table().equals("invoice_line")).findFirst().orElseThrow();
+            assertNull(invoiceLine.valueSchema().field("unit_price"));
+            assertNotNull(invoiceLine.valueSchema().field("quantity"));
+
+            // Regular expressions are evaluated on the tables found
+            final List<TableSchema> matched = fetcher.fetch(DB_NAME, null, Set.of("/(album|artist)/", "genre"), Set.of("/.*\\.title/"));
+            assertEquals(
+                    List.of("public.album", "public.artist", "public.genre"),
+                    matched.stream().map(t -> t.id().toString()).sorted().toList());
+            assertNull(matched.stream().filter(t -> t.id().table().equals("album")).findFirst().orElseThrow().valueSchema().field("title"));
+
+            // Fingerprints are filtered the same way
+            assertEquals(
+                    Set.of(new TableId(null, "public", "invoice"), new TableId(null, "public", "invoice_line"), new TableId(null, "public", "playlist")),
+                    fetcher.fetchFingerprints(DB_NAME, Set.of("pub*"), Set.of("in*", "public.play?ist")).keySet());
+
+            // ...and, without filters, cover exactly the tables read (e.g. no built-in or TOAST tables)
+            assertEquals(
+                    fetcher.fetch(DB_NAME, null, null, null).stream().map(TableSchema::id).collect(Collectors.toSet()),
+                    fetcher.fetchFingerprints(DB_NAME, null, null).keySet());
+        }
+    }
+
+    @Test
+    void shouldFetchPartitions() throws Exception {
+        final Configuration config = createPostgresContainerConfiguration(POSTGRES_CONTAINER);
+
+        try (final Connection connection = getConnection()) {
+            connection.prepareStatement("""
+                    CREATE SCHEMA partitioning;
+                    CREATE TABLE partitioning.event (id INT NOT NULL, created DATE NOT NULL, PRIMARY KEY (id, created)) PARTITION BY RANGE (created);
+                    CREATE TABLE partitioning.event_2025 PARTITION OF partitioning.event FOR VALUES FROM ('2025-01-01') TO ('2026-01-01') PARTITION BY RANGE (created);
+                    CREATE TABLE partitioning.event_2025_h1 PARTITION OF partitioning.event_2025 FOR VALUES FROM ('2025-01-01') TO ('2025-07-01');
+                    CREATE TABLE partitioning.event_2026 PARTITION OF partitioning.event FOR VALUES FROM ('2026-01-01') TO ('2027-01-01');
+                    """).execute();
+        }
+
+        try (final PostgresTableSchemaFetcher fetcher = new PostgresTableSchemaFetcher(config)) {
+            final Map<TableId, TableId> partitions = fetcher.fetchPartitions(DB_NAME);
+
+            final TableId parent = new TableId(null, "partitioning", "event");
+            assertEquals(Map.of(
+                    new TableId(null, "partitioning", "event_2025"), parent,
+                    new TableId(null, "partitioning", "event_2025_h1"), parent,
+                    new TableId(null, "partitioning", "event_2026"), parent
+            ), partitions);
+        } finally {
+            try (final Connection connection = getConnection()) {
+                connection.prepareStatement("DROP SCHEMA partitioning CASCADE").execute();
+            }
+        }
+    }
+
+    @Test
+    void shouldFetchSameTableSchemasWithCachedTypes() throws Exception {
+        final Path typeCacheDir = Files.createTempDirectory("skemium-test-");
+        final Configuration config = createPostgresContainerConfiguration(POSTGRES_CONTAINER).edit()
+                .with(PostgresTableSchemaFetcher.TYPE_CACHE_DIR, typeCacheDir.toString())
+                .build();
+
+        try {
+            final Map<String, String> uncached = fetchChecksums(createPostgresContainerConfiguration(POSTGRES_CONTAINER));
+            // First run caches the types, second run loads them from the cache
+            assertEquals(uncached, fetchChecksums(config));
+            try (final Stream<Path> entries = Files.list(typeCacheDir)) {
+                assertEquals(1, entries.count());
+            }
+            assertEquals(uncached, fetchChecksums(config));
+
+            // Types changing invalidate the cache entry
+            try (final Connection connection = getConnection()) {
+                connection.prepareStatement("""
+                        CREATE TYPE public.mood AS ENUM ('sad', 'ok', 'happy');
+                        ALTER TABLE public.artist ADD COLUMN mood public.mood;
+                        """).execute();
+            }
+            final Map<String, String> changed = fetchChecksums(config);
+            assertNotEquals(uncached.get("public.artist"), changed.get("public.artist"));
+            assertEquals(fetchChecksums(createPostgresContainerConfiguration(POSTGRES_CONTAINER)), changed);
+            assertEquals(changed, fetchChecksums(config));
+
+            // Types created after the cache was loaded are looked up in the Database (e.g. while watching)
+            try (final PostgresTableSchemaFetcher fetcher = new PostgresTableSchemaFetcher(config)) {
+                try (final Connection connection = getConnection()) {
+                    connection.prepareStatement("""
+                            CREATE TYPE public.weather AS ENUM ('rain', 'sun');
+                            ALTER TABLE public.artist ADD COLUMN weather public.weather;
+                            """).execute();
+                }
+                final Map<String, String> created = fetcher.fetch(DB_NAME, null, null, null).stream()
+                        .collect(Collectors.toMap(t -> t.id().toString(), t -> TableAvroSchemas.build(t, DB_NAME).checksum()));
+                assertEquals(fetchChecksums(createPostgresContainerConfiguration(POSTGRES_CONTAINER)), created);
+            }
+        } finally {
+            try (final Connection connection = getConnection()) {
+                connection.prepareStatement("""
+                        ALTER TABLE public.artist DROP COLUMN IF EXISTS weather;
+                        DROP TYPE IF EXISTS public.weather;
+                        ALTER TABLE public.artist DROP COLUMN IF EXISTS mood;
+                        DROP TYPE IF EXISTS public.mood;
+                        """).execute();
+            }
+            FileUtils.deleteDirectory(typeCacheDir.toFile());
+        }
+    }
+
+    private static Map<String, String> fetchChecksums(final Configuration config) throws Exception {
+        try (final PostgresTableSchemaFetcher fetcher = new PostgresTableSchemaFetcher(config)) {
+            return fetcher.fetch(DB_NAME, null, null, null).stream()
+                    .collect(Collectors.toMap(t -> t.id().toString(), t -> TableAvroSchemas.build(t, DB_NAME).checksum()));
+        }
+    }
 }
@@ -0,0 +1,82 @@
+package io.snyk.skemium.db.postgres;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThrottleTest {
+    private static final List<Integer> ITEMS = IntStream.range(0, 120).boxed().toList();
+
+    @Test
+    void shouldRunAllItemsInOneBatchWhenDisabled() throws Exception {
+        final List<List<Integer>> batches = new ArrayList<>();
+        Throttle.of(false).forEachBatch(ITEMS, batch -> batches.add(List.copyOf(batch)));
+
+        assertEquals(List.of(ITEMS), batches);
+    }
+
+    @Test
+    void shouldRunAllItemsInOrderInBatches() throws Exception {
+        final List<Integer> seen = new ArrayList<>();
+        final List<Integer> sizes = new ArrayList<>();
+        Throttle.of(true).forEachBatch(ITEMS, batch -> {
+            seen.addAll(batch);
+            sizes.add(batch.size());
+        });
+
+        assertEquals(ITEMS, seen);
+        assertTrue(sizes.size() > 1);
+        assertTrue(sizes.getFirst() <= Throttle.INITIAL_BATCH_SIZE);
+    }
+
+    @Test
+    void shouldRetryTimedOutBatchesWithSmallerBatches() throws Exception {
+        final List<Integer> seen = new ArrayList<>();
+        final List<Integer> sizes = new ArrayList<>();
+        Throttle.of(true).forEachBatch(ITEMS, batch -> {
+            sizes.add(batch.size());
+            if (sizes.size() == 1) {
+                throw new SQLException("canceling statement due to statement timeout", "57014");
+            }
+            seen.addAll(batch);
+        });
+
+        assertEquals(ITEMS, seen);
+        assertEquals(Throttle.INITIAL_BATCH_SIZE, sizes.get(0));
+        assertEquals(Throttle.INITIAL_BATCH_SIZE / 2, sizes.get(1));
+    }
+
+    @Test
+    void shouldFailAfterTooManyTimeouts() {
+        final List<Integer> sizes = new ArrayList<>();
+        final SQLException e = assertThrows(SQLException.class, () -> Throttle.of(true).forEachBatch(ITEMS, batch -> {
+            sizes.add(batch.size());
+            throw new SQLException("canceling statement due to lock timeout", "55P03");
+        }));
+
+        assertEquals("55P03", e.getSQLState());
+        assertEquals(Throttle.MAX_RETRIES + 1, sizes.size());
+    }
+
+    @Test
+    void shouldNotRetryOtherErrors() {
+        final List<Integer> sizes = new ArrayList<>();
+        assertThrows(SQLException.class, () -> Throttle.of(true).forEachBatch(ITEMS, batch -> {
+            sizes.add(batch.size());
+            throw new SQLException("relation does not exist", "42P01");
+        }));
+
+        assertEquals(1, sizes.size());
+    }
+
+    @Test
+    void shouldDetectTimeoutsAmongCauses() {
+        assertTrue(Throttle.isTimeout(new SQLException("wrapped", "XX000", new SQLException("timeout", "57014"))));
+        assertFalse(Throttle.isTimeout(new SQLException("other", "42P01")));
+    }
+}
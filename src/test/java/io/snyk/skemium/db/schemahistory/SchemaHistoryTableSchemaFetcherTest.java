@@ -0,0 +1,157 @@
+package io.snyk.skemium.db.schemahistory;
+
+import io.debezium.config.Configuration;
+import io.debezium.document.DocumentWriter;
+import io.debezium.relational.Column;
+import io.debezium.relational.RelationalDatabaseConnectorConfig;
+import io.debezium.relational.Table;
+import io.debezium.relational.TableId;
+import io.debezium.relational.TableSchema;
+import io.debezium.relational.history.HistoryRecord;
+import io.debezium.relational.history.TableChanges;
+import io.snyk.skemium.avro.TableAvroSchemas;
+import io.snyk.skemium.db.DatabaseKind;
+import io.snyk.skemium.db.TableSchemaFetcher;
+import org.apache.avro.Schema;
+import org.apache.kafka.connect.data.Field;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaHistoryTableSchemaFetcherTest {
+    private static final String DB_NAME = "inventory";
+
+    // NOTE: Tables identified as `CATALOG.TABLE`, like the MySQL connector does
+    private static final TableId CUSTOMERS = new TableId("inventory", null, "customers");
+    private static final TableId ORDERS = new TableId("inventory", null, "orders");
+    private static final TableId PURCHASES = new TableId("inventory", null, "purchases");
+    private static final TableId TMP = new TableId("inventory", null, "tmp");
+
+    private static Table customers(final boolean withLoyalty) {
+        final var editor = Table.editor()
+                .tableId(CUSTOMERS)
+                .addColumns(
+                        Column.editor().name("id").jdbcType(Types.INTEGER).type("INT").position(1).optional(false).create(),
+                        Column.editor().name("name").jdbcType(Types.VARCHAR).type("VARCHAR").length(255).position(2).optional(false)
+                                .defaultValueExpression("'anonymous'").create(),
+                        Column.editor().name("email").jdbcType(Types.VARCHAR).type("VARCHAR").length(255).position(3).optional(true).create())
+                .setPrimaryKeyNames("id");
+        if (withLoyalty) {
+            editor.addColumn(Column.editor().name("loyalty").jdbcType(Types.INTEGER).type("INT").position(4).optional(false)
+                    .defaultValueExpression("0").create());
+        }
+        return editor.create();
+    }
+
+    private static Table orders(final TableId id) {
+        return Table.editor()
+                .tableId(id)
+                .addColumns(
+                        Column.editor().name("order_number").jdbcType(Types.BIGINT).type("BIGINT").position(1).optional(false).create(),
+                        Column.editor().name("purchaser").jdbcType(Types.INTEGER).type("INT").position(2).optional(false).create(),
+                        Column.editor().name("ordered_at").jdbcType(Types.TIMESTAMP).type("DATETIME").position(3).optional(true)
+                                .defaultValueExpression("CURRENT_TIMESTAMP").create())
+                .setPrimaryKeyNames("order_number")
+                .create();
+    }
+
+    private static String record(final String ddl, final TableChanges tableChanges) throws Exception {
+        return DocumentWriter.defaultWriter().write(new HistoryRecord(
+                Map.of("server", "dbserver1"),
+                Map.of("file", "mysql-bin.000003", "pos", 154),
+                DB_NAME,
+                null,
+                ddl,
+                tableChanges,
+                Instant.now()).document());
+    }
+
+    private static Path writeHistory(final Path dir) throws Exception {
+        final Path historyFile = dir.resolve("schema-history.dat");
+        try (final PrintWriter out = new PrintWriter(historyFile.toFile())) {
+            out.println(record("CREATE DATABASE inventory", null));
+            out.println(record("CREATE TABLE customers ...", new TableChanges().create(customers(false))));
+            out.println(record("CREATE TABLE orders ...", new TableChanges().create(orders(ORDERS))));
+            out.println(record("CREATE TABLE tmp ...", new TableChanges().create(orders(TMP))));
+            out.println();
+            out.println(record("ALTER TABLE customers ADD COLUMN loyalty ...", new TableChanges().alter(customers(true))));
+            out.println(record("RENAME TABLE orders TO purchases", new TableChanges().rename(orders(PURCHASES), ORDERS)));
+            out.println(record("DROP TABLE tmp", new TableChanges().drop(TMP)));
+        }
+        return historyFile;
+    }
+
+    private static Configuration configuration(final Path historyFile) {
+        return Configuration.create()
+                .with(SchemaHistoryTableSchemaFetcher.FILE_PATH, historyFile.toString())
+                .with(SchemaHistoryTableSchemaFetcher.APPROXIMATE, true)
+                .with(RelationalDatabaseConnectorConfig.DATABASE_NAME, DB_NAME)
+                .build();
+    }
+
+    @Test
+    void shouldRejectSchemaHistoryUnlessApproximateSchemasAreAccepted(@TempDir final Path tmpDir) throws Exception {
+        final Configuration config = configuration(writeHistory(tmpDir)).edit()
+                .with(SchemaHistoryTableSchemaFetcher.APPROXIMATE, false)
+                .build();
+
+        final IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> DatabaseKind.SCHEMA_HISTORY.fetcher(config));
+        assertTrue(e.getMessage().contains(SchemaHistoryTableSchemaFetcher.APPROXIMATE.name()));
+    }
+
+    @Test
+    void shouldReplaySchemaHistory(@TempDir final Path tmpDir) throws Exception {
+        try (final TableSchemaFetcher fetcher = DatabaseKind.SCHEMA_HISTORY.fetcher(configuration(writeHistory(tmpDir)))) {
+            final List<TableSchema> tableSchemas = fetcher.fetch(DB_NAME, null, null, null);
+            assertEquals(
+                    List.of("inventory.inventory.customers", "inventory.inventory.purchases"),
+                    tableSchemas.stream().map(ts -> ts.id().identifier()).toList());
+
+            final TableSchema customers = tableSchemas.getFirst();
+            assertEquals(List.of("id"), customers.keySchema().fields().stream().map(Field::name).toList());
+            assertEquals(List.of("id", "name", "email", "loyalty"), customers.valueSchema().fields().stream().map(Field::name).toList());
+            assertEquals("anonymous", customers.valueSchema().field("name").schema().defaultValue());
+            assertEquals(0, customers.valueSchema().field("loyalty").schema().defaultValue());
+
+            // Expressions that can't be evaluated are left without a default
+            final TableSchema purchases = tableSchemas.getLast();
+            assertNull(purchases.valueSchema().field("ordered_at").schema().defaultValue());
+            assertEquals(org.apache.kafka.connect.data.Schema.Type.INT64, purchases.valueSchema().field("order_number").schema().type());
+
+            // Same pipeline as for a live Database
+            final TableAvroSchemas avroSchemas = TableAvroSchemas.build(customers, DB_NAME);
+            assertEquals("inventory.inventory.customers", avroSchemas.identifier());
+            assertEquals(Schema.Type.INT, avroSchemas.valueSchema().getField("id").schema().getType());
+            assertNotNull(avroSchemas.envelopeSchema().getField("source"));
+        }
+    }
+
+    @Test
+    void shouldFilterTablesAndColumnsFromSchemaHistory(@TempDir final Path tmpDir) throws Exception {
+        try (final TableSchemaFetcher fetcher = DatabaseKind.SCHEMA_HISTORY.fetcher(configuration(writeHistory(tmpDir)))) {
+            final List<TableSchema> customers = fetcher.fetch(DB_NAME, Set.of("inventory"), Set.of("customers"), Set.of("inventory.customers.email"));
+            assertEquals(1, customers.size());
+            assertNull(customers.getFirst().valueSchema().field("email"));
+            assertNotNull(customers.getFirst().valueSchema().field("name"));
+
+            assertTrue(fetcher.fetch(DB_NAME, Set.of("other"), null, null).isEmpty());
+            assertThrows(IllegalArgumentException.class, () -> fetcher.fetch("other", null, null, null));
+
+            // Captures of a schema history produce the same schemas
+            try (final TableSchemaFetcher captureFetcher = DatabaseKind.SCHEMA_HISTORY.fetcher(fetcher.capture(DB_NAME, null, null))) {
+                assertEquals(
+                        fetcher.fetch(DB_NAME, null, null, null).stream().map(TableSchema::valueSchema).toList(),
+                        captureFetcher.fetch(DB_NAME, null, null, null).stream().map(TableSchema::valueSchema).toList());
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package io.snyk.skemium.helpers;
+
+import io.confluent.kafka.schemaregistry.CompatibilityLevel;
+import io.snyk.skemium.avro.TableAvroSchemas;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.shaded.org.apache.commons.io.FileUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompatibilityCacheTest {
+
+    Path CACHE_DIR;
+
+    @BeforeEach
+    public void createTempDir() throws IOException {
+        CACHE_DIR = Files.createTempDirectory("skemium-test-cache-");
+    }
+
+    @AfterEach
+    public void deleteTempDir() throws IOException {
+        FileUtils.deleteDirectory(CACHE_DIR.toFile());
+    }
+
+    @Test
+    void shouldStoreResultsPerVersion() throws IOException {
+        final CompatibilityCache cache = new CompatibilityCache(CACHE_DIR, 1024 * 1024, "1.0.0");
+        final List<Object> key = List.of("value", CompatibilityLevel.BACKWARD, "curr", "next");
+
+        assertEquals(Optional.empty(), cache.get(key, List.class));
+        cache.put(key, List.of("incompatibility"));
+        assertEquals(Optional.of(List.of("incompatibility")), cache.get(key, List.class));
+        assertEquals(Optional.empty(), cache.get(List.of("value", CompatibilityLevel.FORWARD, "curr", "next"), List.class));
+
+        // Results of other versions are not reused
+        final CompatibilityCache otherVersionCache = new CompatibilityCache(CACHE_DIR, 1024 * 1024, "1.1.0");
+        assertEquals(Optional.empty(), otherVersionCache.get(key, List.class));
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedEntries() throws IOException {
+        final CompatibilityCache cache = new CompatibilityCache(CACHE_DIR, 1024 * 1024, "1.0.0");
+        for (int i = 0; i < 10; i++) {
+            cache.put(List.of("keyChanged", "curr" + i, "next" + i), true);
+        }
+        assertEquals(0, cache.evict());
+
+        // Make entries look used in order, then read the oldest one
+        final List<Path> entries = listEntries();
+        for (int i = 0; i < entries.size(); i++) {
+            Files.setLastModifiedTime(entries.get(i), FileTime.from(Instant.now().minusSeconds(100 - i)));
+        }
+        final long entrySize = Files.size(entries.getFirst());
+        assertEquals(Optional.of(true), cache.get(List.of("keyChanged", "curr0", "next0"), Boolean.class));
+
+        // Bound the cache to 4 entries
+        final CompatibilityCache boundedCache = new CompatibilityCache(CACHE_DIR, entrySize * 4, "1.0.0");
+        assertEquals(6, boundedCache.evict());
+        assertEquals(4, listEntries().size());
+        assertEquals(Optional.of(true), boundedCache.get(List.of("keyChanged", "curr0", "next0"), Boolean.class));
+    }
+
+    @Test
+    void shouldReuseResultsAcrossMemos() throws IOException {
+        final Path dirPath = Path.of("src", "test", "resources", "schema_change-non_backward_compatible");
+        final TableAvroSchemas curr = TableAvroSchemas.loadFrom(dirPath.resolve("current"), "chinook.public.artist");
+        final TableAvroSchemas next = TableAvroSchemas.loadFrom(dirPath.resolve("next"), "chinook.public.artist");
+        final CompatibilityCache cache = new CompatibilityCache(CACHE_DIR, 1024 * 1024, "1.0.0");
+
+        final CompatibilityMemo firstRun = new CompatibilityMemo(cache);
+        final CompatibilityMemo.Result firstRes = firstRun.check(curr, next, CompatibilityLevel.BACKWARD);
+        assertEquals(0, firstRun.cacheHits());
+        assertEquals(6, firstRun.misses());
+
+        final CompatibilityMemo secondRun = new CompatibilityMemo(cache);
+        final CompatibilityMemo.Result secondRes = secondRun.check(curr, next, CompatibilityLevel.BACKWARD);
+        assertEquals(6, secondRun.cacheHits());
+        assertEquals(0, secondRun.misses());
+        assertEquals(firstRes, secondRes);
+    }
+
+    private List<Path> listEntries() throws IOException {
+        try (final Stream<Path> paths = Files.list(CACHE_DIR)) {
+            return paths.sorted().toList();
+        }
+    }
+}
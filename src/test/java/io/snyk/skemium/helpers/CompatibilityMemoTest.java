@@ -0,0 +1,67 @@
+package io.snyk.skemium.helpers;
+
+import io.confluent.kafka.schemaregistry.CompatibilityLevel;
+import io.snyk.skemium.avro.TableAvroSchemas;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompatibilityMemoTest {
+
+    @Test
+    void shouldCheckTablesWithTheSameSchemasOnce() throws IOException {
+        final Path dirPath = Path.of("src", "test", "resources", "schema_change-non_backward_compatible");
+        final TableAvroSchemas curr = TableAvroSchemas.loadFrom(dirPath.resolve("current"), "chinook.public.artist");
+        final TableAvroSchemas next = TableAvroSchemas.loadFrom(dirPath.resolve("next"), "chinook.public.artist");
+        final TableAvroSchemas currCopy = curr.withIdentifier("chinook.audit.artist_copy");
+        final TableAvroSchemas nextCopy = next.withIdentifier("chinook.audit.artist_copy");
+
+        final CompatibilityMemo memo = new CompatibilityMemo();
+
+        final CompatibilityMemo.Result res = memo.check(curr, next, CompatibilityLevel.BACKWARD);
+        assertEquals(0, memo.hits());
+        assertEquals(6, memo.misses());
+        assertEquals(SchemaRegistry.checkCompatibility(curr, next, CompatibilityLevel.BACKWARD), res.compatibilityResult());
+        assertEquals(SchemaRegistry.detectSchemaChanges(curr, next), res.changeResult());
+
+        // Same schemas, different table: every component is found in the memo
+        final CompatibilityMemo.Result copyRes = memo.check(currCopy, nextCopy, CompatibilityLevel.BACKWARD);
+        assertEquals(6, memo.hits());
+        assertEquals(6, memo.misses());
+        assertEquals(SchemaRegistry.checkCompatibility(currCopy, nextCopy, CompatibilityLevel.BACKWARD), copyRes.compatibilityResult());
+        assertEquals(SchemaRegistry.detectSchemaChanges(currCopy, nextCopy), copyRes.changeResult());
+
+        // Same schemas, different compatibility level: only the change detection is found in the memo
+        memo.check(curr, next, CompatibilityLevel.FORWARD);
+        assertEquals(9, memo.hits());
+        assertEquals(9, memo.misses());
+    }
+
+    @Test
+    void shouldEvaluateCompatibilityMatrix() throws IOException {
+        final Path dirPath = Path.of("src", "test", "resources", "schema_change-backward_compatible");
+        final TableAvroSchemas curr = TableAvroSchemas.loadFrom(dirPath.resolve("current"), "chinook.public.artist");
+        final TableAvroSchemas next = TableAvroSchemas.loadFrom(dirPath.resolve("next"), "chinook.public.artist");
+
+        final CompatibilityMemo memo = new CompatibilityMemo();
+        final CompatibilityMemo.Result res = memo.check(curr, next, CompatibilityLevel.BACKWARD, true);
+        assertNotNull(res.compatibilityMatrix());
+
+        // Matches checking each level separately
+        for (final CompatibilityLevel level : CompatibilityLevel.values()) {
+            assertEquals(SchemaRegistry.checkCompatibility(curr, next, level).isCompatible(), res.compatibilityMatrix().get(level), level.name());
+        }
+        assertTrue(res.compatibilityMatrix().get(CompatibilityLevel.BACKWARD));
+        assertFalse(res.compatibilityMatrix().get(CompatibilityLevel.FORWARD));
+        assertFalse(res.compatibilityMatrix().get(CompatibilityLevel.FULL));
+
+        // BACKWARD was checked once, for both the result and the matrix
+        assertEquals(3, memo.hits());
+        assertEquals(9, memo.misses());
+
+        assertNull(memo.check(curr, next, CompatibilityLevel.BACKWARD).compatibilityMatrix());
+    }
+}
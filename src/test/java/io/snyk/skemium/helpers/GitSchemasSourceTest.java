@@ -0,0 +1,126 @@
+package io.snyk.skemium.helpers;
+
+import io.snyk.skemium.avro.SchemasSource;
+import io.snyk.skemium.avro.StorageLayout;
+import io.snyk.skemium.avro.TableAvroSchemas;
+import io.snyk.skemium.meta.MetadataFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.shaded.org.apache.commons.io.FileUtils;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GitSchemasSourceTest {
+
+    Path TEMP_DIR;
+
+    @BeforeEach
+    public void createTempDir() throws IOException {
+        TEMP_DIR = Files.createTempDirectory("skemium-test-git-");
+    }
+
+    @AfterEach
+    public void deleteTempDir() throws IOException {
+        if (TEMP_DIR != null) {
+            FileUtils.deleteDirectory(TEMP_DIR.toFile());
+        }
+    }
+
+    @Test
+    void shouldReadSchemasFromGitRevision() throws Exception {
+        final Path dirPath = Path.of("src", "test", "resources", "schema_change-backward_compatible");
+        final TableAvroSchemas curr = TableAvroSchemas.loadFrom(dirPath.resolve("current"), "chinook.public.artist");
+        final TableAvroSchemas next = TableAvroSchemas.loadFrom(dirPath.resolve("next"), "chinook.public.artist");
+        final Path schemasDir = Files.createDirectories(TEMP_DIR.resolve("schemas"));
+
+        try (final org.eclipse.jgit.api.Git git = org.eclipse.jgit.api.Git.init().setDirectory(TEMP_DIR.toFile()).call()) {
+            // First commit: CURRENT schemas, in the compact layout (Envelope templates are read from Git too)
+            curr.saveTo(schemasDir, StorageLayout.COMPACT);
+            MetadataFile.build(List.of(), List.of(curr)).saveTo(schemasDir);
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("current").setSign(false).call();
+            git.tag().setName("v1").call();
+
+            // Second commit: NEXT schemas, left in the working tree
+            next.saveTo(schemasDir);
+            MetadataFile.build(List.of(), List.of(next)).saveTo(schemasDir);
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("next").setSign(false).call();
+        }
+
+        try (final SchemasSource source = GitSchemasSource.open(TEMP_DIR, "v1:schemas")) {
+            final MetadataFile meta = MetadataFile.loadFrom(source);
+            assertEquals(MetadataFile.build(List.of(), List.of(curr)).schemas(), meta.schemas());
+            assertEquals(curr, meta.loadTableAvroSchemas(source, "chinook.public.artist"));
+
+            assertTrue(source.exists(MetadataFile.FILENAME));
+            assertFalse(source.exists("missing.avsc"));
+            assertThrows(FileNotFoundException.class, () -> source.read("missing.avsc"));
+            assertEquals("v1:schemas/missing.avsc", source.locate("missing.avsc"));
+        }
+
+        try (final SchemasSource source = GitSchemasSource.open(TEMP_DIR.resolve("schemas"), "HEAD:schemas")) {
+            assertEquals(next, MetadataFile.loadFrom(source).loadTableAvroSchemas(source, "chinook.public.artist"));
+        }
+    }
+
+    @Test
+    void shouldDiffGitRevisions() throws Exception {
+        final Path dirPath = Path.of("src", "test", "resources", "schema_change-backward_compatible");
+        final TableAvroSchemas currArtist = TableAvroSchemas.loadFrom(dirPath.resolve("current"), "chinook.public.artist");
+        final TableAvroSchemas nextArtist = TableAvroSchemas.loadFrom(dirPath.resolve("next"), "chinook.public.artist");
+        final TableAvroSchemas employee = TableAvroSchemas.loadFrom(Path.of("src", "test", "resources", "schema_employee"), "chinook.public.employee");
+        final Path schemasDir = Files.createDirectories(TEMP_DIR.resolve("schemas"));
+
+        try (final org.eclipse.jgit.api.Git git = org.eclipse.jgit.api.Git.init().setDirectory(TEMP_DIR.toFile()).call()) {
+            currArtist.saveTo(schemasDir);
+            employee.saveTo(schemasDir);
+            MetadataFile.build(List.of(), List.of(currArtist, employee)).saveTo(schemasDir);
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("current").setSign(false).call();
+            git.tag().setName("v1").call();
+
+            nextArtist.saveTo(schemasDir);
+            MetadataFile.build(List.of(), List.of(nextArtist, employee)).saveTo(schemasDir);
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("next").setSign(false).call();
+        }
+
+        try (final GitSchemasSource curr = GitSchemasSource.open(TEMP_DIR, "v1:schemas");
+             final GitSchemasSource next = GitSchemasSource.open(TEMP_DIR, "HEAD:schemas");
+             final GitSchemasSource same = GitSchemasSource.open(TEMP_DIR, "v1:schemas")) {
+            assertTrue(curr.isSameRepository(next));
+
+            final Set<String> changed = curr.diff(next);
+            assertTrue(changed.contains(MetadataFile.FILENAME));
+            assertTrue(changed.containsAll(TableAvroSchemas.filenames("chinook.public.artist").subList(1, 4)));
+            assertFalse(changed.contains(TableAvroSchemas.filenames("chinook.public.artist").get(0)));
+            assertTrue(TableAvroSchemas.filenames("chinook.public.employee").stream().noneMatch(changed::contains));
+
+            assertEquals(Set.of(), curr.diff(same));
+        }
+    }
+
+    @Test
+    void shouldFailOnInvalidLocations() throws Exception {
+        try (final org.eclipse.jgit.api.Git git = org.eclipse.jgit.api.Git.init().setDirectory(TEMP_DIR.toFile()).call()) {
+            Files.writeString(TEMP_DIR.resolve("README.md"), "test");
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("init").setSign(false).call();
+        }
+
+        assertTrue(GitSchemasSource.isGitLocation("main:schemas"));
+        assertFalse(GitSchemasSource.isGitLocation("schemas"));
+        assertThrows(IOException.class, () -> GitSchemasSource.open(TEMP_DIR, "missing:schemas"));
+        assertThrows(IOException.class, () -> GitSchemasSource.open(TEMP_DIR, "HEAD:missing"));
+        assertThrows(IOException.class, () -> GitSchemasSource.open(TEMP_DIR, "HEAD:README.md"));
+    }
+}
@@ -0,0 +1,66 @@
+package io.snyk.skemium.helpers;
+
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.shaded.org.apache.commons.io.FileUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class GitTest {
+
+    Path TEMP_DIR;
+
+    @BeforeEach
+    public void createTempDir() throws IOException {
+        TEMP_DIR = Files.createTempDirectory("skemium-test-git-");
+    }
+
+    @AfterEach
+    public void deleteTempDir() throws IOException {
+        if (TEMP_DIR != null) {
+            FileUtils.deleteDirectory(TEMP_DIR.toFile());
+        }
+    }
+
+    @Test
+    void shouldFindTagOfCurrentCommit() throws Exception {
+        try (final org.eclipse.jgit.api.Git git = org.eclipse.jgit.api.Git.init().setDirectory(TEMP_DIR.toFile()).setInitialBranch("main").call()) {
+            Files.writeString(TEMP_DIR.resolve("README.md"), "v1");
+            git.add().addFilepattern(".").call();
+            final RevCommit first = git.commit().setMessage("v1").setSign(false).call();
+            git.tag().setName("v1").setAnnotated(true).setMessage("v1").setSigned(false).call();
+
+            // No tag on the current commit
+            Files.writeString(TEMP_DIR.resolve("README.md"), "v2");
+            git.add().addFilepattern(".").call();
+            final RevCommit second = git.commit().setMessage("v2").setSign(false).call();
+            assertEquals(new Git.GitInfo(second.getName(), "main", null), Git.getInfo(TEMP_DIR));
+
+            // Loose, lightweight tag
+            git.tag().setName("v2-light").setAnnotated(false).call();
+            assertEquals(new Git.GitInfo(second.getName(), "main", "refs/tags/v2-light"), Git.getInfo(TEMP_DIR));
+
+            // Packed, annotated tag: peeled via `packed-refs`
+            git.packRefs().setAll(true).call();
+            git.checkout().setName(first.getName()).call();
+            final Git.GitInfo info = Git.tryGetInfoAsync(TEMP_DIR).join();
+            assertEquals(first.getName(), info.commit());
+            assertEquals("refs/tags/v1", info.tag());
+        }
+    }
+
+    @Test
+    void shouldReturnEmptyInfoOutsideOfRepository() {
+        final Git.GitInfo info = Git.tryGetInfoAsync(TEMP_DIR.resolve("missing")).join();
+        assertNull(info.commit());
+        assertNull(info.branch());
+        assertNull(info.tag());
+    }
+}
@@ -0,0 +1,114 @@
+package io.snyk.skemium.helpers;
+
+import io.confluent.kafka.schemaregistry.CompatibilityLevel;
+import io.snyk.skemium.CompareResult;
+import io.snyk.skemium.avro.SchemasSource;
+import io.snyk.skemium.avro.TableAvroSchemas;
+import io.snyk.skemium.meta.MetadataFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.shaded.org.apache.commons.io.FileUtils;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistoryStoreTest {
+
+    Path TEMP_DIR;
+
+    @BeforeEach
+    public void createTempDir() throws IOException {
+        TEMP_DIR = Files.createTempDirectory("skemium-test-history-");
+    }
+
+    @AfterEach
+    public void deleteTempDir() throws IOException {
+        if (TEMP_DIR != null) {
+            FileUtils.deleteDirectory(TEMP_DIR.toFile());
+        }
+    }
+
+    private Path saveSnapshot(final String name, final List<TableAvroSchemas> tables) throws IOException {
+        final Path dir = Files.createDirectories(TEMP_DIR.resolve(name));
+        for (final TableAvroSchemas tas : tables) {
+            tas.saveTo(dir);
+        }
+        MetadataFile.build(List.of(), tables).saveTo(dir);
+        return dir;
+    }
+
+    @Test
+    void shouldStoreOnlyChangedTables() throws IOException {
+        final Path dirPath = Path.of("src", "test", "resources", "schema_change-non_backward_compatible");
+        final TableAvroSchemas currArtist = TableAvroSchemas.loadFrom(dirPath.resolve("current"), "chinook.public.artist");
+        final TableAvroSchemas nextArtist = TableAvroSchemas.loadFrom(dirPath.resolve("next"), "chinook.public.artist");
+        final TableAvroSchemas employee = TableAvroSchemas.loadFrom(Path.of("src", "test", "resources", "schema_employee"), "chinook.public.employee");
+
+        final HistoryStore store = new HistoryStore(TEMP_DIR.resolve("store"));
+        assertEquals(List.of(), store.snapshots());
+
+        assertEquals(2, store.ingest(saveSnapshot("v1", List.of(currArtist, employee)), "v1").tablesAdded());
+        assertEquals(1, store.ingest(saveSnapshot("v2", List.of(nextArtist, employee)), "v2").tablesAdded());
+        // Back to a previous version: already stored
+        assertEquals(0, store.ingest(saveSnapshot("v3", List.of(currArtist, employee)), "v3").tablesAdded());
+        assertEquals(List.of("v1", "v2", "v3"), store.snapshots().stream().map(HistoryStore.Snapshot::id).toList());
+        try (final Stream<Path> objects = Files.list(TEMP_DIR.resolve("store").resolve("objects"))) {
+            assertEquals(3, objects.count());
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> store.ingest(TEMP_DIR.resolve("v1"), "v1"));
+        assertThrows(IllegalArgumentException.class, () -> store.ingest(TEMP_DIR.resolve("v1"), "../v1"));
+
+        // Read back each snapshot, and each table version
+        try (final SchemasSource source = store.source("v2")) {
+            final MetadataFile meta = MetadataFile.loadFrom(source);
+            assertEquals(Set.of("chinook.public.artist", "chinook.public.employee"), meta.getTableIdentifiers());
+            assertEquals(nextArtist, meta.loadTableAvroSchemas(source, "chinook.public.artist"));
+            assertEquals(employee, meta.loadTableAvroSchemas(source, "chinook.public.employee"));
+            assertFalse(source.exists("chinook.public.missing.val.avsc"));
+        }
+        assertThrows(FileNotFoundException.class, () -> store.source("v4"));
+
+        // Materialize a single table version
+        final Path outputDir = TEMP_DIR.resolve("output");
+        final MetadataFile materialized = store.materialize("v1", outputDir, Set.of("chinook.public.artist"));
+        assertEquals(Set.of("chinook.public.artist"), materialized.getTableIdentifiers());
+        assertEquals(currArtist, MetadataFile.loadFrom(outputDir).loadTableAvroSchemas(outputDir, "chinook.public.artist"));
+        assertFalse(Files.exists(outputDir.resolve("chinook.public.employee.val.avsc")));
+    }
+
+    @Test
+    void shouldCompareSnapshots() throws IOException {
+        final Path dirPath = Path.of("src", "test", "resources", "schema_change-non_backward_compatible");
+        final Path storeDir = TEMP_DIR.resolve("store");
+        final HistoryStore store = new HistoryStore(storeDir);
+        store.ingest(dirPath.resolve("current"), "v1");
+        store.ingest(dirPath.resolve("next"), "v2");
+
+        assertTrue(HistoryStore.isHistoryLocation("history:v1"));
+        assertFalse(HistoryStore.isHistoryLocation("history:"));
+        assertFalse(HistoryStore.isHistoryLocation("main:schemas"));
+
+        final CompareResult fromDirs = CompareResult.build(dirPath.resolve("current"), dirPath.resolve("next"), CompatibilityLevel.BACKWARD);
+        final CompareResult fromHistory = CompareResult.build(
+                Path.of(HistoryStore.LOCATION_PREFIX + storeDir + ":v1"),
+                Path.of(HistoryStore.LOCATION_PREFIX + storeDir + ":v2"),
+                CompatibilityLevel.BACKWARD);
+        assertTrue(fromHistory.incompatibilitiesTotal() > 0);
+        assertEquals(fromDirs.incompatibilitiesTotal(), fromHistory.incompatibilitiesTotal());
+        assertEquals(fromDirs.valueIncompatibilities(), fromHistory.valueIncompatibilities());
+        assertEquals(Map.of("chinook.public.artist", true), fromHistory.valueSchemaChanged());
+    }
+}